@@ -0,0 +1,71 @@
+package com.miempresa.analytics.benchmark;
+
+import com.miempresa.analytics.dto.UIEventRequest;
+import com.miempresa.analytics.dto.UIEventResponse;
+import com.miempresa.analytics.dto.UIMonthlyStat;
+import com.miempresa.analytics.model.UIEvent;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Datos de prueba compartidos por los benchmarks, con la forma de los
+ * eventos que envían los SDKs de frontend.
+ */
+final class BenchmarkData {
+
+    static final String[] TYPES = {"WEB", "KIOSK", "MOBILE", "ADMIN"};
+    static final String[] APPS = {"PUESTO_001", "KIOSK_CEDIS", "SEPOMEX_WEB_V2"};
+    static final String[] ROUTES = {"/pago", "/inicio", "/carrito", "/perfil"};
+
+    private BenchmarkData() {
+    }
+
+    static UIEventRequest request(int i) {
+        UIEventRequest request = new UIEventRequest();
+        request.setType(TYPES[i % TYPES.length]);
+        request.setAppId(APPS[i % APPS.length]);
+        request.setElementId("BTN_" + (i % 50));
+        request.setElementType("button");
+        request.setRoute(ROUTES[i % ROUTES.length]);
+        request.setUserId("user" + (i % 1000));
+        request.setMetadataJson("{\"sessionId\": \"abc" + i + "\"}");
+        request.setCoordinateX(150 + i % 300);
+        request.setCoordinateY(300 + i % 200);
+        request.setScreenWidth(1920);
+        request.setScreenHeight(1080);
+        request.setCreatedAt("2024-01-15T10:30:00");
+        return request;
+    }
+
+    static UIEvent event(int i, LocalDateTime createdAt) {
+        UIEventRequest r = request(i);
+        return new UIEvent(r.getType(), r.getAppId(), r.getElementId(), r.getElementType(), r.getRoute(),
+                r.getUserId(), r.getMetadataJson(), r.getCoordinateX(), r.getCoordinateY(),
+                r.getScreenWidth(), r.getScreenHeight(), createdAt);
+    }
+
+    static List<UIEventResponse> responses(int count) {
+        List<UIEventResponse> responses = new ArrayList<>(count);
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 15, 10, 30);
+        for (int i = 0; i < count; i++) {
+            UIEvent e = event(i, createdAt.plusSeconds(i));
+            responses.add(new UIEventResponse((long) i, e.getType(), e.getAppId(), e.getElementId(),
+                    e.getElementType(), e.getRoute(), e.getUserId(), e.getMetadata(), e.getCoordinateX(),
+                    e.getCoordinateY(), e.getScreenWidth(), e.getScreenHeight(), e.getCreatedAt()));
+        }
+        return responses;
+    }
+
+    static List<UIMonthlyStat> monthlyStats(int count) {
+        List<UIMonthlyStat> stats = new ArrayList<>(count);
+        LocalDate month = LocalDate.of(2024, 1, 1);
+        for (int i = 0; i < count; i++) {
+            stats.add(new UIMonthlyStat("BTN_" + (i % 50), TYPES[i % TYPES.length],
+                    month.minusMonths(i / 200), 1000L - i));
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,131 @@
+package com.miempresa.analytics.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miempresa.analytics.model.UIEvent;
+import com.miempresa.analytics.repository.UIDimensionDictionaryRepository;
+import com.miempresa.analytics.repository.UIEventJdbcRepository;
+import com.miempresa.analytics.service.DimensionDictionary;
+import com.miempresa.analytics.service.MetadataKeyExtractor;
+import com.miempresa.analytics.service.UIEventBatchWriter;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Base H2 embebida en modo MySQL con el esquema de ui_events y sus agregados,
+ * para los benchmarks de repositorio.
+ */
+final class EmbeddedDatabase {
+
+    static final LocalDateTime SEED_START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private final SingleConnectionDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final UIEventBatchWriter batchWriter;
+    private EntityManagerFactory entityManagerFactory;
+
+    EmbeddedDatabase(String name) {
+        // Una sola conexión reutilizada: abrir conexiones no debe contaminar la medición
+        dataSource = new SingleConnectionDataSource(
+                "jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=MONTH,VALUE,HOUR,DAY;DB_CLOSE_DELAY=-1",
+                "sa", "", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        createSchema();
+        DimensionDictionary dictionary = new DimensionDictionary(new UIDimensionDictionaryRepository(jdbcTemplate), null);
+        dictionary.load();
+        // Sin claves de metadata indexadas, como en la configuración por defecto
+        batchWriter = new UIEventBatchWriter(new UIEventJdbcRepository(jdbcTemplate, 1000), dictionary,
+                new MetadataKeyExtractor(new ObjectMapper(), "", 100),
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)), Collections.emptyList());
+    }
+
+    JdbcTemplate jdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    /**
+     * Repositorio Spring Data de la aplicación sobre esta base, con Hibernate
+     * y las entidades de model; las consultas son las mismas que corre el
+     * servicio. Sin transacción, como las lecturas de solo lectura.
+     */
+    <T> T repository(Class<T> repositoryInterface) {
+        if (entityManagerFactory == null) {
+            LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+            factory.setDataSource(dataSource);
+            factory.setPackagesToScan(UIEvent.class.getPackage().getName());
+            factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            factory.setJpaPropertyMap(Collections.singletonMap("hibernate.dialect", "org.hibernate.dialect.H2Dialect"));
+            factory.afterPropertiesSet();
+            entityManagerFactory = factory.getObject();
+        }
+        return new JpaRepositoryFactory(SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory))
+                .getRepository(repositoryInterface);
+    }
+
+    void write(List<UIEvent> events) {
+        batchWriter.write(events);
+    }
+
+    /**
+     * Inserta eventos consecutivos, uno por minuto desde SEED_START.
+     */
+    void seed(int events) {
+        List<UIEvent> chunk = new ArrayList<>();
+        for (int i = 0; i < events; i++) {
+            chunk.add(BenchmarkData.event(i, SEED_START.plusMinutes(i)));
+            if (chunk.size() == 1000) {
+                write(chunk);
+                chunk.clear();
+            }
+        }
+        write(chunk);
+    }
+
+    void drop() {
+        if (entityManagerFactory != null) {
+            entityManagerFactory.close();
+        }
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    private void createSchema() {
+        jdbcTemplate.execute("CREATE TABLE ui_events (" +
+                "id BIGINT AUTO_INCREMENT PRIMARY KEY, type_code INT NOT NULL, app_code INT, " +
+                "element_id VARCHAR(100) NOT NULL, element_type_code INT, route_code INT, " +
+                "user_id VARCHAR(100), metadata TEXT, coordinate_x INT, coordinate_y INT, " +
+                "screen_width INT, screen_height INT, created_at DATETIME NOT NULL)");
+        jdbcTemplate.execute("CREATE INDEX idx_ui_events_created_at_id ON ui_events (created_at, id)");
+        jdbcTemplate.execute("CREATE INDEX idx_ui_events_app_created_at ON ui_events (app_code, created_at)");
+        jdbcTemplate.execute("CREATE INDEX idx_ui_events_element_type_created_at ON ui_events (element_id, type_code, created_at)");
+        jdbcTemplate.execute("CREATE TABLE ui_dimension_dictionary (" +
+                "id INT AUTO_INCREMENT PRIMARY KEY, dimension VARCHAR(20) NOT NULL, dim_value VARCHAR(255) NOT NULL, " +
+                "CONSTRAINT uk_ui_dimension_dictionary_value UNIQUE (dimension, dim_value))");
+        jdbcTemplate.execute("CREATE TABLE ui_event_monthly_rollup (" +
+                "element_id VARCHAR(100) NOT NULL, type VARCHAR(50) NOT NULL, month DATE NOT NULL, " +
+                "total_clicks BIGINT NOT NULL, PRIMARY KEY (element_id, type, month))");
+        jdbcTemplate.execute("CREATE TABLE ui_event_hourly_rollup (" +
+                "element_id VARCHAR(100) NOT NULL, type VARCHAR(50) NOT NULL, hour DATETIME NOT NULL, " +
+                "total_clicks BIGINT NOT NULL, PRIMARY KEY (element_id, type, hour))");
+        jdbcTemplate.execute("CREATE TABLE ui_event_daily_rollup (" +
+                "element_id VARCHAR(100) NOT NULL, type VARCHAR(50) NOT NULL, day DATE NOT NULL, " +
+                "total_clicks BIGINT NOT NULL, PRIMARY KEY (element_id, type, day))");
+        jdbcTemplate.execute("CREATE TABLE ui_event_metadata (" +
+                "event_id BIGINT NOT NULL, meta_key VARCHAR(50) NOT NULL, meta_value VARCHAR(100) NOT NULL, " +
+                "created_at DATETIME NOT NULL, element_id VARCHAR(100) NOT NULL, type_code INT NOT NULL, " +
+                "PRIMARY KEY (event_id, meta_key))");
+        jdbcTemplate.execute("CREATE INDEX idx_ui_event_metadata_key_value_created_at ON ui_event_metadata " +
+                "(meta_key, meta_value, created_at, element_id, type_code)");
+        jdbcTemplate.execute("CREATE INDEX idx_ui_event_metadata_created_at ON ui_event_metadata (created_at)");
+    }
+}
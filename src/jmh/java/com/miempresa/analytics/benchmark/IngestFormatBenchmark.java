@@ -0,0 +1,91 @@
+package com.miempresa.analytics.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miempresa.analytics.dto.UIEventRequest;
+import com.miempresa.analytics.util.UIEventStreamReader;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de parseo de la ingesta en JSON, Smile y CBOR: un UIEventRequest
+ * como lo lee POST /v1/events (@RequestBody) y un lote de BATCH_SIZE como lo
+ * lee POST /v1/events/batch (UIEventStreamReader). Los ObjectMapper se crean
+ * como los de la aplicación.
+ *
+ * Los resultados secundarios eventBytes y batchBytes son el tamaño en bytes
+ * del evento y del lote en el formato medido, para comparar en
+ * jmh-result.json los bytes en la red con los de JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IngestFormatBenchmark {
+
+    // Tamaño típico de un lote de los SDKs
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"json", "smile", "cbor"})
+    public String format;
+
+    private ObjectMapper mapper;
+    private byte[] event;
+    private byte[] batch;
+
+    @Setup
+    public void setup() throws Exception {
+        switch (format) {
+            case "smile":
+                mapper = Jackson2ObjectMapperBuilder.smile().build();
+                break;
+            case "cbor":
+                mapper = Jackson2ObjectMapperBuilder.cbor().build();
+                break;
+            default:
+                mapper = Jackson2ObjectMapperBuilder.json().build();
+        }
+        List<UIEventRequest> requests = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            requests.add(BenchmarkData.request(i));
+        }
+        event = mapper.writeValueAsBytes(requests.get(0));
+        batch = mapper.writeValueAsBytes(requests);
+    }
+
+    /**
+     * Tamaños del formato como resultados secundarios; son constantes, por lo
+     * que cada invocación los asigna en lugar de acumularlos.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+
+        public long eventBytes;
+        public long batchBytes;
+    }
+
+    @Benchmark
+    public UIEventRequest parseEvent(PayloadSize size) throws Exception {
+        size.eventBytes = event.length;
+        size.batchBytes = batch.length;
+        return mapper.readValue(event, UIEventRequest.class);
+    }
+
+    @Benchmark
+    public void parseBatch(PayloadSize size, Blackhole blackhole) throws Exception {
+        size.eventBytes = event.length;
+        size.batchBytes = batch.length;
+        try (UIEventStreamReader reader = UIEventStreamReader.forArray(mapper, new ByteArrayInputStream(batch),
+                format)) {
+            UIEventStreamReader.Record record;
+            while ((record = reader.next()) != null) {
+                blackhole.consume(record.getRequest());
+            }
+        }
+    }
+}
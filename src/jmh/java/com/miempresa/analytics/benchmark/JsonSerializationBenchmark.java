@@ -0,0 +1,47 @@
+package com.miempresa.analytics.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miempresa.analytics.dto.ApiResponse;
+import com.miempresa.analytics.dto.PageResponse;
+import com.miempresa.analytics.dto.UIEventResponse;
+import com.miempresa.analytics.dto.UIMonthlyStat;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización Jackson de las respuestas de lectura, con un ObjectMapper
+ * configurado igual que el de Spring Boot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonSerializationBenchmark {
+
+    // Tamaño máximo de página de GET /v1/events
+    private static final int PAGE_SIZE = 100;
+    private static final int STAT_ROWS = 1000;
+
+    private ObjectMapper objectMapper;
+    private ApiResponse<PageResponse<UIEventResponse>> page;
+    private List<UIMonthlyStat> stats;
+
+    @Setup
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        page = ApiResponse.success(new PageResponse<>(BenchmarkData.responses(PAGE_SIZE), 0, PAGE_SIZE, 150_000L));
+        stats = BenchmarkData.monthlyStats(STAT_ROWS);
+    }
+
+    @Benchmark
+    public byte[] eventPage() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] monthlyStats() throws Exception {
+        return objectMapper.writeValueAsBytes(ApiResponse.success(stats));
+    }
+}
@@ -0,0 +1,51 @@
+package com.miempresa.analytics.benchmark;
+
+import com.miempresa.analytics.security.VerifiedTokenCache;
+import com.miempresa.analytics.util.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parseo y validación de JWT: verificación completa de la firma frente a un
+ * token resuelto desde VerifiedTokenCache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JwtBenchmark {
+
+    private static final String SECRET = "mySecretKeyForJWTTokenGenerationMustBeAtLeast256BitsLongForHS256Algorithm";
+
+    private JwtUtil cachedJwtUtil;
+    private JwtUtil uncachedJwtUtil;
+    private UserDetails user;
+    private String token;
+
+    @Setup
+    public void setup() {
+        cachedJwtUtil = new JwtUtil(SECRET, 86400000L, new VerifiedTokenCache(10000), new SimpleMeterRegistry());
+        // max-entries = 0 deshabilita la cache: cada llamada verifica la firma
+        uncachedJwtUtil = new JwtUtil(SECRET, 86400000L, new VerifiedTokenCache(0), new SimpleMeterRegistry());
+        user = User.withUsername("analytics_user_dev").password("x").roles("USER").build();
+        token = cachedJwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return uncachedJwtUtil.extractUsername(token);
+    }
+
+    @Benchmark
+    public Boolean validateTokenUncached() {
+        return uncachedJwtUtil.validateToken(token, user);
+    }
+
+    @Benchmark
+    public Boolean validateTokenCached() {
+        return cachedJwtUtil.validateToken(token, user);
+    }
+}
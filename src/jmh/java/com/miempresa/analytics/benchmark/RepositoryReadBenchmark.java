@@ -0,0 +1,56 @@
+package com.miempresa.analytics.benchmark;
+
+import com.miempresa.analytics.model.UIEvent;
+import com.miempresa.analytics.model.UIEventMonthlyRollup;
+import com.miempresa.analytics.repository.UIEventMonthlyRollupRepository;
+import com.miempresa.analytics.repository.UIEventRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lecturas de GET /v1/events (página keyset) y GET /v1/stats/monthly
+ * (tabla de agregados) contra una base embebida con 50.000 eventos, con los
+ * repositorios Spring Data que usa UIEventServiceImpl.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RepositoryReadBenchmark {
+
+    private static final int SEED_EVENTS = 50_000;
+
+    private EmbeddedDatabase database;
+    private UIEventRepository eventRepository;
+    private UIEventMonthlyRollupRepository rollupRepository;
+    private LocalDateTime pageStart;
+
+    @Setup
+    public void setup() {
+        database = new EmbeddedDatabase("read");
+        database.seed(SEED_EVENTS);
+        eventRepository = database.repository(UIEventRepository.class);
+        rollupRepository = database.repository(UIEventMonthlyRollupRepository.class);
+        pageStart = EmbeddedDatabase.SEED_START.plusMinutes(SEED_EVENTS / 2);
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.drop();
+    }
+
+    @Benchmark
+    public List<UIEvent> keysetPage() {
+        // Página de 100 más el registro extra que lee getEventsByCursor
+        return eventRepository.findPageBefore(pageStart, Long.MAX_VALUE, PageRequest.of(0, 101));
+    }
+
+    @Benchmark
+    public List<UIEventMonthlyRollup> monthlyRollup() {
+        // GET /v1/stats/monthly sin filtros
+        return rollupRepository.findFiltered(null, null, null);
+    }
+}
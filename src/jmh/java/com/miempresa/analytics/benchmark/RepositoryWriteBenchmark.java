@@ -0,0 +1,43 @@
+package com.miempresa.analytics.benchmark;
+
+import com.miempresa.analytics.model.UIEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ruta de escritura por lotes (INSERT de eventos + upsert del agregado
+ * mensual en una transacción) contra una base embebida.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RepositoryWriteBenchmark {
+
+    @Param({"1", "100", "500"})
+    public int batchSize;
+
+    private EmbeddedDatabase database;
+    private List<UIEvent> batch;
+
+    @Setup
+    public void setup() {
+        database = new EmbeddedDatabase("write");
+        batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            batch.add(BenchmarkData.event(i, EmbeddedDatabase.SEED_START.plusMinutes(i)));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.drop();
+    }
+
+    @Benchmark
+    public void writeBatch() {
+        database.write(batch);
+    }
+}
@@ -0,0 +1,126 @@
+package com.miempresa.analytics.benchmark;
+
+import com.miempresa.analytics.service.RequestExecutor;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 10.000 clientes concurrentes: un hilo de Tomcat por petición (pool de 200,
+ * el máximo por defecto) frente a RequestExecutor con hilos de plataforma o
+ * virtuales. Cada petición retiene una conexión de un pool simulado
+ * (connections permisos, como Hikari) durante latencyMicros.
+ *
+ * El tiempo reportado es lo que tardan en completarse las 10.000 peticiones;
+ * el resultado secundario peakThreads es el máximo de hilos vivos de la JVM
+ * en cada iteración (promediado entre iteraciones en jmh-result.json).
+ * Con 10 conexiones el pool de la base limita el throughput en todos los
+ * modos y la diferencia está en los hilos; con conexiones suficientes se ve
+ * también el límite de cada ejecutor. virtual requiere JDK 21+: en JDK
+ * anteriores ese modo falla en el setup y no aparece en los resultados.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RequestConcurrencyBenchmark {
+
+    private static final int CLIENTS = 10_000;
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    @Param({"tomcat", "platform", "virtual"})
+    public String mode;
+
+    @Param({"10", "10000"})
+    public int connections;
+
+    @Param({"1000"})
+    public int latencyMicros;
+
+    private ExecutorService tomcatPool;
+    private RequestExecutor requestExecutor;
+    private Semaphore connectionPool;
+    private long latencyNanos;
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    @Setup
+    public void setup() throws InterruptedException {
+        connectionPool = new Semaphore(connections);
+        latencyNanos = TimeUnit.MICROSECONDS.toNanos(latencyMicros);
+        switch (mode) {
+            case "tomcat":
+                tomcatPool = Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+                break;
+            case "platform":
+                // Configuración por defecto: 50 hilos, con cola para todos los clientes
+                requestExecutor = new RequestExecutor(true, 50, CLIENTS, false);
+                break;
+            default:
+                requestExecutor = new RequestExecutor(true, 50, CLIENTS, true);
+                if (!requestExecutor.usesVirtualThreads()) {
+                    // Con hilos de plataforma el resultado quedaría etiquetado como virtual
+                    requestExecutor.shutdown();
+                    throw new IllegalStateException("Virtual threads require JDK 21+; skipping mode=virtual");
+                }
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetPeakThreads() {
+        threads.resetPeakThreadCount();
+    }
+
+    /**
+     * Pico de hilos de la iteración como resultado secundario. JMH no
+     * reinicia los contadores entre iteraciones: se hace en reset().
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ThreadCounters {
+
+        public long peakThreads;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            peakThreads = 0;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        if (tomcatPool != null) {
+            tomcatPool.shutdownNow();
+        }
+        if (requestExecutor != null) {
+            requestExecutor.shutdown();
+        }
+    }
+
+    @Benchmark
+    public void concurrentClients(ThreadCounters counters) {
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            responses[i] = tomcatPool != null
+                    ? CompletableFuture.supplyAsync(this::handle, tomcatPool)
+                    : requestExecutor.submit(this::handle);
+        }
+        CompletableFuture.allOf(responses).join();
+        counters.peakThreads = Math.max(counters.peakThreads, threads.getPeakThreadCount());
+    }
+
+    private Integer handle() {
+        connectionPool.acquireUninterruptibly();
+        try {
+            LockSupport.parkNanos(latencyNanos);
+        } finally {
+            connectionPool.release();
+        }
+        return 1;
+    }
+}
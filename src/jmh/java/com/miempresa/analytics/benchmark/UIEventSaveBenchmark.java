@@ -0,0 +1,74 @@
+package com.miempresa.analytics.benchmark;
+
+import com.miempresa.analytics.dto.UIEventRequest;
+import com.miempresa.analytics.model.UIEvent;
+import com.miempresa.analytics.service.EventCountEstimator;
+import com.miempresa.analytics.service.IngestLoadShedder;
+import com.miempresa.analytics.service.IngestMetrics;
+import com.miempresa.analytics.service.IngestRateLimiter;
+import com.miempresa.analytics.service.UIEventBatchWriter;
+import com.miempresa.analytics.service.UIEventServiceImpl;
+import com.miempresa.analytics.service.UIEventWriteAheadLog;
+import com.miempresa.analytics.service.UIEventWriteQueue;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de CPU de UIEventServiceImpl.save sin base de datos: Bean Validation
+ * del request, validación manual y mapeo a la entidad. La escritura se
+ * reemplaza por un escritor que solo consume el lote.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UIEventSaveBenchmark {
+
+    private UIEventServiceImpl service;
+    private Validator validator;
+    private UIEventRequest[] requests;
+    private int next;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        validator = Validation.buildDefaultValidatorFactory().getValidator();
+        UIEventBatchWriter writer = new UIEventBatchWriter(null, null, null, null, null) {
+            @Override
+            public void write(List<UIEvent> events) {
+                blackhole.consume(events);
+            }
+        };
+        UIEventWriteQueue disabledQueue = new UIEventWriteQueue(writer, false, 1, 1, 1, 1, 1);
+        UIEventWriteAheadLog disabledLog = new UIEventWriteAheadLog(writer, false, "", 1, 1, "always", 1, 1, 1);
+        service = new UIEventServiceImpl(null, null, null, writer, disabledQueue, disabledLog,
+                new IngestRateLimiter(false, 1, 1, 1, ""),
+                new IngestLoadShedder(writer, disabledQueue, disabledLog, false, 1, 1, 1),
+                new EventCountEstimator(null, 0), null, null, null, validator, new IngestMetrics(new SimpleMeterRegistry(), 100, 50), 10000, 500);
+
+        requests = new UIEventRequest[1024];
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = BenchmarkData.request(i);
+        }
+    }
+
+    private UIEventRequest nextRequest() {
+        return requests[next++ & (requests.length - 1)];
+    }
+
+    @Benchmark
+    public void save() {
+        service.save(nextRequest());
+    }
+
+    @Benchmark
+    public void validateAndSave(Blackhole blackhole) {
+        UIEventRequest request = nextRequest();
+        blackhole.consume(validator.validate(request));
+        service.save(request);
+    }
+}
@@ -0,0 +1,36 @@
+package com.miempresa.analytics.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Formatos binarios de Jackson para la ingesta: Smile
+ * (application/x-jackson-smile) y CBOR (application/cbor), elegidos por
+ * Content-Type.
+ *
+ * Los ObjectMapper se crean con el Jackson2ObjectMapperBuilder de Spring
+ * Boot, así que aceptan los mismos campos y tipos que el JSON. Los
+ * convertidores reemplazan a los que Spring MVC registra por defecto en la
+ * misma posición, después del de JSON: una respuesta solo se serializa en
+ * binario si el cliente lo pide en Accept.
+ */
+@Configuration
+public class BinaryFormatConfig {
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(
+                builder.createXmlMapper(false).factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(
+                builder.createXmlMapper(false).factory(new CBORFactory()).build());
+    }
+}
@@ -0,0 +1,169 @@
+package com.miempresa.analytics.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandlerComposite;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.HttpEntityMethodProcessor;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Respuesta síncrona para los endpoints que retornan un CompletableFuture ya
+ * completado.
+ *
+ * Spring MVC inicia el procesamiento asíncrono con cualquier
+ * CompletableFuture, aunque ya tenga resultado: con request-executor
+ * deshabilitado (RequestExecutor.submit() ejecuta la tarea en el hilo de la
+ * petición) eso sumaba un segundo despacho ASYNC por petición, que vuelve a
+ * pasar por los filtros y la cadena de seguridad. Este manejador escribe el
+ * resultado en el mismo despacho con el manejador que le corresponde a su
+ * tipo (ResponseEntity, @ResponseBody); los futures pendientes siguen el
+ * camino asíncrono de siempre.
+ *
+ * No hay un mecanismo soportado para esto: DeferredResult y WebAsyncTask
+ * siempre inician el procesamiento asíncrono, y los manejadores registrados
+ * con WebMvcConfigurer se consultan después del de CompletableFuture. Por
+ * eso depende de dos detalles internos de Spring MVC (verificados con 5.3):
+ * que RequestMappingHandlerAdapter consulta sus return value handlers en
+ * orden, y que el tipo del resultado se resuelve como lo hace
+ * ConcurrentResultMethodParameter al retomar una petición asíncrona
+ * (ResultMethodParameter). Al arrancar se verifican ambos con un método de
+ * prueba; si fallan, el manejador no se registra y las peticiones siguen el
+ * camino asíncrono, que es correcto aunque más costoso.
+ */
+@Configuration
+public class CompletedFutureConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompletedFutureConfig.class);
+
+    @Bean
+    public SmartInitializingSingleton completedFutureReturnValueHandlerRegistrar(
+            RequestMappingHandlerAdapter adapter) {
+        return () -> {
+            List<HandlerMethodReturnValueHandler> handlers = new ArrayList<>(adapter.getReturnValueHandlers());
+            HandlerMethodReturnValueHandlerComposite defaults =
+                    new HandlerMethodReturnValueHandlerComposite().addHandlers(handlers);
+            String problem = verify(defaults);
+            if (problem != null) {
+                logger.error("Completed futures will use async dispatch: {}", problem);
+                return;
+            }
+            handlers.add(0, new CompletedFutureReturnValueHandler(defaults));
+            adapter.setReturnValueHandlers(handlers);
+        };
+    }
+
+    /**
+     * Comprueba con probe() que el resultado de un future se resuelve con su
+     * tipo y lo atiende el manejador de ResponseEntity.
+     *
+     * @return el problema encontrado, o null
+     */
+    static String verify(HandlerMethodReturnValueHandlerComposite defaults) {
+        MethodParameter probe;
+        try {
+            probe = new MethodParameter(CompletedFutureConfig.class.getDeclaredMethod("probe"), -1);
+        } catch (NoSuchMethodException e) {
+            return "probe method not found";
+        }
+        ResultMethodParameter result = new ResultMethodParameter(probe, ResponseEntity.ok("probe"));
+        if (!ResponseEntity.class.isAssignableFrom(result.getParameterType())
+                || !String.class.equals(ResolvableType.forMethodParameter(result).resolveGeneric(0))) {
+            return "future result type resolved as " + result.getGenericParameterType();
+        }
+        for (HandlerMethodReturnValueHandler handler : defaults.getHandlers()) {
+            if (handler.supportsReturnType(result)) {
+                return handler instanceof HttpEntityMethodProcessor ? null
+                        : "ResponseEntity result handled by " + handler.getClass().getName();
+            }
+        }
+        return "no handler supports a ResponseEntity result";
+    }
+
+    // Firma de referencia de los controladores para verify()
+    @SuppressWarnings("unused")
+    private static CompletableFuture<ResponseEntity<String>> probe() {
+        return null;
+    }
+
+    static final class CompletedFutureReturnValueHandler implements HandlerMethodReturnValueHandler {
+
+        private final HandlerMethodReturnValueHandlerComposite defaults;
+
+        CompletedFutureReturnValueHandler(HandlerMethodReturnValueHandlerComposite defaults) {
+            this.defaults = defaults;
+        }
+
+        @Override
+        public boolean supportsReturnType(MethodParameter returnType) {
+            return CompletableFuture.class.isAssignableFrom(returnType.getParameterType());
+        }
+
+        @Override
+        public void handleReturnValue(Object returnValue, MethodParameter returnType,
+                                      ModelAndViewContainer mavContainer, NativeWebRequest webRequest)
+                throws Exception {
+            CompletableFuture<?> future = (CompletableFuture<?>) returnValue;
+            if (future != null && future.isDone() && !future.isCompletedExceptionally()) {
+                Object result = future.join();
+                defaults.handleReturnValue(result, new ResultMethodParameter(returnType, result),
+                        mavContainer, webRequest);
+            } else {
+                defaults.handleReturnValue(returnValue, returnType, mavContainer, webRequest);
+            }
+        }
+    }
+
+    /**
+     * El tipo de retorno del método visto como el del resultado del future,
+     * como lo hace Spring al retomar una petición asíncrona.
+     */
+    static final class ResultMethodParameter extends MethodParameter {
+
+        private final Object result;
+        private final ResolvableType resultType;
+
+        ResultMethodParameter(MethodParameter original, Object result) {
+            super(original);
+            this.result = result;
+            this.resultType = ResolvableType.forType(original.getGenericParameterType()).getGeneric();
+        }
+
+        private ResultMethodParameter(ResultMethodParameter original) {
+            super(original);
+            this.result = original.result;
+            this.resultType = original.resultType;
+        }
+
+        @Override
+        public Class<?> getParameterType() {
+            if (result != null) {
+                return result.getClass();
+            }
+            return resultType.toClass();
+        }
+
+        @Override
+        public Type getGenericParameterType() {
+            return resultType.getType();
+        }
+
+        @Override
+        public ResultMethodParameter clone() {
+            return new ResultMethodParameter(this);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.miempresa.analytics.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miempresa.analytics.dto.ApiResponse;
+import com.miempresa.analytics.service.CompressionMetrics;
+import com.miempresa.analytics.util.CompressingResponseWrapper;
+import com.miempresa.analytics.util.DecompressingRequestWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Compresión HTTP de cuerpos en ambos sentidos.
+ *
+ * Peticiones: un cuerpo con Content-Encoding gzip o deflate se descomprime
+ * en streaming antes de llegar a los controladores (ingesta por lotes de los
+ * SDKs); otra codificación distinta de identity se rechaza con 415.
+ * Respuestas: se comprimen con gzip o deflate según Accept-Encoding si el
+ * Content-Type está en compression.response.mime-types y el cuerpo supera
+ * compression.response.min-size.
+ *
+ * Reemplaza a server.compression de Tomcat para medir el ratio y el tiempo
+ * de CPU (CompressionMetrics). Va antes de Spring Security, para que los
+ * errores de autenticación también se compriman, y también se aplica al
+ * despacho asíncrono de los endpoints con request-executor: la respuesta se
+ * termina de comprimir cuando el resultado se escribe en ese despacho.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class CompressionFilter extends OncePerRequestFilter {
+
+    private final CompressionMetrics metrics;
+    private final ObjectMapper objectMapper;
+    private final boolean requestEnabled;
+    private final long requestMaxBytes;
+    private final boolean responseEnabled;
+    private final int minSize;
+    private final int level;
+    private final List<MediaType> mimeTypes;
+
+    public CompressionFilter(CompressionMetrics metrics,
+                             ObjectMapper objectMapper,
+                             @Value("${compression.request.enabled:true}") boolean requestEnabled,
+                             @Value("${compression.request.max-size-mb:64}") long requestMaxSizeMb,
+                             @Value("${compression.response.enabled:true}") boolean responseEnabled,
+                             @Value("${compression.response.min-size:2048}") int minSize,
+                             @Value("${compression.response.level:6}") int level,
+                             @Value("${compression.response.mime-types:application/json,application/x-ndjson,text/csv}")
+                                     String mimeTypes) {
+        if (level < 1 || level > 9) {
+            throw new IllegalArgumentException("compression.response.level must be between 1 and 9");
+        }
+        this.metrics = metrics;
+        this.objectMapper = objectMapper;
+        this.requestEnabled = requestEnabled;
+        this.requestMaxBytes = requestMaxSizeMb * 1024 * 1024;
+        this.responseEnabled = responseEnabled;
+        this.minSize = Math.max(minSize, 0);
+        this.level = level;
+        this.mimeTypes = MediaType.parseMediaTypes(mimeTypes);
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain chain)
+            throws ServletException, IOException {
+
+        if (isAsyncDispatch(request)) {
+            // La respuesta envuelta en el primer despacho llega de vuelta aquí
+            chain.doFilter(request, response);
+            CompressingResponseWrapper wrapper =
+                    WebUtils.getNativeResponse(response, CompressingResponseWrapper.class);
+            if (wrapper != null && !request.isAsyncStarted()) {
+                wrapper.finish();
+            }
+            return;
+        }
+
+        DecompressingRequestWrapper decompressing = null;
+        HttpServletRequest req = request;
+        String contentEncoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        if (requestEnabled && contentEncoding != null && !contentEncoding.trim().isEmpty()
+                && !contentEncoding.trim().equalsIgnoreCase("identity")) {
+            String encoding = DecompressingRequestWrapper.resolveEncoding(contentEncoding);
+            if (encoding == null) {
+                rejectEncoding(response, contentEncoding);
+                return;
+            }
+            decompressing = new DecompressingRequestWrapper(request, encoding, requestMaxBytes);
+            req = decompressing;
+        }
+
+        CompressingResponseWrapper compressing = null;
+        HttpServletResponse resp = response;
+        if (responseEnabled) {
+            String encoding = CompressingResponseWrapper.negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+            if (encoding != null) {
+                compressing = new CompressingResponseWrapper(response, encoding, minSize, level, mimeTypes, metrics);
+                resp = compressing;
+            }
+        }
+
+        try {
+            chain.doFilter(req, resp);
+        } finally {
+            if (decompressing != null) {
+                decompressing.release();
+                metrics.record(CompressionMetrics.DIRECTION_REQUEST, decompressing.getEncoding(),
+                        decompressing.getDecompressedBytes(), decompressing.getCompressedBytes(),
+                        decompressing.getCpuNanos());
+            }
+        }
+        if (compressing != null && !req.isAsyncStarted()) {
+            compressing.finish();
+        }
+    }
+
+    private void rejectEncoding(HttpServletResponse response, String contentEncoding) throws IOException {
+        response.setStatus(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value());
+        response.setHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, identity");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                ApiResponse.error("Unsupported Content-Encoding: " + contentEncoding));
+    }
+}
@@ -0,0 +1,20 @@
+package com.miempresa.analytics.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración de métricas Micrometer.
+ * Habilita @Timed en beans de Spring (repositorios JDBC); los repositorios
+ * Spring Data se miden automáticamente con spring.data.repository.invocations.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+}
@@ -0,0 +1,253 @@
+package com.miempresa.analytics.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DataSource que envía las transacciones readOnly a las réplicas de lectura
+ * y todo lo demás (escrituras, código sin transacción) al primario.
+ *
+ * Las réplicas se eligen en round-robin entre las disponibles. Una réplica
+ * queda fuera de la rotación cuando el chequeo periódico no puede conectarse,
+ * la replicación está detenida o su retraso supera max-lag-seconds, y cuando
+ * obtener una conexión de su pool falla; sin réplicas disponibles las
+ * lecturas van al primario.
+ *
+ * La decisión se toma al obtener la conexión, así que debe envolverse en un
+ * LazyConnectionDataSourceProxy: JpaTransactionManager pide la conexión
+ * antes de marcar la transacción como readOnly.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements MeterBinder, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final String PRIMARY = "primary";
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Map<String, Replica> replicasByName = new HashMap<>();
+    private final int maxLagSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    /**
+     * @param replicas      réplicas por nombre, en orden de configuración
+     * @param maxLagSeconds retraso máximo admitido; 0 desactiva el control de
+     *                      retraso y solo se verifica la conexión
+     */
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, int maxLagSeconds) {
+        this.primary = primary;
+        this.maxLagSeconds = maxLagSeconds;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (Map.Entry<String, DataSource> entry : replicas.entrySet()) {
+            Replica replica = new Replica(entry.getKey(), entry.getValue());
+            this.replicas.add(replica);
+            this.replicasByName.put(replica.name, replica);
+            targets.put(replica.name, replica.dataSource);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        Replica replica = nextAvailable();
+        return replica != null ? replica.name : PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(username, password);
+    }
+
+    private Connection route(String username, String password) throws SQLException {
+        Replica replica = replicasByName.get(determineCurrentLookupKey());
+        if (replica != null) {
+            try {
+                return connect(replica.dataSource, username, password);
+            } catch (SQLException e) {
+                replica.markDown("connection failed: " + e.getMessage());
+                fallbacks.incrementAndGet();
+            }
+        } else if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !replicas.isEmpty()) {
+            fallbacks.incrementAndGet();
+        }
+        return connect(primary, username, password);
+    }
+
+    private static Connection connect(DataSource dataSource, String username, String password) throws SQLException {
+        return username == null ? dataSource.getConnection() : dataSource.getConnection(username, password);
+    }
+
+    private Replica nextAvailable() {
+        int size = replicas.size();
+        int start = next.getAndIncrement();
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get(Math.floorMod(start + i, size));
+            if (replica.available) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Verifica cada réplica y actualiza su disponibilidad. La primera
+     * ejecución ocurre al arrancar; hasta entonces las lecturas van al
+     * primario.
+     */
+    @Scheduled(fixedDelayString = "${replicas.health-check-interval-ms:5000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            replica.check();
+        }
+    }
+
+    public List<String> getAvailableReplicas() {
+        List<String> names = new ArrayList<>();
+        for (Replica replica : replicas) {
+            if (replica.available) {
+                names.add(replica.name);
+            }
+        }
+        return Collections.unmodifiableList(names);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable) {
+                ((AutoCloseable) replica.dataSource).close();
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("analytics.db.replicas.available", this, r -> r.getAvailableReplicas().size())
+                .description("Read replicas currently receiving readOnly transactions")
+                .register(registry);
+        FunctionCounter.builder("analytics.db.replica.fallbacks", fallbacks, AtomicLong::get)
+                .description("readOnly transactions sent to the primary because no replica was available")
+                .register(registry);
+        for (Replica replica : replicas) {
+            Gauge.builder("analytics.db.replica.lag", replica, r -> r.lagSeconds)
+                    .tag("replica", replica.name)
+                    .baseUnit("seconds")
+                    .description("Replication lag reported by the last health check (NaN if unknown)")
+                    .register(registry);
+        }
+    }
+
+    private final class Replica {
+
+        final String name;
+        final DataSource dataSource;
+        volatile boolean available;
+        volatile double lagSeconds = Double.NaN;
+        // Para registrar también una réplica que ya falla en el primer chequeo
+        volatile boolean checked;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        void check() {
+            try (Connection connection = dataSource.getConnection()) {
+                if (maxLagSeconds <= 0) {
+                    if (connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                        markUp();
+                    } else {
+                        markDown("connection is not valid");
+                    }
+                    return;
+                }
+                Long lag = readLag(connection);
+                lagSeconds = lag != null ? lag : Double.NaN;
+                if (lag == null) {
+                    markDown("replication is not running");
+                } else if (lag > maxLagSeconds) {
+                    markDown("lag of " + lag + "s exceeds " + maxLagSeconds + "s");
+                } else {
+                    markUp();
+                }
+            } catch (SQLException e) {
+                lagSeconds = Double.NaN;
+                markDown("health check failed: " + e.getMessage());
+            }
+        }
+
+        void markUp() {
+            checked = true;
+            if (!available) {
+                available = true;
+                logger.info("Read replica {} is available", name);
+            }
+        }
+
+        void markDown(String reason) {
+            if (available || !checked) {
+                available = false;
+                logger.warn("Read replica {} removed from rotation: {}", name, reason);
+            }
+            checked = true;
+        }
+    }
+
+    /**
+     * Retraso de la réplica según MySQL (SHOW REPLICA STATUS desde 8.0.22,
+     * SHOW SLAVE STATUS en versiones anteriores). Requiere el privilegio
+     * REPLICATION CLIENT.
+     *
+     * @return segundos de retraso, o null si el servidor no replica o los
+     *         hilos de replicación están detenidos
+     */
+    private static Long readLag(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery("SHOW REPLICA STATUS")) {
+                return rs.next() ? nullableLong(rs, "Seconds_Behind_Source") : null;
+            } catch (SQLException e) {
+                try (ResultSet rs = statement.executeQuery("SHOW SLAVE STATUS")) {
+                    return rs.next() ? nullableLong(rs, "Seconds_Behind_Master") : null;
+                }
+            }
+        }
+    }
+
+    private static Long nullableLong(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+}
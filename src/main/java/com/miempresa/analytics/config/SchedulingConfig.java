@@ -0,0 +1,12 @@
+package com.miempresa.analytics.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita las tareas @Scheduled (mantenimiento de particiones).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
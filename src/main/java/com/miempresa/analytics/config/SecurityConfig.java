@@ -21,6 +21,10 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.header.writers.CacheControlHeadersWriter;
+import org.springframework.security.web.header.writers.DelegatingRequestMatcherHeaderWriter;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.NegatedRequestMatcher;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
@@ -72,15 +76,30 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .csrf().disable() // Deshabilitar CSRF para APIs REST
                 .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 .and()
+                // Las estadísticas cacheadas envían su propio Cache-Control para revalidar con ETag;
+                // el resto de las respuestas mantiene no-store
+                .headers()
+                .cacheControl().disable()
+                .addHeaderWriter(new DelegatingRequestMatcherHeaderWriter(
+                        new NegatedRequestMatcher(new AntPathRequestMatcher("/v1/stats/monthly")),
+                        new CacheControlHeadersWriter()))
+                .and()
                 .authorizeRequests()
                 // Permitir acceso público a Swagger
                 .antMatchers("/swagger-ui/**", "/swagger-ui.html", "/api-docs/**", "/v3/api-docs/**").permitAll()
+                // Health check público; el resto de Actuator solo para administradores
+                .antMatchers("/actuator/health").permitAll()
+                // El scraper de Prometheus no se autentica: restringir por red en producción
+                .antMatchers("/actuator/prometheus").permitAll()
+                .antMatchers("/actuator/**").hasRole("ADMIN")
                 // Permitir acceso público al endpoint de login
                 .antMatchers("/v1/auth/login").permitAll()
+                // La exportación masiva de eventos es solo para administradores
+                .antMatchers(HttpMethod.GET, "/v1/events/export").hasRole("ADMIN")
                 // Permitir acceso público a endpoints GET (solo lectura)
                 .antMatchers(HttpMethod.GET, "/v1/events/**", "/v1/stats/**").permitAll()
                 // Requerir autenticación para POST (modificación)
-                .antMatchers(HttpMethod.POST, "/v1/events").hasRole("USER")
+                .antMatchers(HttpMethod.POST, "/v1/events", "/v1/events/batch").hasRole("USER")
                 .anyRequest().authenticated()
                 .and()
                 .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
@@ -1,26 +1,70 @@
 package com.miempresa.analytics.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.miempresa.analytics.dto.ApiResponse;
+import com.miempresa.analytics.dto.BatchIngestResponse;
 import com.miempresa.analytics.dto.UIEventRequest;
 import com.miempresa.analytics.dto.UIEventResponse;
+import com.miempresa.analytics.dto.UIHeatmapResponse;
+import com.miempresa.analytics.dto.UIRecentEventsResponse;
+import com.miempresa.analytics.dto.UITimeSeriesResponse;
+import com.miempresa.analytics.dto.UITopElementsResponse;
+import com.miempresa.analytics.dto.UIUniqueUsersStat;
 import com.miempresa.analytics.dto.UIMonthlyStat;
 import com.miempresa.analytics.dto.PageResponse;
+import com.miempresa.analytics.exception.CompressedBodyException;
+import com.miempresa.analytics.exception.IngestQueueFullException;
+import com.miempresa.analytics.exception.IngestThrottledException;
+import com.miempresa.analytics.service.ExportFormat;
+import com.miempresa.analytics.service.HeatmapService;
+import com.miempresa.analytics.service.RecentEventDimension;
+import com.miempresa.analytics.service.RecentEventsService;
+import com.miempresa.analytics.service.RequestExecutor;
+import com.miempresa.analytics.service.StatsPeriod;
+import com.miempresa.analytics.service.StatsResponseCache;
+import com.miempresa.analytics.service.TimeGranularity;
+import com.miempresa.analytics.service.TimeSeriesService;
+import com.miempresa.analytics.service.TopElementsService;
+import com.miempresa.analytics.service.TotalCountMode;
 import com.miempresa.analytics.service.UIEventService;
+import com.miempresa.analytics.service.UniqueUsersService;
+import com.miempresa.analytics.util.UIEventExportWriter;
+import com.miempresa.analytics.util.UIEventStreamReader;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/v1")
@@ -28,21 +72,51 @@ import java.util.Optional;
 @Tag(name = "UI Events", description = "API para gestión de eventos de interacción con elementos de UI")
 public class UIEventController {
 
+    private static final Logger logger = LoggerFactory.getLogger(UIEventController.class);
+
     private final UIEventService service;
+    private final HeatmapService heatmapService;
+    private final UniqueUsersService uniqueUsersService;
+    private final TopElementsService topElementsService;
+    private final TimeSeriesService timeSeriesService;
+    private final RecentEventsService recentEventsService;
+    private final RequestExecutor requestExecutor;
+    private final StatsResponseCache statsCache;
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper smileMapper;
+    private final ObjectMapper cborMapper;
 
     // Inyección de dependencias mediante constructor (Spring Boot best practice)
-    public UIEventController(UIEventService service) {
+    public UIEventController(UIEventService service, HeatmapService heatmapService,
+                             UniqueUsersService uniqueUsersService, TopElementsService topElementsService,
+                             TimeSeriesService timeSeriesService, RecentEventsService recentEventsService,
+                             RequestExecutor requestExecutor, StatsResponseCache statsCache,
+                             ObjectMapper objectMapper, MappingJackson2SmileHttpMessageConverter smileConverter,
+                             MappingJackson2CborHttpMessageConverter cborConverter) {
         this.service = service;
+        this.heatmapService = heatmapService;
+        this.uniqueUsersService = uniqueUsersService;
+        this.topElementsService = topElementsService;
+        this.timeSeriesService = timeSeriesService;
+        this.recentEventsService = recentEventsService;
+        this.requestExecutor = requestExecutor;
+        this.statsCache = statsCache;
+        this.objectMapper = objectMapper;
+        this.smileMapper = smileConverter.getObjectMapper();
+        this.cborMapper = cborConverter.getObjectMapper();
     }
 
     /**
      * Endpoint para registrar un evento de interacción con un elemento de UI.
      * Requiere autenticación.
      */
-    @PostMapping("/events")
+    @PostMapping(value = "/events",
+                 consumes = {MediaType.APPLICATION_JSON_VALUE, UIEventStreamReader.SMILE_MEDIA_TYPE,
+                         UIEventStreamReader.CBOR_MEDIA_TYPE})
     @PreAuthorize("hasRole('USER')")
     @Operation(summary = "Registrar evento de UI", 
-               description = "Registra un nuevo evento de interacción con cualquier elemento de UI (botón, link, card, etc.). Requiere autenticación.")
+               description = "Registra un nuevo evento de interacción con cualquier elemento de UI (botón, link, card, etc.). " +
+                       "Acepta JSON, Smile (application/x-jackson-smile) o CBOR (application/cbor). Requiere autenticación.")
     @ApiResponses(value = {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(
             responseCode = "200", 
@@ -59,46 +133,279 @@ public class UIEventController {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(
             responseCode = "403", 
             description = "No autorizado",
+            content = @Content(schema = @Schema(implementation = ApiResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "429", 
+            description = "Límite de tasa de la aplicación superado o servicio sobrecargado; ver Retry-After",
+            content = @Content(schema = @Schema(implementation = ApiResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "503", 
+            description = "Cola de ingesta llena, reintentar más tarde",
             content = @Content(schema = @Schema(implementation = ApiResponse.class)))
     })
-    public ResponseEntity<ApiResponse<Object>> createEvent(
+    public CompletableFuture<ResponseEntity<ApiResponse<Object>>> createEvent(
             @Valid @RequestBody UIEventRequest request) {
-        try {
-            service.save(request);
-            return ResponseEntity.ok(ApiResponse.success("Event registered successfully", null));
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(ApiResponse.error(e.getMessage()));
+        return requestExecutor.submit(() -> {
+            try {
+                service.save(request);
+                return ResponseEntity.ok(ApiResponse.success("Event registered successfully", null));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(ApiResponse.error(e.getMessage()));
+            } catch (IngestQueueFullException e) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body(ApiResponse.error(e.getMessage()));
+            } catch (IngestThrottledException e) {
+                return throttled(e);
+            } catch (Exception e) {
+                logger.error("Unexpected error processing ingest request", e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(ApiResponse.error("Internal server error: " + e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Endpoint para registrar un lote de eventos en una sola petición.
+     * Acepta un arreglo JSON, Smile o CBOR, o NDJSON; el cuerpo se lee
+     * registro a registro.
+     * Requiere autenticación.
+     */
+    @PostMapping(value = "/events/batch",
+                 consumes = {MediaType.APPLICATION_JSON_VALUE, UIEventStreamReader.NDJSON_MEDIA_TYPE,
+                         UIEventStreamReader.SMILE_MEDIA_TYPE, UIEventStreamReader.CBOR_MEDIA_TYPE})
+    @PreAuthorize("hasRole('USER')")
+    @Operation(summary = "Registrar lote de eventos de UI", 
+               description = "Registra varios eventos en una sola petición. Acepta un arreglo JSON (application/json) " +
+                       "o un objeto por línea (application/x-ndjson), y también un arreglo Smile (application/x-jackson-smile) " +
+                       "o CBOR (application/cbor). Retorna el resultado de cada registro. Requiere autenticación.",
+               requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(content = {
+                   @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            array = @ArraySchema(schema = @Schema(implementation = UIEventRequest.class))),
+                   @Content(mediaType = UIEventStreamReader.NDJSON_MEDIA_TYPE,
+                            schema = @Schema(implementation = UIEventRequest.class)),
+                   @Content(mediaType = UIEventStreamReader.SMILE_MEDIA_TYPE,
+                            array = @ArraySchema(schema = @Schema(implementation = UIEventRequest.class))),
+                   @Content(mediaType = UIEventStreamReader.CBOR_MEDIA_TYPE,
+                            array = @ArraySchema(schema = @Schema(implementation = UIEventRequest.class)))
+               }))
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200", 
+            description = "Lote procesado; ver el resultado de cada registro",
+            content = @Content(schema = @Schema(implementation = BatchIngestResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "400", 
+            description = "Cuerpo mal formado sin registros aceptados, o cuerpo comprimido corrupto "
+                    + "(data.results indica los registros ya aceptados)",
+            content = @Content(schema = @Schema(implementation = ApiResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "401", 
+            description = "No autenticado",
+            content = @Content(schema = @Schema(implementation = ApiResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "413", 
+            description = "Cuerpo comprimido que descomprimido supera compression.request.max-size-mb; "
+                    + "data.results indica los registros ya aceptados",
+            content = @Content(schema = @Schema(implementation = ApiResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "429", 
+            description = "Servicio sobrecargado, lote no procesado; ver Retry-After",
+            content = @Content(schema = @Schema(implementation = ApiResponse.class)))
+    })
+    public ResponseEntity<ApiResponse<BatchIngestResponse>> createEventsBatch(HttpServletRequest httpRequest) {
+        try (UIEventStreamReader reader = openBatchReader(httpRequest)) {
+            BatchIngestResponse result = service.saveBatch(reader);
+            if (result.getErrorStatus() != null) {
+                // data.results indica los registros ya aceptados, para no reenviarlos
+                ApiResponse<BatchIngestResponse> body = ApiResponse.error(result.getError());
+                body.setData(result);
+                return ResponseEntity.status(result.getErrorStatus()).body(body);
+            }
+            if (result.getAccepted() == 0 && result.getError() != null) {
+                ApiResponse<BatchIngestResponse> body = ApiResponse.error(result.getError());
+                body.setData(result);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
+            }
+            String message = String.format("Batch processed: %d accepted, %d rejected",
+                    result.getAccepted(), result.getRejected());
+            return ResponseEntity.ok(ApiResponse.success(message, result));
+        } catch (IngestThrottledException e) {
+            return throttled(e);
+        } catch (CompressedBodyException e) {
+            return ResponseEntity.status(e.getStatus()).body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
+            logger.error("Unexpected error processing ingest request", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(ApiResponse.error("Internal server error: " + e.getMessage()));
         }
     }
 
+    private UIEventStreamReader openBatchReader(HttpServletRequest httpRequest) throws IOException {
+        MediaType contentType = MediaType.parseMediaType(httpRequest.getContentType());
+        if (contentType.isCompatibleWith(MediaType.parseMediaType(UIEventStreamReader.NDJSON_MEDIA_TYPE))) {
+            return UIEventStreamReader.forNdjson(objectMapper, httpRequest.getInputStream());
+        }
+        if (contentType.isCompatibleWith(MediaType.parseMediaType(UIEventStreamReader.SMILE_MEDIA_TYPE))) {
+            return UIEventStreamReader.forArray(smileMapper, httpRequest.getInputStream(), "Smile");
+        }
+        if (contentType.isCompatibleWith(MediaType.parseMediaType(UIEventStreamReader.CBOR_MEDIA_TYPE))) {
+            return UIEventStreamReader.forArray(cborMapper, httpRequest.getInputStream(), "CBOR");
+        }
+        return UIEventStreamReader.forJsonArray(objectMapper, httpRequest.getInputStream());
+    }
+
     /**
      * Endpoint para obtener todos los eventos con paginado.
+     * Con el parámetro cursor usa paginado keyset (created_at, id), cuyo costo
+     * no crece con la profundidad de la página.
      * No requiere autenticación (solo lectura).
      */
     @GetMapping("/events")
     @Operation(summary = "Obtener eventos paginados", 
-               description = "Retorna una lista paginada de todos los eventos de UI")
+               description = "Retorna una lista paginada de todos los eventos de UI. Sin cursor pagina por número de página; " +
+                       "con cursor (vacío para la primera página) pagina en modo keyset del más reciente al más antiguo " +
+                       "y retorna nextCursor.")
     @ApiResponses(value = {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(
             responseCode = "200", 
             description = "Lista de eventos obtenida correctamente",
-            content = @Content(schema = @Schema(implementation = PageResponse.class)))
+            content = @Content(schema = @Schema(implementation = PageResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "400", 
+            description = "Cursor o modo de conteo inválido",
+            content = @Content(schema = @Schema(implementation = ApiResponse.class)))
     })
-    public ResponseEntity<ApiResponse<PageResponse<UIEventResponse>>> getAllEvents(
-            @Parameter(description = "Número de página (0-indexed)", example = "0")
+    public CompletableFuture<ResponseEntity<ApiResponse<PageResponse<UIEventResponse>>>> getAllEvents(
+            @Parameter(description = "Número de página (0-indexed), solo sin cursor", example = "0")
             @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Tamaño de la página", example = "10")
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Cursor keyset (nextCursor de la respuesta anterior; vacío para la primera página)")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Cálculo del total: exact, estimated o none. " +
+                    "Default: exact sin cursor, none con cursor", example = "estimated")
+            @RequestParam(required = false) String count) {
+        return requestExecutor.submit(() -> {
+            try {
+                PageResponse<UIEventResponse> events;
+                if (cursor != null) {
+                    events = service.getEventsByCursor(cursor, size,
+                            TotalCountMode.fromParam(count, TotalCountMode.NONE));
+                } else {
+                    events = service.getAllEvents(page, size,
+                            TotalCountMode.fromParam(count, TotalCountMode.EXACT));
+                }
+                return ResponseEntity.ok(ApiResponse.success(events));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(ApiResponse.error(e.getMessage()));
+            } catch (Exception e) {
+                logger.error("Unexpected error retrieving events", e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(ApiResponse.error("Error retrieving events: " + e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Endpoint para exportar eventos crudos en NDJSON o CSV.
+     * Las filas se leen de un cursor JDBC y se escriben directamente en la
+     * respuesta, por lo que no hay límite de tamaño ni paginado.
+     * Requiere rol ADMIN.
+     */
+    @GetMapping("/events/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Exportar eventos", 
+               description = "Exporta los eventos de un rango de fechas, ordenados por createdAt, en NDJSON (application/x-ndjson) " +
+                       "o CSV (text/csv). La respuesta se genera en streaming. Requiere rol ADMIN.")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200", 
+            description = "Exportación en curso",
+            content = {
+                @Content(mediaType = UIEventExportWriter.NDJSON_MEDIA_TYPE),
+                @Content(mediaType = UIEventExportWriter.CSV_MEDIA_TYPE)
+            }),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "400", 
+            description = "Formato o rango de fechas inválido",
+            content = @Content(schema = @Schema(implementation = ApiResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "403", 
+            description = "No autorizado",
+            content = @Content(schema = @Schema(implementation = ApiResponse.class)))
+    })
+    public ResponseEntity<ApiResponse<Object>> exportEvents(
+            @Parameter(description = "Formato de salida: ndjson o csv", example = "ndjson")
+            @RequestParam(required = false) String format,
+            @Parameter(description = "Desde (inclusive), fecha ISO o fecha-hora ISO", example = "2024-01-01")
+            @RequestParam(required = false) String from,
+            @Parameter(description = "Hasta (exclusivo), fecha ISO o fecha-hora ISO", example = "2024-02-01T00:00:00")
+            @RequestParam(required = false) String to,
+            @Parameter(description = "Filtrar por aplicación", example = "ecommerce-web")
+            @RequestParam(required = false) String appId,
+            HttpServletResponse httpResponse) {
+        ExportFormat exportFormat;
+        LocalDateTime fromDate;
+        LocalDateTime toDate;
         try {
-            PageResponse<UIEventResponse> events = service.getAllEvents(page, size);
-            return ResponseEntity.ok(ApiResponse.success(events));
+            exportFormat = ExportFormat.fromParam(format);
+            fromDate = parseDateParam(from, "from");
+            toDate = parseDateParam(to, "to");
+            if (fromDate != null && toDate != null && !fromDate.isBefore(toDate)) {
+                throw new IllegalArgumentException("from must be before to");
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+
+        httpResponse.setContentType(exportFormat.getMediaType() + ";charset=UTF-8");
+        httpResponse.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"ui-events." + exportFormat.getExtension() + "\"");
+        String appIdFilter = appId != null && !appId.trim().isEmpty() ? appId.trim() : null;
+        try {
+            // Sin try-with-resources: cerrar el writer confirmaría la respuesta y
+            // ya no se podría responder con un error
+            UIEventExportWriter writer = exportFormat == ExportFormat.CSV
+                    ? UIEventExportWriter.forCsv(httpResponse.getOutputStream())
+                    : UIEventExportWriter.forNdjson(objectMapper, httpResponse.getOutputStream());
+            long exported = service.exportEvents(fromDate, toDate, appIdFilter, writer);
+            writer.close();
+            logger.info("Exported {} events (from={}, to={}, appId={})", exported, fromDate, toDate, appIdFilter);
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(ApiResponse.error("Error retrieving events: " + e.getMessage()));
+            logger.error("Unexpected error exporting events", e);
+            if (!httpResponse.isCommitted()) {
+                httpResponse.reset();
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(ApiResponse.error("Error exporting events: " + e.getMessage()));
+            }
+            // Ya se enviaron datos: el cliente recibe una exportación truncada
+        }
+        // La respuesta ya se escribió en httpResponse
+        return null;
+    }
+
+    /**
+     * Convierte un parámetro de fecha: acepta yyyy-MM-dd (inicio del día) o
+     * fecha-hora ISO.
+     *
+     * @return la fecha, o null si el parámetro no se envió
+     * @throws IllegalArgumentException si el formato no es válido
+     */
+    private static LocalDateTime parseDateParam(String value, String name) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        String trimmed = value.trim();
+        try {
+            if (trimmed.length() == 10) {
+                return LocalDate.parse(trimmed).atStartOfDay();
+            }
+            return LocalDateTime.parse(trimmed);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(name + " must be an ISO date (yyyy-MM-dd) or date-time (yyyy-MM-ddTHH:mm:ss)");
         }
     }
 
@@ -119,44 +426,469 @@ public class UIEventController {
             description = "Evento no encontrado",
             content = @Content(schema = @Schema(implementation = ApiResponse.class)))
     })
-    public ResponseEntity<ApiResponse<UIEventResponse>> getEventById(
+    public CompletableFuture<ResponseEntity<ApiResponse<UIEventResponse>>> getEventById(
             @Parameter(description = "ID del evento", example = "1")
             @PathVariable Long id) {
-        try {
-            Optional<UIEventResponse> event = service.getEventById(id);
-            if (event.isPresent()) {
-                return ResponseEntity.ok(ApiResponse.success(event.get()));
-            } else {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(ApiResponse.error("Event not found with id: " + id));
+        return requestExecutor.submit(() -> {
+            try {
+                Optional<UIEventResponse> event = service.getEventById(id);
+                if (event.isPresent()) {
+                    return ResponseEntity.ok(ApiResponse.success(event.get()));
+                } else {
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(ApiResponse.error("Event not found with id: " + id));
+                }
+            } catch (Exception e) {
+                logger.error("Unexpected error retrieving event {}", id, e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(ApiResponse.error("Error retrieving event: " + e.getMessage()));
             }
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(ApiResponse.error("Error retrieving event: " + e.getMessage()));
-        }
+        });
     }
 
     /**
      * Endpoint para obtener estadísticas mensuales de clicks por elemento y tipo.
      * No requiere autenticación (solo lectura).
+     * La respuesta se sirve desde StatsResponseCache con ETag; si coincide con
+     * If-None-Match se responde 304 sin cuerpo.
      */
     @GetMapping("/stats/monthly")
     @Operation(summary = "Obtener estadísticas mensuales", 
-               description = "Retorna agregados mensuales de clicks por elemento, tipo y mes")
+               description = "Retorna agregados mensuales de clicks por elemento, tipo y mes. " +
+                       "Acepta filtros opcionales por elemento, aplicación, tipo de elemento, ruta, rango de fechas " +
+                       "y claves de metadata indexadas, y agrupar también por una de esas claves. " +
+                       "Incluye ETag; con If-None-Match y sin cambios responde 304")
     @ApiResponses(value = {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(
             responseCode = "200", 
             description = "Estadísticas obtenidas correctamente",
-            content = @Content(schema = @Schema(implementation = UIMonthlyStat.class)))
+            content = @Content(schema = @Schema(implementation = UIMonthlyStat.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "304",
+            description = "Sin cambios respecto del ETag enviado en If-None-Match"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "400",
+            description = "Parámetros inválidos",
+            content = @Content(schema = @Schema(implementation = ApiResponse.class)))
+    })
+    public CompletableFuture<ResponseEntity<?>> getMonthlyStats(
+            @Parameter(description = "Filtrar por elemento", example = "btn-submit")
+            @RequestParam(required = false) String elementId,
+            @Parameter(description = "Filtrar por aplicación", example = "web-app")
+            @RequestParam(required = false) String appId,
+            @Parameter(description = "Filtrar por tipo de elemento", example = "button")
+            @RequestParam(required = false) String elementType,
+            @Parameter(description = "Filtrar por ruta", example = "/checkout")
+            @RequestParam(required = false) String route,
+            @Parameter(description = "Desde (inclusive): yyyy-MM-dd o yyyy-MM-ddTHH:mm:ss", example = "2024-01-01")
+            @RequestParam(required = false) String from,
+            @Parameter(description = "Hasta (exclusivo): yyyy-MM-dd o yyyy-MM-ddTHH:mm:ss", example = "2024-04-01")
+            @RequestParam(required = false) String to,
+            @Parameter(description = "Filtro por una clave de metadata indexada (clave:valor); se puede repetir",
+                    example = "variant:B")
+            @RequestParam(required = false) List<String> metadata,
+            @Parameter(description = "Clave de metadata indexada por cuyo valor agrupar también", example = "variant")
+            @RequestParam(required = false) String groupByMetadata,
+            @Parameter(description = "ETag de una respuesta anterior")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return requestExecutor.submit(() -> {
+            try {
+                String element = emptyToNull(elementId);
+                String app = emptyToNull(appId);
+                String type = emptyToNull(elementType);
+                String path = emptyToNull(route);
+                LocalDateTime fromDate = parseDateParam(from, "from");
+                LocalDateTime toDate = parseDateParam(to, "to");
+                Map<String, String> metadataFilters = parseMetadataFilters(metadata);
+                String groupBy = emptyToNull(groupByMetadata);
+                String key = cacheKey("monthly", element, app, type, path, fromDate, toDate,
+                        metadataFilters, groupBy);
+                StatsResponseCache.CachedResponse response = statsCache.get(key, () -> ApiResponse.success(
+                        service.getMonthlyStats(element, app, type, path, fromDate, toDate,
+                                metadataFilters, groupBy)));
+                return cachedResponse(response, ifNoneMatch);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(ApiResponse.error(e.getMessage()));
+            } catch (Exception e) {
+                logger.error("Unexpected error retrieving statistics", e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(ApiResponse.error("Error retrieving statistics: " + e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * 304 si el cliente ya tiene la versión cacheada; si no, el JSON ya
+     * serializado. no-cache obliga al cliente a revalidar con el ETag.
+     */
+    private static ResponseEntity<?> cachedResponse(StatsResponseCache.CachedResponse response, String ifNoneMatch) {
+        if (response.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(response.getETag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(response.getETag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(response.getBody());
+    }
+
+    /**
+     * Convierte los filtros metadata=clave:valor, ordenados por clave.
+     *
+     * @throws IllegalArgumentException si un filtro no tiene el formato o repite una clave
+     */
+    private static Map<String, String> parseMetadataFilters(List<String> values) {
+        Map<String, String> filters = new TreeMap<>();
+        if (values == null) {
+            return filters;
+        }
+        for (String value : values) {
+            int separator = value.indexOf(':');
+            if (separator <= 0 || separator == value.length() - 1) {
+                throw new IllegalArgumentException("metadata filters must be key:value");
+            }
+            String key = value.substring(0, separator).trim();
+            if (filters.put(key, value.substring(separator + 1)) != null) {
+                throw new IllegalArgumentException("Metadata key '" + key + "' is filtered more than once");
+            }
+        }
+        return filters;
+    }
+
+    /**
+     * Clave de caché sin ambigüedad: cada valor lleva su largo delante y los
+     * mapas su cantidad de entradas, porque los parámetros son texto libre
+     * y podrían contener cualquier separador.
+     */
+    private static String cacheKey(String endpoint, Object... params) {
+        StringBuilder key = new StringBuilder(endpoint);
+        for (Object param : params) {
+            appendKeyPart(key, param);
+        }
+        return key.toString();
+    }
+
+    private static void appendKeyPart(StringBuilder key, Object part) {
+        if (part == null) {
+            // Los parámetros vacíos ya se normalizaron a null
+            key.append('-');
+        } else if (part instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) part;
+            key.append('{').append(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                appendKeyPart(key, entry.getKey());
+                appendKeyPart(key, entry.getValue());
+            }
+        } else {
+            String value = part.toString();
+            key.append(value.length()).append(':').append(value);
+        }
+    }
+
+    private static <T> ResponseEntity<ApiResponse<T>> throttled(IngestThrottledException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(ApiResponse.error(e.getMessage()));
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value;
+    }
+
+    /**
+     * Endpoint para obtener el heatmap de clicks de un elemento.
+     * No requiere autenticación (solo lectura).
+     */
+    @GetMapping("/stats/heatmap")
+    @Operation(summary = "Obtener heatmap de clicks",
+               description = "Retorna los clicks acumulados de un elemento en una grilla normalizada al viewport, " +
+                       "con una grilla por breakpoint de ancho de pantalla. Solo incluye celdas con clicks; " +
+                       "los datos pueden tener un retraso de hasta heatmap.flush-interval-ms")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200",
+            description = "Heatmap obtenido correctamente",
+            content = @Content(schema = @Schema(implementation = UIHeatmapResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "400",
+            description = "Parámetros inválidos",
+            content = @Content(schema = @Schema(implementation = ApiResponse.class)))
+    })
+    public CompletableFuture<ResponseEntity<ApiResponse<UIHeatmapResponse>>> getHeatmap(
+            @Parameter(description = "ID del elemento", example = "btn-submit", required = true)
+            @RequestParam String elementId,
+            @Parameter(description = "Aplicación; si se omite, eventos sin appId", example = "web-app")
+            @RequestParam(required = false) String appId,
+            @Parameter(description = "Ruta; si se omite, eventos sin route", example = "/checkout")
+            @RequestParam(required = false) String route,
+            @Parameter(description = "Breakpoint (ancho mínimo en px); si se omite, todos", example = "768")
+            @RequestParam(required = false) Integer breakpoint) {
+        return requestExecutor.submit(() -> {
+            try {
+                UIHeatmapResponse heatmap = heatmapService.getHeatmap(appId, route, elementId, breakpoint);
+                return ResponseEntity.ok(ApiResponse.success(heatmap));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(ApiResponse.error(e.getMessage()));
+            } catch (Exception e) {
+                logger.error("Unexpected error retrieving heatmap for element {}", elementId, e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(ApiResponse.error("Error retrieving heatmap: " + e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Endpoint para obtener usuarios únicos estimados de un elemento.
+     * No requiere autenticación (solo lectura).
+     */
+    @GetMapping("/stats/unique-users")
+    @Operation(summary = "Obtener usuarios únicos",
+               description = "Estima los userId distintos de un elemento por mes, trimestre, año o total, " +
+                       "combinando sketches HyperLogLog mensuales. Cada resultado incluye su error relativo estándar")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200",
+            description = "Estimaciones obtenidas correctamente",
+            content = @Content(array = @ArraySchema(schema = @Schema(implementation = UIUniqueUsersStat.class)))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "400",
+            description = "Parámetros inválidos",
+            content = @Content(schema = @Schema(implementation = ApiResponse.class)))
     })
-    public ResponseEntity<ApiResponse<List<UIMonthlyStat>>> getMonthlyStats() {
+    public CompletableFuture<ResponseEntity<ApiResponse<List<UIUniqueUsersStat>>>> getUniqueUsers(
+            @Parameter(description = "ID del elemento", example = "btn-submit", required = true)
+            @RequestParam String elementId,
+            @Parameter(description = "Tipo; si se omite se combinan todos los tipos", example = "click")
+            @RequestParam(required = false) String type,
+            @Parameter(description = "Primer mes (yyyy-MM); por defecto 11 meses antes de to", example = "2024-01")
+            @RequestParam(required = false) String from,
+            @Parameter(description = "Último mes inclusive (yyyy-MM); por defecto el mes actual", example = "2024-03")
+            @RequestParam(required = false) String to,
+            @Parameter(description = "Agrupación: month, quarter, year o total", example = "quarter")
+            @RequestParam(required = false) String period) {
+        return requestExecutor.submit(() -> {
+            try {
+                YearMonth toMonth = parseMonthParam(to, "to");
+                if (toMonth == null) {
+                    toMonth = YearMonth.now();
+                }
+                YearMonth fromMonth = parseMonthParam(from, "from");
+                if (fromMonth == null) {
+                    fromMonth = toMonth.minusMonths(11);
+                }
+                List<UIUniqueUsersStat> stats = uniqueUsersService.getUniqueUsers(
+                        elementId, type, fromMonth, toMonth, StatsPeriod.fromParam(period));
+                return ResponseEntity.ok(ApiResponse.success(stats));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(ApiResponse.error(e.getMessage()));
+            } catch (Exception e) {
+                logger.error("Unexpected error retrieving unique users for element {}", elementId, e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(ApiResponse.error("Error retrieving unique users: " + e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Endpoint para obtener los elementos más clickeados de los últimos minutos.
+     * No requiere autenticación (solo lectura).
+     */
+    @GetMapping("/stats/top")
+    @Operation(summary = "Obtener elementos más clickeados en vivo",
+               description = "Retorna los elementos con más eventos de una aplicación en los últimos N minutos, " +
+                       "calculados en memoria con resúmenes Space-Saving por minuto. clicks es una cota superior " +
+                       "y guaranteedClicks una cota inferior de la cuenta real")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200",
+            description = "Ranking obtenido correctamente",
+            content = @Content(schema = @Schema(implementation = UITopElementsResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "400",
+            description = "Parámetros inválidos",
+            content = @Content(schema = @Schema(implementation = ApiResponse.class)))
+    })
+    public ResponseEntity<ApiResponse<UITopElementsResponse>> getTopElements(
+            @Parameter(description = "Aplicación; si se omite, eventos sin appId", example = "web-app")
+            @RequestParam(required = false) String appId,
+            @Parameter(description = "Ventana en minutos (el minuto en curso cuenta como uno)", example = "15")
+            @RequestParam(defaultValue = "15") int minutes,
+            @Parameter(description = "Número máximo de elementos (1-100)", example = "10")
+            @RequestParam(defaultValue = "10") int limit) {
         try {
-            List<UIMonthlyStat> stats = service.getMonthlyStats();
-            return ResponseEntity.ok(ApiResponse.success(stats));
+            UITopElementsResponse top = topElementsService.getTopElements(appId, minutes, limit);
+            return ResponseEntity.ok(ApiResponse.success(top));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
+            logger.error("Unexpected error retrieving top elements", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(ApiResponse.error("Error retrieving statistics: " + e.getMessage()));
+                    .body(ApiResponse.error("Error retrieving top elements: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Endpoint para obtener la serie temporal de clicks por hora, día, semana o mes.
+     * No requiere autenticación (solo lectura).
+     */
+    @GetMapping("/stats/timeseries")
+    @Operation(summary = "Obtener serie temporal de clicks",
+               description = "Retorna los clicks por bucket de hora, día, semana (ISO, desde el lunes) o mes, " +
+                       "leídos del agregado más grueso que cubre la granularidad. El rango se amplía a buckets " +
+                       "completos y los buckets sin clicks se incluyen con 0")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200",
+            description = "Serie obtenida correctamente",
+            content = @Content(schema = @Schema(implementation = UITimeSeriesResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "400",
+            description = "Parámetros inválidos o rango demasiado grande",
+            content = @Content(schema = @Schema(implementation = ApiResponse.class)))
+    })
+    public CompletableFuture<ResponseEntity<ApiResponse<UITimeSeriesResponse>>> getTimeSeries(
+            @Parameter(description = "Granularidad: hour, day, week o month", example = "day")
+            @RequestParam(defaultValue = "day") String granularity,
+            @Parameter(description = "Inicio del rango (yyyy-MM-dd o fecha-hora ISO); por defecto 24 horas, " +
+                    "30 días, 12 semanas o 12 meses antes de to según la granularidad", example = "2024-01-01")
+            @RequestParam(required = false) String from,
+            @Parameter(description = "Fin del rango, exclusivo (yyyy-MM-dd o fecha-hora ISO); por defecto ahora",
+                    example = "2024-02-01")
+            @RequestParam(required = false) String to,
+            @Parameter(description = "Elemento; si se omite, se suman todos", example = "btn-login")
+            @RequestParam(required = false) String elementId,
+            @Parameter(description = "Tipo de evento; si se omite, se suman todos", example = "click")
+            @RequestParam(required = false) String type) {
+        return requestExecutor.submit(() -> {
+            try {
+                TimeGranularity timeGranularity = TimeGranularity.fromParam(granularity);
+                LocalDateTime toDate = parseDateParam(to, "to");
+                if (toDate == null) {
+                    toDate = LocalDateTime.now();
+                }
+                LocalDateTime fromDate = parseDateParam(from, "from");
+                if (fromDate == null) {
+                    fromDate = timeGranularity.defaultFrom(toDate);
+                }
+                UITimeSeriesResponse series = timeSeriesService.getTimeSeries(
+                        emptyToNull(elementId), emptyToNull(type), timeGranularity, fromDate, toDate);
+                return ResponseEntity.ok(ApiResponse.success(series));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(ApiResponse.error(e.getMessage()));
+            } catch (Exception e) {
+                logger.error("Unexpected error retrieving time series", e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(ApiResponse.error("Error retrieving time series: " + e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Endpoint para consultas ad-hoc de conteo sobre los eventos recientes.
+     * No requiere autenticación (solo lectura).
+     */
+    @GetMapping("/stats/recent")
+    @Operation(summary = "Contar eventos recientes por dimensiones",
+               description = "Cuenta los eventos de los últimos recent-events.window-days días que cumplen los " +
+                       "filtros, agrupados por las dimensiones de groupBy y ordenados de mayor a menor. Se " +
+                       "responde desde un almacén columnar en memoria; completeFrom indica desde cuándo tiene " +
+                       "todos los eventos")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200",
+            description = "Conteos obtenidos correctamente",
+            content = @Content(schema = @Schema(implementation = UIRecentEventsResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "400",
+            description = "Parámetros inválidos",
+            content = @Content(schema = @Schema(implementation = ApiResponse.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "503",
+            description = "Almacén de eventos recientes deshabilitado o cargando",
+            content = @Content(schema = @Schema(implementation = ApiResponse.class)))
+    })
+    public CompletableFuture<ResponseEntity<ApiResponse<UIRecentEventsResponse>>> getRecentEvents(
+            @Parameter(description = "Dimensiones separadas por coma: type, appId, elementId, elementType, " +
+                    "route, day, hour; si se omite, solo se cuenta", example = "route,elementType")
+            @RequestParam(required = false) String groupBy,
+            @Parameter(description = "Aplicación", example = "web-app")
+            @RequestParam(required = false) String appId,
+            @Parameter(description = "Tipo de evento", example = "click")
+            @RequestParam(required = false) String type,
+            @Parameter(description = "Elemento", example = "btn-login")
+            @RequestParam(required = false) String elementId,
+            @Parameter(description = "Tipo de elemento", example = "button")
+            @RequestParam(required = false) String elementType,
+            @Parameter(description = "Ruta", example = "/checkout")
+            @RequestParam(required = false) String route,
+            @Parameter(description = "Inicio del rango (yyyy-MM-dd o fecha-hora ISO); por defecto el inicio " +
+                    "de la ventana", example = "2024-01-01")
+            @RequestParam(required = false) String from,
+            @Parameter(description = "Fin del rango, exclusivo (yyyy-MM-dd o fecha-hora ISO); por defecto ahora",
+                    example = "2024-01-08")
+            @RequestParam(required = false) String to,
+            @Parameter(description = "Número máximo de grupos (1-1000)", example = "100")
+            @RequestParam(defaultValue = "100") int limit) {
+        return requestExecutor.submit(() -> {
+            try {
+                List<RecentEventDimension> dimensions = new ArrayList<>();
+                if (emptyToNull(groupBy) != null) {
+                    for (String dimension : groupBy.split(",")) {
+                        dimensions.add(RecentEventDimension.fromParam(dimension));
+                    }
+                }
+                Map<RecentEventDimension, String> filters = new EnumMap<>(RecentEventDimension.class);
+                putFilter(filters, RecentEventDimension.APP, appId);
+                putFilter(filters, RecentEventDimension.TYPE, type);
+                putFilter(filters, RecentEventDimension.ELEMENT, elementId);
+                putFilter(filters, RecentEventDimension.ELEMENT_TYPE, elementType);
+                putFilter(filters, RecentEventDimension.ROUTE, route);
+                UIRecentEventsResponse recent = recentEventsService.getRecentEvents(dimensions, filters,
+                        parseDateParam(from, "from"), parseDateParam(to, "to"), limit);
+                return ResponseEntity.ok(ApiResponse.success(recent));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(ApiResponse.error(e.getMessage()));
+            } catch (IllegalStateException e) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body(ApiResponse.error(e.getMessage()));
+            } catch (Exception e) {
+                logger.error("Unexpected error retrieving recent events", e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(ApiResponse.error("Error retrieving recent events: " + e.getMessage()));
+            }
+        });
+    }
+
+    private static void putFilter(Map<RecentEventDimension, String> filters, RecentEventDimension dimension,
+                                  String value) {
+        if (emptyToNull(value) != null) {
+            filters.put(dimension, value);
         }
     }
-}
 
+    /**
+     * Convierte un parámetro de mes (yyyy-MM).
+     *
+     * @return el mes, o null si el parámetro no se envió
+     * @throws IllegalArgumentException si el formato no es válido
+     */
+    private static YearMonth parseMonthParam(String value, String name) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(name + " must be a month (yyyy-MM)");
+        }
+    }
+}
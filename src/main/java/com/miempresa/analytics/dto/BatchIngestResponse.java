@@ -0,0 +1,112 @@
+package com.miempresa.analytics.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchIngestResponse {
+
+    @JsonProperty("received")
+    private int received;
+
+    @JsonProperty("accepted")
+    private int accepted;
+
+    @JsonProperty("rejected")
+    private int rejected;
+
+    @JsonProperty("error")
+    private String error;
+
+    @JsonProperty("results")
+    private List<BatchRecordResult> results = new ArrayList<>();
+
+    // Estado HTTP con que se responde aunque haya registros aceptados (cuerpo comprimido inválido)
+    @JsonIgnore
+    private HttpStatus errorStatus;
+
+    // Constructores
+    public BatchIngestResponse() {
+    }
+
+    /**
+     * Registra el resultado de un registro y actualiza los contadores.
+     */
+    public void addResult(BatchRecordResult result) {
+        results.add(result);
+        received++;
+        if (BatchRecordResult.ACCEPTED.equals(result.getStatus())) {
+            accepted++;
+        } else {
+            rejected++;
+        }
+    }
+
+    /**
+     * Cambia a rechazado un registro que se había aceptado (por ejemplo, si
+     * falla la escritura de su lote).
+     */
+    public void reject(int index, String error) {
+        BatchRecordResult result = results.get(index);
+        if (BatchRecordResult.ACCEPTED.equals(result.getStatus())) {
+            accepted--;
+            rejected++;
+        }
+        result.setStatus(BatchRecordResult.REJECTED);
+        result.setError(error);
+    }
+
+    // Getters y Setters
+    public int getReceived() {
+        return received;
+    }
+
+    public void setReceived(int received) {
+        this.received = received;
+    }
+
+    public int getAccepted() {
+        return accepted;
+    }
+
+    public void setAccepted(int accepted) {
+        this.accepted = accepted;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(int rejected) {
+        this.rejected = rejected;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public HttpStatus getErrorStatus() {
+        return errorStatus;
+    }
+
+    public void setErrorStatus(HttpStatus errorStatus) {
+        this.errorStatus = errorStatus;
+    }
+
+    public List<BatchRecordResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BatchRecordResult> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,63 @@
+package com.miempresa.analytics.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchRecordResult {
+
+    public static final String ACCEPTED = "accepted";
+    public static final String REJECTED = "rejected";
+
+    @JsonProperty("index")
+    private int index;
+
+    @JsonProperty("status")
+    private String status;
+
+    @JsonProperty("error")
+    private String error;
+
+    // Constructores
+    public BatchRecordResult() {
+    }
+
+    public BatchRecordResult(int index, String status, String error) {
+        this.index = index;
+        this.status = status;
+        this.error = error;
+    }
+
+    public static BatchRecordResult accepted(int index) {
+        return new BatchRecordResult(index, ACCEPTED, null);
+    }
+
+    public static BatchRecordResult rejected(int index, String error) {
+        return new BatchRecordResult(index, REJECTED, error);
+    }
+
+    // Getters y Setters
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
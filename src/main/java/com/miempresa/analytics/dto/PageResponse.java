@@ -1,5 +1,6 @@
 package com.miempresa.analytics.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.List;
 
@@ -14,11 +15,19 @@ public class PageResponse<T> {
     @JsonProperty("size")
     private int size;
 
+    // null cuando el cliente pide count=none
     @JsonProperty("totalElements")
-    private long totalElements;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long totalElements;
 
     @JsonProperty("totalPages")
-    private int totalPages;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer totalPages;
+
+    // true si totalElements es una estimación y no un count(*) exacto
+    @JsonProperty("totalEstimated")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean totalEstimated;
 
     @JsonProperty("hasNext")
     private boolean hasNext;
@@ -26,6 +35,11 @@ public class PageResponse<T> {
     @JsonProperty("hasPrevious")
     private boolean hasPrevious;
 
+    // Cursor opaco para pedir la siguiente página en modo keyset
+    @JsonProperty("nextCursor")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
     // Constructores
     public PageResponse() {
     }
@@ -40,6 +54,26 @@ public class PageResponse<T> {
         this.hasPrevious = page > 0;
     }
 
+    /**
+     * Página sin total: hasNext se conoce leyendo un registro de más.
+     */
+    public PageResponse(List<T> content, int page, int size, boolean hasNext, boolean hasPrevious) {
+        this.content = content;
+        this.page = page;
+        this.size = size;
+        this.hasNext = hasNext;
+        this.hasPrevious = hasPrevious;
+    }
+
+    /**
+     * Asigna un total (exacto o estimado) sin modificar hasNext.
+     */
+    public void applyTotal(long totalElements, boolean estimated) {
+        this.totalElements = totalElements;
+        this.totalPages = (int) Math.ceil((double) totalElements / size);
+        this.totalEstimated = estimated ? Boolean.TRUE : null;
+    }
+
     // Getters y Setters
     public List<T> getContent() {
         return content;
@@ -65,22 +99,30 @@ public class PageResponse<T> {
         this.size = size;
     }
 
-    public long getTotalElements() {
+    public Long getTotalElements() {
         return totalElements;
     }
 
-    public void setTotalElements(long totalElements) {
+    public void setTotalElements(Long totalElements) {
         this.totalElements = totalElements;
     }
 
-    public int getTotalPages() {
+    public Integer getTotalPages() {
         return totalPages;
     }
 
-    public void setTotalPages(int totalPages) {
+    public void setTotalPages(Integer totalPages) {
         this.totalPages = totalPages;
     }
 
+    public Boolean getTotalEstimated() {
+        return totalEstimated;
+    }
+
+    public void setTotalEstimated(Boolean totalEstimated) {
+        this.totalEstimated = totalEstimated;
+    }
+
     public boolean isHasNext() {
         return hasNext;
     }
@@ -96,5 +138,12 @@ public class PageResponse<T> {
     public void setHasPrevious(boolean hasPrevious) {
         this.hasPrevious = hasPrevious;
     }
-}
 
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
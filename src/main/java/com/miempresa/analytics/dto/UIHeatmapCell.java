@@ -0,0 +1,53 @@
+package com.miempresa.analytics.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Celda de un heatmap: posición en la grilla y clicks acumulados.
+ */
+public class UIHeatmapCell {
+
+    @JsonProperty("x")
+    private int x;
+
+    @JsonProperty("y")
+    private int y;
+
+    @JsonProperty("clicks")
+    private long clicks;
+
+    // Constructores
+    public UIHeatmapCell() {
+    }
+
+    public UIHeatmapCell(int x, int y, long clicks) {
+        this.x = x;
+        this.y = y;
+        this.clicks = clicks;
+    }
+
+    // Getters y Setters
+    public int getX() {
+        return x;
+    }
+
+    public void setX(int x) {
+        this.x = x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public void setY(int y) {
+        this.y = y;
+    }
+
+    public long getClicks() {
+        return clicks;
+    }
+
+    public void setClicks(long clicks) {
+        this.clicks = clicks;
+    }
+}
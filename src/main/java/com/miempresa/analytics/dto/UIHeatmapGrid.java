@@ -0,0 +1,87 @@
+package com.miempresa.analytics.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Grilla de un breakpoint. Solo incluye celdas con al menos un click.
+ */
+public class UIHeatmapGrid {
+
+    @JsonProperty("breakpoint")
+    private int breakpoint;
+
+    // Ancho máximo (exclusivo) del rango; null para el último breakpoint
+    @JsonProperty("maxWidth")
+    private Integer maxWidth;
+
+    @JsonProperty("totalClicks")
+    private long totalClicks;
+
+    @JsonProperty("maxCellClicks")
+    private long maxCellClicks;
+
+    @JsonProperty("cells")
+    private List<UIHeatmapCell> cells = new ArrayList<>();
+
+    // Constructores
+    public UIHeatmapGrid() {
+    }
+
+    public UIHeatmapGrid(int breakpoint, Integer maxWidth) {
+        this.breakpoint = breakpoint;
+        this.maxWidth = maxWidth;
+    }
+
+    /**
+     * Agrega una celda actualizando los totales de la grilla.
+     */
+    public void addCell(UIHeatmapCell cell) {
+        cells.add(cell);
+        totalClicks += cell.getClicks();
+        maxCellClicks = Math.max(maxCellClicks, cell.getClicks());
+    }
+
+    // Getters y Setters
+    public int getBreakpoint() {
+        return breakpoint;
+    }
+
+    public void setBreakpoint(int breakpoint) {
+        this.breakpoint = breakpoint;
+    }
+
+    public Integer getMaxWidth() {
+        return maxWidth;
+    }
+
+    public void setMaxWidth(Integer maxWidth) {
+        this.maxWidth = maxWidth;
+    }
+
+    public long getTotalClicks() {
+        return totalClicks;
+    }
+
+    public void setTotalClicks(long totalClicks) {
+        this.totalClicks = totalClicks;
+    }
+
+    public long getMaxCellClicks() {
+        return maxCellClicks;
+    }
+
+    public void setMaxCellClicks(long maxCellClicks) {
+        this.maxCellClicks = maxCellClicks;
+    }
+
+    public List<UIHeatmapCell> getCells() {
+        return cells;
+    }
+
+    public void setCells(List<UIHeatmapCell> cells) {
+        this.cells = cells;
+    }
+}
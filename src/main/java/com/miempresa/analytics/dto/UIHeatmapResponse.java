@@ -0,0 +1,80 @@
+package com.miempresa.analytics.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Heatmap de clicks de un elemento, con una grilla por breakpoint de ancho
+ * de pantalla. Las celdas x/y van de 0 a gridSize - 1, relativas al viewport.
+ */
+public class UIHeatmapResponse {
+
+    @JsonProperty("appId")
+    private String appId;
+
+    @JsonProperty("route")
+    private String route;
+
+    @JsonProperty("elementId")
+    private String elementId;
+
+    @JsonProperty("gridSize")
+    private int gridSize;
+
+    @JsonProperty("grids")
+    private List<UIHeatmapGrid> grids = new ArrayList<>();
+
+    // Constructores
+    public UIHeatmapResponse() {
+    }
+
+    public UIHeatmapResponse(String appId, String route, String elementId, int gridSize) {
+        this.appId = appId;
+        this.route = route;
+        this.elementId = elementId;
+        this.gridSize = gridSize;
+    }
+
+    // Getters y Setters
+    public String getAppId() {
+        return appId;
+    }
+
+    public void setAppId(String appId) {
+        this.appId = appId;
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    public void setRoute(String route) {
+        this.route = route;
+    }
+
+    public String getElementId() {
+        return elementId;
+    }
+
+    public void setElementId(String elementId) {
+        this.elementId = elementId;
+    }
+
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    public void setGridSize(int gridSize) {
+        this.gridSize = gridSize;
+    }
+
+    public List<UIHeatmapGrid> getGrids() {
+        return grids;
+    }
+
+    public void setGrids(List<UIHeatmapGrid> grids) {
+        this.grids = grids;
+    }
+}
@@ -1,6 +1,7 @@
 package com.miempresa.analytics.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.time.LocalDate;
@@ -20,6 +21,11 @@ public class UIMonthlyStat {
     @JsonProperty("totalClicks")
     private long totalClicks;
 
+    // Valor de la clave de metadata de groupByMetadata; se omite sin agrupación
+    @JsonProperty("metadataValue")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String metadataValue;
+
     // Constructores
     public UIMonthlyStat() {
     }
@@ -63,5 +69,12 @@ public class UIMonthlyStat {
     public void setTotalClicks(long totalClicks) {
         this.totalClicks = totalClicks;
     }
-}
 
+    public String getMetadataValue() {
+        return metadataValue;
+    }
+
+    public void setMetadataValue(String metadataValue) {
+        this.metadataValue = metadataValue;
+    }
+}
@@ -0,0 +1,45 @@
+package com.miempresa.analytics.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Grupo de /v1/stats/recent: valor de cada dimensión de groupBy (null si el
+ * evento no la tiene) y cantidad de eventos.
+ */
+public class UIRecentEventsGroup {
+
+    @JsonProperty("key")
+    private Map<String, String> key = new LinkedHashMap<>();
+
+    @JsonProperty("count")
+    private long count;
+
+    // Constructores
+    public UIRecentEventsGroup() {
+    }
+
+    public UIRecentEventsGroup(Map<String, String> key, long count) {
+        this.key = key;
+        this.count = count;
+    }
+
+    // Getters y Setters
+    public Map<String, String> getKey() {
+        return key;
+    }
+
+    public void setKey(Map<String, String> key) {
+        this.key = key;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,111 @@
+package com.miempresa.analytics.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Conteo de eventos recientes agrupado por las dimensiones de groupBy,
+ * ordenado de mayor a menor cantidad.
+ */
+public class UIRecentEventsResponse {
+
+    @JsonProperty("from")
+    private LocalDateTime from;
+
+    @JsonProperty("to")
+    private LocalDateTime to;
+
+    @JsonProperty("groupBy")
+    private List<String> groupBy = new ArrayList<>();
+
+    // Desde cuándo el almacén tiene todos los eventos; antes, los conteos pueden ser parciales
+    @JsonProperty("completeFrom")
+    private LocalDateTime completeFrom;
+
+    // Eventos que cumplen los filtros en el rango
+    @JsonProperty("matchedEvents")
+    private long matchedEvents;
+
+    // Grupos distintos antes de aplicar limit
+    @JsonProperty("totalGroups")
+    private int totalGroups;
+
+    @JsonProperty("groups")
+    private List<UIRecentEventsGroup> groups = new ArrayList<>();
+
+    // Constructores
+    public UIRecentEventsResponse() {
+    }
+
+    public UIRecentEventsResponse(LocalDateTime from, LocalDateTime to, List<String> groupBy,
+                                  LocalDateTime completeFrom, long matchedEvents, int totalGroups,
+                                  List<UIRecentEventsGroup> groups) {
+        this.from = from;
+        this.to = to;
+        this.groupBy = groupBy;
+        this.completeFrom = completeFrom;
+        this.matchedEvents = matchedEvents;
+        this.totalGroups = totalGroups;
+        this.groups = groups;
+    }
+
+    // Getters y Setters
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+
+    public List<String> getGroupBy() {
+        return groupBy;
+    }
+
+    public void setGroupBy(List<String> groupBy) {
+        this.groupBy = groupBy;
+    }
+
+    public LocalDateTime getCompleteFrom() {
+        return completeFrom;
+    }
+
+    public void setCompleteFrom(LocalDateTime completeFrom) {
+        this.completeFrom = completeFrom;
+    }
+
+    public long getMatchedEvents() {
+        return matchedEvents;
+    }
+
+    public void setMatchedEvents(long matchedEvents) {
+        this.matchedEvents = matchedEvents;
+    }
+
+    public int getTotalGroups() {
+        return totalGroups;
+    }
+
+    public void setTotalGroups(int totalGroups) {
+        this.totalGroups = totalGroups;
+    }
+
+    public List<UIRecentEventsGroup> getGroups() {
+        return groups;
+    }
+
+    public void setGroups(List<UIRecentEventsGroup> groups) {
+        this.groups = groups;
+    }
+}
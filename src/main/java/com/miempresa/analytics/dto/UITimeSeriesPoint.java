@@ -0,0 +1,45 @@
+package com.miempresa.analytics.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+
+/**
+ * Punto de una serie temporal: inicio del bucket y clicks en él.
+ */
+public class UITimeSeriesPoint {
+
+    @JsonProperty("bucket")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime bucket;
+
+    @JsonProperty("clicks")
+    private long clicks;
+
+    // Constructores
+    public UITimeSeriesPoint() {
+    }
+
+    public UITimeSeriesPoint(LocalDateTime bucket, long clicks) {
+        this.bucket = bucket;
+        this.clicks = clicks;
+    }
+
+    // Getters y Setters
+    public LocalDateTime getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(LocalDateTime bucket) {
+        this.bucket = bucket;
+    }
+
+    public long getClicks() {
+        return clicks;
+    }
+
+    public void setClicks(long clicks) {
+        this.clicks = clicks;
+    }
+}
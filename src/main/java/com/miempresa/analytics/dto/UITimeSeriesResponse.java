@@ -0,0 +1,131 @@
+package com.miempresa.analytics.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serie temporal de clicks. El rango se amplía a buckets completos y la
+ * serie incluye los buckets sin clicks (clicks = 0).
+ */
+public class UITimeSeriesResponse {
+
+    // null cuando se suman todos los elementos
+    @JsonProperty("elementId")
+    private String elementId;
+
+    // null cuando se suman todos los tipos
+    @JsonProperty("type")
+    private String type;
+
+    @JsonProperty("granularity")
+    private String granularity;
+
+    // Agregado del que se leyó la serie: hourly, daily o monthly
+    @JsonProperty("source")
+    private String source;
+
+    @JsonProperty("from")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime from;
+
+    @JsonProperty("to")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime to;
+
+    @JsonProperty("totalClicks")
+    private long totalClicks;
+
+    @JsonProperty("points")
+    private List<UITimeSeriesPoint> points = new ArrayList<>();
+
+    // Constructores
+    public UITimeSeriesResponse() {
+    }
+
+    public UITimeSeriesResponse(String elementId, String type, String granularity, String source,
+                                LocalDateTime from, LocalDateTime to) {
+        this.elementId = elementId;
+        this.type = type;
+        this.granularity = granularity;
+        this.source = source;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Agrega un punto actualizando el total.
+     */
+    public void addPoint(UITimeSeriesPoint point) {
+        points.add(point);
+        totalClicks += point.getClicks();
+    }
+
+    // Getters y Setters
+    public String getElementId() {
+        return elementId;
+    }
+
+    public void setElementId(String elementId) {
+        this.elementId = elementId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(String granularity) {
+        this.granularity = granularity;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+
+    public long getTotalClicks() {
+        return totalClicks;
+    }
+
+    public void setTotalClicks(long totalClicks) {
+        this.totalClicks = totalClicks;
+    }
+
+    public List<UITimeSeriesPoint> getPoints() {
+        return points;
+    }
+
+    public void setPoints(List<UITimeSeriesPoint> points) {
+        this.points = points;
+    }
+}
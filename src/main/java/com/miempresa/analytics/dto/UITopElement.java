@@ -0,0 +1,55 @@
+package com.miempresa.analytics.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Elemento del ranking de más clickeados.
+ * clicks es una cota superior de la cuenta real y guaranteedClicks una cota
+ * inferior; coinciden mientras el resumen no haya descartado elementos.
+ */
+public class UITopElement {
+
+    @JsonProperty("elementId")
+    private String elementId;
+
+    @JsonProperty("clicks")
+    private long clicks;
+
+    @JsonProperty("guaranteedClicks")
+    private long guaranteedClicks;
+
+    // Constructores
+    public UITopElement() {
+    }
+
+    public UITopElement(String elementId, long clicks, long guaranteedClicks) {
+        this.elementId = elementId;
+        this.clicks = clicks;
+        this.guaranteedClicks = guaranteedClicks;
+    }
+
+    // Getters y Setters
+    public String getElementId() {
+        return elementId;
+    }
+
+    public void setElementId(String elementId) {
+        this.elementId = elementId;
+    }
+
+    public long getClicks() {
+        return clicks;
+    }
+
+    public void setClicks(long clicks) {
+        this.clicks = clicks;
+    }
+
+    public long getGuaranteedClicks() {
+        return guaranteedClicks;
+    }
+
+    public void setGuaranteedClicks(long guaranteedClicks) {
+        this.guaranteedClicks = guaranteedClicks;
+    }
+}
@@ -0,0 +1,70 @@
+package com.miempresa.analytics.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ranking de elementos más clickeados de una aplicación en los últimos
+ * minutes minutos.
+ */
+public class UITopElementsResponse {
+
+    @JsonProperty("appId")
+    private String appId;
+
+    @JsonProperty("minutes")
+    private int minutes;
+
+    // Eventos de la aplicación en la ventana (exacto)
+    @JsonProperty("totalEvents")
+    private long totalEvents;
+
+    @JsonProperty("elements")
+    private List<UITopElement> elements = new ArrayList<>();
+
+    // Constructores
+    public UITopElementsResponse() {
+    }
+
+    public UITopElementsResponse(String appId, int minutes, long totalEvents, List<UITopElement> elements) {
+        this.appId = appId;
+        this.minutes = minutes;
+        this.totalEvents = totalEvents;
+        this.elements = elements;
+    }
+
+    // Getters y Setters
+    public String getAppId() {
+        return appId;
+    }
+
+    public void setAppId(String appId) {
+        this.appId = appId;
+    }
+
+    public int getMinutes() {
+        return minutes;
+    }
+
+    public void setMinutes(int minutes) {
+        this.minutes = minutes;
+    }
+
+    public long getTotalEvents() {
+        return totalEvents;
+    }
+
+    public void setTotalEvents(long totalEvents) {
+        this.totalEvents = totalEvents;
+    }
+
+    public List<UITopElement> getElements() {
+        return elements;
+    }
+
+    public void setElements(List<UITopElement> elements) {
+        this.elements = elements;
+    }
+}
@@ -0,0 +1,81 @@
+package com.miempresa.analytics.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Usuarios únicos estimados de un elemento en un período.
+ * La estimación tiene un error relativo estándar de relativeStandardError
+ * (~68% de los casos dentro de ±1 error, ~95% dentro de ±2).
+ */
+public class UIUniqueUsersStat {
+
+    @JsonProperty("elementId")
+    private String elementId;
+
+    // null cuando se combinan todos los tipos
+    @JsonProperty("type")
+    private String type;
+
+    @JsonProperty("period")
+    private String period;
+
+    @JsonProperty("uniqueUsers")
+    private long uniqueUsers;
+
+    @JsonProperty("relativeStandardError")
+    private double relativeStandardError;
+
+    // Constructores
+    public UIUniqueUsersStat() {
+    }
+
+    public UIUniqueUsersStat(String elementId, String type, String period, long uniqueUsers,
+                             double relativeStandardError) {
+        this.elementId = elementId;
+        this.type = type;
+        this.period = period;
+        this.uniqueUsers = uniqueUsers;
+        this.relativeStandardError = relativeStandardError;
+    }
+
+    // Getters y Setters
+    public String getElementId() {
+        return elementId;
+    }
+
+    public void setElementId(String elementId) {
+        this.elementId = elementId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(String period) {
+        this.period = period;
+    }
+
+    public long getUniqueUsers() {
+        return uniqueUsers;
+    }
+
+    public void setUniqueUsers(long uniqueUsers) {
+        this.uniqueUsers = uniqueUsers;
+    }
+
+    public double getRelativeStandardError() {
+        return relativeStandardError;
+    }
+
+    public void setRelativeStandardError(double relativeStandardError) {
+        this.relativeStandardError = relativeStandardError;
+    }
+}
@@ -0,0 +1,24 @@
+package com.miempresa.analytics.exception;
+
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+
+/**
+ * Se lanza al leer un cuerpo de petición comprimido que no se puede
+ * descomprimir (400) o que descomprimido supera el máximo configurado (413).
+ * Es una IOException porque surge de la lectura del stream.
+ */
+public class CompressedBodyException extends IOException {
+
+    private final HttpStatus status;
+
+    public CompressedBodyException(String message, HttpStatus status, Throwable cause) {
+        super(message, cause);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
@@ -1,19 +1,25 @@
 package com.miempresa.analytics.exception;
 
 import com.miempresa.analytics.dto.ApiResponse;
+import com.miempresa.analytics.dto.UIEventRequest;
+import com.miempresa.analytics.service.IngestMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
 
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 /**
@@ -25,6 +31,12 @@ public class GlobalExceptionHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
+    private final IngestMetrics ingestMetrics;
+
+    public GlobalExceptionHandler(IngestMetrics ingestMetrics) {
+        this.ingestMetrics = ingestMetrics;
+    }
+
     /**
      * Maneja errores de validación de Bean Validation.
      */
@@ -38,6 +50,9 @@ public class GlobalExceptionHandler {
             errors.put(fieldName, errorMessage);
         });
         
+        if (ex.getBindingResult().getTarget() instanceof UIEventRequest) {
+            ingestMetrics.recordRejected(IngestMetrics.REASON_VALIDATION);
+        }
         logger.warn("Validation error: {}", errors);
         return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                 .body(ApiResponse.error("Validation failed: " + errors.toString()));
@@ -71,6 +86,66 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.error(ex.getMessage()));
     }
 
+    /**
+     * Maneja el rechazo por cola de ingesta llena.
+     */
+    @ExceptionHandler(IngestQueueFullException.class)
+    public ResponseEntity<ApiResponse<Object>> handleIngestQueueFullException(
+            IngestQueueFullException ex) {
+        logger.warn("Ingest rejected: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(ApiResponse.error(ex.getMessage()));
+    }
+
+    /**
+     * Maneja el rechazo por límite de tasa o descarte de carga en la ingesta.
+     */
+    @ExceptionHandler(IngestThrottledException.class)
+    public ResponseEntity<ApiResponse<Object>> handleIngestThrottledException(
+            IngestThrottledException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ApiResponse.error(ex.getMessage()));
+    }
+
+    /**
+     * Maneja el rechazo por ejecutor de peticiones lleno (request-executor).
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<ApiResponse<Object>> handleRejectedExecutionException(
+            RejectedExecutionException ex) {
+        logger.warn("Request rejected: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(ApiResponse.error("Server is busy, retry later"));
+    }
+
+    /**
+     * Maneja los cuerpos comprimidos corruptos o demasiado grandes leídos con
+     * @RequestBody; el resto de los cuerpos ilegibles sigue el caso general.
+     */
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ApiResponse<Object>> handleHttpMessageNotReadableException(
+            HttpMessageNotReadableException ex) {
+        if (ex.getCause() instanceof CompressedBodyException) {
+            CompressedBodyException cause = (CompressedBodyException) ex.getCause();
+            logger.warn("Compressed request body rejected: {}", cause.getMessage());
+            return ResponseEntity.status(cause.getStatus())
+                    .body(ApiResponse.error(cause.getMessage()));
+        }
+        return handleGenericException(ex);
+    }
+
+    /**
+     * Maneja las peticiones asíncronas que superan spring.mvc.async.request-timeout.
+     */
+    @ExceptionHandler(AsyncRequestTimeoutException.class)
+    public ResponseEntity<ApiResponse<Object>> handleAsyncRequestTimeoutException(
+            AsyncRequestTimeoutException ex) {
+        logger.warn("Async request timed out");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(ApiResponse.error("Request timed out, retry later"));
+    }
+
     /**
      * Maneja todas las excepciones no manejadas.
      */
@@ -0,0 +1,13 @@
+package com.miempresa.analytics.exception;
+
+/**
+ * Se lanza cuando la cola de ingesta asíncrona o el write-ahead log están
+ * llenos y el evento no puede aceptarse sin bloquear al cliente. Se traduce
+ * en un 503.
+ */
+public class IngestQueueFullException extends RuntimeException {
+
+    public IngestQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,29 @@
+package com.miempresa.analytics.exception;
+
+/**
+ * Se lanza cuando la ingesta rechaza un evento por límite de tasa de su
+ * aplicación o por descarte de carga. Se traduce en un 429 con Retry-After.
+ */
+public class IngestThrottledException extends RuntimeException {
+
+    private final String reason;
+    private final long retryAfterSeconds;
+
+    /**
+     * @param reason            motivo para analytics.events.rejected (rate_limited o shed)
+     * @param retryAfterSeconds valor de la cabecera Retry-After
+     */
+    public IngestThrottledException(String message, String reason, long retryAfterSeconds) {
+        super(message);
+        this.reason = reason;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,35 @@
+package com.miempresa.analytics.model;
+
+/**
+ * Dimensiones de baja cardinalidad de UIEvent que se guardan como códigos
+ * enteros del diccionario ui_dimension_dictionary.
+ */
+public enum DimensionType {
+
+    TYPE("type", "type_code"),
+    ELEMENT_TYPE("element_type", "element_type_code"),
+    APP("app_id", "app_code"),
+    ROUTE("route", "route_code");
+
+    private final String legacyColumn;
+    private final String codeColumn;
+
+    DimensionType(String legacyColumn, String codeColumn) {
+        this.legacyColumn = legacyColumn;
+        this.codeColumn = codeColumn;
+    }
+
+    /**
+     * Columna VARCHAR de ui_events anterior a la codificación.
+     */
+    public String getLegacyColumn() {
+        return legacyColumn;
+    }
+
+    /**
+     * Columna de ui_events con el código del diccionario.
+     */
+    public String getCodeColumn() {
+        return codeColumn;
+    }
+}
@@ -0,0 +1,62 @@
+package com.miempresa.analytics.model;
+
+import javax.persistence.*;
+
+/**
+ * Entrada del diccionario de dimensiones: asocia un valor de texto de una
+ * dimensión con el código entero que se guarda en ui_events.
+ * Los códigos son únicos entre todas las dimensiones.
+ */
+@Entity
+@Table(name = "ui_dimension_dictionary", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_ui_dimension_dictionary_value", columnNames = {"dimension", "dim_value"})
+})
+public class UIDimensionValue {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "dimension", nullable = false, length = 20)
+    private DimensionType dimension;
+
+    // Collation binaria: "Click" y "click" son valores distintos, como antes en ui_events
+    @Column(name = "dim_value", nullable = false, columnDefinition = "VARCHAR(255) COLLATE utf8mb4_bin")
+    private String value;
+
+    // Constructores
+    public UIDimensionValue() {
+    }
+
+    public UIDimensionValue(Integer id, DimensionType dimension, String value) {
+        this.id = id;
+        this.dimension = dimension;
+        this.value = value;
+    }
+
+    // Getters y Setters
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public DimensionType getDimension() {
+        return dimension;
+    }
+
+    public void setDimension(DimensionType dimension) {
+        this.dimension = dimension;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+}
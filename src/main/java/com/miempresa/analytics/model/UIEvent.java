@@ -4,28 +4,51 @@ import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "ui_events")
+@Table(name = "ui_events", indexes = {
+        // Paginación keyset de GET /v1/events
+        @Index(name = "idx_ui_events_created_at_id", columnList = "created_at, id"),
+        // Estadísticas filtradas por aplicación y rango de fechas
+        @Index(name = "idx_ui_events_app_created_at", columnList = "app_code, created_at"),
+        // Estadísticas de un elemento (y tipo) en un rango de fechas
+        @Index(name = "idx_ui_events_element_type_created_at", columnList = "element_id, type_code, created_at")
+})
 public class UIEvent {
 
+    // Con partitioning.enabled la clave primaria física es (id, created_at);
+    // id sigue siendo AUTO_INCREMENT y es el identificador de la entidad
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(name = "type", nullable = false, length = 50)
+    // type, elementType, appId y route se guardan como códigos del diccionario
+    // (ui_dimension_dictionary); los valores de texto solo viven en memoria
+    @Transient
     private String type;
 
-    @Column(name = "app_id", length = 100)
+    @Column(name = "type_code", nullable = false)
+    private Integer typeCode;
+
+    @Transient
     private String appId;
 
+    @Column(name = "app_code")
+    private Integer appCode;
+
     @Column(name = "element_id", nullable = false, length = 100)
     private String elementId;
 
-    @Column(name = "element_type", length = 50)
+    @Transient
     private String elementType;
 
-    @Column(name = "route", length = 255)
+    @Column(name = "element_type_code")
+    private Integer elementTypeCode;
+
+    @Transient
     private String route;
 
+    @Column(name = "route_code")
+    private Integer routeCode;
+
     @Column(name = "user_id", length = 100)
     private String userId;
 
@@ -86,6 +109,14 @@ public class UIEvent {
         this.type = type;
     }
 
+    public Integer getTypeCode() {
+        return typeCode;
+    }
+
+    public void setTypeCode(Integer typeCode) {
+        this.typeCode = typeCode;
+    }
+
     public String getAppId() {
         return appId;
     }
@@ -94,6 +125,14 @@ public class UIEvent {
         this.appId = appId;
     }
 
+    public Integer getAppCode() {
+        return appCode;
+    }
+
+    public void setAppCode(Integer appCode) {
+        this.appCode = appCode;
+    }
+
     public String getElementId() {
         return elementId;
     }
@@ -110,6 +149,14 @@ public class UIEvent {
         this.route = route;
     }
 
+    public Integer getRouteCode() {
+        return routeCode;
+    }
+
+    public void setRouteCode(Integer routeCode) {
+        this.routeCode = routeCode;
+    }
+
     public String getUserId() {
         return userId;
     }
@@ -173,5 +220,13 @@ public class UIEvent {
     public void setElementType(String elementType) {
         this.elementType = elementType;
     }
+
+    public Integer getElementTypeCode() {
+        return elementTypeCode;
+    }
+
+    public void setElementTypeCode(Integer elementTypeCode) {
+        this.elementTypeCode = elementTypeCode;
+    }
 }
 
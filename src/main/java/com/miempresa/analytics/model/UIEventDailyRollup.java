@@ -0,0 +1,70 @@
+package com.miempresa.analytics.model;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Agregado diario de clicks por elemento y tipo.
+ * Se mantiene con upserts junto al agregado horario y al mensual; las series
+ * diarias y semanales de /v1/stats/timeseries se leen de esta tabla.
+ */
+@Entity
+@Table(name = "ui_event_daily_rollup", indexes = {
+        // Series de todos los elementos en un rango de días
+        @Index(name = "idx_ui_event_daily_rollup_day", columnList = "day")
+})
+@IdClass(UIEventDailyRollupId.class)
+public class UIEventDailyRollup {
+
+    @Id
+    @Column(name = "element_id", nullable = false, length = 100)
+    private String elementId;
+
+    @Id
+    @Column(name = "type", nullable = false, length = 50)
+    private String type;
+
+    @Id
+    @Column(name = "day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "total_clicks", nullable = false)
+    private long totalClicks;
+
+    // Constructores
+    public UIEventDailyRollup() {
+    }
+
+    // Getters y Setters
+    public String getElementId() {
+        return elementId;
+    }
+
+    public void setElementId(String elementId) {
+        this.elementId = elementId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public void setDay(LocalDate day) {
+        this.day = day;
+    }
+
+    public long getTotalClicks() {
+        return totalClicks;
+    }
+
+    public void setTotalClicks(long totalClicks) {
+        this.totalClicks = totalClicks;
+    }
+}
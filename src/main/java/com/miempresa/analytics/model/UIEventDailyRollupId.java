@@ -0,0 +1,71 @@
+package com.miempresa.analytics.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Clave compuesta de UIEventDailyRollup: (element_id, type, day).
+ */
+public class UIEventDailyRollupId implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String elementId;
+    private String type;
+    private LocalDate day;
+
+    // Constructores
+    public UIEventDailyRollupId() {
+    }
+
+    public UIEventDailyRollupId(String elementId, String type, LocalDate day) {
+        this.elementId = elementId;
+        this.type = type;
+        this.day = day;
+    }
+
+    // Getters y Setters
+    public String getElementId() {
+        return elementId;
+    }
+
+    public void setElementId(String elementId) {
+        this.elementId = elementId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public void setDay(LocalDate day) {
+        this.day = day;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof UIEventDailyRollupId)) {
+            return false;
+        }
+        UIEventDailyRollupId that = (UIEventDailyRollupId) o;
+        return Objects.equals(elementId, that.elementId)
+                && Objects.equals(type, that.type)
+                && Objects.equals(day, that.day);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(elementId, type, day);
+    }
+}
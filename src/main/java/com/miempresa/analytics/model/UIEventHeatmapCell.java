@@ -0,0 +1,108 @@
+package com.miempresa.analytics.model;
+
+import javax.persistence.*;
+
+/**
+ * Celda de heatmap: clicks acumulados en una celda de la grilla normalizada
+ * de un elemento, por aplicación, ruta y breakpoint de ancho de pantalla.
+ *
+ * appCode y routeCode son códigos del diccionario de dimensiones; 0 indica
+ * eventos sin appId o sin route. breakpoint es el ancho mínimo (px) del
+ * rango de pantallas. cellX/cellY van de 0 a heatmap.grid-size - 1.
+ */
+@Entity
+@Table(name = "ui_event_heatmap_cell")
+@IdClass(UIEventHeatmapCellId.class)
+public class UIEventHeatmapCell {
+
+    /** Código usado cuando el evento no tiene appId o route. */
+    public static final int NO_CODE = 0;
+
+    @Id
+    @Column(name = "app_code", nullable = false)
+    private int appCode;
+
+    @Id
+    @Column(name = "route_code", nullable = false)
+    private int routeCode;
+
+    @Id
+    @Column(name = "element_id", nullable = false, length = 100)
+    private String elementId;
+
+    @Id
+    @Column(name = "breakpoint", nullable = false)
+    private int breakpoint;
+
+    @Id
+    @Column(name = "cell_x", nullable = false)
+    private int cellX;
+
+    @Id
+    @Column(name = "cell_y", nullable = false)
+    private int cellY;
+
+    @Column(name = "clicks", nullable = false)
+    private long clicks;
+
+    // Constructores
+    public UIEventHeatmapCell() {
+    }
+
+    // Getters y Setters
+    public int getAppCode() {
+        return appCode;
+    }
+
+    public void setAppCode(int appCode) {
+        this.appCode = appCode;
+    }
+
+    public int getRouteCode() {
+        return routeCode;
+    }
+
+    public void setRouteCode(int routeCode) {
+        this.routeCode = routeCode;
+    }
+
+    public String getElementId() {
+        return elementId;
+    }
+
+    public void setElementId(String elementId) {
+        this.elementId = elementId;
+    }
+
+    public int getBreakpoint() {
+        return breakpoint;
+    }
+
+    public void setBreakpoint(int breakpoint) {
+        this.breakpoint = breakpoint;
+    }
+
+    public int getCellX() {
+        return cellX;
+    }
+
+    public void setCellX(int cellX) {
+        this.cellX = cellX;
+    }
+
+    public int getCellY() {
+        return cellY;
+    }
+
+    public void setCellY(int cellY) {
+        this.cellY = cellY;
+    }
+
+    public long getClicks() {
+        return clicks;
+    }
+
+    public void setClicks(long clicks) {
+        this.clicks = clicks;
+    }
+}
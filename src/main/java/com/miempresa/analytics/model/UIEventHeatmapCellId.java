@@ -0,0 +1,104 @@
+package com.miempresa.analytics.model;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Clave compuesta de UIEventHeatmapCell:
+ * (app_code, route_code, element_id, breakpoint, cell_x, cell_y).
+ */
+public class UIEventHeatmapCellId implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private int appCode;
+    private int routeCode;
+    private String elementId;
+    private int breakpoint;
+    private int cellX;
+    private int cellY;
+
+    // Constructores
+    public UIEventHeatmapCellId() {
+    }
+
+    public UIEventHeatmapCellId(int appCode, int routeCode, String elementId, int breakpoint, int cellX, int cellY) {
+        this.appCode = appCode;
+        this.routeCode = routeCode;
+        this.elementId = elementId;
+        this.breakpoint = breakpoint;
+        this.cellX = cellX;
+        this.cellY = cellY;
+    }
+
+    // Getters y Setters
+    public int getAppCode() {
+        return appCode;
+    }
+
+    public void setAppCode(int appCode) {
+        this.appCode = appCode;
+    }
+
+    public int getRouteCode() {
+        return routeCode;
+    }
+
+    public void setRouteCode(int routeCode) {
+        this.routeCode = routeCode;
+    }
+
+    public String getElementId() {
+        return elementId;
+    }
+
+    public void setElementId(String elementId) {
+        this.elementId = elementId;
+    }
+
+    public int getBreakpoint() {
+        return breakpoint;
+    }
+
+    public void setBreakpoint(int breakpoint) {
+        this.breakpoint = breakpoint;
+    }
+
+    public int getCellX() {
+        return cellX;
+    }
+
+    public void setCellX(int cellX) {
+        this.cellX = cellX;
+    }
+
+    public int getCellY() {
+        return cellY;
+    }
+
+    public void setCellY(int cellY) {
+        this.cellY = cellY;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof UIEventHeatmapCellId)) {
+            return false;
+        }
+        UIEventHeatmapCellId that = (UIEventHeatmapCellId) o;
+        return appCode == that.appCode
+                && routeCode == that.routeCode
+                && breakpoint == that.breakpoint
+                && cellX == that.cellX
+                && cellY == that.cellY
+                && Objects.equals(elementId, that.elementId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(appCode, routeCode, elementId, breakpoint, cellX, cellY);
+    }
+}
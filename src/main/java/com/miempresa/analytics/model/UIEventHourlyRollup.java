@@ -0,0 +1,69 @@
+package com.miempresa.analytics.model;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Agregado horario de clicks por elemento y tipo. Es el nivel más fino de
+ * /v1/stats/timeseries; sus filas se conservan timeseries.hourly-retention-days.
+ */
+@Entity
+@Table(name = "ui_event_hourly_rollup", indexes = {
+        // Series de todos los elementos en un rango de horas
+        @Index(name = "idx_ui_event_hourly_rollup_hour", columnList = "hour")
+})
+@IdClass(UIEventHourlyRollupId.class)
+public class UIEventHourlyRollup {
+
+    @Id
+    @Column(name = "element_id", nullable = false, length = 100)
+    private String elementId;
+
+    @Id
+    @Column(name = "type", nullable = false, length = 50)
+    private String type;
+
+    @Id
+    @Column(name = "hour", nullable = false)
+    private LocalDateTime hour;
+
+    @Column(name = "total_clicks", nullable = false)
+    private long totalClicks;
+
+    // Constructores
+    public UIEventHourlyRollup() {
+    }
+
+    // Getters y Setters
+    public String getElementId() {
+        return elementId;
+    }
+
+    public void setElementId(String elementId) {
+        this.elementId = elementId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public LocalDateTime getHour() {
+        return hour;
+    }
+
+    public void setHour(LocalDateTime hour) {
+        this.hour = hour;
+    }
+
+    public long getTotalClicks() {
+        return totalClicks;
+    }
+
+    public void setTotalClicks(long totalClicks) {
+        this.totalClicks = totalClicks;
+    }
+}
@@ -0,0 +1,71 @@
+package com.miempresa.analytics.model;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Clave compuesta de UIEventHourlyRollup: (element_id, type, hour).
+ */
+public class UIEventHourlyRollupId implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String elementId;
+    private String type;
+    private LocalDateTime hour;
+
+    // Constructores
+    public UIEventHourlyRollupId() {
+    }
+
+    public UIEventHourlyRollupId(String elementId, String type, LocalDateTime hour) {
+        this.elementId = elementId;
+        this.type = type;
+        this.hour = hour;
+    }
+
+    // Getters y Setters
+    public String getElementId() {
+        return elementId;
+    }
+
+    public void setElementId(String elementId) {
+        this.elementId = elementId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public LocalDateTime getHour() {
+        return hour;
+    }
+
+    public void setHour(LocalDateTime hour) {
+        this.hour = hour;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof UIEventHourlyRollupId)) {
+            return false;
+        }
+        UIEventHourlyRollupId that = (UIEventHourlyRollupId) o;
+        return Objects.equals(elementId, that.elementId)
+                && Objects.equals(type, that.type)
+                && Objects.equals(hour, that.hour);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(elementId, type, hour);
+    }
+}
@@ -0,0 +1,107 @@
+package com.miempresa.analytics.model;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Valor de una clave de metadata indexada (metadata-keys.keys) de un evento.
+ *
+ * Se extrae del JSON de ui_events.metadata al ingerir y se escribe en la
+ * misma transacción que el evento. created_at, element_id y type_code se
+ * copian del evento para que las estadísticas filtradas por metadata se
+ * resuelvan con el índice de esta tabla, sin leer ui_events.
+ */
+@Entity
+@Table(name = "ui_event_metadata", indexes = {
+        // Estadísticas filtradas o agrupadas por una clave en un rango de fechas (índice cubriente)
+        @Index(name = "idx_ui_event_metadata_key_value_created_at",
+                columnList = "meta_key, meta_value, created_at, element_id, type_code"),
+        // Retención junto con las particiones de ui_events
+        @Index(name = "idx_ui_event_metadata_created_at", columnList = "created_at")
+})
+@IdClass(UIEventMetadataId.class)
+public class UIEventMetadata {
+
+    @Id
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    @Id
+    @Column(name = "meta_key", nullable = false, length = 50)
+    private String key;
+
+    @Column(name = "meta_value", nullable = false, length = 100)
+    private String value;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "element_id", nullable = false, length = 100)
+    private String elementId;
+
+    @Column(name = "type_code", nullable = false)
+    private Integer typeCode;
+
+    // Constructores
+    public UIEventMetadata() {
+    }
+
+    public UIEventMetadata(Long eventId, String key, String value, LocalDateTime createdAt,
+                           String elementId, Integer typeCode) {
+        this.eventId = eventId;
+        this.key = key;
+        this.value = value;
+        this.createdAt = createdAt;
+        this.elementId = elementId;
+        this.typeCode = typeCode;
+    }
+
+    // Getters y Setters
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(Long eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public String getElementId() {
+        return elementId;
+    }
+
+    public void setElementId(String elementId) {
+        this.elementId = elementId;
+    }
+
+    public Integer getTypeCode() {
+        return typeCode;
+    }
+
+    public void setTypeCode(Integer typeCode) {
+        this.typeCode = typeCode;
+    }
+}
@@ -0,0 +1,59 @@
+package com.miempresa.analytics.model;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Clave compuesta de UIEventMetadata: (event_id, meta_key).
+ */
+public class UIEventMetadataId implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long eventId;
+    private String key;
+
+    // Constructores
+    public UIEventMetadataId() {
+    }
+
+    public UIEventMetadataId(Long eventId, String key) {
+        this.eventId = eventId;
+        this.key = key;
+    }
+
+    // Getters y Setters
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(Long eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof UIEventMetadataId)) {
+            return false;
+        }
+        UIEventMetadataId that = (UIEventMetadataId) o;
+        return Objects.equals(eventId, that.eventId)
+                && Objects.equals(key, that.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(eventId, key);
+    }
+}
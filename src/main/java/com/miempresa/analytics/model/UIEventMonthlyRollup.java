@@ -0,0 +1,74 @@
+package com.miempresa.analytics.model;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Agregado mensual de clicks por elemento y tipo.
+ * Se mantiene incrementalmente con upserts en cada escritura de eventos, de
+ * modo que /v1/stats/monthly no necesita recorrer ui_events.
+ */
+@Entity
+@Table(name = "ui_event_monthly_rollup")
+@IdClass(UIEventMonthlyRollupId.class)
+public class UIEventMonthlyRollup {
+
+    @Id
+    @Column(name = "element_id", nullable = false, length = 100)
+    private String elementId;
+
+    @Id
+    @Column(name = "type", nullable = false, length = 50)
+    private String type;
+
+    @Id
+    @Column(name = "month", nullable = false)
+    private LocalDate month;
+
+    @Column(name = "total_clicks", nullable = false)
+    private long totalClicks;
+
+    // Constructores
+    public UIEventMonthlyRollup() {
+    }
+
+    public UIEventMonthlyRollup(String elementId, String type, LocalDate month, long totalClicks) {
+        this.elementId = elementId;
+        this.type = type;
+        this.month = month;
+        this.totalClicks = totalClicks;
+    }
+
+    // Getters y Setters
+    public String getElementId() {
+        return elementId;
+    }
+
+    public void setElementId(String elementId) {
+        this.elementId = elementId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public LocalDate getMonth() {
+        return month;
+    }
+
+    public void setMonth(LocalDate month) {
+        this.month = month;
+    }
+
+    public long getTotalClicks() {
+        return totalClicks;
+    }
+
+    public void setTotalClicks(long totalClicks) {
+        this.totalClicks = totalClicks;
+    }
+}
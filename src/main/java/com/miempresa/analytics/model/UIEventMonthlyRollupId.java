@@ -0,0 +1,71 @@
+package com.miempresa.analytics.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Clave compuesta de UIEventMonthlyRollup: (element_id, type, month).
+ */
+public class UIEventMonthlyRollupId implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String elementId;
+    private String type;
+    private LocalDate month;
+
+    // Constructores
+    public UIEventMonthlyRollupId() {
+    }
+
+    public UIEventMonthlyRollupId(String elementId, String type, LocalDate month) {
+        this.elementId = elementId;
+        this.type = type;
+        this.month = month;
+    }
+
+    // Getters y Setters
+    public String getElementId() {
+        return elementId;
+    }
+
+    public void setElementId(String elementId) {
+        this.elementId = elementId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public LocalDate getMonth() {
+        return month;
+    }
+
+    public void setMonth(LocalDate month) {
+        this.month = month;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof UIEventMonthlyRollupId)) {
+            return false;
+        }
+        UIEventMonthlyRollupId that = (UIEventMonthlyRollupId) o;
+        return Objects.equals(elementId, that.elementId)
+                && Objects.equals(type, that.type)
+                && Objects.equals(month, that.month);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(elementId, type, month);
+    }
+}
@@ -0,0 +1,68 @@
+package com.miempresa.analytics.model;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Sketch HyperLogLog de los userId distintos por elemento, tipo y mes.
+ * Permite estimar usuarios únicos de un mes, un trimestre o cualquier rango
+ * combinando sketches, sin recorrer ui_events.
+ */
+@Entity
+@Table(name = "ui_event_user_sketch")
+@IdClass(UIEventMonthlyRollupId.class)
+public class UIEventUserSketch {
+
+    @Id
+    @Column(name = "element_id", nullable = false, length = 100)
+    private String elementId;
+
+    @Id
+    @Column(name = "type", nullable = false, length = 50)
+    private String type;
+
+    @Id
+    @Column(name = "month", nullable = false)
+    private LocalDate month;
+
+    // Formato de HyperLogLog.toBytes(): precisión + registros
+    @Column(name = "sketch", nullable = false, columnDefinition = "BLOB")
+    private byte[] sketch;
+
+    // Constructores
+    public UIEventUserSketch() {
+    }
+
+    // Getters y Setters
+    public String getElementId() {
+        return elementId;
+    }
+
+    public void setElementId(String elementId) {
+        this.elementId = elementId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public LocalDate getMonth() {
+        return month;
+    }
+
+    public void setMonth(LocalDate month) {
+        this.month = month;
+    }
+
+    public byte[] getSketch() {
+        return sketch;
+    }
+
+    public void setSketch(byte[] sketch) {
+        this.sketch = sketch;
+    }
+}
@@ -0,0 +1,112 @@
+package com.miempresa.analytics.repository;
+
+import com.miempresa.analytics.model.DimensionType;
+import com.miempresa.analytics.model.UIDimensionValue;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Repositorio JDBC del diccionario de dimensiones (ui_dimension_dictionary)
+ * y de la migración de las columnas de texto de ui_events a códigos.
+ */
+@Repository
+public class UIDimensionDictionaryRepository {
+
+    private static final String DB_TIMER = "analytics.db.jdbc";
+
+    private static final RowMapper<UIDimensionValue> ROW_MAPPER = (rs, rowNum) -> new UIDimensionValue(
+            rs.getInt("id"), DimensionType.valueOf(rs.getString("dimension")), rs.getString("dim_value"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UIDimensionDictionaryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Timed(DB_TIMER)
+    public List<UIDimensionValue> findAll() {
+        return jdbcTemplate.query("SELECT id, dimension, dim_value FROM ui_dimension_dictionary", ROW_MAPPER);
+    }
+
+    @Timed(DB_TIMER)
+    public UIDimensionValue findById(int id) {
+        List<UIDimensionValue> rows = jdbcTemplate.query(
+                "SELECT id, dimension, dim_value FROM ui_dimension_dictionary WHERE id = ?", ROW_MAPPER, id);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    @Timed(DB_TIMER)
+    public Integer findId(DimensionType dimension, String value) {
+        List<Integer> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM ui_dimension_dictionary WHERE dimension = ? AND dim_value = ?",
+                Integer.class, dimension.name(), value);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    /**
+     * Registra un valor si no existe. Es idempotente entre instancias: ante
+     * una inserción concurrente del mismo valor la clave única lo ignora.
+     */
+    @Timed(DB_TIMER)
+    public void insertIfAbsent(DimensionType dimension, String value) {
+        jdbcTemplate.update("INSERT IGNORE INTO ui_dimension_dictionary (dimension, dim_value) VALUES (?, ?)",
+                dimension.name(), value);
+    }
+
+    /**
+     * Dimensiones cuya columna de texto original todavía existe en ui_events.
+     */
+    public List<DimensionType> findLegacyDimensions() {
+        List<String> columns = jdbcTemplate.queryForList(
+                "SELECT COLUMN_NAME FROM information_schema.COLUMNS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'ui_events'", String.class);
+        List<DimensionType> legacy = new ArrayList<>();
+        for (DimensionType dimension : DimensionType.values()) {
+            if (columns.stream().anyMatch(c -> c.equalsIgnoreCase(dimension.getLegacyColumn()))) {
+                legacy.add(dimension);
+            }
+        }
+        return legacy;
+    }
+
+    /**
+     * Carga en el diccionario los valores distintos de una columna de texto original.
+     *
+     * @return número de valores nuevos
+     */
+    public int importLegacyValues(DimensionType dimension) {
+        String column = dimension.getLegacyColumn();
+        return jdbcTemplate.update("INSERT IGNORE INTO ui_dimension_dictionary (dimension, dim_value) " +
+                "SELECT DISTINCT ?, " + column + " FROM ui_events WHERE " + column + " IS NOT NULL",
+                dimension.name());
+    }
+
+    /**
+     * Completa la columna de código vacía de un rango de ids a partir de la columna de texto.
+     */
+    public int encodeLegacyRange(DimensionType dimension, long fromIdExclusive, long toIdInclusive) {
+        return jdbcTemplate.update("UPDATE ui_events e JOIN ui_dimension_dictionary d " +
+                "ON d.dimension = ? AND d.dim_value = e." + dimension.getLegacyColumn() + " " +
+                "SET e." + dimension.getCodeColumn() + " = d.id " +
+                "WHERE e.id > ? AND e.id <= ? AND e." + dimension.getCodeColumn() + " IS NULL",
+                dimension.name(), fromIdExclusive, toIdInclusive);
+    }
+
+    public long findMaxEventId() {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM ui_events", Long.class);
+        return max != null ? max : 0L;
+    }
+
+    public void dropLegacyColumns(List<DimensionType> dimensions) {
+        StringBuilder sql = new StringBuilder("ALTER TABLE ui_events");
+        for (int i = 0; i < dimensions.size(); i++) {
+            sql.append(i == 0 ? " " : ", ").append("DROP COLUMN ").append(dimensions.get(i).getLegacyColumn());
+        }
+        jdbcTemplate.execute(sql.toString());
+    }
+}
@@ -0,0 +1,25 @@
+package com.miempresa.analytics.repository;
+
+import com.miempresa.analytics.model.UIEventHeatmapCell;
+import com.miempresa.analytics.model.UIEventHeatmapCellId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface UIEventHeatmapCellRepository extends JpaRepository<UIEventHeatmapCell, UIEventHeatmapCellId> {
+
+    /**
+     * Celdas de un elemento en todos los breakpoints. Recorre un prefijo de la
+     * clave primaria: el costo depende del número de celdas, no de eventos.
+     */
+    List<UIEventHeatmapCell> findByAppCodeAndRouteCodeAndElementIdOrderByBreakpointAscCellYAscCellXAsc(
+            int appCode, int routeCode, String elementId);
+
+    /**
+     * Celdas de un elemento en un breakpoint.
+     */
+    List<UIEventHeatmapCell> findByAppCodeAndRouteCodeAndElementIdAndBreakpointOrderByCellYAscCellXAsc(
+            int appCode, int routeCode, String elementId, int breakpoint);
+}
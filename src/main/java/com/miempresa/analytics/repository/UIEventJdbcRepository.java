@@ -0,0 +1,848 @@
+package com.miempresa.analytics.repository;
+
+import com.miempresa.analytics.dto.UIMonthlyStat;
+import com.miempresa.analytics.model.UIEvent;
+import com.miempresa.analytics.model.UIEventDailyRollupId;
+import com.miempresa.analytics.model.UIEventHeatmapCellId;
+import com.miempresa.analytics.model.UIEventHourlyRollupId;
+import com.miempresa.analytics.model.UIEventMetadata;
+import com.miempresa.analytics.model.UIEventMonthlyRollup;
+import com.miempresa.analytics.model.UIEventMonthlyRollupId;
+import com.miempresa.analytics.util.HyperLogLog;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repositorio JDBC para escrituras masivas en ui_events y sus tablas de agregados.
+ * Evita el ciclo de vida de entidades de Hibernate y envía los eventos en
+ * lotes; con rewriteBatchedStatements el driver de MySQL los reescribe como
+ * un único INSERT multi-fila.
+ * Cada método se mide en analytics.db.jdbc{class,method}.
+ */
+@Repository
+public class UIEventJdbcRepository {
+
+    private static final String DB_TIMER = "analytics.db.jdbc";
+
+    /**
+     * Columnas de la exportación, en el orden del SELECT de streamEvents.
+     * type, app_id, element_type y route se leen como códigos del diccionario.
+     */
+    public static final String[] EXPORT_COLUMNS = {
+            "id", "type", "app_id", "element_id", "element_type", "route", "user_id", "metadata",
+            "coordinate_x", "coordinate_y", "screen_width", "screen_height", "created_at"
+    };
+
+    private static final String EXPORT_SELECT = "SELECT id, type_code, app_code, element_id, element_type_code, " +
+            "route_code, user_id, metadata, coordinate_x, coordinate_y, screen_width, screen_height, created_at " +
+            "FROM ui_events";
+
+    private static final String INSERT_SQL = "INSERT INTO ui_events " +
+            "(type_code, app_code, element_id, element_type_code, route_code, user_id, metadata, " +
+            "coordinate_x, coordinate_y, screen_width, screen_height, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPSERT_METADATA_SQL = "INSERT INTO ui_event_metadata " +
+            "(event_id, meta_key, meta_value, created_at, element_id, type_code) VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE meta_value = VALUES(meta_value)";
+
+    private static final String UPSERT_MONTHLY_ROLLUP_SQL = "INSERT INTO ui_event_monthly_rollup " +
+            "(element_id, type, month, total_clicks) VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE total_clicks = total_clicks + VALUES(total_clicks)";
+
+    private static final String UPSERT_HOURLY_ROLLUP_SQL = "INSERT INTO ui_event_hourly_rollup " +
+            "(element_id, type, hour, total_clicks) VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE total_clicks = total_clicks + VALUES(total_clicks)";
+
+    private static final String UPSERT_DAILY_ROLLUP_SQL = "INSERT INTO ui_event_daily_rollup " +
+            "(element_id, type, day, total_clicks) VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE total_clicks = total_clicks + VALUES(total_clicks)";
+
+    private static final String UPSERT_HEATMAP_CELL_SQL = "INSERT INTO ui_event_heatmap_cell " +
+            "(app_code, route_code, element_id, breakpoint, cell_x, cell_y, clicks) VALUES (?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE clicks = clicks + VALUES(clicks)";
+
+    private static final String SELECT_USER_SKETCH_FOR_UPDATE_SQL = "SELECT sketch FROM ui_event_user_sketch " +
+            "WHERE element_id = ? AND type = ? AND month = ? FOR UPDATE";
+
+    private static final String UPSERT_USER_SKETCH_SQL = "INSERT INTO ui_event_user_sketch " +
+            "(element_id, type, month, sketch) VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE sketch = VALUES(sketch)";
+
+    private static final String SELECT_MONTH_USERS_SQL = "SELECT element_id, type_code, user_id FROM ui_events " +
+            "WHERE created_at >= ? AND created_at < ? AND user_id IS NOT NULL";
+
+    private static final String SELECT_MONTH_METADATA_SQL = "SELECT id, element_id, type_code, metadata, created_at " +
+            "FROM ui_events WHERE created_at >= ? AND created_at < ? AND metadata IS NOT NULL";
+
+    private static final String SELECT_RECENT_EVENTS_SQL = "SELECT id, created_at, type_code, app_code, " +
+            "element_id, element_type_code, route_code FROM ui_events WHERE created_at >= ? AND id <= ?";
+
+    private static final String DELETE_METADATA_BEFORE_SQL =
+            "DELETE FROM ui_event_metadata WHERE created_at < ? LIMIT ?";
+
+    private static final String MONTHLY_STATS_SELECT = "SELECT e.element_id, d.dim_value, " +
+            "YEAR(e.created_at), MONTH(e.created_at), COUNT(*) FROM ui_events e " +
+            "JOIN ui_dimension_dictionary d ON d.id = e.type_code";
+
+    private static final String DELETE_MONTHLY_ROLLUP_SQL =
+            "DELETE FROM ui_event_monthly_rollup WHERE month = ?";
+
+    private static final String REBUILD_MONTHLY_ROLLUP_SQL = "INSERT INTO ui_event_monthly_rollup " +
+            "(element_id, type, month, total_clicks) " +
+            "SELECT be.element_id, d.dim_value, ?, COUNT(*) FROM ui_events be " +
+            "JOIN ui_dimension_dictionary d ON d.id = be.type_code " +
+            "WHERE be.created_at >= ? AND be.created_at < ? " +
+            "GROUP BY be.element_id, d.dim_value";
+
+    private static final String DELETE_HOURLY_ROLLUP_SQL =
+            "DELETE FROM ui_event_hourly_rollup WHERE hour >= ? AND hour < ?";
+
+    // Inicio de la hora: fecha a medianoche + HOUR(created_at) horas
+    private static final String REBUILD_HOURLY_ROLLUP_SQL = "INSERT INTO ui_event_hourly_rollup " +
+            "(element_id, type, hour, total_clicks) " +
+            "SELECT be.element_id, d.dim_value, " +
+            "TIMESTAMPADD(HOUR, HOUR(be.created_at), CAST(CAST(be.created_at AS DATE) AS DATETIME)), COUNT(*) " +
+            "FROM ui_events be " +
+            "JOIN ui_dimension_dictionary d ON d.id = be.type_code " +
+            "WHERE be.created_at >= ? AND be.created_at < ? " +
+            "GROUP BY be.element_id, d.dim_value, " +
+            "TIMESTAMPADD(HOUR, HOUR(be.created_at), CAST(CAST(be.created_at AS DATE) AS DATETIME))";
+
+    private static final String DELETE_DAILY_ROLLUP_SQL =
+            "DELETE FROM ui_event_daily_rollup WHERE day >= ? AND day < ?";
+
+    private static final String REBUILD_DAILY_ROLLUP_SQL = "INSERT INTO ui_event_daily_rollup " +
+            "(element_id, type, day, total_clicks) " +
+            "SELECT be.element_id, d.dim_value, CAST(be.created_at AS DATE), COUNT(*) FROM ui_events be " +
+            "JOIN ui_dimension_dictionary d ON d.id = be.type_code " +
+            "WHERE be.created_at >= ? AND be.created_at < ? " +
+            "GROUP BY be.element_id, d.dim_value, CAST(be.created_at AS DATE)";
+
+    private static final String DELETE_EXPIRED_HOURLY_ROLLUP_SQL =
+            "DELETE FROM ui_event_hourly_rollup WHERE hour < ? LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int exportFetchSize;
+
+    public UIEventJdbcRepository(JdbcTemplate jdbcTemplate,
+                                 @Value("${events.export.fetch-size:-2147483648}") int exportFetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.exportFetchSize = exportFetchSize;
+    }
+
+    /**
+     * Inserta un lote de eventos en una sola ida y vuelta a la base de datos.
+     *
+     * @param events Eventos ya validados, mapeados y codificados
+     */
+    @Timed(DB_TIMER)
+    public void insertBatch(final List<UIEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                setInsertValues(ps, events.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return events.size();
+            }
+        });
+    }
+
+    /**
+     * Como insertBatch, pero asigna a cada evento el id generado. Se usa
+     * cuando el lote tiene filas de ui_event_metadata que lo referencian.
+     */
+    @Timed(DB_TIMER)
+    public void insertBatchReturningIds(final List<UIEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (UIEvent event : events) {
+                    setInsertValues(ps, event);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                int assigned = 0;
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (assigned < events.size() && keys.next()) {
+                        events.get(assigned++).setId(keys.getLong(1));
+                    }
+                }
+                if (assigned != events.size()) {
+                    throw new SQLException("Expected " + events.size() + " generated keys, got " + assigned);
+                }
+            }
+            return null;
+        });
+    }
+
+    private static void setInsertValues(PreparedStatement ps, UIEvent event) throws SQLException {
+        // Códigos ya resueltos por DimensionDictionary
+        ps.setInt(1, event.getTypeCode());
+        setNullableInt(ps, 2, event.getAppCode());
+        ps.setString(3, event.getElementId());
+        setNullableInt(ps, 4, event.getElementTypeCode());
+        setNullableInt(ps, 5, event.getRouteCode());
+        ps.setString(6, event.getUserId());
+        ps.setString(7, event.getMetadata());
+        setNullableInt(ps, 8, event.getCoordinateX());
+        setNullableInt(ps, 9, event.getCoordinateY());
+        setNullableInt(ps, 10, event.getScreenWidth());
+        setNullableInt(ps, 11, event.getScreenHeight());
+        ps.setTimestamp(12, Timestamp.valueOf(event.getCreatedAt()));
+    }
+
+    /**
+     * Inserta valores de claves de metadata indexadas. Un valor ya existente
+     * para el mismo evento y clave se sobrescribe, así que el backfill es
+     * idempotente.
+     */
+    @Timed(DB_TIMER)
+    public void upsertMetadata(final List<UIEventMetadata> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_METADATA_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                UIEventMetadata row = rows.get(i);
+                ps.setLong(1, row.getEventId());
+                ps.setString(2, row.getKey());
+                ps.setString(3, row.getValue());
+                ps.setTimestamp(4, Timestamp.valueOf(row.getCreatedAt()));
+                ps.setString(5, row.getElementId());
+                ps.setInt(6, row.getTypeCode());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    /**
+     * Suma incrementos a la tabla de agregados mensuales.
+     * Las claves se escriben en orden para que escritores concurrentes tomen
+     * los locks de fila en el mismo orden y no generen deadlocks.
+     *
+     * @param increments Clicks a sumar por (element_id, type, month)
+     */
+    @Timed(DB_TIMER)
+    public void upsertMonthlyRollup(Map<UIEventMonthlyRollupId, Long> increments) {
+        if (increments.isEmpty()) {
+            return;
+        }
+        final List<Map.Entry<UIEventMonthlyRollupId, Long>> rows = new ArrayList<>(increments.entrySet());
+        rows.sort(Comparator
+                .comparing((Map.Entry<UIEventMonthlyRollupId, Long> e) -> e.getKey().getMonth())
+                .thenComparing(e -> e.getKey().getElementId())
+                .thenComparing(e -> e.getKey().getType()));
+        jdbcTemplate.batchUpdate(UPSERT_MONTHLY_ROLLUP_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Map.Entry<UIEventMonthlyRollupId, Long> row = rows.get(i);
+                ps.setString(1, row.getKey().getElementId());
+                ps.setString(2, row.getKey().getType());
+                ps.setDate(3, Date.valueOf(row.getKey().getMonth()));
+                ps.setLong(4, row.getValue());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    /**
+     * Suma incrementos al agregado horario, en orden de clave.
+     *
+     * @param increments Clicks a sumar por (element_id, type, hour)
+     */
+    @Timed(DB_TIMER)
+    public void upsertHourlyRollup(Map<UIEventHourlyRollupId, Long> increments) {
+        if (increments.isEmpty()) {
+            return;
+        }
+        final List<Map.Entry<UIEventHourlyRollupId, Long>> rows = new ArrayList<>(increments.entrySet());
+        rows.sort(Comparator
+                .comparing((Map.Entry<UIEventHourlyRollupId, Long> e) -> e.getKey().getElementId())
+                .thenComparing(e -> e.getKey().getType())
+                .thenComparing(e -> e.getKey().getHour()));
+        jdbcTemplate.batchUpdate(UPSERT_HOURLY_ROLLUP_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Map.Entry<UIEventHourlyRollupId, Long> row = rows.get(i);
+                ps.setString(1, row.getKey().getElementId());
+                ps.setString(2, row.getKey().getType());
+                ps.setTimestamp(3, Timestamp.valueOf(row.getKey().getHour()));
+                ps.setLong(4, row.getValue());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    /**
+     * Suma incrementos al agregado diario, en orden de clave.
+     *
+     * @param increments Clicks a sumar por (element_id, type, day)
+     */
+    @Timed(DB_TIMER)
+    public void upsertDailyRollup(Map<UIEventDailyRollupId, Long> increments) {
+        if (increments.isEmpty()) {
+            return;
+        }
+        final List<Map.Entry<UIEventDailyRollupId, Long>> rows = new ArrayList<>(increments.entrySet());
+        rows.sort(Comparator
+                .comparing((Map.Entry<UIEventDailyRollupId, Long> e) -> e.getKey().getElementId())
+                .thenComparing(e -> e.getKey().getType())
+                .thenComparing(e -> e.getKey().getDay()));
+        jdbcTemplate.batchUpdate(UPSERT_DAILY_ROLLUP_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Map.Entry<UIEventDailyRollupId, Long> row = rows.get(i);
+                ps.setString(1, row.getKey().getElementId());
+                ps.setString(2, row.getKey().getType());
+                ps.setDate(3, Date.valueOf(row.getKey().getDay()));
+                ps.setLong(4, row.getValue());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    /**
+     * Suma clicks a las celdas de heatmap, en orden de clave para evitar
+     * deadlocks entre escritores concurrentes.
+     *
+     * @param increments Clicks a sumar por celda
+     */
+    @Timed(DB_TIMER)
+    public void upsertHeatmapCells(Map<UIEventHeatmapCellId, Long> increments) {
+        if (increments.isEmpty()) {
+            return;
+        }
+        final List<Map.Entry<UIEventHeatmapCellId, Long>> rows = new ArrayList<>(increments.entrySet());
+        rows.sort(Comparator
+                .comparingInt((Map.Entry<UIEventHeatmapCellId, Long> e) -> e.getKey().getAppCode())
+                .thenComparingInt(e -> e.getKey().getRouteCode())
+                .thenComparing(e -> e.getKey().getElementId())
+                .thenComparingInt(e -> e.getKey().getBreakpoint())
+                .thenComparingInt(e -> e.getKey().getCellX())
+                .thenComparingInt(e -> e.getKey().getCellY()));
+        jdbcTemplate.batchUpdate(UPSERT_HEATMAP_CELL_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                UIEventHeatmapCellId cell = rows.get(i).getKey();
+                ps.setInt(1, cell.getAppCode());
+                ps.setInt(2, cell.getRouteCode());
+                ps.setString(3, cell.getElementId());
+                ps.setInt(4, cell.getBreakpoint());
+                ps.setInt(5, cell.getCellX());
+                ps.setInt(6, cell.getCellY());
+                ps.setLong(7, rows.get(i).getValue());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    /**
+     * Combina sketches de usuarios únicos con los almacenados. Cada fila se lee
+     * con FOR UPDATE y se reescribe con el máximo por registro, en orden de
+     * clave para evitar deadlocks. Debe ejecutarse dentro de una transacción.
+     * Combinar dos veces el mismo sketch no altera el resultado, por lo que
+     * reintentar tras un fallo es seguro.
+     *
+     * @param sketches Sketch a combinar por (element_id, type, month)
+     */
+    @Timed(DB_TIMER)
+    public void mergeUserSketches(Map<UIEventMonthlyRollupId, HyperLogLog> sketches) {
+        List<Map.Entry<UIEventMonthlyRollupId, HyperLogLog>> rows = new ArrayList<>(sketches.entrySet());
+        rows.sort(Comparator
+                .comparing((Map.Entry<UIEventMonthlyRollupId, HyperLogLog> e) -> e.getKey().getMonth())
+                .thenComparing(e -> e.getKey().getElementId())
+                .thenComparing(e -> e.getKey().getType()));
+        for (Map.Entry<UIEventMonthlyRollupId, HyperLogLog> row : rows) {
+            UIEventMonthlyRollupId key = row.getKey();
+            Date month = Date.valueOf(key.getMonth());
+            List<byte[]> stored = jdbcTemplate.query(SELECT_USER_SKETCH_FOR_UPDATE_SQL,
+                    (rs, rowNum) -> rs.getBytes(1), key.getElementId(), key.getType(), month);
+            HyperLogLog merged = stored.isEmpty()
+                    ? row.getValue()
+                    : HyperLogLog.fromBytes(stored.get(0)).merge(row.getValue());
+            jdbcTemplate.update(UPSERT_USER_SKETCH_SQL, key.getElementId(), key.getType(), month, merged.toBytes());
+        }
+    }
+
+    /**
+     * Recorre (element_id, type_code, user_id) de los eventos de un mes con
+     * userId, fila a fila, para reconstruir los sketches.
+     */
+    @Timed(DB_TIMER)
+    public void streamMonthUsers(LocalDate month, RowCallbackHandler handler) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_MONTH_USERS_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(exportFetchSize);
+            ps.setTimestamp(1, Timestamp.valueOf(month.atStartOfDay()));
+            ps.setTimestamp(2, Timestamp.valueOf(month.plusMonths(1).atStartOfDay()));
+            return ps;
+        }, handler);
+    }
+
+    /**
+     * Recorre (id, element_id, type_code, metadata, created_at) de los eventos
+     * de un mes con metadata, fila a fila, para el backfill de ui_event_metadata.
+     */
+    @Timed(DB_TIMER)
+    public void streamMonthMetadata(LocalDate month, RowCallbackHandler handler) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_MONTH_METADATA_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(exportFetchSize);
+            ps.setTimestamp(1, Timestamp.valueOf(month.atStartOfDay()));
+            ps.setTimestamp(2, Timestamp.valueOf(month.plusMonths(1).atStartOfDay()));
+            return ps;
+        }, handler);
+    }
+
+    /**
+     * Borra hasta limit valores de metadata anteriores a cutoff.
+     *
+     * @return filas borradas; menos que limit indica que no quedan más
+     */
+    @Timed(DB_TIMER)
+    public int deleteMetadataBefore(LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.update(DELETE_METADATA_BEFORE_SQL, Timestamp.valueOf(cutoff), limit);
+    }
+
+    /**
+     * Borra eventos ya archivados y sus valores de metadata indexada. El
+     * rango de created_at que contiene a los ids permite a MySQL podar
+     * particiones; un id que ya no existe se ignora.
+     *
+     * @return eventos borrados
+     */
+    @Timed(DB_TIMER)
+    public int deleteArchivedEvents(LocalDateTime from, LocalDateTime to, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        List<Object> args = new ArrayList<>(ids.size() + 2);
+        args.addAll(ids);
+        jdbcTemplate.update("DELETE FROM ui_event_metadata WHERE event_id IN (" + placeholders + ")",
+                args.toArray());
+        args.add(0, Timestamp.valueOf(from));
+        args.add(1, Timestamp.valueOf(to));
+        return jdbcTemplate.update("DELETE FROM ui_events WHERE created_at >= ? AND created_at < ? AND id IN ("
+                + placeholders + ")", args.toArray());
+    }
+
+    /**
+     * Agrupa por elemento, tipo y mes los eventos que cumplen los filtros.
+     * Un filtro null no se aplica. Con appCode y rango de fechas la consulta
+     * es un range scan sobre (app_code, created_at); con elementId, sobre
+     * (element_id, type_code, created_at). Los demás filtros se evalúan
+     * sobre las filas de ese rango.
+     *
+     * @return agregados sin orden definido; el tipo se devuelve decodificado
+     */
+    @Timed(DB_TIMER)
+    public List<UIEventMonthlyRollup> findMonthlyStats(LocalDateTime from, LocalDateTime to, String elementId,
+                                                       Integer appCode, Integer elementTypeCode,
+                                                       Integer routeCode) {
+        StringBuilder sql = new StringBuilder(MONTHLY_STATS_SELECT).append(" WHERE 1 = 1");
+        List<Object> args = new ArrayList<>(6);
+        if (appCode != null) {
+            sql.append(" AND e.app_code = ?");
+            args.add(appCode);
+        }
+        if (elementId != null) {
+            sql.append(" AND e.element_id = ?");
+            args.add(elementId);
+        }
+        if (from != null) {
+            sql.append(" AND e.created_at >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND e.created_at < ?");
+            args.add(Timestamp.valueOf(to));
+        }
+        if (elementTypeCode != null) {
+            sql.append(" AND e.element_type_code = ?");
+            args.add(elementTypeCode);
+        }
+        if (routeCode != null) {
+            sql.append(" AND e.route_code = ?");
+            args.add(routeCode);
+        }
+        sql.append(" GROUP BY e.element_id, d.dim_value, YEAR(e.created_at), MONTH(e.created_at)");
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new UIEventMonthlyRollup(
+                rs.getString(1), rs.getString(2), LocalDate.of(rs.getInt(3), rs.getInt(4), 1), rs.getLong(5)),
+                args.toArray());
+    }
+
+    /**
+     * Como findMonthlyStats, pero filtrando por valores de claves de metadata
+     * indexadas y opcionalmente agrupando también por el valor de una clave.
+     *
+     * La consulta parte de ui_event_metadata con el índice
+     * (meta_key, meta_value, created_at, element_id, type_code): el primer
+     * filtro (o la clave de agrupación, si no hay filtros) es un range scan
+     * cubriente; cada filtro adicional y la clave de agrupación se resuelven
+     * por clave primaria (event_id, meta_key). Solo appCode, elementTypeCode
+     * y routeCode requieren leer la fila de ui_events. Los eventos sin la
+     * clave de agrupación no se cuentan.
+     *
+     * @param metadataFilters clave -> valor; al menos un filtro o groupByKey
+     * @param groupByKey      clave por cuyo valor agrupar, o null
+     * @return agregados sin orden definido; metadataValue solo con groupByKey
+     */
+    @Timed(DB_TIMER)
+    public List<UIMonthlyStat> findMonthlyStatsByMetadata(LocalDateTime from, LocalDateTime to, String elementId,
+                                                          Integer appCode, Integer elementTypeCode,
+                                                          Integer routeCode, Map<String, String> metadataFilters,
+                                                          String groupByKey) {
+        List<Map.Entry<String, String>> filters = new ArrayList<>(metadataFilters.entrySet());
+        if (filters.isEmpty() && groupByKey == null) {
+            throw new IllegalArgumentException("A metadata filter or group-by key is required");
+        }
+        StringBuilder joins = new StringBuilder();
+        List<Object> joinArgs = new ArrayList<>();
+        StringBuilder where = new StringBuilder(" WHERE m0.meta_key = ?");
+        List<Object> whereArgs = new ArrayList<>();
+        String groupValue = null;
+
+        if (filters.isEmpty()) {
+            whereArgs.add(groupByKey);
+            groupValue = "m0.meta_value";
+        } else {
+            whereArgs.add(filters.get(0).getKey());
+            where.append(" AND m0.meta_value = ?");
+            whereArgs.add(filters.get(0).getValue());
+            for (int i = 0; i < filters.size(); i++) {
+                String alias = "m" + i;
+                if (i > 0) {
+                    joins.append(" JOIN ui_event_metadata ").append(alias).append(" ON ").append(alias)
+                            .append(".event_id = m0.event_id AND ").append(alias).append(".meta_key = ? AND ")
+                            .append(alias).append(".meta_value = ?");
+                    joinArgs.add(filters.get(i).getKey());
+                    joinArgs.add(filters.get(i).getValue());
+                }
+                if (filters.get(i).getKey().equals(groupByKey)) {
+                    groupValue = alias + ".meta_value";
+                }
+            }
+            if (groupByKey != null && groupValue == null) {
+                joins.append(" JOIN ui_event_metadata g ON g.event_id = m0.event_id AND g.meta_key = ?");
+                joinArgs.add(groupByKey);
+                groupValue = "g.meta_value";
+            }
+        }
+        if (appCode != null || elementTypeCode != null || routeCode != null) {
+            joins.append(" JOIN ui_events e ON e.id = m0.event_id AND e.created_at = m0.created_at");
+        }
+        if (from != null) {
+            where.append(" AND m0.created_at >= ?");
+            whereArgs.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            where.append(" AND m0.created_at < ?");
+            whereArgs.add(Timestamp.valueOf(to));
+        }
+        if (elementId != null) {
+            where.append(" AND m0.element_id = ?");
+            whereArgs.add(elementId);
+        }
+        if (appCode != null) {
+            where.append(" AND e.app_code = ?");
+            whereArgs.add(appCode);
+        }
+        if (elementTypeCode != null) {
+            where.append(" AND e.element_type_code = ?");
+            whereArgs.add(elementTypeCode);
+        }
+        if (routeCode != null) {
+            where.append(" AND e.route_code = ?");
+            whereArgs.add(routeCode);
+        }
+
+        String groupColumns = "m0.element_id, d.dim_value, YEAR(m0.created_at), MONTH(m0.created_at)"
+                + (groupValue != null ? ", " + groupValue : "");
+        String sql = "SELECT " + groupColumns + ", COUNT(*) FROM ui_event_metadata m0" + joins
+                + " JOIN ui_dimension_dictionary d ON d.id = m0.type_code" + where
+                + " GROUP BY " + groupColumns;
+        List<Object> args = new ArrayList<>(joinArgs);
+        args.addAll(whereArgs);
+        final boolean grouped = groupValue != null;
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            UIMonthlyStat stat = new UIMonthlyStat(rs.getString(1), rs.getString(2),
+                    LocalDate.of(rs.getInt(3), rs.getInt(4), 1), rs.getLong(grouped ? 6 : 5));
+            if (grouped) {
+                stat.setMetadataValue(rs.getString(5));
+            }
+            return stat;
+        }, args.toArray());
+    }
+
+    /**
+     * Retorna la fecha del evento más antiguo y la del más reciente.
+     *
+     * @return arreglo [min, max], ambos null si la tabla está vacía
+     */
+    @Timed(DB_TIMER)
+    public LocalDateTime[] findCreatedAtRange() {
+        return jdbcTemplate.queryForObject(
+                "SELECT MIN(created_at), MAX(created_at) FROM ui_events",
+                (rs, rowNum) -> new LocalDateTime[] {
+                        toLocalDateTime(rs.getTimestamp(1)),
+                        toLocalDateTime(rs.getTimestamp(2))
+                });
+    }
+
+    /**
+     * Reconstruye el agregado de un mes a partir de ui_events.
+     * Debe ejecutarse dentro de una transacción: el INSERT ... SELECT bloquea
+     * el rango leído, por lo que las escrituras concurrentes de ese mes esperan
+     * y luego suman sobre el valor reconstruido sin contarse dos veces.
+     *
+     * @param month Primer día del mes
+     * @return número de filas de agregado generadas
+     */
+    @Timed(DB_TIMER)
+    public int rebuildMonthlyRollup(LocalDate month) {
+        jdbcTemplate.update(DELETE_MONTHLY_ROLLUP_SQL, Date.valueOf(month));
+        return jdbcTemplate.update(REBUILD_MONTHLY_ROLLUP_SQL,
+                Date.valueOf(month),
+                Timestamp.valueOf(month.atStartOfDay()),
+                Timestamp.valueOf(month.plusMonths(1).atStartOfDay()));
+    }
+
+    /**
+     * Reconstruye los agregados horario y diario de un mes a partir de
+     * ui_events, con el mismo esquema de locks que rebuildMonthlyRollup.
+     * Debe ejecutarse dentro de una transacción.
+     *
+     * @param month       Primer día del mes
+     * @param withHourly  false para omitir el agregado horario (meses fuera de la retención)
+     * @return número de filas de agregado generadas
+     */
+    @Timed(DB_TIMER)
+    public int rebuildTimeSeriesRollups(LocalDate month, boolean withHourly) {
+        Timestamp start = Timestamp.valueOf(month.atStartOfDay());
+        Timestamp end = Timestamp.valueOf(month.plusMonths(1).atStartOfDay());
+        int rows = 0;
+        if (withHourly) {
+            jdbcTemplate.update(DELETE_HOURLY_ROLLUP_SQL, start, end);
+            rows += jdbcTemplate.update(REBUILD_HOURLY_ROLLUP_SQL, start, end);
+        }
+        jdbcTemplate.update(DELETE_DAILY_ROLLUP_SQL, Date.valueOf(month), Date.valueOf(month.plusMonths(1)));
+        rows += jdbcTemplate.update(REBUILD_DAILY_ROLLUP_SQL, start, end);
+        return rows;
+    }
+
+    /**
+     * Borra un bloque de filas del agregado horario anteriores a cutoff.
+     *
+     * @return filas borradas; 0 cuando no quedan filas vencidas
+     */
+    @Timed(DB_TIMER)
+    public int deleteHourlyRollupBefore(LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.update(DELETE_EXPIRED_HOURLY_ROLLUP_SQL, Timestamp.valueOf(cutoff), limit);
+    }
+
+    /**
+     * Serie de clicks por hora en [from, to), sumando elementos y tipos salvo
+     * que se filtren.
+     */
+    @Timed(DB_TIMER)
+    public Map<LocalDateTime, Long> findHourlySeries(LocalDateTime from, LocalDateTime to,
+                                                    String elementId, String type) {
+        return findSeries("ui_event_hourly_rollup", "hour",
+                Timestamp.valueOf(from), Timestamp.valueOf(to), elementId, type);
+    }
+
+    /**
+     * Serie de clicks por día en [from, to).
+     */
+    @Timed(DB_TIMER)
+    public Map<LocalDateTime, Long> findDailySeries(LocalDate from, LocalDate to, String elementId, String type) {
+        return findSeries("ui_event_daily_rollup", "day", Date.valueOf(from), Date.valueOf(to), elementId, type);
+    }
+
+    /**
+     * Serie de clicks por mes en [from, to); from y to son primeros días de mes.
+     */
+    @Timed(DB_TIMER)
+    public Map<LocalDateTime, Long> findMonthlySeries(LocalDate from, LocalDate to, String elementId, String type) {
+        return findSeries("ui_event_monthly_rollup", "month", Date.valueOf(from), Date.valueOf(to), elementId, type);
+    }
+
+    private Map<LocalDateTime, Long> findSeries(String table, String bucketColumn, Object from, Object to,
+                                                String elementId, String type) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(bucketColumn).append(", SUM(total_clicks) FROM ")
+                .append(table).append(" WHERE ").append(bucketColumn).append(" >= ? AND ")
+                .append(bucketColumn).append(" < ?");
+        List<Object> args = new ArrayList<>(4);
+        args.add(from);
+        args.add(to);
+        if (elementId != null) {
+            sql.append(" AND element_id = ?");
+            args.add(elementId);
+        }
+        if (type != null) {
+            sql.append(" AND type = ?");
+            args.add(type);
+        }
+        sql.append(" GROUP BY ").append(bucketColumn).append(" ORDER BY ").append(bucketColumn);
+        Map<LocalDateTime, Long> series = new LinkedHashMap<>();
+        jdbcTemplate.query(sql.toString(), (RowCallbackHandler) rs ->
+                series.put(rs.getTimestamp(1).toLocalDateTime(), rs.getLong(2)), args.toArray());
+        return series;
+    }
+
+    /**
+     * Número aproximado de filas de ui_events según las estadísticas de InnoDB.
+     * No recorre la tabla; si el motor no expone la estadística se usa count(*).
+     */
+    @Timed(DB_TIMER)
+    public long estimateRowCount() {
+        try {
+            List<Long> rows = jdbcTemplate.queryForList(
+                    "SELECT TABLE_ROWS FROM information_schema.TABLES " +
+                    "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'ui_events'", Long.class);
+            if (!rows.isEmpty() && rows.get(0) != null) {
+                return rows.get(0);
+            }
+        } catch (DataAccessException e) {
+            // Motores sin TABLE_ROWS (p. ej. bases embebidas): se cae al count exacto
+        }
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ui_events", Long.class);
+        return count != null ? count : 0L;
+    }
+
+    /**
+     * Recorre los eventos de un rango con un cursor de solo avance y entrega
+     * cada fila al handler a medida que llega del servidor.
+     * Con fetch-size Integer.MIN_VALUE el driver de MySQL hace streaming fila
+     * a fila, por lo que la memoria no depende del tamaño del rango. La
+     * conexión queda ocupada hasta terminar la exportación.
+     *
+     * @param from Inicio del rango (inclusive), o null
+     * @param to Fin del rango (exclusivo), o null
+     * @param appCode Filtrar por código de aplicación, o null
+     * @param handler Recibe cada fila con las columnas de EXPORT_COLUMNS
+     */
+    @Timed(DB_TIMER)
+    public void streamEvents(LocalDateTime from, LocalDateTime to, Integer appCode, RowCallbackHandler handler) {
+        StringBuilder sql = new StringBuilder(EXPORT_SELECT).append(" WHERE 1 = 1");
+        final List<Object> args = new ArrayList<>(3);
+        if (from != null) {
+            sql.append(" AND created_at >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND created_at < ?");
+            args.add(Timestamp.valueOf(to));
+        }
+        if (appCode != null) {
+            sql.append(" AND app_code = ?");
+            args.add(appCode);
+        }
+        // Mismo orden que el índice (created_at, id): no requiere filesort
+        sql.append(" ORDER BY created_at, id");
+
+        final String query = sql.toString();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(exportFetchSize);
+            for (int i = 0; i < args.size(); i++) {
+                ps.setObject(i + 1, args.get(i));
+            }
+            return ps;
+        }, handler);
+    }
+
+    /**
+     * Mayor id de ui_events, o null si la tabla está vacía.
+     */
+    @Timed(DB_TIMER)
+    public Long findMaxId() {
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM ui_events", Long.class);
+    }
+
+    /**
+     * Recorre en streaming, como streamEvents, solo las columnas que usa
+     * RecentEventStore de los eventos desde from con id hasta maxId.
+     *
+     * @param handler Recibe id, created_at, type_code, app_code, element_id,
+     *                element_type_code y route_code
+     */
+    @Timed(DB_TIMER)
+    public void streamRecentEvents(LocalDateTime from, long maxId, RowCallbackHandler handler) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_RECENT_EVENTS_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(exportFetchSize);
+            ps.setTimestamp(1, Timestamp.valueOf(from));
+            ps.setLong(2, maxId);
+            return ps;
+        }, handler);
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private static void setNullableInt(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value != null) {
+            ps.setInt(index, value);
+        } else {
+            ps.setNull(index, Types.INTEGER);
+        }
+    }
+}
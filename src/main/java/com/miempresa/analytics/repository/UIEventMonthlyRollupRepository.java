@@ -0,0 +1,29 @@
+package com.miempresa.analytics.repository;
+
+import com.miempresa.analytics.model.UIEventMonthlyRollup;
+import com.miempresa.analytics.model.UIEventMonthlyRollupId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface UIEventMonthlyRollupRepository extends JpaRepository<UIEventMonthlyRollup, UIEventMonthlyRollupId> {
+
+    /**
+     * Agregados de un rango de meses (inclusivo), opcionalmente de un solo
+     * elemento. Un parámetro null no filtra. Con elementId recorre un prefijo
+     * de la clave primaria.
+     */
+    @Query("SELECT r FROM UIEventMonthlyRollup r " +
+            "WHERE (:elementId IS NULL OR r.elementId = :elementId) " +
+            "AND (:fromMonth IS NULL OR r.month >= :fromMonth) " +
+            "AND (:toMonth IS NULL OR r.month <= :toMonth) " +
+            "ORDER BY r.month DESC, r.totalClicks DESC")
+    List<UIEventMonthlyRollup> findFiltered(@Param("elementId") String elementId,
+                                            @Param("fromMonth") LocalDate fromMonth,
+                                            @Param("toMonth") LocalDate toMonth);
+}
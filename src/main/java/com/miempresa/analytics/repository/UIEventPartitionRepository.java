@@ -0,0 +1,137 @@
+package com.miempresa.analytics.repository;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Operaciones DDL sobre las particiones mensuales de ui_events (MySQL).
+ *
+ * Cada partición pYYYYMM contiene los eventos de ese mes
+ * (VALUES LESS THAN el primer día del mes siguiente); pmax recibe cualquier
+ * fecha posterior a la última partición creada.
+ */
+@Repository
+public class UIEventPartitionRepository {
+
+    public static final String MAX_PARTITION = "pmax";
+
+    private static final String DB_TIMER = "analytics.db.jdbc";
+
+    private static final DateTimeFormatter PARTITION_NAME_FORMATTER = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UIEventPartitionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Nombre de la partición de un mes.
+     *
+     * @param month Primer día del mes
+     */
+    public static String partitionName(LocalDate month) {
+        return PARTITION_NAME_FORMATTER.format(month);
+    }
+
+    /**
+     * Mes de una partición mensual.
+     *
+     * @return primer día del mes, o null si no es una partición pYYYYMM (p. ej. pmax)
+     */
+    public static LocalDate partitionMonth(String partitionName) {
+        if (partitionName == null || !partitionName.matches("p\\d{6}")) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(partitionName.substring(1) + "01", DateTimeFormatter.BASIC_ISO_DATE);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Particiones actuales de ui_events en orden.
+     *
+     * @return nombres de partición, vacío si la tabla no está particionada
+     */
+    public List<String> findPartitionNames() {
+        return jdbcTemplate.queryForList(
+                "SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'ui_events' AND PARTITION_NAME IS NOT NULL " +
+                "ORDER BY PARTITION_ORDINAL_POSITION", String.class);
+    }
+
+    /**
+     * Indica si la clave primaria ya incluye created_at, requisito de MySQL
+     * para particionar por esa columna.
+     */
+    public boolean isPrimaryKeyPartitionable() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.KEY_COLUMN_USAGE " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'ui_events' " +
+                "AND CONSTRAINT_NAME = 'PRIMARY' AND COLUMN_NAME = 'created_at'", Integer.class);
+        return count != null && count > 0;
+    }
+
+    /**
+     * Cambia la clave primaria de (id) a (id, created_at). id sigue siendo
+     * AUTO_INCREMENT y único en la práctica.
+     */
+    @Timed(DB_TIMER)
+    public void extendPrimaryKey() {
+        jdbcTemplate.execute("ALTER TABLE ui_events DROP PRIMARY KEY, ADD PRIMARY KEY (id, created_at)");
+    }
+
+    /**
+     * Particiona la tabla por rango mensual de created_at.
+     * Reescribe la tabla completa: en tablas grandes debe ejecutarse en una
+     * ventana de mantenimiento.
+     *
+     * @param months Primer día de cada mes a crear, en orden ascendente
+     */
+    @Timed(DB_TIMER)
+    public void partitionByMonth(List<LocalDate> months) {
+        String partitions = months.stream()
+                .map(UIEventPartitionRepository::monthPartitionDefinition)
+                .collect(Collectors.joining(", "));
+        jdbcTemplate.execute("ALTER TABLE ui_events PARTITION BY RANGE COLUMNS(created_at) (" +
+                partitions + ", " + maxPartitionDefinition() + ")");
+    }
+
+    /**
+     * Crea la partición de un mes separándola de pmax. Es inmediato mientras
+     * pmax esté vacía, por eso las particiones se crean con anticipación.
+     *
+     * @param month Primer día del mes, posterior a la última partición mensual
+     */
+    @Timed(DB_TIMER)
+    public void addMonthPartition(LocalDate month) {
+        jdbcTemplate.execute("ALTER TABLE ui_events REORGANIZE PARTITION " + MAX_PARTITION + " INTO (" +
+                monthPartitionDefinition(month) + ", " + maxPartitionDefinition() + ")");
+    }
+
+    /**
+     * Elimina particiones completas. Es una operación de metadatos: no
+     * recorre filas ni genera undo, a diferencia de un DELETE por rango.
+     */
+    @Timed(DB_TIMER)
+    public void dropPartitions(List<String> partitionNames) {
+        jdbcTemplate.execute("ALTER TABLE ui_events DROP PARTITION " + String.join(", ", partitionNames));
+    }
+
+    private static String monthPartitionDefinition(LocalDate month) {
+        return "PARTITION " + partitionName(month) + " VALUES LESS THAN ('" + month.plusMonths(1) + " 00:00:00')";
+    }
+
+    private static String maxPartitionDefinition() {
+        return "PARTITION " + MAX_PARTITION + " VALUES LESS THAN (MAXVALUE)";
+    }
+}
@@ -1,31 +1,44 @@
 package com.miempresa.analytics.repository;
 
 import com.miempresa.analytics.model.UIEvent;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
 
+/**
+ * Las estadísticas mensuales se leen de ui_event_monthly_rollup
+ * (UIEventMonthlyRollupRepository) en lugar de agrupar ui_events en cada consulta.
+ */
 @Repository
 public interface UIEventRepository extends JpaRepository<UIEvent, Long> {
 
     /**
-     * Query nativa para obtener estadísticas mensuales agrupadas por element_id, type y mes.
-     * Usa DATE_FORMAT de MySQL para truncar la fecha al mes.
+     * Página por offset sin la consulta count(*) que hace findAll(Pageable).
      */
-    @Query(value = "SELECT " +
-            "be.element_id as elementId, " +
-            "be.type as type, " +
-            "DATE_FORMAT(be.created_at, '%Y-%m-01') as month, " +
-            "COUNT(*) as totalClicks " +
-            "FROM ui_events be " +
-            "GROUP BY be.element_id, be.type, DATE_FORMAT(be.created_at, '%Y-%m-01') " +
-            "ORDER BY month DESC, totalClicks DESC",
-            nativeQuery = true)
-    List<Object[]> findMonthlyStats();
-}
+    Slice<UIEvent> findSliceBy(Pageable pageable);
+
+    /**
+     * Primera página en modo keyset: eventos más recientes primero.
+     * Usa el índice (created_at, id); el Pageable solo aporta el LIMIT.
+     */
+    List<UIEvent> findAllByOrderByCreatedAtDescIdDesc(Pageable pageable);
 
+    /**
+     * Página siguiente en modo keyset: eventos anteriores a (createdAt, id).
+     * El costo no depende de la profundidad de la página, a diferencia de OFFSET.
+     * La condición externa sobre created_at permite un range scan del índice
+     * aun en optimizadores que no expanden el OR.
+     */
+    @Query("SELECT e FROM UIEvent e " +
+            "WHERE e.createdAt <= :createdAt AND (e.createdAt < :createdAt OR e.id < :id) " +
+            "ORDER BY e.createdAt DESC, e.id DESC")
+    List<UIEvent> findPageBefore(@Param("createdAt") LocalDateTime createdAt,
+                                 @Param("id") Long id,
+                                 Pageable pageable);
+}
@@ -0,0 +1,25 @@
+package com.miempresa.analytics.repository;
+
+import com.miempresa.analytics.model.UIEventMonthlyRollupId;
+import com.miempresa.analytics.model.UIEventUserSketch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface UIEventUserSketchRepository extends JpaRepository<UIEventUserSketch, UIEventMonthlyRollupId> {
+
+    /**
+     * Sketches de un elemento en un rango de meses (inclusivo), todos los tipos.
+     */
+    List<UIEventUserSketch> findByElementIdAndMonthBetweenOrderByMonthAsc(
+            String elementId, LocalDate from, LocalDate to);
+
+    /**
+     * Sketches de un elemento y tipo en un rango de meses (inclusivo).
+     */
+    List<UIEventUserSketch> findByElementIdAndTypeAndMonthBetweenOrderByMonthAsc(
+            String elementId, String type, LocalDate from, LocalDate to);
+}
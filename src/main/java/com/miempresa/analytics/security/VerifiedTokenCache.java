@@ -0,0 +1,108 @@
+package com.miempresa.analytics.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache acotada de tokens JWT cuya firma ya fue verificada.
+ *
+ * Cada entrada vive hasta el exp del propio token, así que un token
+ * expirado nunca se acepta desde la cache. Las peticiones repetidas de una
+ * misma sesión evitan el parseo y la verificación HMAC.
+ * Expone jwt.token.cache.requests{result=hit|miss} y jwt.token.cache.size.
+ */
+@Component
+public class VerifiedTokenCache implements MeterBinder {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public VerifiedTokenCache(@Value("${jwt.cache.max-entries:10000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Retorna el subject de un token ya verificado y aún vigente, o null.
+     */
+    public String get(String token) {
+        Entry entry = entries.get(token);
+        if (entry != null) {
+            if (entry.expiresAtMs > System.currentTimeMillis()) {
+                hits.incrementAndGet();
+                return entry.subject;
+            }
+            entries.remove(token, entry);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Registra un token verificado hasta su fecha de expiración.
+     */
+    public void put(String token, String subject, long expiresAtMs) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            evict();
+        }
+        entries.put(token, new Entry(subject, expiresAtMs));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Elimina los tokens expirados y, si la cache sigue llena, libera un 10%
+     * adicional de entradas arbitrarias.
+     */
+    private void evict() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAtMs <= now);
+        int target = maxEntries - Math.max(1, maxEntries / 10);
+        Iterator<String> it = entries.keySet().iterator();
+        while (entries.size() > target && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("jwt.token.cache.requests", hits, AtomicLong::doubleValue)
+                .tag("result", "hit")
+                .description("Tokens resolved from the verified-token cache")
+                .register(registry);
+        FunctionCounter.builder("jwt.token.cache.requests", misses, AtomicLong::doubleValue)
+                .tag("result", "miss")
+                .description("Tokens that required signature verification")
+                .register(registry);
+        Gauge.builder("jwt.token.cache.size", entries, Map::size)
+                .description("Verified tokens currently cached")
+                .register(registry);
+    }
+
+    private static final class Entry {
+
+        private final String subject;
+        private final long expiresAtMs;
+
+        Entry(String subject, long expiresAtMs) {
+            this.subject = subject;
+            this.expiresAtMs = expiresAtMs;
+        }
+    }
+}
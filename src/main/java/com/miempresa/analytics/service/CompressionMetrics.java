@@ -0,0 +1,112 @@
+package com.miempresa.analytics.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métricas de compresión HTTP (CompressionFilter).
+ *
+ * analytics.compression.bytes{direction,encoding,form}: bytes comprimidos y
+ * sin comprimir de los cuerpos (el ratio agregado es el cociente de sus
+ * rate()). analytics.compression.ratio{direction,encoding}: ratio de cada
+ * cuerpo. analytics.compression.cpu{direction,encoding}: tiempo de CPU del
+ * hilo comprimiendo o descomprimiendo cada cuerpo.
+ * analytics.compression.responses{result}: respuestas comprimidas o
+ * enviadas sin comprimir por tamaño o tipo de contenido.
+ */
+@Component
+public class CompressionMetrics {
+
+    public static final String DIRECTION_REQUEST = "request";
+    public static final String DIRECTION_RESPONSE = "response";
+
+    public static final String RESULT_COMPRESSED = "compressed";
+    public static final String RESULT_TOO_SMALL = "too_small";
+    public static final String RESULT_NOT_COMPRESSIBLE = "not_compressible";
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME = THREADS.isCurrentThreadCpuTimeSupported();
+
+    private final MeterRegistry registry;
+    // Cache local de medidores para no resolver tags en cada cuerpo
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> responses = new ConcurrentHashMap<>();
+
+    public CompressionMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Tiempo de CPU del hilo actual en nanosegundos, o el reloj de pared si
+     * la JVM no lo soporta.
+     */
+    public static long cpuTime() {
+        return CPU_TIME ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    /**
+     * Registra un cuerpo comprimido o descomprimido.
+     *
+     * @param cpuNanos tiempo de CPU medido con cpuTime()
+     */
+    public void record(String direction, String encoding, long uncompressedBytes, long compressedBytes,
+                       long cpuNanos) {
+        Meters m = meters.computeIfAbsent(direction + '\u0000' + encoding, k -> new Meters(direction, encoding));
+        m.uncompressed.increment(uncompressedBytes);
+        m.compressed.increment(compressedBytes);
+        if (compressedBytes > 0) {
+            m.ratio.record((double) uncompressedBytes / compressedBytes);
+        }
+        m.cpu.record(cpuNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordResponse(String result) {
+        responses.computeIfAbsent(result, k -> Counter.builder("analytics.compression.responses")
+                .description("Responses eligible for compression by outcome")
+                .tag("result", result)
+                .register(registry))
+                .increment();
+    }
+
+    private final class Meters {
+
+        final Counter uncompressed;
+        final Counter compressed;
+        final DistributionSummary ratio;
+        final Timer cpu;
+
+        Meters(String direction, String encoding) {
+            uncompressed = bytes(direction, encoding, "uncompressed");
+            compressed = bytes(direction, encoding, "compressed");
+            ratio = DistributionSummary.builder("analytics.compression.ratio")
+                    .description("Uncompressed to compressed size ratio per body")
+                    .tag("direction", direction)
+                    .tag("encoding", encoding)
+                    .register(registry);
+            cpu = Timer.builder("analytics.compression.cpu")
+                    .description("Thread CPU time spent compressing or decompressing each body")
+                    .tag("direction", direction)
+                    .tag("encoding", encoding)
+                    .register(registry);
+        }
+
+        private Counter bytes(String direction, String encoding, String form) {
+            return Counter.builder("analytics.compression.bytes")
+                    .description("HTTP body bytes before and after compression")
+                    .baseUnit("bytes")
+                    .tag("direction", direction)
+                    .tag("encoding", encoding)
+                    .tag("form", form)
+                    .register(registry);
+        }
+    }
+}
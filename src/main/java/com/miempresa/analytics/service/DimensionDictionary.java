@@ -0,0 +1,146 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.model.DimensionType;
+import com.miempresa.analytics.model.UIDimensionValue;
+import com.miempresa.analytics.model.UIEvent;
+import com.miempresa.analytics.repository.UIDimensionDictionaryRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache en memoria del diccionario de dimensiones.
+ *
+ * Resuelve valor → código al ingerir y código → valor al leer sin ir a la
+ * base de datos: el diccionario completo se carga al arrancar y cada valor
+ * nuevo se registra una sola vez. Un código creado por otra instancia se
+ * busca en la base la primera vez que aparece, salvo en la exportación, que
+ * recarga el diccionario con load() antes de abrir su cursor.
+ * Expone analytics.dictionary.size{dimension}.
+ */
+@Component
+public class DimensionDictionary implements MeterBinder, SmartInitializingSingleton {
+
+    private final UIDimensionDictionaryRepository repository;
+    private final Map<DimensionType, Map<String, Integer>> codes = new EnumMap<>(DimensionType.class);
+    private final Map<Integer, String> values = new ConcurrentHashMap<>();
+
+    // La migración se inyecta para que el diccionario se cargue después de ella
+    public DimensionDictionary(UIDimensionDictionaryRepository repository,
+                               DimensionEncodingMigration migration) {
+        this.repository = repository;
+        for (DimensionType dimension : DimensionType.values()) {
+            codes.put(dimension, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Carga el diccionario completo antes de aceptar tráfico. No se hace en
+     * @PostConstruct porque el bean se crea mientras se registran las métricas.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        load();
+    }
+
+    public void load() {
+        for (UIDimensionValue entry : repository.findAll()) {
+            cache(entry.getDimension(), entry.getValue(), entry.getId());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (DimensionType dimension : DimensionType.values()) {
+            Gauge.builder("analytics.dictionary.size", codes.get(dimension), Map::size)
+                    .description("Distinct values cached in the dimension dictionary")
+                    .tag("dimension", dimension.name().toLowerCase())
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Retorna el código de un valor, registrándolo si es nuevo.
+     * Debe llamarse fuera de la transacción de escritura de eventos: el
+     * registro se confirma de inmediato y no puede revertirse con el lote.
+     *
+     * @return el código, o null si value es null
+     */
+    public Integer encode(DimensionType dimension, String value) {
+        if (value == null) {
+            return null;
+        }
+        Integer code = codes.get(dimension).get(value);
+        if (code != null) {
+            return code;
+        }
+        repository.insertIfAbsent(dimension, value);
+        code = repository.findId(dimension, value);
+        if (code == null) {
+            throw new IllegalStateException("Dictionary value was not registered: " + dimension + "=" + value);
+        }
+        cache(dimension, value, code);
+        return code;
+    }
+
+    /**
+     * Completa los códigos de un evento a partir de sus valores de texto.
+     */
+    public void encode(UIEvent event) {
+        event.setTypeCode(encode(DimensionType.TYPE, event.getType()));
+        event.setElementTypeCode(encode(DimensionType.ELEMENT_TYPE, event.getElementType()));
+        event.setAppCode(encode(DimensionType.APP, event.getAppId()));
+        event.setRouteCode(encode(DimensionType.ROUTE, event.getRoute()));
+    }
+
+    /**
+     * Retorna el código de un valor existente, sin registrarlo.
+     *
+     * @return el código, o null si el valor nunca se ingirió
+     */
+    public Integer find(DimensionType dimension, String value) {
+        if (value == null) {
+            return null;
+        }
+        Integer code = codes.get(dimension).get(value);
+        if (code == null) {
+            code = repository.findId(dimension, value);
+            if (code != null) {
+                cache(dimension, value, code);
+            }
+        }
+        return code;
+    }
+
+    /**
+     * Retorna el valor de un código.
+     *
+     * @return el valor, o null si code es null
+     */
+    public String decode(Integer code) {
+        if (code == null) {
+            return null;
+        }
+        String value = values.get(code);
+        if (value == null) {
+            UIDimensionValue entry = repository.findById(code);
+            if (entry == null) {
+                throw new IllegalStateException("Unknown dictionary code: " + code);
+            }
+            cache(entry.getDimension(), entry.getValue(), code);
+            value = entry.getValue();
+        }
+        return value;
+    }
+
+    private void cache(DimensionType dimension, String value, Integer code) {
+        values.put(code, value);
+        codes.get(dimension).put(value, code);
+    }
+}
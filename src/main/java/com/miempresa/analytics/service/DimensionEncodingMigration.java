@@ -0,0 +1,92 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.model.DimensionType;
+import com.miempresa.analytics.repository.UIDimensionDictionaryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+/**
+ * Migra una tabla ui_events anterior a la codificación por diccionario.
+ *
+ * Si ui_events todavía tiene las columnas de texto (type, element_type,
+ * app_id, route), al arrancar carga sus valores en el diccionario y completa
+ * las columnas *_code vacías por rangos de id. Corre antes de que la
+ * aplicación acepte tráfico y es idempotente si se interrumpe; mientras las
+ * columnas de texto existan, cada arranque codifica lo que las instancias
+ * con la versión anterior insertaron desde el anterior.
+ *
+ * Eliminar las columnas de texto no se puede deshacer y rompe la ingesta de
+ * la versión anterior: solo se hace con drop-legacy-columns, como paso
+ * explícito del operador con esas instancias detenidas. Antes de eliminarlas
+ * se vuelven a codificar los eventos insertados durante la migración.
+ */
+@Component
+@DependsOn("entityManagerFactory") // Hibernate crea ui_dimension_dictionary y las columnas *_code
+public class DimensionEncodingMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(DimensionEncodingMigration.class);
+
+    private final UIDimensionDictionaryRepository repository;
+    private final int chunkSize;
+    private final boolean dropLegacyColumns;
+
+    public DimensionEncodingMigration(UIDimensionDictionaryRepository repository,
+                                      @Value("${dictionary.migration.chunk-size:10000}") int chunkSize,
+                                      @Value("${dictionary.migration.drop-legacy-columns:false}")
+                                              boolean dropLegacyColumns) {
+        this.repository = repository;
+        this.chunkSize = chunkSize;
+        this.dropLegacyColumns = dropLegacyColumns;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        List<DimensionType> legacy = repository.findLegacyDimensions();
+        if (legacy.isEmpty()) {
+            return;
+        }
+        logger.info("Encoding legacy ui_events columns {} with the dimension dictionary", legacy);
+
+        long maxId = encode(legacy, 0);
+        if (!dropLegacyColumns) {
+            logger.info("ui_events encoded up to id {}; legacy columns kept until "
+                    + "dictionary.migration.drop-legacy-columns is enabled", maxId);
+            return;
+        }
+
+        // Lo insertado por la versión anterior mientras se codificaba
+        encode(legacy, maxId);
+        repository.dropLegacyColumns(legacy);
+        logger.info("Legacy columns dropped; ui_events now stores dimension codes only");
+    }
+
+    /**
+     * Registra los valores de texto nuevos y codifica los eventos con id
+     * mayor que fromId.
+     *
+     * @return id máximo codificado
+     */
+    private long encode(List<DimensionType> legacy, long fromId) {
+        for (DimensionType dimension : legacy) {
+            int values = repository.importLegacyValues(dimension);
+            logger.info("Dictionary: {} new values for {}", values, dimension);
+        }
+
+        // Un UPDATE por rango para acotar la duración de cada transacción y sus locks
+        long maxId = repository.findMaxEventId();
+        for (long from = fromId; from < maxId; from += chunkSize) {
+            long to = Math.min(from + chunkSize, maxId);
+            for (DimensionType dimension : legacy) {
+                repository.encodeLegacyRange(dimension, from, to);
+            }
+            logger.debug("Encoded ui_events ids ({}, {}]", from, to);
+        }
+        return maxId;
+    }
+}
@@ -0,0 +1,706 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.dto.UIMonthlyStat;
+import com.miempresa.analytics.util.ColumnVector;
+import com.miempresa.analytics.util.ColumnarSegment;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Archivo columnar de eventos históricos en disco (archive.dir).
+ *
+ * EventArchiver mueve los eventos de meses viejos de ui_events a segmentos
+ * columnares (ColumnarSegment), uno o más por mes. El archivo manifest lista
+ * los segmentos y la marca until: los meses anteriores a until se leen solo
+ * del archivo y los posteriores solo de ui_events, así que un evento no se
+ * cuenta dos veces aunque su fila todavía no se haya borrado.
+ *
+ * aggregateMonthly() calcula las estadísticas mensuales de los meses
+ * archivados: descarta segmentos por mes y row groups por zone map, lee solo
+ * las columnas que necesitan los filtros y la agrupación, y filtra y cuenta
+ * sobre arreglos de códigos. Los agregados (rollups, heatmap, usuarios
+ * únicos, top-k) no se archivan: siguen en MySQL y no dependen de ui_events.
+ *
+ * Varias instancias pueden compartir el directorio: el manifest se relee
+ * cuando cambia.
+ * Expone analytics.archive.segments, analytics.archive.rows y
+ * analytics.archive.row-groups{result=scanned|skipped}.
+ */
+@Component
+public class EventArchive implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventArchive.class);
+
+    static final String ID = "id";
+    static final String CREATED_AT = "created_at";
+    static final String TYPE = "type_code";
+    static final String APP = "app_code";
+    static final String ELEMENT = "element_id";
+    static final String ELEMENT_TYPE = "element_type_code";
+    static final String ROUTE = "route_code";
+    static final String USER = "user_id";
+    static final String METADATA = "metadata";
+    static final String COORDINATE_X = "coordinate_x";
+    static final String COORDINATE_Y = "coordinate_y";
+    static final String SCREEN_WIDTH = "screen_width";
+    static final String SCREEN_HEIGHT = "screen_height";
+    // Una columna por clave de metadata-keys.keys vigente al archivar
+    static final String META_PREFIX = "meta.";
+    static final String MONTH_PROPERTY = "month";
+
+    private static final String MANIFEST = "manifest";
+    private static final String SEGMENT_PREFIX = "events-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final String PENDING = "pending";
+    private static final String DONE = "done";
+    private static final DateTimeFormatter SEGMENT_MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+    // Conteos en un arreglo denso por row group mientras no supere este tamaño
+    private static final int MAX_DENSE_COUNTS = 1 << 20;
+
+    private final DimensionDictionary dictionary;
+    private final MetadataKeyExtractor metadataExtractor;
+    private final Path dir;
+    private final AtomicLong rowGroupsScanned = new AtomicLong();
+    private final AtomicLong rowGroupsSkipped = new AtomicLong();
+    private volatile Snapshot snapshot = new Snapshot(null, Collections.emptyList());
+    private volatile FileTime manifestTime;
+
+    public EventArchive(DimensionDictionary dictionary,
+                        MetadataKeyExtractor metadataExtractor,
+                        @Value("${archive.dir:./data/archive}") String directory) {
+        this.dictionary = dictionary;
+        this.metadataExtractor = metadataExtractor;
+        this.dir = Paths.get(directory);
+    }
+
+    @PostConstruct
+    public void load() throws IOException {
+        reload();
+        Snapshot loaded = snapshot;
+        if (loaded.until != null) {
+            logger.info("Event archive: {} segments, events before {} are read from {}",
+                    loaded.segments.size(), loaded.until, dir.toAbsolutePath());
+        }
+    }
+
+    /**
+     * Estado actual del archivo; una consulta usa el mismo para decidir qué
+     * lee de ui_events y qué del archivo.
+     */
+    public Snapshot snapshot() {
+        try {
+            FileTime current = Files.getLastModifiedTime(dir.resolve(MANIFEST));
+            if (!current.equals(manifestTime)) {
+                reload();
+            }
+        } catch (NoSuchFileException e) {
+            // Sin manifest no hay nada archivado
+        } catch (IOException e) {
+            logger.warn("Could not check the event archive manifest: {}", e.getMessage());
+        }
+        return snapshot;
+    }
+
+    private synchronized void reload() throws IOException {
+        Path manifest = dir.resolve(MANIFEST);
+        if (!Files.exists(manifest)) {
+            return;
+        }
+        FileTime time = Files.getLastModifiedTime(manifest);
+        LocalDate until = null;
+        List<Segment> segments = new ArrayList<>();
+        Map<String, Segment> loaded = new HashMap<>();
+        for (Segment segment : snapshot.segments) {
+            loaded.put(segment.name, segment);
+        }
+        for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+            String[] fields = line.trim().split(" ");
+            if (fields.length == 2 && fields[0].equals("until")) {
+                until = LocalDate.parse(fields[1]);
+            } else if (fields.length == 4 && fields[0].equals("segment")) {
+                Segment previous = loaded.get(fields[1]);
+                // El footer de un segmento ya abierto no cambia: solo se relee el estado
+                ColumnarSegment data = previous != null ? previous.data
+                        : ColumnarSegment.open(dir.resolve(fields[1]));
+                segments.add(new Segment(fields[1], LocalDate.parse(fields[2]), data, DONE.equals(fields[3])));
+            }
+        }
+        snapshot = new Snapshot(until, Collections.unmodifiableList(segments));
+        manifestTime = time;
+    }
+
+    /**
+     * Archivo temporal para un nuevo segmento del mes; se publica con commit().
+     */
+    synchronized Path newSegmentFile(LocalDate month) throws IOException {
+        Files.createDirectories(dir);
+        String prefix = SEGMENT_PREFIX + SEGMENT_MONTH.format(month) + "-";
+        int sequence = 1;
+        for (Segment segment : snapshot.segments) {
+            if (segment.name.startsWith(prefix)) {
+                String suffix = segment.name.substring(prefix.length(), segment.name.length() - SEGMENT_SUFFIX.length());
+                sequence = Math.max(sequence, Integer.parseInt(suffix) + 1);
+            }
+        }
+        return dir.resolve(prefix + sequence + SEGMENT_SUFFIX + TMP_SUFFIX);
+    }
+
+    /**
+     * Publica un segmento escrito en newSegmentFile(): lo renombra, lo agrega
+     * al manifest como pendiente de borrar de ui_events y avanza until hasta
+     * el mes siguiente. Desde ese momento las consultas leen el mes del
+     * archivo.
+     */
+    synchronized Segment commit(Path tmp, LocalDate month) throws IOException {
+        String name = tmp.getFileName().toString();
+        name = name.substring(0, name.length() - TMP_SUFFIX.length());
+        Path file = dir.resolve(name);
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+        Segment segment = new Segment(name, month, ColumnarSegment.open(file), false);
+
+        List<Segment> segments = new ArrayList<>(snapshot.segments);
+        segments.add(segment);
+        LocalDate next = month.plusMonths(1);
+        LocalDate until = snapshot.until == null || next.isAfter(snapshot.until) ? next : snapshot.until;
+        writeManifest(new Snapshot(until, Collections.unmodifiableList(segments)));
+        return segment;
+    }
+
+    /**
+     * Registra que las filas de un segmento ya se borraron de ui_events.
+     */
+    synchronized void markDeleted(Segment segment) throws IOException {
+        List<Segment> segments = new ArrayList<>(snapshot.segments.size());
+        for (Segment current : snapshot.segments) {
+            segments.add(current.name.equals(segment.name)
+                    ? new Segment(current.name, current.month, current.data, true) : current);
+        }
+        writeManifest(new Snapshot(snapshot.until, Collections.unmodifiableList(segments)));
+    }
+
+    /**
+     * Borra los segmentos que no llegaron al manifest (una caída antes del
+     * commit) y los temporales: sus eventos siguen en ui_events.
+     */
+    synchronized void removeOrphans() throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        Set<String> known = new HashSet<>();
+        for (Segment segment : snapshot.segments) {
+            known.add(segment.name);
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*")) {
+            for (Path file : files) {
+                if (!known.contains(file.getFileName().toString())) {
+                    logger.warn("Removing unreferenced archive file {}", file);
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private void writeManifest(Snapshot next) throws IOException {
+        StringBuilder content = new StringBuilder();
+        if (next.until != null) {
+            content.append("until ").append(next.until).append('\n');
+        }
+        for (Segment segment : next.segments) {
+            content.append("segment ").append(segment.name).append(' ').append(segment.month)
+                    .append(' ').append(segment.deleted ? DONE : PENDING).append('\n');
+        }
+        Path tmp = dir.resolve(MANIFEST + TMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Path manifest = dir.resolve(MANIFEST);
+        Files.move(tmp, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        snapshot = next;
+        manifestTime = Files.getLastModifiedTime(manifest);
+    }
+
+    /**
+     * Cuenta por elemento, tipo y mes los eventos archivados que cumplen los
+     * filtros, con los mismos criterios que UIEventJdbcRepository. Solo
+     * considera el rango anterior a until del snapshot.
+     *
+     * @param metadataFilters clave -> valor de claves indexadas; si un
+     *                        segmento no tiene la columna de la clave (se
+     *                        archivó antes de indexarla), el valor se extrae
+     *                        de la metadata JSON
+     * @param groupByKey      clave por cuyo valor agrupar, o null; los
+     *                        eventos sin la clave no se cuentan
+     * @return agregados sin orden definido, con el tipo decodificado
+     */
+    public List<UIMonthlyStat> aggregateMonthly(Snapshot snapshot, LocalDateTime from, LocalDateTime to,
+                                                String elementId, Integer appCode, Integer elementTypeCode,
+                                                Integer routeCode, Map<String, String> metadataFilters,
+                                                String groupByKey) {
+        if (snapshot.until == null) {
+            return new ArrayList<>();
+        }
+        LocalDateTime end = snapshot.until.atStartOfDay();
+        if (to != null && to.isBefore(end)) {
+            end = to;
+        }
+        Query query = new Query(from != null ? toMicros(from) : Long.MIN_VALUE, toMicros(end),
+                elementId, appCode, elementTypeCode, routeCode, metadataFilters, groupByKey);
+
+        Map<StatKey, long[]> totals = new HashMap<>();
+        for (Segment segment : snapshot.segments) {
+            LocalDateTime monthStart = segment.month.atStartOfDay();
+            LocalDateTime monthEnd = segment.month.plusMonths(1).atStartOfDay();
+            if ((from != null && !monthEnd.isAfter(from)) || !monthStart.isBefore(end)) {
+                continue;
+            }
+            try {
+                scanSegment(segment, query, totals);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read archive segment " + segment.name, e);
+            }
+        }
+
+        List<UIMonthlyStat> stats = new ArrayList<>(totals.size());
+        for (Map.Entry<StatKey, long[]> entry : totals.entrySet()) {
+            StatKey key = entry.getKey();
+            UIMonthlyStat stat = new UIMonthlyStat(key.elementId, dictionary.decode(key.typeCode), key.month,
+                    entry.getValue()[0]);
+            stat.setMetadataValue(key.metadataValue);
+            stats.add(stat);
+        }
+        return stats;
+    }
+
+    private void scanSegment(Segment segment, Query query, Map<StatKey, long[]> totals) throws IOException {
+        ColumnarSegment data = segment.data;
+        try (ColumnarSegment.Reader reader = data.reader()) {
+            for (int rg = 0; rg < data.getRowGroupCount(); rg++) {
+                if (!mayMatch(data, rg, query)) {
+                    rowGroupsSkipped.incrementAndGet();
+                    continue;
+                }
+                rowGroupsScanned.incrementAndGet();
+                new RowGroupScan(data, reader, rg).aggregate(query, segment.month, totals);
+            }
+        }
+    }
+
+    /**
+     * Descarta el row group con los zone maps de las columnas filtradas.
+     */
+    private static boolean mayMatch(ColumnarSegment data, int rg, Query query) {
+        if (!data.mayOverlap(rg, CREATED_AT, query.from, query.to)) {
+            return false;
+        }
+        if (query.elementId != null && !data.mayContain(rg, ELEMENT, query.elementId)) {
+            return false;
+        }
+        if ((query.appCode != null && !data.mayContain(rg, APP, query.appCode))
+                || (query.elementTypeCode != null && !data.mayContain(rg, ELEMENT_TYPE, query.elementTypeCode))
+                || (query.routeCode != null && !data.mayContain(rg, ROUTE, query.routeCode))) {
+            return false;
+        }
+        for (Map.Entry<String, String> filter : query.metadataFilters.entrySet()) {
+            String column = META_PREFIX + filter.getKey();
+            if (data.hasColumn(column) && !data.mayContain(rg, column, filter.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lectura de un row group: cada columna se lee a lo sumo una vez.
+     */
+    private final class RowGroupScan {
+
+        private final ColumnarSegment data;
+        private final ColumnarSegment.Reader reader;
+        private final int rowGroup;
+        private final Map<String, ColumnVector> columns = new HashMap<>();
+
+        RowGroupScan(ColumnarSegment data, ColumnarSegment.Reader reader, int rowGroup) {
+            this.data = data;
+            this.reader = reader;
+            this.rowGroup = rowGroup;
+        }
+
+        ColumnVector column(String name) throws IOException {
+            ColumnVector vector = columns.get(name);
+            if (vector == null) {
+                vector = reader.read(rowGroup, name);
+                columns.put(name, vector);
+            }
+            return vector;
+        }
+
+        /**
+         * Columna de una clave de metadata; si el segmento no la tiene, se
+         * deriva de la metadata JSON parseando cada valor distinto una vez.
+         */
+        ColumnVector metadataColumn(String key) throws IOException {
+            String name = META_PREFIX + key;
+            if (data.hasColumn(name) || columns.containsKey(name)) {
+                return column(name);
+            }
+            ColumnVector metadata = column(METADATA);
+            String[] source = metadata.dictionary();
+            int[] mapping = new int[source.length];
+            Map<String, Integer> index = new HashMap<>();
+            List<String> values = new ArrayList<>();
+            for (int i = 0; i < source.length; i++) {
+                String value = metadataExtractor.extractValues(source[i]).get(key);
+                if (value == null) {
+                    mapping[i] = -1;
+                    continue;
+                }
+                Integer code = index.get(value);
+                if (code == null) {
+                    code = values.size();
+                    index.put(value, code);
+                    values.add(value);
+                }
+                mapping[i] = code;
+            }
+            int[] sourceCodes = metadata.codes();
+            int[] codes = new int[sourceCodes.length];
+            for (int row = 0; row < codes.length; row++) {
+                codes[row] = sourceCodes[row] < 0 ? -1 : mapping[sourceCodes[row]];
+            }
+            ColumnVector vector = ColumnVector.ofStrings(values.toArray(new String[0]), codes);
+            columns.put(name, vector);
+            return vector;
+        }
+
+        void aggregate(Query query, LocalDate month, Map<StatKey, long[]> totals) throws IOException {
+            int rows = data.getRowGroupRows(rowGroup);
+            int[] selection = new int[rows];
+            int selected;
+            if (data.isWithin(rowGroup, CREATED_AT, query.from, query.to)) {
+                // Todo el row group está en el rango: created_at no se lee
+                for (int i = 0; i < rows; i++) {
+                    selection[i] = i;
+                }
+                selected = rows;
+            } else {
+                long[] createdAt = column(CREATED_AT).longs();
+                selected = 0;
+                for (int i = 0; i < rows; i++) {
+                    if (createdAt[i] >= query.from && createdAt[i] < query.to) {
+                        selection[selected++] = i;
+                    }
+                }
+            }
+
+            ColumnVector elements = column(ELEMENT);
+            if (query.elementId != null) {
+                selected = filter(elements, query.elementId, selection, selected);
+            }
+            selected = filterCode(query.appCode, APP, selection, selected);
+            selected = filterCode(query.elementTypeCode, ELEMENT_TYPE, selection, selected);
+            selected = filterCode(query.routeCode, ROUTE, selection, selected);
+            for (Map.Entry<String, String> entry : query.metadataFilters.entrySet()) {
+                if (selected == 0) {
+                    return;
+                }
+                selected = filter(metadataColumn(entry.getKey()), entry.getValue(), selection, selected);
+            }
+            if (selected == 0) {
+                return;
+            }
+
+            ColumnVector group = query.groupByKey != null ? metadataColumn(query.groupByKey) : null;
+            count(elements, column(TYPE).ints(), group, selection, selected, month, totals);
+        }
+
+        private int filterCode(Integer value, String column, int[] selection, int selected) throws IOException {
+            if (value == null || selected == 0) {
+                return selected;
+            }
+            ColumnVector vector = column(column);
+            int[] values = vector.ints();
+            int kept = 0;
+            for (int i = 0; i < selected; i++) {
+                int row = selection[i];
+                if (values[row] == value && !vector.isNull(row)) {
+                    selection[kept++] = row;
+                }
+            }
+            return kept;
+        }
+    }
+
+    private static int filter(ColumnVector vector, String value, int[] selection, int selected) {
+        int code = vector.find(value);
+        if (code < 0) {
+            return 0;
+        }
+        int[] codes = vector.codes();
+        int kept = 0;
+        for (int i = 0; i < selected; i++) {
+            if (codes[selection[i]] == code) {
+                selection[kept++] = selection[i];
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Cuenta las filas seleccionadas por (elemento, tipo, valor de
+     * agrupación) sobre códigos y suma el resultado a totals.
+     */
+    private static void count(ColumnVector elements, int[] types, ColumnVector group, int[] selection,
+                              int selected, LocalDate month, Map<StatKey, long[]> totals) {
+        int[] elementCodes = elements.codes();
+        int[] groupCodes = group != null ? group.codes() : null;
+        long groupSpan = group != null ? group.dictionary().length + 1L : 1L;
+        long elementSpan = elements.dictionary().length;
+
+        // Los tipos de un row group son pocos: se renumeran localmente
+        int[] typeCodes = new int[8];
+        int typeCount = 0;
+        int[] localTypes = new int[selected];
+        for (int i = 0; i < selected; i++) {
+            int type = types[selection[i]];
+            int local = 0;
+            while (local < typeCount && typeCodes[local] != type) {
+                local++;
+            }
+            if (local == typeCount) {
+                if (typeCount == typeCodes.length) {
+                    typeCodes = Arrays.copyOf(typeCodes, typeCount * 2);
+                }
+                typeCodes[typeCount++] = type;
+            }
+            localTypes[i] = local;
+        }
+
+        long span = typeCount * elementSpan * groupSpan;
+        Map<Long, long[]> sparse = span > MAX_DENSE_COUNTS ? new HashMap<>() : null;
+        long[] dense = sparse == null ? new long[(int) span] : null;
+        for (int i = 0; i < selected; i++) {
+            int row = selection[i];
+            int groupCode = groupCodes != null ? groupCodes[row] : -1;
+            if (groupCodes != null && groupCode < 0) {
+                continue;
+            }
+            long key = (localTypes[i] * elementSpan + elementCodes[row]) * groupSpan + groupCode + 1;
+            if (dense != null) {
+                dense[(int) key]++;
+            } else {
+                sparse.computeIfAbsent(key, k -> new long[1])[0]++;
+            }
+        }
+
+        if (dense != null) {
+            for (int key = 0; key < dense.length; key++) {
+                if (dense[key] > 0) {
+                    addTotal(totals, key, dense[key], elements, typeCodes, group, elementSpan, groupSpan, month);
+                }
+            }
+        } else {
+            for (Map.Entry<Long, long[]> entry : sparse.entrySet()) {
+                addTotal(totals, entry.getKey(), entry.getValue()[0], elements, typeCodes, group,
+                        elementSpan, groupSpan, month);
+            }
+        }
+    }
+
+    private static void addTotal(Map<StatKey, long[]> totals, long key, long count, ColumnVector elements,
+                                 int[] typeCodes, ColumnVector group, long elementSpan, long groupSpan,
+                                 LocalDate month) {
+        int groupCode = (int) (key % groupSpan) - 1;
+        long rest = key / groupSpan;
+        String elementId = elements.dictionary()[(int) (rest % elementSpan)];
+        int typeCode = typeCodes[(int) (rest / elementSpan)];
+        String groupValue = groupCode >= 0 ? group.dictionary()[groupCode] : null;
+        totals.computeIfAbsent(new StatKey(month, elementId, typeCode, groupValue), k -> new long[1])[0] += count;
+    }
+
+    /**
+     * created_at se archiva como microsegundos desde 1970 en la hora local
+     * del servidor de base de datos (DATETIME no tiene zona).
+     */
+    static long toMicros(LocalDateTime value) {
+        return value.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + value.getNano() / 1_000;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("analytics.archive.segments", this, a -> a.snapshot.segments.size())
+                .description("Columnar segments in the event archive")
+                .register(registry);
+        Gauge.builder("analytics.archive.rows", this, a -> a.snapshot.segments.stream()
+                        .mapToLong(s -> s.data.getRowCount()).sum())
+                .description("Events stored in the archive")
+                .register(registry);
+        FunctionCounter.builder("analytics.archive.row-groups", rowGroupsScanned, AtomicLong::doubleValue)
+                .tag("result", "scanned")
+                .description("Archive row groups read by stats queries")
+                .register(registry);
+        FunctionCounter.builder("analytics.archive.row-groups", rowGroupsSkipped, AtomicLong::doubleValue)
+                .tag("result", "skipped")
+                .description("Archive row groups discarded by their zone maps")
+                .register(registry);
+    }
+
+    /**
+     * Segmentos publicados y marca until, inmutables.
+     */
+    public static final class Snapshot {
+
+        private final LocalDate until;
+        private final List<Segment> segments;
+
+        Snapshot(LocalDate until, List<Segment> segments) {
+            this.until = until;
+            this.segments = segments;
+        }
+
+        /**
+         * Primer mes que se lee de ui_events, o null si no hay nada archivado.
+         */
+        public LocalDate getUntil() {
+            return until;
+        }
+
+        List<Segment> getSegments() {
+            return segments;
+        }
+
+        /**
+         * Inicio del rango que debe leerse de ui_events para una consulta
+         * desde from (null = sin límite).
+         */
+        public LocalDateTime liveFrom(LocalDateTime from) {
+            if (until == null) {
+                return from;
+            }
+            LocalDateTime start = until.atStartOfDay();
+            return from == null || from.isBefore(start) ? start : from;
+        }
+
+        /**
+         * Indica si una consulta desde from incluye meses archivados.
+         */
+        public boolean covers(LocalDateTime from) {
+            return until != null && (from == null || from.isBefore(until.atStartOfDay()));
+        }
+    }
+
+    /**
+     * Segmento del manifest; deleted indica que sus filas ya no están en ui_events.
+     */
+    static final class Segment {
+
+        final String name;
+        final LocalDate month;
+        final ColumnarSegment data;
+        final boolean deleted;
+
+        Segment(String name, LocalDate month, ColumnarSegment data, boolean deleted) {
+            this.name = name;
+            this.month = month;
+            this.data = data;
+            this.deleted = deleted;
+        }
+    }
+
+    private static final class Query {
+
+        final long from;
+        final long to;
+        final String elementId;
+        final Integer appCode;
+        final Integer elementTypeCode;
+        final Integer routeCode;
+        final Map<String, String> metadataFilters;
+        final String groupByKey;
+
+        Query(long from, long to, String elementId, Integer appCode, Integer elementTypeCode, Integer routeCode,
+              Map<String, String> metadataFilters, String groupByKey) {
+            this.from = from;
+            this.to = to;
+            this.elementId = elementId;
+            this.appCode = appCode;
+            this.elementTypeCode = elementTypeCode;
+            this.routeCode = routeCode;
+            this.metadataFilters = metadataFilters;
+            this.groupByKey = groupByKey;
+        }
+    }
+
+    private static final class StatKey {
+
+        final LocalDate month;
+        final String elementId;
+        final int typeCode;
+        final String metadataValue;
+
+        StatKey(LocalDate month, String elementId, int typeCode, String metadataValue) {
+            this.month = month;
+            this.elementId = elementId;
+            this.typeCode = typeCode;
+            this.metadataValue = metadataValue;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof StatKey)) {
+                return false;
+            }
+            StatKey other = (StatKey) o;
+            return typeCode == other.typeCode && month.equals(other.month) && elementId.equals(other.elementId)
+                    && Objects.equals(metadataValue, other.metadataValue);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(month, elementId, typeCode, metadataValue);
+        }
+    }
+}
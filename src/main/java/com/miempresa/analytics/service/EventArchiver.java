@@ -0,0 +1,225 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.repository.UIEventJdbcRepository;
+import com.miempresa.analytics.util.ColumnarSegment;
+import com.miempresa.analytics.util.ColumnarSegment.Column;
+import com.miempresa.analytics.util.ColumnarSegment.ColumnType;
+import com.miempresa.analytics.util.ColumnarSegmentWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mueve al archivo columnar (EventArchive) los eventos de los meses
+ * anteriores a archive.after-months, contados desde el mes actual.
+ *
+ * Cada día (archive.cron), por cada mes con eventos anterior al corte y en
+ * orden: lee los eventos del mes en streaming, los escribe en un segmento
+ * nuevo, lo publica en el manifest y recién entonces borra de ui_events y
+ * ui_event_metadata los ids archivados, en lotes. Si una ejecución se
+ * interrumpe, la siguiente descarta los segmentos sin publicar y termina los
+ * borrados pendientes. Un evento que llega tarde a un mes ya archivado queda
+ * en ui_events y se archiva en un segmento adicional en la próxima ejecución;
+ * hasta entonces no aparece en las estadísticas que leen eventos.
+ *
+ * Debe habilitarse en una sola instancia.
+ */
+@Component
+@ConditionalOnProperty(prefix = "archive", name = "enabled", havingValue = "true")
+public class EventArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventArchiver.class);
+
+    // Ids por DELETE, para no mantener locks largos
+    private static final int DELETE_CHUNK = 1000;
+
+    private static final List<Column> EVENT_COLUMNS = Collections.unmodifiableList(Arrays.asList(
+            new Column(EventArchive.ID, ColumnType.LONG),
+            new Column(EventArchive.CREATED_AT, ColumnType.LONG),
+            new Column(EventArchive.TYPE, ColumnType.INT),
+            new Column(EventArchive.APP, ColumnType.INT),
+            new Column(EventArchive.ELEMENT, ColumnType.STRING),
+            new Column(EventArchive.ELEMENT_TYPE, ColumnType.INT),
+            new Column(EventArchive.ROUTE, ColumnType.INT),
+            new Column(EventArchive.USER, ColumnType.STRING),
+            new Column(EventArchive.METADATA, ColumnType.STRING),
+            new Column(EventArchive.COORDINATE_X, ColumnType.INT),
+            new Column(EventArchive.COORDINATE_Y, ColumnType.INT),
+            new Column(EventArchive.SCREEN_WIDTH, ColumnType.INT),
+            new Column(EventArchive.SCREEN_HEIGHT, ColumnType.INT)));
+
+    private final EventArchive archive;
+    private final UIEventJdbcRepository jdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MetadataKeyExtractor metadataExtractor;
+    private final int afterMonths;
+    private final int rowGroupSize;
+
+    public EventArchiver(EventArchive archive,
+                         UIEventJdbcRepository jdbcRepository,
+                         TransactionTemplate transactionTemplate,
+                         MetadataKeyExtractor metadataExtractor,
+                         @Value("${archive.after-months:12}") int afterMonths,
+                         @Value("${archive.row-group-size:65536}") int rowGroupSize) {
+        this.archive = archive;
+        this.jdbcRepository = jdbcRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.metadataExtractor = metadataExtractor;
+        this.afterMonths = Math.max(afterMonths, 1);
+        this.rowGroupSize = rowGroupSize;
+    }
+
+    @Scheduled(cron = "${archive.cron:0 30 3 * * *}")
+    public void onSchedule() {
+        try {
+            archiveBefore(LocalDate.now().withDayOfMonth(1).minusMonths(afterMonths));
+        } catch (Exception e) {
+            // Lo ya publicado queda consistente; se retoma en la próxima ejecución
+            logger.error("Event archiving failed", e);
+        }
+    }
+
+    /**
+     * Archiva los eventos anteriores a cutoff.
+     *
+     * @param cutoff Primer día del primer mes que se conserva en ui_events
+     * @return número de segmentos escritos
+     */
+    public synchronized int archiveBefore(LocalDate cutoff) throws IOException {
+        archive.removeOrphans();
+        for (EventArchive.Segment segment : archive.snapshot().getSegments()) {
+            if (!segment.deleted) {
+                deleteArchived(segment);
+            }
+        }
+
+        LocalDateTime oldest = jdbcRepository.findCreatedAtRange()[0];
+        if (oldest == null) {
+            return 0;
+        }
+        int written = 0;
+        for (LocalDate month = oldest.toLocalDate().withDayOfMonth(1); month.isBefore(cutoff);
+             month = month.plusMonths(1)) {
+            EventArchive.Segment segment = archiveMonth(month);
+            if (segment != null) {
+                deleteArchived(segment);
+                written++;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Escribe y publica un segmento con los eventos del mes.
+     *
+     * @return el segmento, o null si el mes no tiene eventos
+     */
+    private EventArchive.Segment archiveMonth(LocalDate month) throws IOException {
+        List<String> metadataKeys = new ArrayList<>(metadataExtractor.getKeys());
+        List<Column> columns = new ArrayList<>(EVENT_COLUMNS);
+        for (String key : metadataKeys) {
+            columns.add(new Column(EventArchive.META_PREFIX + key, ColumnType.STRING));
+        }
+        Map<String, String> properties = Collections.singletonMap(EventArchive.MONTH_PROPERTY, month.toString());
+
+        Path tmp = archive.newSegmentFile(month);
+        long rows;
+        try (ColumnarSegmentWriter writer = new ColumnarSegmentWriter(tmp, columns, properties, rowGroupSize)) {
+            jdbcRepository.streamEvents(month.atStartOfDay(), month.plusMonths(1).atStartOfDay(), null,
+                    rs -> addRow(writer, rs, metadataKeys));
+            rows = writer.getRowCount();
+            if (rows > 0) {
+                writer.finish();
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        if (rows == 0) {
+            Files.deleteIfExists(tmp);
+            return null;
+        }
+        EventArchive.Segment segment = archive.commit(tmp, month);
+        logger.info("Archived {} events of {} into {} ({} bytes)", rows, month, segment.name,
+                segment.data.getSizeBytes());
+        return segment;
+    }
+
+    private void addRow(ColumnarSegmentWriter writer, ResultSet rs, List<String> metadataKeys) throws SQLException {
+        String metadata = rs.getString(8);
+        Object[] values = new Object[EVENT_COLUMNS.size() + metadataKeys.size()];
+        values[0] = rs.getLong(1);
+        values[1] = EventArchive.toMicros(rs.getTimestamp(13).toLocalDateTime());
+        values[2] = rs.getInt(2);
+        values[3] = nullableInt(rs, 3);
+        values[4] = rs.getString(4);
+        values[5] = nullableInt(rs, 5);
+        values[6] = nullableInt(rs, 6);
+        values[7] = rs.getString(7);
+        values[8] = metadata;
+        values[9] = nullableInt(rs, 9);
+        values[10] = nullableInt(rs, 10);
+        values[11] = nullableInt(rs, 11);
+        values[12] = nullableInt(rs, 12);
+        if (!metadataKeys.isEmpty()) {
+            Map<String, String> extracted = metadataExtractor.extractValues(metadata);
+            for (int i = 0; i < metadataKeys.size(); i++) {
+                values[EVENT_COLUMNS.size() + i] = extracted.get(metadataKeys.get(i));
+            }
+        }
+        try {
+            writer.addRow(values);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Integer nullableInt(ResultSet rs, int column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    /**
+     * Borra de ui_events los eventos del segmento, leyendo sus ids del
+     * propio segmento, y lo marca como completo.
+     */
+    private void deleteArchived(EventArchive.Segment segment) throws IOException {
+        LocalDateTime from = segment.month.atStartOfDay();
+        LocalDateTime to = segment.month.plusMonths(1).atStartOfDay();
+        long deleted = 0;
+        try (ColumnarSegment.Reader reader = segment.data.reader()) {
+            for (int rg = 0; rg < segment.data.getRowGroupCount(); rg++) {
+                long[] ids = reader.read(rg, EventArchive.ID).longs();
+                for (int start = 0; start < ids.length; start += DELETE_CHUNK) {
+                    List<Long> chunk = new ArrayList<>(DELETE_CHUNK);
+                    for (int i = start; i < Math.min(start + DELETE_CHUNK, ids.length); i++) {
+                        chunk.add(ids[i]);
+                    }
+                    Integer rows = transactionTemplate.execute(
+                            status -> jdbcRepository.deleteArchivedEvents(from, to, chunk));
+                    deleted += rows != null ? rows : 0;
+                }
+            }
+        }
+        archive.markDeleted(segment);
+        logger.info("Deleted {} archived events of {} from ui_events", deleted, segment.month);
+    }
+}
@@ -0,0 +1,44 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.repository.UIEventJdbcRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Estimación del número de eventos para totalElements.
+ * Usa las estadísticas de InnoDB (information_schema) en lugar de count(*) y
+ * cachea el valor, de modo que el polling de dashboards no toca la tabla.
+ */
+@Component
+public class EventCountEstimator {
+
+    private final UIEventJdbcRepository jdbcRepository;
+    private final long cacheTtlMs;
+    private volatile long cachedCount;
+    private volatile long cachedAtMs;
+
+    public EventCountEstimator(UIEventJdbcRepository jdbcRepository,
+                               @Value("${events.count.cache-ttl-ms:30000}") long cacheTtlMs) {
+        this.jdbcRepository = jdbcRepository;
+        this.cacheTtlMs = cacheTtlMs;
+        this.cachedAtMs = Long.MIN_VALUE;
+    }
+
+    /**
+     * Retorna el número aproximado de eventos; se refresca como máximo una vez
+     * cada cache-ttl-ms.
+     */
+    public long estimate() {
+        long now = System.currentTimeMillis();
+        if (cachedAtMs != Long.MIN_VALUE && now - cachedAtMs < cacheTtlMs) {
+            return cachedCount;
+        }
+        synchronized (this) {
+            if (cachedAtMs == Long.MIN_VALUE || now - cachedAtMs >= cacheTtlMs) {
+                cachedCount = jdbcRepository.estimateRowCount();
+                cachedAtMs = now;
+            }
+            return cachedCount;
+        }
+    }
+}
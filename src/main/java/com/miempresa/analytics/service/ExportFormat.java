@@ -0,0 +1,49 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.util.UIEventExportWriter;
+
+/**
+ * Formato de salida de la exportación de eventos.
+ */
+public enum ExportFormat {
+
+    /** Un objeto JSON por línea, con los campos de UIEventResponse. */
+    NDJSON(UIEventExportWriter.NDJSON_MEDIA_TYPE, "ndjson"),
+
+    /** CSV con cabecera y los nombres de columna de ui_events. */
+    CSV(UIEventExportWriter.CSV_MEDIA_TYPE, "csv");
+
+    private final String mediaType;
+    private final String extension;
+
+    ExportFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Convierte el parámetro de query (ndjson, csv).
+     *
+     * @param value valor recibido, puede ser null (NDJSON por defecto)
+     * @throws IllegalArgumentException si el valor no es válido
+     */
+    public static ExportFormat fromParam(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return NDJSON;
+        }
+        for (ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value.trim())) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("format must be one of: ndjson, csv");
+    }
+}
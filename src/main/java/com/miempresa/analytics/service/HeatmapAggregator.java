@@ -0,0 +1,169 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.model.UIEvent;
+import com.miempresa.analytics.model.UIEventHeatmapCell;
+import com.miempresa.analytics.model.UIEventHeatmapCellId;
+import com.miempresa.analytics.repository.UIEventJdbcRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Agregador incremental de heatmaps de clicks.
+ *
+ * Cada evento con coordenadas y tamaño de pantalla se normaliza a una celda
+ * de una grilla grid-size x grid-size y se suma en memoria por
+ * (appId, route, elementId, breakpoint). Cada flush-interval-ms los
+ * incrementos pendientes se vuelcan con upserts a ui_event_heatmap_cell.
+ * Si la aplicación se detiene de forma abrupta se pierden como máximo los
+ * incrementos de un intervalo.
+ */
+@Component
+public class HeatmapAggregator implements UIEventIngestListener, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(HeatmapAggregator.class);
+
+    private final UIEventJdbcRepository jdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int gridSize;
+    private final int[] breakpoints;
+    // merge() y remove() son atómicos por clave: un incremento posterior a
+    // remove() crea una entrada nueva que se vuelca en el siguiente flush
+    private final ConcurrentHashMap<UIEventHeatmapCellId, Long> pending = new ConcurrentHashMap<>();
+
+    public HeatmapAggregator(UIEventJdbcRepository jdbcRepository,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${heatmap.enabled:true}") boolean enabled,
+                             @Value("${heatmap.grid-size:32}") int gridSize,
+                             @Value("${heatmap.breakpoints:0,576,768,992,1200}") int[] breakpoints) {
+        this.jdbcRepository = jdbcRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.gridSize = gridSize;
+        this.breakpoints = breakpoints.clone();
+        Arrays.sort(this.breakpoints);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("analytics.heatmap.pending.cells", pending, Map::size)
+                .description("Heatmap cells with increments not yet flushed")
+                .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    /**
+     * Breakpoints configurados (ancho mínimo en px de cada rango), en orden.
+     */
+    public int[] getBreakpoints() {
+        return breakpoints.clone();
+    }
+
+    /**
+     * Breakpoint de un ancho de pantalla: el mayor breakpoint menor o igual
+     * al ancho (o el primero si el ancho es menor a todos).
+     */
+    public int breakpointFor(int screenWidth) {
+        int result = breakpoints[0];
+        for (int breakpoint : breakpoints) {
+            if (breakpoint > screenWidth) {
+                break;
+            }
+            result = breakpoint;
+        }
+        return result;
+    }
+
+    @Override
+    public void onEventsWritten(List<UIEvent> events) {
+        if (!enabled) {
+            return;
+        }
+        // Se agrupa el lote localmente para tocar el mapa compartido una vez por celda
+        Map<UIEventHeatmapCellId, Long> increments = new HashMap<>();
+        for (UIEvent event : events) {
+            UIEventHeatmapCellId cell = toCell(event);
+            if (cell != null) {
+                increments.merge(cell, 1L, Long::sum);
+            }
+        }
+        increments.forEach((cell, clicks) -> pending.merge(cell, clicks, Long::sum));
+    }
+
+    /**
+     * Celda de un evento, o null si no tiene coordenadas dentro de la pantalla.
+     * Las coordenadas se interpretan relativas al viewport.
+     */
+    private UIEventHeatmapCellId toCell(UIEvent event) {
+        Integer x = event.getCoordinateX();
+        Integer y = event.getCoordinateY();
+        Integer width = event.getScreenWidth();
+        Integer height = event.getScreenHeight();
+        if (x == null || y == null || width == null || height == null
+                || width <= 0 || height <= 0 || x < 0 || y < 0 || x > width || y > height) {
+            return null;
+        }
+        int cellX = Math.min(gridSize - 1, (int) ((long) x * gridSize / width));
+        int cellY = Math.min(gridSize - 1, (int) ((long) y * gridSize / height));
+        return new UIEventHeatmapCellId(
+                codeOrNone(event.getAppCode()),
+                codeOrNone(event.getRouteCode()),
+                event.getElementId(),
+                breakpointFor(width),
+                cellX,
+                cellY);
+    }
+
+    private static int codeOrNone(Integer code) {
+        return code != null ? code : UIEventHeatmapCell.NO_CODE;
+    }
+
+    /**
+     * Vuelca los incrementos pendientes a la base de datos en una sola
+     * transacción: el driver puede partir el batch en varias sentencias, y
+     * si alguna fallara con las anteriores confirmadas el reintento sumaría
+     * dos veces. Si la escritura falla se devuelven al mapa para el próximo
+     * intento.
+     */
+    @Scheduled(fixedDelayString = "${heatmap.flush-interval-ms:5000}")
+    @PreDestroy
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<UIEventHeatmapCellId, Long> batch = new HashMap<>();
+        for (UIEventHeatmapCellId cell : pending.keySet()) {
+            Long clicks = pending.remove(cell);
+            if (clicks != null) {
+                batch.put(cell, clicks);
+            }
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcRepository.upsertHeatmapCells(batch));
+        } catch (Exception e) {
+            logger.error("Failed to flush {} heatmap cells, retrying on next flush", batch.size(), e);
+            batch.forEach((cell, clicks) -> pending.merge(cell, clicks, Long::sum));
+        }
+    }
+}
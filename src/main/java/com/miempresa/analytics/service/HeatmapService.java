@@ -0,0 +1,23 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.dto.UIHeatmapResponse;
+
+/**
+ * Interfaz del servicio de heatmaps de clicks.
+ */
+public interface HeatmapService {
+
+    /**
+     * Obtiene el heatmap acumulado de un elemento.
+     * appId y route identifican la pantalla; si se omiten se consultan los
+     * eventos que llegaron sin ese dato.
+     *
+     * @param appId      Aplicación (opcional)
+     * @param route      Ruta (opcional)
+     * @param elementId  Elemento
+     * @param breakpoint Breakpoint a consultar, o null para todos
+     * @return Grillas con las celdas que recibieron clicks
+     * @throws IllegalArgumentException si elementId está vacío o el breakpoint no está configurado
+     */
+    UIHeatmapResponse getHeatmap(String appId, String route, String elementId, Integer breakpoint);
+}
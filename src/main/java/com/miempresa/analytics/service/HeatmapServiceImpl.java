@@ -0,0 +1,90 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.dto.UIHeatmapCell;
+import com.miempresa.analytics.dto.UIHeatmapGrid;
+import com.miempresa.analytics.dto.UIHeatmapResponse;
+import com.miempresa.analytics.model.DimensionType;
+import com.miempresa.analytics.model.UIEventHeatmapCell;
+import com.miempresa.analytics.repository.UIEventHeatmapCellRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementación del servicio de heatmaps.
+ * Lee las celdas preagregadas por HeatmapAggregator: el costo de una consulta
+ * depende del número de celdas con clicks, no del volumen de eventos.
+ */
+@Service
+public class HeatmapServiceImpl implements HeatmapService {
+
+    private final UIEventHeatmapCellRepository cellRepository;
+    private final HeatmapAggregator aggregator;
+    private final DimensionDictionary dictionary;
+
+    public HeatmapServiceImpl(UIEventHeatmapCellRepository cellRepository,
+                              HeatmapAggregator aggregator,
+                              DimensionDictionary dictionary) {
+        this.cellRepository = cellRepository;
+        this.aggregator = aggregator;
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UIHeatmapResponse getHeatmap(String appId, String route, String elementId, Integer breakpoint) {
+        if (elementId == null || elementId.trim().isEmpty()) {
+            throw new IllegalArgumentException("elementId is required");
+        }
+        int[] breakpoints = aggregator.getBreakpoints();
+        if (breakpoint != null && Arrays.binarySearch(breakpoints, breakpoint) < 0) {
+            throw new IllegalArgumentException("breakpoint must be one of " + Arrays.toString(breakpoints));
+        }
+        UIHeatmapResponse response = new UIHeatmapResponse(appId, route, elementId, aggregator.getGridSize());
+
+        Integer appCode = findCode(DimensionType.APP, appId);
+        Integer routeCode = findCode(DimensionType.ROUTE, route);
+        if (appCode == null || routeCode == null) {
+            // Un valor que nunca se registró no puede tener clicks
+            return response;
+        }
+
+        List<UIEventHeatmapCell> cells = breakpoint == null
+                ? cellRepository.findByAppCodeAndRouteCodeAndElementIdOrderByBreakpointAscCellYAscCellXAsc(
+                        appCode, routeCode, elementId)
+                : cellRepository.findByAppCodeAndRouteCodeAndElementIdAndBreakpointOrderByCellYAscCellXAsc(
+                        appCode, routeCode, elementId, breakpoint);
+
+        Map<Integer, UIHeatmapGrid> grids = new LinkedHashMap<>();
+        for (UIEventHeatmapCell cell : cells) {
+            grids.computeIfAbsent(cell.getBreakpoint(), bp -> new UIHeatmapGrid(bp, maxWidth(breakpoints, bp)))
+                    .addCell(new UIHeatmapCell(cell.getCellX(), cell.getCellY(), cell.getClicks()));
+        }
+        response.getGrids().addAll(grids.values());
+        return response;
+    }
+
+    /**
+     * Código de una dimensión opcional: NO_CODE si no se indicó, null si el
+     * valor no existe en el diccionario.
+     */
+    private Integer findCode(DimensionType dimension, String value) {
+        if (value == null || value.isEmpty()) {
+            return UIEventHeatmapCell.NO_CODE;
+        }
+        return dictionary.find(dimension, value);
+    }
+
+    private static Integer maxWidth(int[] breakpoints, int breakpoint) {
+        for (int candidate : breakpoints) {
+            if (candidate > breakpoint) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+}
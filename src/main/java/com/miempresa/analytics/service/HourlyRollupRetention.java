@@ -0,0 +1,55 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.repository.UIEventJdbcRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Borra las filas de ui_event_hourly_rollup más antiguas que
+ * timeseries.hourly-retention-days. Los agregados diario y mensual se
+ * conservan, por lo que los rangos antiguos siguen disponibles por día.
+ */
+@Component
+public class HourlyRollupRetention {
+
+    private static final Logger logger = LoggerFactory.getLogger(HourlyRollupRetention.class);
+
+    // Filas por DELETE, para no mantener locks largos sobre la tabla
+    private static final int DELETE_CHUNK = 10000;
+
+    private final UIEventJdbcRepository jdbcRepository;
+    private final int retentionDays;
+
+    public HourlyRollupRetention(UIEventJdbcRepository jdbcRepository,
+                                 @Value("${timeseries.hourly-retention-days:90}") int retentionDays) {
+        this.jdbcRepository = jdbcRepository;
+        this.retentionDays = retentionDays;
+    }
+
+    @Scheduled(cron = "${timeseries.retention-cron:0 30 3 * * *}")
+    public void purge() {
+        if (retentionDays <= 0) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS).minusDays(retentionDays);
+        try {
+            long deleted = 0;
+            int rows;
+            do {
+                rows = jdbcRepository.deleteHourlyRollupBefore(cutoff, DELETE_CHUNK);
+                deleted += rows;
+            } while (rows == DELETE_CHUNK);
+            if (deleted > 0) {
+                logger.info("Hourly rollup retention: deleted {} rows before {}", deleted, cutoff);
+            }
+        } catch (Exception e) {
+            logger.error("Hourly rollup retention failed", e);
+        }
+    }
+}
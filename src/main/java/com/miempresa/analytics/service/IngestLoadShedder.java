@@ -0,0 +1,115 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.exception.IngestThrottledException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Descarte adaptativo de carga en la ingesta.
+ *
+ * Cada evaluate-interval-ms compara la latencia reciente de escritura de
+ * lotes (UIEventBatchWriter) con max-write-latency-ms y la ocupación de la
+ * cola asíncrona y del write-ahead log con max-queue-fill. Mientras alguna
+ * señal supera su umbral, la fracción de peticiones rechazadas con 429 sube
+ * de a 10 puntos (hasta el 90%: siempre entra algo de tráfico para seguir
+ * midiendo); cuando se normalizan baja de a 5 puntos. Así el servicio
+ * responde 429 rápido a una parte de los clientes en lugar de que todos
+ * esperen un timeout.
+ */
+@Component
+public class IngestLoadShedder implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestLoadShedder.class);
+
+    private static final double STEP_UP = 0.1;
+    private static final double STEP_DOWN = 0.05;
+    private static final double MAX_SHED_RATIO = 0.9;
+    // Sin escrituras recientes la latencia medida ya no es representativa
+    private static final long LATENCY_STALE_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final UIEventBatchWriter batchWriter;
+    private final UIEventWriteQueue writeQueue;
+    private final UIEventWriteAheadLog writeAheadLog;
+    private final boolean enabled;
+    private final long maxWriteLatencyNanos;
+    private final double maxQueueFill;
+    private final long retryAfterSeconds;
+    private volatile double shedRatio;
+
+    public IngestLoadShedder(UIEventBatchWriter batchWriter,
+                             UIEventWriteQueue writeQueue,
+                             UIEventWriteAheadLog writeAheadLog,
+                             @Value("${load-shedding.enabled:false}") boolean enabled,
+                             @Value("${load-shedding.max-write-latency-ms:500}") long maxWriteLatencyMs,
+                             @Value("${load-shedding.max-queue-fill:0.8}") double maxQueueFill,
+                             @Value("${load-shedding.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.batchWriter = batchWriter;
+        this.writeQueue = writeQueue;
+        this.writeAheadLog = writeAheadLog;
+        this.enabled = enabled;
+        this.maxWriteLatencyNanos = TimeUnit.MILLISECONDS.toNanos(maxWriteLatencyMs);
+        this.maxQueueFill = maxQueueFill;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Rechaza la petición con probabilidad igual a la fracción de descarte actual.
+     *
+     * @throws IngestThrottledException si la petición se descarta
+     */
+    public void check() {
+        double ratio = shedRatio;
+        if (ratio > 0 && ThreadLocalRandom.current().nextDouble() < ratio) {
+            throw new IngestThrottledException("Service overloaded, retry later",
+                    IngestMetrics.REASON_SHED, retryAfterSeconds);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${load-shedding.evaluate-interval-ms:250}")
+    public void evaluate() {
+        if (!enabled) {
+            return;
+        }
+        double previous = shedRatio;
+        double next = isOverloaded()
+                ? Math.min(MAX_SHED_RATIO, previous + STEP_UP)
+                : Math.max(0, previous - STEP_DOWN);
+        shedRatio = next;
+        if (previous == 0 && next > 0) {
+            logger.warn("Ingest overloaded (write latency {} ms, queue fill {}): shedding load",
+                    TimeUnit.NANOSECONDS.toMillis(batchWriter.getWriteLatencyNanos()), queueFill());
+        } else if (previous > 0 && next == 0) {
+            logger.info("Ingest load back to normal: stopped shedding");
+        }
+    }
+
+    private boolean isOverloaded() {
+        boolean recentWrites = System.nanoTime() - batchWriter.getLastWriteNanos() < LATENCY_STALE_NANOS;
+        boolean slowWrites = recentWrites && batchWriter.getWriteLatencyNanos() > maxWriteLatencyNanos;
+        return slowWrites || queueFill() > maxQueueFill;
+    }
+
+    private double queueFill() {
+        return Math.max(writeQueue.fillRatio(), writeAheadLog.fillRatio());
+    }
+
+    public double getShedRatio() {
+        return shedRatio;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("analytics.ingest.shed.ratio", this, IngestLoadShedder::getShedRatio)
+                .description("Fraction of ingest requests currently rejected by load shedding")
+                .register(registry);
+    }
+}
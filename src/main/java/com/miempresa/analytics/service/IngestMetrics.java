@@ -0,0 +1,92 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.model.UIEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Métricas de la ruta de ingesta.
+ *
+ * analytics.events.ingested{app_id,type}: eventos aceptados (la tasa por
+ * segundo se obtiene con rate() en Prometheus). Los valores los envía el
+ * cliente: pasados max-apps appIds o max-types tipos distintos, los nuevos
+ * se cuentan como "other", para que un cliente que los inventa no haga
+ * crecer sin límite las series ni los contadores.
+ * analytics.events.rejected{reason}: eventos rechazados por validación,
+ * cuerpo mal formado, cola llena, error de escritura, límite de tasa de la
+ * aplicación o descarte de carga.
+ */
+@Component
+public class IngestMetrics {
+
+    public static final String REASON_VALIDATION = "validation";
+    public static final String REASON_MALFORMED = "malformed";
+    public static final String REASON_QUEUE_FULL = "queue_full";
+    public static final String REASON_WRITE_FAILED = "write_failed";
+    public static final String REASON_RATE_LIMITED = "rate_limited";
+    public static final String REASON_SHED = "shed";
+
+    private static final String NONE = "none";
+    private static final String OTHER = "other";
+
+    private final MeterRegistry registry;
+    private final int maxApps;
+    private final int maxTypes;
+    // Cache local de contadores para no resolver tags en cada evento
+    private final Map<String, Counter> ingested = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejected = new ConcurrentHashMap<>();
+    // Valores con tag propio
+    private final Set<String> appTags = ConcurrentHashMap.newKeySet();
+    private final Set<String> typeTags = ConcurrentHashMap.newKeySet();
+
+    public IngestMetrics(MeterRegistry registry,
+                         @Value("${ingest.metrics.max-apps:100}") int maxApps,
+                         @Value("${ingest.metrics.max-types:50}") int maxTypes) {
+        this.registry = registry;
+        this.maxApps = maxApps;
+        this.maxTypes = maxTypes;
+    }
+
+    public void recordIngested(UIEvent event) {
+        String appId = tag(appTags, maxApps, event.getAppId() != null ? event.getAppId() : NONE);
+        String type = tag(typeTags, maxTypes, event.getType());
+        ingested.computeIfAbsent(appId + '\u0000' + type, k -> Counter.builder("analytics.events.ingested")
+                .description("Events accepted by the ingest endpoints")
+                .tag("app_id", appId)
+                .tag("type", type)
+                .register(registry))
+                .increment();
+    }
+
+    /**
+     * El valor como tag si ya lo tiene o queda lugar; si no, "other".
+     */
+    private static String tag(Set<String> tags, int max, String value) {
+        if (tags.contains(value)) {
+            return value;
+        }
+        if (tags.size() >= max) {
+            return OTHER;
+        }
+        tags.add(value);
+        return value;
+    }
+
+    public void recordRejected(String reason) {
+        recordRejected(reason, 1);
+    }
+
+    public void recordRejected(String reason, int count) {
+        rejected.computeIfAbsent(reason, k -> Counter.builder("analytics.events.rejected")
+                .description("Events rejected by the ingest endpoints")
+                .tag("reason", reason)
+                .register(registry))
+                .increment(count);
+    }
+}
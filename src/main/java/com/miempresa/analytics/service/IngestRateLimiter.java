@@ -0,0 +1,163 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.exception.IngestThrottledException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Límite de tasa de ingesta por appId (token bucket).
+ *
+ * Cada aplicación tiene un bucket de burst eventos que se recarga a
+ * events-per-second (o al valor de rate-limit.overrides para esa
+ * aplicación). Los eventos sin appId comparten un bucket. Las aplicaciones
+ * que superan max-apps comparten un bucket adicional, para que un cliente
+ * que inventa appIds no haga crecer el mapa sin límite.
+ */
+@Component
+public class IngestRateLimiter implements MeterBinder {
+
+    private static final String NO_APP = "";
+
+    private final boolean enabled;
+    private final int defaultRate;
+    private final int burst;
+    private final int maxApps;
+    private final Map<String, Integer> overrides;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Bucket overflow;
+
+    public IngestRateLimiter(@Value("${rate-limit.enabled:false}") boolean enabled,
+                             @Value("${rate-limit.events-per-second:500}") int defaultRate,
+                             @Value("${rate-limit.burst:1000}") int burst,
+                             @Value("${rate-limit.max-apps:10000}") int maxApps,
+                             @Value("${rate-limit.overrides:}") String overrides) {
+        if (defaultRate <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("rate-limit.events-per-second and rate-limit.burst must be positive");
+        }
+        this.enabled = enabled;
+        this.defaultRate = defaultRate;
+        this.burst = burst;
+        this.maxApps = maxApps;
+        this.overrides = parseOverrides(overrides);
+        this.overflow = new Bucket(defaultRate, burst);
+    }
+
+    /**
+     * Consume un token del bucket de la aplicación.
+     *
+     * @param appId aplicación del evento, puede ser null
+     * @throws IngestThrottledException si el bucket está vacío
+     */
+    public void acquire(String appId) {
+        if (!enabled) {
+            return;
+        }
+        String key = appId != null ? appId : NO_APP;
+        long waitNanos = bucketFor(key).tryAcquire(System.nanoTime());
+        if (waitNanos > 0) {
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            throw new IngestThrottledException("Rate limit exceeded for appId '" + key + "', retry in "
+                    + retryAfter + " s", IngestMetrics.REASON_RATE_LIMITED, retryAfter);
+        }
+    }
+
+    private Bucket bucketFor(String appId) {
+        Bucket bucket = buckets.get(appId);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxApps) {
+            return overflow;
+        }
+        return buckets.computeIfAbsent(appId, k -> new Bucket(overrides.getOrDefault(k, defaultRate), burst));
+    }
+
+    /**
+     * Descarta los buckets llenos: son idénticos a uno nuevo, así que no se
+     * pierde estado.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("analytics.ratelimit.apps", buckets, Map::size)
+                .description("Apps with an active ingest rate limit bucket")
+                .register(registry);
+    }
+
+    /**
+     * Formato: app1=5000,app2=100 (eventos por segundo).
+     */
+    private static Map<String, Integer> parseOverrides(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Integer> parsed = new HashMap<>();
+        for (String entry : value.split(",")) {
+            String[] parts = entry.split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("rate-limit.overrides entries must be appId=eventsPerSecond: " + entry);
+            }
+            int rate = Integer.parseInt(parts[1].trim());
+            if (rate <= 0) {
+                throw new IllegalArgumentException("rate-limit.overrides rate must be positive: " + entry);
+            }
+            parsed.put(parts[0].trim(), rate);
+        }
+        return parsed;
+    }
+
+    /**
+     * Token bucket en forma GCRA: el estado es un único instante teórico de
+     * llegada (tat), actualizado con CAS sin locks. Hay tokens mientras
+     * tat - now no supere burst intervalos.
+     */
+    static final class Bucket {
+
+        private final long intervalNanos;
+        private final long capacityNanos;
+        private final AtomicLong tat;
+
+        Bucket(int eventsPerSecond, int burst) {
+            this.intervalNanos = Math.max(1, TimeUnit.SECONDS.toNanos(1) / eventsPerSecond);
+            this.capacityNanos = intervalNanos * burst;
+            this.tat = new AtomicLong(System.nanoTime());
+        }
+
+        /**
+         * @return 0 si se concedió el token, o nanosegundos hasta que haya uno
+         */
+        long tryAcquire(long now) {
+            while (true) {
+                long current = tat.get();
+                long next = (current - now > 0 ? current : now) + intervalNanos;
+                long excess = next - now - capacityNanos;
+                if (excess > 0) {
+                    return excess;
+                }
+                if (tat.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        boolean isFull(long now) {
+            return tat.get() - now <= 0;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.miempresa.analytics.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miempresa.analytics.model.UIEvent;
+import com.miempresa.analytics.model.UIEventMetadata;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Extrae de la metadata JSON de cada evento las claves configuradas en
+ * metadata-keys.keys, que se guardan en ui_event_metadata para filtrar y
+ * agrupar estadísticas por ellas.
+ *
+ * Solo se indexan claves de primer nivel con valor escalar (texto, número o
+ * booleano, como texto) de hasta max-value-length caracteres; una metadata
+ * que no es un objeto JSON, o un valor de otro tipo, se ignora y el evento
+ * se guarda igual. Sin claves configuradas no se parsea nada.
+ */
+@Component
+public class MetadataKeyExtractor {
+
+    static final int MAX_KEY_LENGTH = 50;
+    static final int MAX_VALUE_LENGTH = 100;
+
+    private final ObjectMapper objectMapper;
+    private final Set<String> keys;
+    private final int maxValueLength;
+
+    public MetadataKeyExtractor(ObjectMapper objectMapper,
+                                @Value("${metadata-keys.keys:}") String keys,
+                                @Value("${metadata-keys.max-value-length:100}") int maxValueLength) {
+        this.objectMapper = objectMapper;
+        this.keys = Collections.unmodifiableSet(parseKeys(keys));
+        this.maxValueLength = Math.min(maxValueLength, MAX_VALUE_LENGTH);
+    }
+
+    private static Set<String> parseKeys(String value) {
+        Set<String> parsed = new LinkedHashSet<>();
+        for (String key : value.split(",")) {
+            String trimmed = key.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (trimmed.length() > MAX_KEY_LENGTH) {
+                throw new IllegalArgumentException("metadata-keys.keys: '" + trimmed
+                        + "' is longer than " + MAX_KEY_LENGTH + " characters");
+            }
+            parsed.add(trimmed);
+        }
+        return parsed;
+    }
+
+    public boolean isEnabled() {
+        return !keys.isEmpty();
+    }
+
+    public Set<String> getKeys() {
+        return keys;
+    }
+
+    public boolean isIndexed(String key) {
+        return keys.contains(key);
+    }
+
+    /**
+     * Filas de ui_event_metadata de un lote. El id de cada evento se asigna
+     * después del INSERT, así que las filas lo toman con resolveEventIds().
+     *
+     * @return una lista por evento, en el orden del lote; null si ningún
+     *         evento tiene claves indexadas
+     */
+    public List<List<UIEventMetadata>> extract(List<UIEvent> events) {
+        if (keys.isEmpty()) {
+            return null;
+        }
+        List<List<UIEventMetadata>> rows = new ArrayList<>(events.size());
+        boolean any = false;
+        for (UIEvent event : events) {
+            List<UIEventMetadata> eventRows = extract(event);
+            any |= !eventRows.isEmpty();
+            rows.add(eventRows);
+        }
+        return any ? rows : null;
+    }
+
+    /**
+     * Filas de ui_event_metadata de un evento (sin eventId si aún no tiene id).
+     */
+    public List<UIEventMetadata> extract(UIEvent event) {
+        Map<String, String> values = extractValues(event.getMetadata());
+        if (values.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<UIEventMetadata> rows = new ArrayList<>(values.size());
+        for (Map.Entry<String, String> value : values.entrySet()) {
+            rows.add(new UIEventMetadata(event.getId(), value.getKey(), value.getValue(), event.getCreatedAt(),
+                    event.getElementId(), event.getTypeCode()));
+        }
+        return rows;
+    }
+
+    /**
+     * Valores de las claves indexadas presentes en una metadata JSON.
+     *
+     * @return clave -> valor, en el orden de metadata-keys.keys; vacío si la
+     *         metadata no tiene ninguna o no es un objeto JSON
+     */
+    public Map<String, String> extractValues(String metadata) {
+        if (keys.isEmpty() || metadata == null || metadata.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(metadata);
+        } catch (JsonProcessingException e) {
+            return Collections.emptyMap();
+        }
+        if (root == null || !root.isObject()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> values = new LinkedHashMap<>(4);
+        for (String key : keys) {
+            JsonNode node = root.get(key);
+            if (node == null || !node.isValueNode() || node.isNull()) {
+                continue;
+            }
+            String value = node.asText();
+            if (value.isEmpty() || value.length() > maxValueLength) {
+                continue;
+            }
+            values.put(key, value);
+        }
+        return values;
+    }
+
+    /**
+     * Completa eventId en las filas de extract(List) una vez insertados los
+     * eventos, y las aplana en una sola lista.
+     */
+    public static List<UIEventMetadata> resolveEventIds(List<UIEvent> events, List<List<UIEventMetadata>> rows) {
+        List<UIEventMetadata> resolved = new ArrayList<>();
+        for (int i = 0; i < events.size(); i++) {
+            for (UIEventMetadata row : rows.get(i)) {
+                row.setEventId(events.get(i).getId());
+                resolved.add(row);
+            }
+        }
+        return resolved;
+    }
+}
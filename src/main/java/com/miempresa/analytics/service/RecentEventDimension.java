@@ -0,0 +1,58 @@
+package com.miempresa.analytics.service;
+
+/**
+ * Dimensiones por las que se agrupa /v1/stats/recent.
+ */
+public enum RecentEventDimension {
+
+    TYPE("type"),
+    APP("appId"),
+    ELEMENT("elementId"),
+    ELEMENT_TYPE("elementType"),
+    ROUTE("route"),
+
+    /** Día de createdAt. */
+    DAY("day"),
+
+    /** Hora de createdAt. */
+    HOUR("hour");
+
+    private final String param;
+
+    RecentEventDimension(String param) {
+        this.param = param;
+    }
+
+    /**
+     * Nombre de la dimensión en la query y en la respuesta.
+     */
+    public String getParam() {
+        return param;
+    }
+
+    /**
+     * Indica si la dimensión se deriva de createdAt en lugar de guardarse
+     * como columna.
+     */
+    public boolean isTime() {
+        return this == DAY || this == HOUR;
+    }
+
+    /**
+     * Convierte un valor de groupBy (type, appId, elementId, elementType,
+     * route, day, hour).
+     *
+     * @throws IllegalArgumentException si el valor no es válido
+     */
+    public static RecentEventDimension fromParam(String value) {
+        if (value != null) {
+            for (RecentEventDimension dimension : values()) {
+                if (dimension.param.equalsIgnoreCase(value.trim())) {
+                    return dimension;
+                }
+            }
+        }
+        throw new IllegalArgumentException(
+                "groupBy values must be among: type, appId, elementId, elementType, route, day, hour");
+    }
+}
@@ -0,0 +1,907 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.model.UIEvent;
+import com.miempresa.analytics.repository.UIEventJdbcRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Almacén columnar en memoria con los eventos de los últimos window-days
+ * días, para consultas ad-hoc de filtro, agrupación y conteo sin tocar la
+ * base de datos (/v1/stats/recent).
+ *
+ * Se alimenta como UIEventIngestListener, así que recibe todo lo que
+ * persiste UIEventBatchWriter: ingesta síncrona, cola asíncrona y replay del
+ * WAL. Las filas se guardan por columnas fuera del heap (ByteBuffer
+ * directos), en chunks de chunk-rows filas: createdAt en milisegundos y los
+ * códigos de diccionario de type, appId, elementType y route (0 si es null);
+ * elementId se codifica con un diccionario propio del almacén. Un único
+ * escritor agrega filas al último chunk y publica su tamaño al final, de modo
+ * que las consultas leen sin locks.
+ *
+ * El diccionario de elementId solo crece al ingerir; al descartar chunks, si
+ * creció un 50% desde la última compactación, se arma uno nuevo con los
+ * valores que siguen en el almacén y se publican copias de los chunks con la
+ * columna elementId recodificada. Cada chunk referencia el diccionario de sus
+ * códigos y todos los de una lista publicada comparten el mismo, así que una
+ * consulta nunca mezcla códigos de dos diccionarios.
+ *
+ * Una consulta divide los chunks que se solapan con el rango en tramos de
+ * SLICE_ROWS filas y los procesa con fork/join en parallelism hilos: cada
+ * tramo arma un vector de selección por rango de fechas, lo reduce columna
+ * por columna con los filtros y cuenta por grupo; los conteos parciales se
+ * combinan al unir las tareas.
+ *
+ * Con warm-load, al arrancar se cargan desde ui_events los eventos de la
+ * ventana. Mientras tanto las consultas fallan y los eventos ingeridos se
+ * retienen con su id, para agregar al final solo los que la carga no leyó;
+ * si se retienen más de max-pending-events, la carga se abandona como si
+ * hubiera fallado y el almacén sirve solo lo ingerido desde ese momento.
+ * Un chunk se descarta cuando todo su contenido sale de la ventana, y los
+ * más antiguos cuando se supera max-rows.
+ */
+@Component
+public class RecentEventStore implements UIEventIngestListener, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecentEventStore.class);
+
+    // Filas que procesa cada tarea de fork/join
+    private static final int SLICE_ROWS = 16384;
+
+    // Filas del warm load agregadas por cada toma del lock de escritura
+    private static final int LOAD_BATCH = 10000;
+
+    private static final long MILLIS_PER_HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+
+    // Columnas de códigos de cada chunk, indexadas por ordinal de RecentEventDimension
+    private static final int CODE_COLUMNS = RecentEventDimension.ROUTE.ordinal() + 1;
+
+    // Tamaño del diccionario de elementId por debajo del cual no se compacta
+    private static final int MIN_COMPACT_ELEMENTS = 4096;
+
+    private final UIEventJdbcRepository jdbcRepository;
+    private final boolean enabled;
+    private final int windowDays;
+    private final int chunkRows;
+    private final long maxRows;
+    private final int maxPendingEvents;
+    private final ForkJoinPool pool;
+
+    private final Object writeLock = new Object();
+    private volatile List<Chunk> chunks = Collections.emptyList();
+    private volatile long totalRows;
+    private final AtomicLong evictedRows = new AtomicLong();
+
+    // Diccionario de elementId de los chunks nuevos, y su tamaño tras la última compactación
+    private ElementDictionary elements = new ElementDictionary(64);
+    private int compactedElements;
+
+    // Desde cuándo (ms) el almacén tiene todos los eventos, sin contar la ventana
+    private volatile long coveredFrom;
+    private volatile boolean loading;
+    private List<UIEvent> pendingEvents = new ArrayList<>();
+    private Thread loader;
+
+    public RecentEventStore(UIEventJdbcRepository jdbcRepository,
+                            @Value("${recent-events.enabled:false}") boolean enabled,
+                            @Value("${recent-events.window-days:7}") int windowDays,
+                            @Value("${recent-events.chunk-rows:65536}") int chunkRows,
+                            @Value("${recent-events.max-rows:5000000}") long maxRows,
+                            @Value("${recent-events.max-pending-events:100000}") int maxPendingEvents,
+                            @Value("${recent-events.parallelism:0}") int parallelism,
+                            @Value("${recent-events.warm-load:true}") boolean warmLoad) {
+        this.jdbcRepository = jdbcRepository;
+        this.enabled = enabled;
+        this.windowDays = Math.max(windowDays, 1);
+        this.chunkRows = Math.max(chunkRows, 1024);
+        this.maxRows = Math.max(maxRows, this.chunkRows);
+        this.maxPendingEvents = maxPendingEvents;
+        this.pool = enabled
+                ? new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors())
+                : null;
+        this.coveredFrom = warmLoad ? Long.MIN_VALUE : System.currentTimeMillis();
+        // Desde el arranque, para que ningún lote llegue sin id antes de la carga
+        this.loading = enabled && warmLoad;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!loading) {
+            return;
+        }
+        loader = new Thread(this::warmLoad, "recent-events-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+        if (loader != null) {
+            loader.interrupt();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("analytics.recent.rows", this, store -> store.totalRows)
+                .description("Events held by the in-memory recent event store")
+                .register(registry);
+        Gauge.builder("analytics.recent.chunks", this, store -> store.chunks.size())
+                .description("Column chunks held by the recent event store")
+                .register(registry);
+        Gauge.builder("analytics.recent.memory", this, store -> (double) store.chunks.size() * chunkBytes())
+                .description("Off-heap memory allocated by the recent event store")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("analytics.recent.evicted.rows", evictedRows, AtomicLong::get)
+                .description("Events dropped from the recent event store by age or max-rows")
+                .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isLoading() {
+        return loading;
+    }
+
+    public int getWindowDays() {
+        return windowDays;
+    }
+
+    @Override
+    public boolean requiresEventIds() {
+        return loading;
+    }
+
+    @Override
+    public void onEventsWritten(List<UIEvent> events) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (writeLock) {
+            if (loading && pendingEvents.size() + events.size() > maxPendingEvents) {
+                logger.error("Recent event store warm load abandoned: more than {} events ingested while loading; "
+                        + "serving only events ingested from now on", maxPendingEvents);
+                abandonWarmLoad();
+            }
+            if (loading) {
+                pendingEvents.addAll(events);
+            } else {
+                append(events);
+            }
+        }
+    }
+
+    /**
+     * Inicio de la ventana a partir de now.
+     */
+    public LocalDateTime windowStart(LocalDateTime now) {
+        return now.minusDays(windowDays);
+    }
+
+    /**
+     * Momento desde el que el almacén tiene todos los eventos: el inicio de la
+     * ventana, salvo que falte la carga inicial o max-rows haya descartado
+     * eventos más nuevos.
+     */
+    public LocalDateTime getCompleteFrom() {
+        LocalDateTime windowStart = windowStart(LocalDateTime.now());
+        long from = coveredFrom;
+        if (from == Long.MIN_VALUE) {
+            return windowStart;
+        }
+        LocalDateTime covered = fromMillis(from);
+        return covered.isAfter(windowStart) ? covered : windowStart;
+    }
+
+    /**
+     * Cuenta los eventos con createdAt en [from, to) que cumplen los filtros,
+     * agrupados por groupBy.
+     *
+     * @param filters   código de diccionario requerido por dimensión (TYPE,
+     *                  APP, ELEMENT_TYPE, ROUTE)
+     * @param elementId elementId requerido, o null; se codifica con el
+     *                  diccionario de los chunks consultados
+     * @param groupBy   dimensiones del grupo; vacío para contar sin agrupar
+     * @throws IllegalStateException si el almacén está deshabilitado o cargando
+     */
+    public QueryResult query(LocalDateTime from, LocalDateTime to, Map<RecentEventDimension, Integer> filters,
+                             String elementId, List<RecentEventDimension> groupBy) {
+        if (!enabled) {
+            throw new IllegalStateException("Recent event store is disabled");
+        }
+        if (loading) {
+            throw new IllegalStateException("Recent event store is still loading");
+        }
+        List<Chunk> current = chunks;
+        ElementDictionary dictionary = current.isEmpty() ? null : current.get(0).elements;
+        Integer elementCode = null;
+        if (elementId != null) {
+            elementCode = dictionary != null ? dictionary.find(elementId) : null;
+            if (elementCode == null) {
+                return new QueryResult(0, new ArrayList<>(), dictionary);
+            }
+        }
+        long fromMillis = toMillis(from);
+        long toMillis = toMillis(to);
+        List<Slice> slices = new ArrayList<>();
+        for (Chunk chunk : current) {
+            // size primero: publica las filas y el rango de fechas
+            int size = chunk.size;
+            if (size == 0 || chunk.maxCreatedAt < fromMillis || chunk.minCreatedAt >= toMillis) {
+                continue;
+            }
+            for (int start = 0; start < size; start += SLICE_ROWS) {
+                slices.add(new Slice(chunk, start, Math.min(size, start + SLICE_ROWS)));
+            }
+        }
+
+        int filterCount = filters.size() + (elementCode != null ? 1 : 0);
+        int[] filterColumns = new int[filterCount];
+        int[] filterCodes = new int[filterCount];
+        int f = 0;
+        for (Map.Entry<RecentEventDimension, Integer> filter : filters.entrySet()) {
+            if (filter.getKey().isTime() || filter.getKey() == RecentEventDimension.ELEMENT) {
+                throw new IllegalArgumentException("Cannot filter by " + filter.getKey().getParam() + " code");
+            }
+            filterColumns[f] = filter.getKey().ordinal();
+            filterCodes[f++] = filter.getValue();
+        }
+        if (elementCode != null) {
+            filterColumns[f] = RecentEventDimension.ELEMENT.ordinal();
+            filterCodes[f] = elementCode;
+        }
+        RecentEventDimension[] dimensions = groupBy.toArray(new RecentEventDimension[0]);
+
+        Partial result = slices.isEmpty()
+                ? new Partial()
+                : pool.invoke(new QueryTask(slices, 0, slices.size(), fromMillis, toMillis,
+                filterColumns, filterCodes, dimensions));
+        List<GroupCount> groups = new ArrayList<>(result.groups.size());
+        for (Map.Entry<GroupKey, long[]> entry : result.groups.entrySet()) {
+            groups.add(new GroupCount(entry.getKey().values, entry.getValue()[0]));
+        }
+        return new QueryResult(result.matched, groups, dictionary);
+    }
+
+    /**
+     * Descarta los chunks cuyos eventos ya salieron de la ventana.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpired() {
+        if (!enabled) {
+            return;
+        }
+        long windowStart = toMillis(windowStart(LocalDateTime.now()));
+        synchronized (writeLock) {
+            List<Chunk> kept = new ArrayList<>(chunks.size());
+            for (Chunk chunk : chunks) {
+                if (chunk.size > 0 && chunk.maxCreatedAt < windowStart) {
+                    evict(chunk);
+                } else {
+                    kept.add(chunk);
+                }
+            }
+            if (kept.size() < chunks.size()) {
+                chunks = Collections.unmodifiableList(kept);
+                compactElementsIfGrown();
+            }
+        }
+    }
+
+    /**
+     * Valor de un grupo de DAY o HOUR como inicio del día u hora.
+     */
+    public static LocalDateTime bucketStart(RecentEventDimension dimension, int value) {
+        if (dimension == RecentEventDimension.DAY) {
+            return LocalDate.ofEpochDay(value).atStartOfDay();
+        }
+        return fromMillis(value * MILLIS_PER_HOUR);
+    }
+
+    private void warmLoad() {
+        long start = System.nanoTime();
+        try {
+            Long maxId = jdbcRepository.findMaxId();
+            LoadedIds loadedIds = new LoadedIds();
+            if (maxId != null) {
+                List<UIEvent> batch = new ArrayList<>(LOAD_BATCH);
+                jdbcRepository.streamRecentEvents(windowStart(LocalDateTime.now()), maxId, rs -> {
+                    batch.add(toEvent(rs));
+                    loadedIds.add(batch.get(batch.size() - 1).getId());
+                    if (batch.size() == LOAD_BATCH) {
+                        appendLoaded(batch);
+                        batch.clear();
+                    }
+                });
+                appendLoaded(batch);
+            }
+            loadedIds.sort();
+            synchronized (writeLock) {
+                if (!loading) {
+                    throw new WarmLoadAbandonedException();
+                }
+                // Lo ingerido durante la carga, salvo lo que la carga ya leyó
+                List<UIEvent> pending = new ArrayList<>(pendingEvents.size());
+                for (UIEvent event : pendingEvents) {
+                    if (event.getId() == null || maxId == null || event.getId() > maxId
+                            || !loadedIds.contains(event.getId())) {
+                        pending.add(event);
+                    }
+                }
+                append(pending);
+                pendingEvents = null;
+                loading = false;
+            }
+            logger.info("Recent event store loaded {} events of the last {} days in {} ms",
+                    totalRows, windowDays, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (WarmLoadAbandonedException e) {
+            // onEventsWritten ya dejó el almacén sirviendo desde el abandono
+        } catch (RuntimeException e) {
+            logger.error("Recent event store warm load failed; serving only events ingested from now on", e);
+            synchronized (writeLock) {
+                if (loading) {
+                    abandonWarmLoad();
+                }
+            }
+        }
+    }
+
+    /**
+     * Descarta lo cargado y sirve solo los eventos ingeridos desde ahora.
+     * Requiere writeLock.
+     */
+    private void abandonWarmLoad() {
+        for (Chunk chunk : chunks) {
+            evict(chunk);
+        }
+        chunks = Collections.emptyList();
+        elements = new ElementDictionary(64);
+        compactedElements = 0;
+        totalRows = 0;
+        coveredFrom = System.currentTimeMillis();
+        pendingEvents = null;
+        loading = false;
+    }
+
+    private void appendLoaded(List<UIEvent> batch) {
+        synchronized (writeLock) {
+            if (!loading) {
+                // Corta el streaming de ui_events
+                throw new WarmLoadAbandonedException();
+            }
+            append(batch);
+        }
+    }
+
+    private static UIEvent toEvent(ResultSet rs) throws SQLException {
+        UIEvent event = new UIEvent();
+        event.setId(rs.getLong(1));
+        event.setCreatedAt(rs.getTimestamp(2).toLocalDateTime());
+        event.setTypeCode(nullableInt(rs, 3));
+        event.setAppCode(nullableInt(rs, 4));
+        event.setElementId(rs.getString(5));
+        event.setElementTypeCode(nullableInt(rs, 6));
+        event.setRouteCode(nullableInt(rs, 7));
+        return event;
+    }
+
+    private static Integer nullableInt(ResultSet rs, int column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    /**
+     * Agrega los eventos de la ventana. Requiere writeLock.
+     */
+    private void append(List<UIEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        long windowStart = toMillis(windowStart(LocalDateTime.now()));
+        List<Chunk> current = chunks;
+        Chunk chunk = current.isEmpty() ? null : current.get(current.size() - 1);
+        long appended = 0;
+        for (UIEvent event : events) {
+            if (event.getCreatedAt() == null) {
+                continue;
+            }
+            long createdAt = toMillis(event.getCreatedAt());
+            if (createdAt < windowStart) {
+                continue;
+            }
+            if (chunk == null || chunk.written == chunkRows) {
+                if (chunk != null) {
+                    chunk.publish();
+                }
+                chunk = new Chunk(chunkRows, elements);
+                List<Chunk> grown = new ArrayList<>(current);
+                grown.add(chunk);
+                current = Collections.unmodifiableList(grown);
+                chunks = current;
+            }
+            chunk.put(createdAt, code(event.getTypeCode()), code(event.getAppCode()),
+                    elements.encode(event.getElementId()), code(event.getElementTypeCode()),
+                    code(event.getRouteCode()));
+            appended++;
+        }
+        if (chunk != null) {
+            chunk.publish();
+        }
+        totalRows += appended;
+        trimToMaxRows();
+    }
+
+    /**
+     * Descarta los chunks más antiguos mientras se supere max-rows.
+     */
+    private void trimToMaxRows() {
+        if (totalRows <= maxRows) {
+            return;
+        }
+        List<Chunk> kept = new ArrayList<>(chunks);
+        while (totalRows > maxRows && kept.size() > 1) {
+            Chunk oldest = kept.remove(0);
+            evict(oldest);
+            // Los eventos hasta el más nuevo descartado ya no están completos
+            coveredFrom = Math.max(coveredFrom, oldest.maxCreatedAt + 1);
+        }
+        chunks = Collections.unmodifiableList(kept);
+        compactElementsIfGrown();
+    }
+
+    private void evict(Chunk chunk) {
+        totalRows -= chunk.written;
+        evictedRows.addAndGet(chunk.written);
+    }
+
+    /**
+     * Tras descartar chunks, rearma el diccionario de elementId con los
+     * valores que siguen en el almacén si creció un 50% desde la última
+     * compactación. Los chunks se reemplazan por copias que comparten las
+     * demás columnas; las consultas en curso terminan con los anteriores.
+     * Requiere writeLock.
+     */
+    private void compactElementsIfGrown() {
+        if (elements.size() <= Math.max(compactedElements, MIN_COMPACT_ELEMENTS) * 3L / 2) {
+            return;
+        }
+        long start = System.nanoTime();
+        ElementDictionary previous = elements;
+        ElementDictionary compacted = new ElementDictionary(64);
+        // Código anterior -> nuevo; 0 = todavía sin asignar (0 es null en ambos)
+        int[] remap = new int[previous.size() + 1];
+        List<Chunk> remapped = new ArrayList<>(chunks.size());
+        for (Chunk chunk : chunks) {
+            IntBuffer source = chunk.codes[RecentEventDimension.ELEMENT.ordinal()];
+            IntBuffer target = newIntColumn(chunkRows);
+            for (int row = 0; row < chunk.written; row++) {
+                int code = source.get(row);
+                if (code != 0) {
+                    if (remap[code] == 0) {
+                        remap[code] = compacted.encode(previous.decode(code));
+                    }
+                    code = remap[code];
+                }
+                target.put(row, code);
+            }
+            remapped.add(chunk.withElements(target, compacted));
+        }
+        chunks = Collections.unmodifiableList(remapped);
+        elements = compacted;
+        compactedElements = compacted.size();
+        logger.debug("Recent event store element dictionary compacted from {} to {} values in {} ms",
+                previous.size(), compacted.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static IntBuffer newIntColumn(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    private static int code(Integer code) {
+        return code != null ? code : 0;
+    }
+
+    private long chunkBytes() {
+        return (long) chunkRows * (Long.BYTES + CODE_COLUMNS * Integer.BYTES);
+    }
+
+    private static long toMillis(LocalDateTime value) {
+        return value.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime fromMillis(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L),
+                (int) Math.floorMod(millis, 1000L) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Resultado de query(): eventos que cumplen los filtros y conteo por
+     * grupo. Cada clave tiene un valor por dimensión de groupBy: el código
+     * de diccionario, o el día (epoch day) u hora (epoch hour) para DAY y HOUR.
+     * Los códigos de ELEMENT se decodifican con decodeElement().
+     */
+    public static final class QueryResult {
+
+        private final long matched;
+        private final List<GroupCount> groups;
+        private final ElementDictionary elements;
+
+        QueryResult(long matched, List<GroupCount> groups, ElementDictionary elements) {
+            this.matched = matched;
+            this.groups = groups;
+            this.elements = elements;
+        }
+
+        /**
+         * elementId de un código de ELEMENT de este resultado (null para 0).
+         */
+        public String decodeElement(int code) {
+            return elements != null ? elements.decode(code) : null;
+        }
+
+        public long getMatched() {
+            return matched;
+        }
+
+        public List<GroupCount> getGroups() {
+            return groups;
+        }
+    }
+
+    public static final class GroupCount {
+
+        private final int[] key;
+        private final long count;
+
+        GroupCount(int[] key, long count) {
+            this.key = key;
+            this.count = count;
+        }
+
+        public int getKey(int dimension) {
+            return key[dimension];
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * Diccionario de elementId de un conjunto de chunks; el código 0 es null.
+     * Lo escribe solo el escritor del almacén y se lee sin locks.
+     */
+    static final class ElementDictionary {
+
+        private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+        private volatile String[] values;
+        private int count = 1;
+
+        ElementDictionary(int capacity) {
+            values = new String[capacity];
+        }
+
+        Integer find(String elementId) {
+            return codes.get(elementId);
+        }
+
+        String decode(int code) {
+            return values[code];
+        }
+
+        int size() {
+            return count - 1;
+        }
+
+        int encode(String elementId) {
+            if (elementId == null) {
+                return 0;
+            }
+            Integer code = codes.get(elementId);
+            if (code != null) {
+                return code;
+            }
+            String[] current = values;
+            if (count == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            code = count++;
+            current[code] = elementId;
+            // El arreglo se publica antes que el código
+            values = current;
+            codes.put(elementId, code);
+            return code;
+        }
+    }
+
+    /**
+     * Hasta chunkRows filas, una columna por buffer directo.
+     */
+    private static final class Chunk {
+
+        private final LongBuffer createdAt;
+        private final IntBuffer[] codes;
+        // Diccionario de la columna ELEMENT
+        private final ElementDictionary elements;
+        // Filas escritas (solo el escritor) y publicadas (lectores)
+        private int written;
+        private volatile int size;
+        private volatile long minCreatedAt = Long.MAX_VALUE;
+        private volatile long maxCreatedAt = Long.MIN_VALUE;
+
+        Chunk(int capacity, ElementDictionary elements) {
+            this.elements = elements;
+            createdAt = ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+            codes = new IntBuffer[CODE_COLUMNS];
+            for (int c = 0; c < CODE_COLUMNS; c++) {
+                codes[c] = newIntColumn(capacity);
+            }
+        }
+
+        private Chunk(Chunk source, IntBuffer elementColumn, ElementDictionary elements) {
+            this.elements = elements;
+            createdAt = source.createdAt;
+            codes = source.codes.clone();
+            codes[RecentEventDimension.ELEMENT.ordinal()] = elementColumn;
+            written = source.written;
+            minCreatedAt = source.minCreatedAt;
+            maxCreatedAt = source.maxCreatedAt;
+            size = source.size;
+        }
+
+        /**
+         * Copia con la columna ELEMENT recodificada con otro diccionario.
+         */
+        Chunk withElements(IntBuffer elementColumn, ElementDictionary elements) {
+            return new Chunk(this, elementColumn, elements);
+        }
+
+        void put(long time, int type, int app, int element, int elementType, int route) {
+            int row = written++;
+            createdAt.put(row, time);
+            codes[RecentEventDimension.TYPE.ordinal()].put(row, type);
+            codes[RecentEventDimension.APP.ordinal()].put(row, app);
+            codes[RecentEventDimension.ELEMENT.ordinal()].put(row, element);
+            codes[RecentEventDimension.ELEMENT_TYPE.ordinal()].put(row, elementType);
+            codes[RecentEventDimension.ROUTE.ordinal()].put(row, route);
+            if (time < minCreatedAt) {
+                minCreatedAt = time;
+            }
+            if (time > maxCreatedAt) {
+                maxCreatedAt = time;
+            }
+        }
+
+        void publish() {
+            size = written;
+        }
+    }
+
+    private static final class Slice {
+
+        final Chunk chunk;
+        final int start;
+        final int end;
+
+        Slice(Chunk chunk, int start, int end) {
+            this.chunk = chunk;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private static final class Partial {
+
+        long matched;
+        Map<GroupKey, long[]> groups = new HashMap<>();
+
+        Partial merge(Partial other) {
+            matched += other.matched;
+            if (groups.size() < other.groups.size()) {
+                Map<GroupKey, long[]> swap = groups;
+                groups = other.groups;
+                other.groups = swap;
+            }
+            for (Map.Entry<GroupKey, long[]> entry : other.groups.entrySet()) {
+                long[] count = groups.putIfAbsent(entry.getKey(), entry.getValue());
+                if (count != null) {
+                    count[0] += entry.getValue()[0];
+                }
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Clave de grupo. La de sondeo se reutiliza por fila y solo se copia al
+     * crear un grupo nuevo.
+     */
+    private static final class GroupKey {
+
+        final int[] values;
+        int hash;
+
+        GroupKey(int[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        void rehash() {
+            hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof GroupKey && Arrays.equals(values, ((GroupKey) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class QueryTask extends RecursiveTask<Partial> {
+
+        private final List<Slice> slices;
+        private final int lo;
+        private final int hi;
+        private final long from;
+        private final long to;
+        private final int[] filterColumns;
+        private final int[] filterCodes;
+        private final RecentEventDimension[] groupBy;
+
+        QueryTask(List<Slice> slices, int lo, int hi, long from, long to, int[] filterColumns,
+                  int[] filterCodes, RecentEventDimension[] groupBy) {
+            this.slices = slices;
+            this.lo = lo;
+            this.hi = hi;
+            this.from = from;
+            this.to = to;
+            this.filterColumns = filterColumns;
+            this.filterCodes = filterCodes;
+            this.groupBy = groupBy;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (hi - lo == 1) {
+                return scan(slices.get(lo));
+            }
+            int mid = (lo + hi) >>> 1;
+            QueryTask left = new QueryTask(slices, lo, mid, from, to, filterColumns, filterCodes, groupBy);
+            left.fork();
+            Partial right = new QueryTask(slices, mid, hi, from, to, filterColumns, filterCodes, groupBy).compute();
+            return left.join().merge(right);
+        }
+
+        private Partial scan(Slice slice) {
+            Chunk chunk = slice.chunk;
+            int[] selection = new int[slice.end - slice.start];
+            int selected = 0;
+            LongBuffer createdAt = chunk.createdAt;
+            for (int row = slice.start; row < slice.end; row++) {
+                long time = createdAt.get(row);
+                if (time >= from && time < to) {
+                    selection[selected++] = row;
+                }
+            }
+            for (int f = 0; f < filterColumns.length && selected > 0; f++) {
+                IntBuffer column = chunk.codes[filterColumns[f]];
+                int code = filterCodes[f];
+                int kept = 0;
+                for (int i = 0; i < selected; i++) {
+                    if (column.get(selection[i]) == code) {
+                        selection[kept++] = selection[i];
+                    }
+                }
+                selected = kept;
+            }
+
+            Partial partial = new Partial();
+            partial.matched = selected;
+            if (groupBy.length == 0 || selected == 0) {
+                return partial;
+            }
+            GroupKey probe = new GroupKey(new int[groupBy.length]);
+            for (int i = 0; i < selected; i++) {
+                int row = selection[i];
+                for (int g = 0; g < groupBy.length; g++) {
+                    probe.values[g] = value(chunk, groupBy[g], row);
+                }
+                probe.rehash();
+                long[] count = partial.groups.get(probe);
+                if (count == null) {
+                    partial.groups.put(new GroupKey(probe.values.clone()), new long[]{1});
+                } else {
+                    count[0]++;
+                }
+            }
+            return partial;
+        }
+
+        private static int value(Chunk chunk, RecentEventDimension dimension, int row) {
+            switch (dimension) {
+                case DAY:
+                    return (int) Math.floorDiv(chunk.createdAt.get(row), MILLIS_PER_DAY);
+                case HOUR:
+                    return (int) Math.floorDiv(chunk.createdAt.get(row), MILLIS_PER_HOUR);
+                default:
+                    return chunk.codes[dimension.ordinal()].get(row);
+            }
+        }
+    }
+
+    /**
+     * Corta el warm load cuando onEventsWritten lo abandonó.
+     */
+    private static final class WarmLoadAbandonedException extends RuntimeException {
+
+        WarmLoadAbandonedException() {
+            super("Recent event store warm load abandoned", null, false, false);
+        }
+    }
+
+    /**
+     * Ids leídos por el warm load, para no duplicar los eventos que además
+     * llegaron por la ingesta durante la carga.
+     */
+    private static final class LoadedIds {
+
+        private long[] ids = new long[1024];
+        private int size;
+
+        void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        void sort() {
+            Arrays.sort(ids, 0, size);
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
+}
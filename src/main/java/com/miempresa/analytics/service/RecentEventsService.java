@@ -0,0 +1,30 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.dto.UIRecentEventsResponse;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interfaz del servicio de consultas ad-hoc sobre los eventos recientes.
+ */
+public interface RecentEventsService {
+
+    /**
+     * Cuenta los eventos recientes que cumplen los filtros, agrupados por las
+     * dimensiones pedidas. Se responde desde RecentEventStore.
+     *
+     * @param groupBy Dimensiones del grupo, sin repetir; vacío para contar sin agrupar
+     * @param filters Valor exacto requerido por dimensión (no day ni hour)
+     * @param from    Inicio (inclusive), o null para el inicio de la ventana;
+     *                si es anterior a la ventana se ajusta a ella
+     * @param to      Fin (exclusivo), o null para ahora
+     * @param limit   Número máximo de grupos
+     * @throws IllegalArgumentException si algún parámetro está fuera de rango
+     * @throws IllegalStateException si el almacén está deshabilitado o cargando
+     */
+    UIRecentEventsResponse getRecentEvents(List<RecentEventDimension> groupBy,
+                                           Map<RecentEventDimension, String> filters,
+                                           LocalDateTime from, LocalDateTime to, int limit);
+}
@@ -0,0 +1,124 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.dto.UIRecentEventsGroup;
+import com.miempresa.analytics.dto.UIRecentEventsResponse;
+import com.miempresa.analytics.model.DimensionType;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementación del servicio de eventos recientes sobre RecentEventStore.
+ * Los filtros se traducen a códigos de diccionario antes de consultar, de
+ * modo que el almacén solo compara enteros; un valor que nunca se ingirió no
+ * tiene código y la respuesta queda vacía sin recorrer el almacén.
+ */
+@Service
+public class RecentEventsServiceImpl implements RecentEventsService {
+
+    private static final int MAX_LIMIT = 1000;
+    private static final int MAX_GROUP_BY = 4;
+
+    private final RecentEventStore store;
+    private final DimensionDictionary dictionary;
+
+    public RecentEventsServiceImpl(RecentEventStore store, DimensionDictionary dictionary) {
+        this.store = store;
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public UIRecentEventsResponse getRecentEvents(List<RecentEventDimension> groupBy,
+                                                  Map<RecentEventDimension, String> filters,
+                                                  LocalDateTime from, LocalDateTime to, int limit) {
+        if (groupBy.size() > MAX_GROUP_BY || new HashSet<>(groupBy).size() < groupBy.size()) {
+            throw new IllegalArgumentException("groupBy must have at most " + MAX_GROUP_BY + " distinct dimensions");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime windowStart = store.windowStart(now);
+        LocalDateTime end = to != null ? to : now;
+        LocalDateTime start = from == null || from.isBefore(windowStart) ? windowStart : from;
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("from must be before to and within the last "
+                    + store.getWindowDays() + " days");
+        }
+        if (!store.isEnabled()) {
+            throw new IllegalStateException("Recent event store is disabled");
+        }
+
+        List<String> groupByParams = new ArrayList<>(groupBy.size());
+        for (RecentEventDimension dimension : groupBy) {
+            groupByParams.add(dimension.getParam());
+        }
+        Map<RecentEventDimension, Integer> codes = new EnumMap<>(RecentEventDimension.class);
+        // El elementId se codifica en el almacén, con el diccionario de los chunks que consulta
+        String elementId = filters.get(RecentEventDimension.ELEMENT);
+        for (Map.Entry<RecentEventDimension, String> filter : filters.entrySet()) {
+            if (filter.getKey() == RecentEventDimension.ELEMENT) {
+                continue;
+            }
+            Integer code = encode(filter.getKey(), filter.getValue());
+            if (code == null) {
+                return new UIRecentEventsResponse(start, end, groupByParams, store.getCompleteFrom(), 0, 0,
+                        new ArrayList<>());
+            }
+            codes.put(filter.getKey(), code);
+        }
+
+        RecentEventStore.QueryResult result = store.query(start, end, codes, elementId, groupBy);
+        List<RecentEventStore.GroupCount> counts = new ArrayList<>(result.getGroups());
+        counts.sort(Comparator.comparingLong(RecentEventStore.GroupCount::getCount).reversed());
+        List<UIRecentEventsGroup> groups = new ArrayList<>(Math.min(limit, counts.size()));
+        for (RecentEventStore.GroupCount count : counts.subList(0, Math.min(limit, counts.size()))) {
+            Map<String, String> key = new LinkedHashMap<>();
+            for (int g = 0; g < groupBy.size(); g++) {
+                key.put(groupByParams.get(g), decode(result, groupBy.get(g), count.getKey(g)));
+            }
+            groups.add(new UIRecentEventsGroup(key, count.getCount()));
+        }
+        return new UIRecentEventsResponse(start, end, groupByParams, store.getCompleteFrom(),
+                result.getMatched(), counts.size(), groups);
+    }
+
+    /**
+     * Código del valor en el almacén, o null si ningún evento lo tiene.
+     */
+    private Integer encode(RecentEventDimension dimension, String value) {
+        switch (dimension) {
+            case TYPE:
+                return dictionary.find(DimensionType.TYPE, value);
+            case APP:
+                return dictionary.find(DimensionType.APP, value);
+            case ELEMENT_TYPE:
+                return dictionary.find(DimensionType.ELEMENT_TYPE, value);
+            case ROUTE:
+                return dictionary.find(DimensionType.ROUTE, value);
+            default:
+                throw new IllegalArgumentException("Cannot filter by " + dimension.getParam());
+        }
+    }
+
+    private String decode(RecentEventStore.QueryResult result, RecentEventDimension dimension, int value) {
+        switch (dimension) {
+            case DAY:
+                return RecentEventStore.bucketStart(dimension, value).toLocalDate().toString();
+            case HOUR:
+                return RecentEventStore.bucketStart(dimension, value).toString();
+            case ELEMENT:
+                return result.decodeElement(value);
+            default:
+                // 0 es el código de null en el almacén
+                return value == 0 ? null : dictionary.decode(value);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.miempresa.analytics.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Ejecutor de los endpoints de ingesta y lectura en modo asíncrono.
+ *
+ * Con request-executor.enabled los controladores retornan un
+ * CompletableFuture que se completa en este ejecutor, de modo que el hilo de
+ * Tomcat se libera mientras dura la transacción. Como máximo
+ * threads + queue-capacity peticiones pueden estar en curso; las demás se
+ * rechazan con RejectedExecutionException (503) en lugar de acumularse.
+ *
+ * Con virtual-threads cada petición corre en un hilo virtual (JDK 21+) y el
+ * límite de peticiones en curso es el mismo; en JDK anteriores se usa el
+ * pool de threads hilos de plataforma. Deshabilitado, submit() ejecuta la
+ * tarea en el hilo de la petición y retorna un future ya completado, que
+ * CompletedFutureConfig responde sin pasar por el procesamiento asíncrono
+ * de Spring MVC.
+ */
+@Component
+public class RequestExecutor implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestExecutor.class);
+
+    private final boolean enabled;
+    private final int maxInFlight;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final Semaphore permits;
+    private final AtomicLong rejected = new AtomicLong();
+
+    public RequestExecutor(@Value("${request-executor.enabled:false}") boolean enabled,
+                           @Value("${request-executor.threads:50}") int threads,
+                           @Value("${request-executor.queue-capacity:1000}") int queueCapacity,
+                           @Value("${request-executor.virtual-threads:false}") boolean virtualThreads) {
+        this.enabled = enabled;
+        this.maxInFlight = threads + queueCapacity;
+        this.permits = new Semaphore(maxInFlight);
+        if (!enabled) {
+            this.executor = null;
+            this.virtualThreads = false;
+            return;
+        }
+        ExecutorService virtual = virtualThreads ? newVirtualThreadExecutor() : null;
+        if (virtualThreads && virtual == null) {
+            logger.warn("Virtual threads are not available on Java {}; using {} platform threads",
+                    System.getProperty("java.version"), threads);
+        }
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : newPlatformExecutor(threads);
+        logger.info("Async request execution enabled: {}, max {} requests in flight",
+                this.virtualThreads ? "virtual threads" : threads + " platform threads", maxInFlight);
+    }
+
+    /**
+     * Ejecuta la tarea en el ejecutor, o en el hilo actual si está deshabilitado.
+     *
+     * @throws RejectedExecutionException si ya hay max-in-flight peticiones en curso
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        if (executor == null) {
+            return CompletableFuture.completedFuture(task.get());
+        }
+        if (!permits.tryAcquire()) {
+            rejected.incrementAndGet();
+            throw new RejectedExecutionException("Server is busy, retry later");
+        }
+        try {
+            return CompletableFuture.supplyAsync(task, executor)
+                    .whenComplete((result, error) -> permits.release());
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("analytics.request.executor.in_flight", permits,
+                        p -> maxInFlight - p.availablePermits())
+                .description("Requests running or waiting in the async request executor")
+                .register(registry);
+        FunctionCounter.builder("analytics.request.executor.rejected", rejected, AtomicLong::get)
+                .description("Requests rejected because the async request executor was full")
+                .register(registry);
+    }
+
+    private static ExecutorService newPlatformExecutor(int threads) {
+        AtomicInteger sequence = new AtomicInteger();
+        // La cola no necesita límite: el semáforo ya acota las tareas admitidas
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), task -> {
+                    Thread thread = new Thread(task, "request-exec-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() por reflexión: el proyecto
+     * compila para Java 8.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.miempresa.analytics.service;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Comando de backfill de agregados.
+ *
+ * Uso: java -jar app.jar --backfill-rollup
+ * Reconstruye los agregados mensuales y los sketches de usuarios únicos
+ * desde ui_events, indexa las claves de metadata configuradas y termina el
+ * proceso; sin la opción la aplicación arranca normalmente.
+ */
+@Component
+public class RollupBackfillRunner implements ApplicationRunner {
+
+    public static final String OPTION = "backfill-rollup";
+
+    private final RollupBackfillService backfillService;
+    private final ConfigurableApplicationContext context;
+
+    public RollupBackfillRunner(RollupBackfillService backfillService,
+                                ConfigurableApplicationContext context) {
+        this.backfillService = backfillService;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption(OPTION)) {
+            return;
+        }
+        backfillService.backfillMonthlyRollup();
+        backfillService.backfillUniqueUsers();
+        backfillService.backfillMetadata();
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+}
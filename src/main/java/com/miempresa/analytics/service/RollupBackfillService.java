@@ -0,0 +1,182 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.model.UIEvent;
+import com.miempresa.analytics.model.UIEventMetadata;
+import com.miempresa.analytics.model.UIEventMonthlyRollupId;
+import com.miempresa.analytics.repository.UIEventJdbcRepository;
+import com.miempresa.analytics.util.HyperLogLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reconstruye las tablas de agregados a partir de los eventos existentes.
+ * Procesa un mes por transacción para acotar la duración de los locks sobre
+ * ui_events y permitir que la ingesta siga corriendo durante el backfill.
+ */
+@Service
+public class RollupBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RollupBackfillService.class);
+
+    // Valores de metadata por transacción en backfillMetadata
+    private static final int METADATA_BATCH_SIZE = 1000;
+
+    private final UIEventJdbcRepository jdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final UniqueUserAggregator uniqueUserAggregator;
+    private final DimensionDictionary dictionary;
+    private final MetadataKeyExtractor metadataExtractor;
+    private final EventArchive eventArchive;
+    private final int hourlyRetentionDays;
+
+    public RollupBackfillService(UIEventJdbcRepository jdbcRepository,
+                                 TransactionTemplate transactionTemplate,
+                                 UniqueUserAggregator uniqueUserAggregator,
+                                 DimensionDictionary dictionary,
+                                 MetadataKeyExtractor metadataExtractor,
+                                 EventArchive eventArchive,
+                                 @Value("${timeseries.hourly-retention-days:90}") int hourlyRetentionDays) {
+        this.jdbcRepository = jdbcRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.uniqueUserAggregator = uniqueUserAggregator;
+        this.dictionary = dictionary;
+        this.metadataExtractor = metadataExtractor;
+        this.eventArchive = eventArchive;
+        this.hourlyRetentionDays = hourlyRetentionDays;
+    }
+
+    /**
+     * Reconstruye los agregados mensual, diario y horario de todos los meses
+     * con eventos. El horario solo se reconstruye para los meses que caen
+     * dentro de timeseries.hourly-retention-days, porque la purga los
+     * borraría de nuevo. Los meses archivados se omiten: sus eventos ya no
+     * están en ui_events y la reconstrucción borraría sus agregados.
+     *
+     * @return número de meses procesados
+     */
+    public int backfillMonthlyRollup() {
+        LocalDateTime[] range = jdbcRepository.findCreatedAtRange();
+        if (range[0] == null) {
+            logger.info("Rollup backfill: ui_events is empty, nothing to do");
+            return 0;
+        }
+
+        LocalDate first = range[0].toLocalDate().withDayOfMonth(1);
+        LocalDate last = range[1].toLocalDate().withDayOfMonth(1);
+        LocalDateTime hourlyCutoff = hourlyRetentionDays > 0
+                ? LocalDate.now().minusDays(hourlyRetentionDays).atStartOfDay()
+                : LocalDateTime.MIN;
+        LocalDate archivedUntil = eventArchive.snapshot().getUntil();
+        if (archivedUntil != null && first.isBefore(archivedUntil)) {
+            logger.info("Rollup backfill: skipping archived months before {}", archivedUntil);
+            first = archivedUntil;
+        }
+        int months = 0;
+        for (LocalDate month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            final LocalDate current = month;
+            final boolean withHourly = current.plusMonths(1).atStartOfDay().isAfter(hourlyCutoff);
+            Integer rows = transactionTemplate.execute(status -> jdbcRepository.rebuildMonthlyRollup(current)
+                    + jdbcRepository.rebuildTimeSeriesRollups(current, withHourly));
+            logger.info("Rollup backfill: month {} rebuilt ({} rows, hourly={})", current, rows, withHourly);
+            months++;
+        }
+        return months;
+    }
+
+    /**
+     * Reconstruye los sketches de usuarios únicos de todos los meses con
+     * eventos. Los sketches de cada mes se arman en memoria leyendo los
+     * eventos fila a fila y se combinan con los almacenados; como la
+     * combinación es idempotente, la ingesta puede seguir activa.
+     *
+     * @return número de meses procesados
+     */
+    public int backfillUniqueUsers() {
+        LocalDateTime[] range = jdbcRepository.findCreatedAtRange();
+        if (range[0] == null) {
+            logger.info("Unique users backfill: ui_events is empty, nothing to do");
+            return 0;
+        }
+
+        LocalDate first = range[0].toLocalDate().withDayOfMonth(1);
+        LocalDate last = range[1].toLocalDate().withDayOfMonth(1);
+        int precision = uniqueUserAggregator.getPrecision();
+        int months = 0;
+        for (LocalDate month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            final LocalDate current = month;
+            Map<UIEventMonthlyRollupId, HyperLogLog> sketches = new HashMap<>();
+            jdbcRepository.streamMonthUsers(current, rs -> {
+                UIEventMonthlyRollupId key = new UIEventMonthlyRollupId(
+                        rs.getString(1), dictionary.decode(rs.getInt(2)), current);
+                sketches.computeIfAbsent(key, k -> new HyperLogLog(precision)).offer(rs.getString(3));
+            });
+            uniqueUserAggregator.merge(sketches);
+            logger.info("Unique users backfill: month {} merged ({} sketches)", current, sketches.size());
+            months++;
+        }
+        return months;
+    }
+
+    /**
+     * Extrae las claves de metadata-keys.keys de los eventos existentes, por
+     * ejemplo después de agregar una clave. Los eventos de cada mes se leen
+     * fila a fila y los valores se escriben en lotes; la escritura es un
+     * upsert, así que puede repetirse y correr con la ingesta activa.
+     *
+     * @return número de meses procesados
+     */
+    public int backfillMetadata() {
+        if (!metadataExtractor.isEnabled()) {
+            logger.info("Metadata backfill: no metadata keys configured, nothing to do");
+            return 0;
+        }
+        LocalDateTime[] range = jdbcRepository.findCreatedAtRange();
+        if (range[0] == null) {
+            logger.info("Metadata backfill: ui_events is empty, nothing to do");
+            return 0;
+        }
+
+        LocalDate first = range[0].toLocalDate().withDayOfMonth(1);
+        LocalDate last = range[1].toLocalDate().withDayOfMonth(1);
+        int months = 0;
+        for (LocalDate month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            List<UIEventMetadata> pending = new ArrayList<>(METADATA_BATCH_SIZE);
+            long[] written = {0};
+            UIEvent event = new UIEvent();
+            jdbcRepository.streamMonthMetadata(month, rs -> {
+                event.setId(rs.getLong(1));
+                event.setElementId(rs.getString(2));
+                event.setTypeCode(rs.getInt(3));
+                event.setMetadata(rs.getString(4));
+                event.setCreatedAt(rs.getTimestamp(5).toLocalDateTime());
+                pending.addAll(metadataExtractor.extract(event));
+                if (pending.size() >= METADATA_BATCH_SIZE) {
+                    written[0] += writeMetadata(pending);
+                }
+            });
+            written[0] += writeMetadata(pending);
+            logger.info("Metadata backfill: month {} indexed ({} values)", month, written[0]);
+            months++;
+        }
+        return months;
+    }
+
+    private int writeMetadata(List<UIEventMetadata> rows) {
+        int size = rows.size();
+        if (size > 0) {
+            transactionTemplate.executeWithoutResult(status -> jdbcRepository.upsertMetadata(rows));
+            rows.clear();
+        }
+        return size;
+    }
+}
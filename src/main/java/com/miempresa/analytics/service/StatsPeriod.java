@@ -0,0 +1,57 @@
+package com.miempresa.analytics.service;
+
+import java.time.LocalDate;
+
+/**
+ * Agrupación temporal de las estadísticas construidas sobre agregados mensuales.
+ */
+public enum StatsPeriod {
+
+    /** Un valor por mes: 2024-01. */
+    MONTH,
+
+    /** Un valor por trimestre: 2024-Q1. */
+    QUARTER,
+
+    /** Un valor por año: 2024. */
+    YEAR,
+
+    /** Un único valor para todo el rango. */
+    TOTAL;
+
+    /**
+     * Etiqueta del período al que pertenece un mes.
+     *
+     * @param month Primer día del mes
+     */
+    public String label(LocalDate month) {
+        switch (this) {
+            case MONTH:
+                return String.format("%d-%02d", month.getYear(), month.getMonthValue());
+            case QUARTER:
+                return month.getYear() + "-Q" + ((month.getMonthValue() - 1) / 3 + 1);
+            case YEAR:
+                return String.valueOf(month.getYear());
+            default:
+                return "total";
+        }
+    }
+
+    /**
+     * Convierte el parámetro de query (month, quarter, year, total).
+     *
+     * @param value valor recibido, puede ser null (MONTH por defecto)
+     * @throws IllegalArgumentException si el valor no es válido
+     */
+    public static StatsPeriod fromParam(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return MONTH;
+        }
+        for (StatsPeriod period : values()) {
+            if (period.name().equalsIgnoreCase(value.trim())) {
+                return period;
+            }
+        }
+        throw new IllegalArgumentException("period must be one of: month, quarter, year, total");
+    }
+}
@@ -0,0 +1,226 @@
+package com.miempresa.analytics.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miempresa.analytics.model.UIEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache de respuestas de estadísticas ya serializadas, con su ETag.
+ *
+ * Cada lote confirmado por UIEventBatchWriter avanza una marca de agua; una
+ * entrada sirve mientras la marca no cambió desde que se calculó y no
+ * superó ttl-ms. Una entrada más nueva que min-age-ms se sirve aunque la
+ * marca haya avanzado, para que con ingesta continua los dashboards que
+ * consultan a la vez compartan una sola consulta (a lo sumo min-age-ms de
+ * retraso). ttl-ms acota los cambios que no pasan por esta instancia:
+ * ingesta en otras réplicas del servicio o retraso de una réplica de lectura.
+ *
+ * Las peticiones concurrentes de una misma clave que no encuentran entrada
+ * esperan a una única carga. Deshabilitada, cada petición se calcula pero
+ * sigue teniendo ETag.
+ * Expone analytics.stats.cache.requests{result=hit|miss} y
+ * analytics.stats.cache.size.
+ */
+@Component
+public class StatsResponseCache implements UIEventIngestListener, MeterBinder {
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final long ttlMs;
+    private final long minAgeMs;
+    private final int maxEntries;
+    private final AtomicLong watermark = new AtomicLong();
+    private final Map<String, CachedResponse> entries = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<CachedResponse>> loading = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public StatsResponseCache(ObjectMapper objectMapper,
+                              @Value("${stats-cache.enabled:true}") boolean enabled,
+                              @Value("${stats-cache.ttl-ms:30000}") long ttlMs,
+                              @Value("${stats-cache.min-age-ms:1000}") long minAgeMs,
+                              @Value("${stats-cache.max-entries:1000}") int maxEntries) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled && maxEntries > 0;
+        this.ttlMs = ttlMs;
+        this.minAgeMs = Math.min(minAgeMs, ttlMs);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Retorna la respuesta de la clave, calculándola con loader si no hay una
+     * entrada vigente. Las excepciones de loader se propagan sin cachear.
+     *
+     * @param loader cuerpo de la respuesta, que se serializa a JSON
+     */
+    public CachedResponse get(String key, Supplier<?> loader) {
+        if (!enabled) {
+            return serialize(loader.get(), 0, 0);
+        }
+        long now = System.currentTimeMillis();
+        long currentWatermark = watermark.get();
+        CachedResponse cached = entries.get(key);
+        if (cached != null && isFresh(cached, currentWatermark, now)) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+
+        CompletableFuture<CachedResponse> load = new CompletableFuture<>();
+        CompletableFuture<CachedResponse> inFlight = loading.putIfAbsent(key, load);
+        if (inFlight != null) {
+            return await(inFlight);
+        }
+        try {
+            // La marca se lee antes de consultar: un lote confirmado durante
+            // la consulta invalida la entrada
+            CachedResponse response = serialize(loader.get(), currentWatermark, now);
+            put(key, response);
+            load.complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, load);
+        }
+    }
+
+    @Override
+    public void onEventsWritten(List<UIEvent> events) {
+        watermark.incrementAndGet();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private boolean isFresh(CachedResponse entry, long currentWatermark, long now) {
+        long age = now - entry.createdAtMs;
+        return age < minAgeMs || (entry.watermark == currentWatermark && age < ttlMs);
+    }
+
+    private void put(String key, CachedResponse response) {
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            evict();
+        }
+        entries.put(key, response);
+    }
+
+    /**
+     * Elimina las entradas vencidas y, si la cache sigue llena, libera un 10%
+     * adicional de entradas arbitrarias.
+     */
+    private void evict() {
+        long now = System.currentTimeMillis();
+        long currentWatermark = watermark.get();
+        entries.values().removeIf(entry -> !isFresh(entry, currentWatermark, now));
+        int target = maxEntries - Math.max(1, maxEntries / 10);
+        Iterator<String> it = entries.keySet().iterator();
+        while (entries.size() > target && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private CachedResponse serialize(Object body, long entryWatermark, long createdAtMs) {
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(body);
+            return new CachedResponse(bytes, '"' + DigestUtils.md5DigestAsHex(bytes) + '"',
+                    entryWatermark, createdAtMs);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize stats response", e);
+        }
+    }
+
+    private static CachedResponse await(CompletableFuture<CachedResponse> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("analytics.stats.cache.requests", hits, AtomicLong::doubleValue)
+                .tag("result", "hit")
+                .description("Stats responses served from the response cache")
+                .register(registry);
+        FunctionCounter.builder("analytics.stats.cache.requests", misses, AtomicLong::doubleValue)
+                .tag("result", "miss")
+                .description("Stats responses that required a database query")
+                .register(registry);
+        Gauge.builder("analytics.stats.cache.size", entries, Map::size)
+                .description("Stats responses currently cached")
+                .register(registry);
+    }
+
+    /**
+     * Cuerpo JSON serializado y su ETag (hash del cuerpo).
+     */
+    public static final class CachedResponse {
+
+        private final byte[] body;
+        private final String eTag;
+        private final long watermark;
+        private final long createdAtMs;
+
+        CachedResponse(byte[] body, String eTag, long watermark, long createdAtMs) {
+            this.body = body;
+            this.eTag = eTag;
+            this.watermark = watermark;
+            this.createdAtMs = createdAtMs;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        /**
+         * Indica si el cliente ya tiene esta versión según If-None-Match
+         * (lista de ETags, débiles o no, o *).
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(eTag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.miempresa.analytics.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Granularidad de /v1/stats/timeseries. Cada valor se responde desde el
+ * agregado almacenado más grueso cuyos buckets lo componen exactamente.
+ */
+public enum TimeGranularity {
+
+    /** Desde ui_event_hourly_rollup. */
+    HOUR("hourly"),
+
+    /** Desde ui_event_daily_rollup. */
+    DAY("daily"),
+
+    /** Semanas ISO (lunes a domingo) sumando ui_event_daily_rollup. */
+    WEEK("daily"),
+
+    /** Desde ui_event_monthly_rollup. */
+    MONTH("monthly");
+
+    private final String source;
+
+    TimeGranularity(String source) {
+        this.source = source;
+    }
+
+    /**
+     * Nivel de agregado del que se lee esta granularidad.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Inicio del bucket que contiene value.
+     */
+    public LocalDateTime truncate(LocalDateTime value) {
+        switch (this) {
+            case HOUR:
+                return value.truncatedTo(ChronoUnit.HOURS);
+            case DAY:
+                return value.truncatedTo(ChronoUnit.DAYS);
+            case WEEK:
+                return value.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+            default:
+                return value.toLocalDate().withDayOfMonth(1).atStartOfDay();
+        }
+    }
+
+    /**
+     * Inicio del bucket siguiente a bucketStart.
+     */
+    public LocalDateTime next(LocalDateTime bucketStart) {
+        switch (this) {
+            case HOUR:
+                return bucketStart.plusHours(1);
+            case DAY:
+                return bucketStart.plusDays(1);
+            case WEEK:
+                return bucketStart.plusWeeks(1);
+            default:
+                return bucketStart.plusMonths(1);
+        }
+    }
+
+    /**
+     * Inicio del rango por defecto cuando no se envía from: 24 horas, 30 días,
+     * 12 semanas o 12 meses antes de to.
+     */
+    public LocalDateTime defaultFrom(LocalDateTime to) {
+        switch (this) {
+            case HOUR:
+                return to.minusHours(24);
+            case DAY:
+                return to.minusDays(30);
+            case WEEK:
+                return to.minusWeeks(12);
+            default:
+                return to.minusMonths(12);
+        }
+    }
+
+    /**
+     * Convierte el parámetro de query (hour, day, week, month).
+     *
+     * @param value valor recibido, puede ser null (DAY por defecto)
+     * @throws IllegalArgumentException si el valor no es válido
+     */
+    public static TimeGranularity fromParam(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return DAY;
+        }
+        for (TimeGranularity granularity : values()) {
+            if (granularity.name().equalsIgnoreCase(value.trim())) {
+                return granularity;
+            }
+        }
+        throw new IllegalArgumentException("granularity must be one of: hour, day, week, month");
+    }
+}
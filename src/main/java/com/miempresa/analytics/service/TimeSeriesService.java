@@ -0,0 +1,26 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.dto.UITimeSeriesResponse;
+
+import java.time.LocalDateTime;
+
+/**
+ * Interfaz del servicio de series temporales de clicks.
+ */
+public interface TimeSeriesService {
+
+    /**
+     * Obtiene la serie de clicks de un rango a la granularidad pedida, leyendo
+     * solo agregados (nunca ui_events).
+     *
+     * @param elementId   Elemento, o null para sumar todos
+     * @param type        Tipo, o null para sumar todos
+     * @param granularity Tamaño de bucket
+     * @param from        Inicio (inclusive); se redondea al inicio de su bucket
+     * @param to          Fin (exclusivo); se redondea al fin de su bucket
+     * @throws IllegalArgumentException si el rango es inválido, supera el
+     *         máximo de puntos o pide horas fuera de la retención horaria
+     */
+    UITimeSeriesResponse getTimeSeries(String elementId, String type, TimeGranularity granularity,
+                                       LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,86 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.dto.UITimeSeriesPoint;
+import com.miempresa.analytics.dto.UITimeSeriesResponse;
+import com.miempresa.analytics.repository.UIEventJdbcRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Implementación del servicio de series temporales.
+ * Cada granularidad se lee del agregado más grueso que la compone: horas del
+ * horario, días y semanas del diario y meses del mensual, de modo que un
+ * rango de un año por mes lee doce filas por elemento y tipo.
+ */
+@Service
+public class TimeSeriesServiceImpl implements TimeSeriesService {
+
+    private final UIEventJdbcRepository jdbcRepository;
+    private final int maxPoints;
+    private final int hourlyRetentionDays;
+
+    public TimeSeriesServiceImpl(UIEventJdbcRepository jdbcRepository,
+                                 @Value("${timeseries.max-points:2000}") int maxPoints,
+                                 @Value("${timeseries.hourly-retention-days:90}") int hourlyRetentionDays) {
+        this.jdbcRepository = jdbcRepository;
+        this.maxPoints = maxPoints;
+        this.hourlyRetentionDays = hourlyRetentionDays;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UITimeSeriesResponse getTimeSeries(String elementId, String type, TimeGranularity granularity,
+                                              LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        LocalDateTime start = granularity.truncate(from);
+        LocalDateTime end = granularity.truncate(to);
+        if (end.isBefore(to)) {
+            end = granularity.next(end);
+        }
+        int points = 0;
+        for (LocalDateTime bucket = start; bucket.isBefore(end); bucket = granularity.next(bucket)) {
+            if (++points > maxPoints) {
+                throw new IllegalArgumentException("Range too large for granularity "
+                        + granularity.name().toLowerCase() + ": at most " + maxPoints + " points");
+            }
+        }
+        if (granularity == TimeGranularity.HOUR && hourlyRetentionDays > 0
+                && start.isBefore(LocalDateTime.now().minusDays(hourlyRetentionDays))) {
+            throw new IllegalArgumentException("Hourly data is only kept for " + hourlyRetentionDays
+                    + " days; use granularity=day for older ranges");
+        }
+
+        Map<LocalDateTime, Long> clicks = load(elementId, type, granularity, start, end);
+        UITimeSeriesResponse response = new UITimeSeriesResponse(elementId, type,
+                granularity.name().toLowerCase(), granularity.getSource(), start, end);
+        for (LocalDateTime bucket = start; bucket.isBefore(end); bucket = granularity.next(bucket)) {
+            response.addPoint(new UITimeSeriesPoint(bucket, clicks.getOrDefault(bucket, 0L)));
+        }
+        return response;
+    }
+
+    private Map<LocalDateTime, Long> load(String elementId, String type, TimeGranularity granularity,
+                                          LocalDateTime start, LocalDateTime end) {
+        switch (granularity) {
+            case HOUR:
+                return jdbcRepository.findHourlySeries(start, end, elementId, type);
+            case DAY:
+                return jdbcRepository.findDailySeries(start.toLocalDate(), end.toLocalDate(), elementId, type);
+            case WEEK:
+                // Las semanas empiezan a medianoche: cada día cae entero en una semana
+                Map<LocalDateTime, Long> weeks = new HashMap<>();
+                jdbcRepository.findDailySeries(start.toLocalDate(), end.toLocalDate(), elementId, type)
+                        .forEach((day, count) -> weeks.merge(granularity.truncate(day), count, Long::sum));
+                return weeks;
+            default:
+                return jdbcRepository.findMonthlySeries(start.toLocalDate(), end.toLocalDate(), elementId, type);
+        }
+    }
+}
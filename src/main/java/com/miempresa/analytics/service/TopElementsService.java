@@ -0,0 +1,20 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.dto.UITopElementsResponse;
+
+/**
+ * Interfaz del servicio de ranking en vivo de elementos más clickeados.
+ */
+public interface TopElementsService {
+
+    /**
+     * Obtiene los elementos con más eventos de una aplicación en los últimos
+     * minutos. Se responde desde memoria.
+     *
+     * @param appId   Aplicación, o null para los eventos sin appId
+     * @param minutes Tamaño de la ventana en minutos
+     * @param limit   Número máximo de elementos
+     * @throws IllegalArgumentException si minutes o limit están fuera de rango
+     */
+    UITopElementsResponse getTopElements(String appId, int minutes, int limit);
+}
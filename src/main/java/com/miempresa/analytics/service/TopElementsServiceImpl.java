@@ -0,0 +1,30 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.dto.UITopElementsResponse;
+import org.springframework.stereotype.Service;
+
+/**
+ * Implementación del servicio de ranking en vivo sobre TopElementsTracker.
+ */
+@Service
+public class TopElementsServiceImpl implements TopElementsService {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final TopElementsTracker tracker;
+
+    public TopElementsServiceImpl(TopElementsTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    public UITopElementsResponse getTopElements(String appId, int minutes, int limit) {
+        if (minutes < 1 || minutes > tracker.getWindowMinutes()) {
+            throw new IllegalArgumentException("minutes must be between 1 and " + tracker.getWindowMinutes());
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        return tracker.top(appId, minutes, limit);
+    }
+}
@@ -0,0 +1,201 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.dto.UITopElement;
+import com.miempresa.analytics.dto.UITopElementsResponse;
+import com.miempresa.analytics.model.UIEvent;
+import com.miempresa.analytics.util.SpaceSaving;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ranking en memoria de los elementos más clickeados por appId.
+ *
+ * Cada aplicación tiene una ventana circular de window-minutes resúmenes
+ * Space-Saving de un minuto (capacity contadores cada uno). Una consulta de
+ * los últimos N minutos combina N resúmenes sin tocar la base de datos. Los
+ * eventos se asignan al minuto en que se persisten, no a su createdAt, de
+ * modo que un createdAt antiguo no altera el ranking en vivo. El estado no
+ * se persiste: se reconstruye con la ingesta tras un reinicio.
+ */
+@Component
+public class TopElementsTracker implements UIEventIngestListener, MeterBinder {
+
+    private static final String NO_APP = "";
+
+    private final boolean enabled;
+    private final int capacity;
+    private final int windowMinutes;
+    private final int maxApps;
+    private final ConcurrentHashMap<String, AppWindow> windows = new ConcurrentHashMap<>();
+    private final AtomicLong droppedEvents = new AtomicLong();
+
+    public TopElementsTracker(@Value("${top-k.enabled:true}") boolean enabled,
+                              @Value("${top-k.capacity:1000}") int capacity,
+                              @Value("${top-k.window-minutes:60}") int windowMinutes,
+                              @Value("${top-k.max-apps:1000}") int maxApps) {
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.windowMinutes = windowMinutes;
+        this.maxApps = maxApps;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("analytics.topk.apps", windows, Map::size)
+                .description("Applications with an active top-K window")
+                .register(registry);
+        FunctionCounter.builder("analytics.topk.dropped.events", droppedEvents, AtomicLong::get)
+                .description("Events not ranked because top-k.max-apps was reached")
+                .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getWindowMinutes() {
+        return windowMinutes;
+    }
+
+    @Override
+    public void onEventsWritten(List<UIEvent> events) {
+        if (!enabled) {
+            return;
+        }
+        long minute = currentMinute();
+        // Se agrupa el lote para tomar el lock de cada aplicación una sola vez
+        Map<String, Map<String, Long>> clicksByApp = new HashMap<>();
+        for (UIEvent event : events) {
+            clicksByApp.computeIfAbsent(appKey(event.getAppId()), app -> new HashMap<>())
+                    .merge(event.getElementId(), 1L, Long::sum);
+        }
+        clicksByApp.forEach((app, clicks) -> {
+            AppWindow window = windows.get(app);
+            if (window == null) {
+                // Los appId los envía el cliente: se acota la memoria total
+                if (windows.size() >= maxApps) {
+                    droppedEvents.addAndGet(clicks.values().stream().mapToLong(Long::longValue).sum());
+                    return;
+                }
+                window = windows.computeIfAbsent(app, a -> new AppWindow());
+            }
+            window.offer(minute, clicks);
+        });
+    }
+
+    /**
+     * Top de elementos de una aplicación en los últimos minutes minutos
+     * (el minuto en curso cuenta como uno).
+     *
+     * @param appId   Aplicación, o null para los eventos sin appId
+     * @param minutes Entre 1 y window-minutes
+     * @param limit   Número máximo de elementos
+     */
+    public UITopElementsResponse top(String appId, int minutes, int limit) {
+        AppWindow window = windows.get(appKey(appId));
+        if (window == null) {
+            return new UITopElementsResponse(appId, minutes, 0, new ArrayList<>());
+        }
+        return window.top(appId, currentMinute(), minutes, limit);
+    }
+
+    /**
+     * Descarta las ventanas de aplicaciones sin eventos en window-minutes.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdle() {
+        long oldest = currentMinute() - windowMinutes + 1;
+        windows.entrySet().removeIf(entry -> entry.getValue().isIdleSince(oldest));
+    }
+
+    private static String appKey(String appId) {
+        return appId != null ? appId : NO_APP;
+    }
+
+    private static long currentMinute() {
+        return TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+    }
+
+    /**
+     * Ventana circular de resúmenes por minuto de una aplicación.
+     */
+    private final class AppWindow {
+
+        private final SpaceSaving[] slots = new SpaceSaving[windowMinutes];
+        private final long[] slotMinutes = new long[windowMinutes];
+
+        synchronized void offer(long minute, Map<String, Long> clicks) {
+            int index = (int) (minute % windowMinutes);
+            if (slots[index] == null || slotMinutes[index] != minute) {
+                slots[index] = new SpaceSaving(capacity);
+                slotMinutes[index] = minute;
+            }
+            SpaceSaving slot = slots[index];
+            clicks.forEach(slot::offer);
+        }
+
+        synchronized boolean isIdleSince(long oldestMinute) {
+            for (int i = 0; i < windowMinutes; i++) {
+                if (slots[i] != null && slotMinutes[i] >= oldestMinute) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Combina los resúmenes de la ventana. Un elemento ausente de un
+         * minuto pudo tener hasta minCount() clicks en él: se suma a su cuenta
+         * y a su error, de modo que clicks sigue siendo cota superior.
+         */
+        synchronized UITopElementsResponse top(String appId, long now, int minutes, int limit) {
+            long total = 0;
+            long minSum = 0;
+            // [cuenta, error, suma de minCount de los minutos donde aparece]
+            Map<String, long[]> merged = new HashMap<>();
+            for (long minute = now - minutes + 1; minute <= now; minute++) {
+                int index = (int) (minute % windowMinutes);
+                SpaceSaving slot = slots[index];
+                if (slot == null || slotMinutes[index] != minute) {
+                    continue;
+                }
+                long min = slot.minCount();
+                total += slot.getTotal();
+                minSum += min;
+                for (SpaceSaving.Counter counter : slot.counters()) {
+                    long[] acc = merged.computeIfAbsent(counter.getItem(), item -> new long[3]);
+                    acc[0] += counter.getCount();
+                    acc[1] += counter.getError();
+                    acc[2] += min;
+                }
+            }
+
+            List<UITopElement> elements = new ArrayList<>(merged.size());
+            for (Map.Entry<String, long[]> entry : merged.entrySet()) {
+                long[] acc = entry.getValue();
+                long absent = minSum - acc[2];
+                long clicks = acc[0] + absent;
+                elements.add(new UITopElement(entry.getKey(), clicks, clicks - acc[1] - absent));
+            }
+            elements.sort(Comparator.comparingLong(UITopElement::getClicks).reversed()
+                    .thenComparing(Comparator.comparingLong(UITopElement::getGuaranteedClicks).reversed())
+                    .thenComparing(UITopElement::getElementId));
+            List<UITopElement> top = new ArrayList<>(elements.subList(0, Math.min(limit, elements.size())));
+            return new UITopElementsResponse(appId, minutes, total, top);
+        }
+    }
+}
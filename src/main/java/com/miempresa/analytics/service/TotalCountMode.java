@@ -0,0 +1,35 @@
+package com.miempresa.analytics.service;
+
+/**
+ * Cómo calcular totalElements en las consultas paginadas de eventos.
+ */
+public enum TotalCountMode {
+
+    /** count(*) exacto en cada petición. */
+    EXACT,
+
+    /** Estimación cacheada del número de filas, sin recorrer la tabla. */
+    ESTIMATED,
+
+    /** Sin total; hasNext se calcula leyendo un registro de más. */
+    NONE;
+
+    /**
+     * Convierte el parámetro de query (exact, estimated, none).
+     *
+     * @param value valor recibido, puede ser null
+     * @param defaultMode modo a usar si no se envió el parámetro
+     * @throws IllegalArgumentException si el valor no es válido
+     */
+    public static TotalCountMode fromParam(String value, TotalCountMode defaultMode) {
+        if (value == null || value.trim().isEmpty()) {
+            return defaultMode;
+        }
+        for (TotalCountMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(value.trim())) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("count must be one of: exact, estimated, none");
+    }
+}
@@ -0,0 +1,159 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.model.UIEvent;
+import com.miempresa.analytics.model.UIEventDailyRollupId;
+import com.miempresa.analytics.model.UIEventHourlyRollupId;
+import com.miempresa.analytics.model.UIEventMetadata;
+import com.miempresa.analytics.model.UIEventMonthlyRollupId;
+import com.miempresa.analytics.repository.UIEventJdbcRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Punto único de persistencia de eventos.
+ * Todas las rutas de ingesta (síncrona, cola asíncrona) terminan aquí, de modo
+ * que cada lote se escribe en una sola transacción y un solo commit junto con
+ * sus agregados y los valores de las claves de metadata indexadas. Las
+ * dimensiones se codifican con el diccionario antes de abrir la transacción
+ * y, tras el commit, el lote se entrega a los UIEventIngestListener
+ * registrados.
+ */
+@Component
+public class UIEventBatchWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(UIEventBatchWriter.class);
+
+    private final UIEventJdbcRepository jdbcRepository;
+    private final DimensionDictionary dictionary;
+    private final MetadataKeyExtractor metadataExtractor;
+    private final TransactionTemplate transactionTemplate;
+    private final List<UIEventIngestListener> listeners;
+    // Latencia de escritura suavizada (EWMA, alfa 1/8), leída por IngestLoadShedder
+    private final AtomicLong writeLatencyNanos = new AtomicLong();
+    private volatile long lastWriteNanos;
+
+    public UIEventBatchWriter(UIEventJdbcRepository jdbcRepository,
+                              DimensionDictionary dictionary,
+                              MetadataKeyExtractor metadataExtractor,
+                              TransactionTemplate transactionTemplate,
+                              List<UIEventIngestListener> listeners) {
+        this.jdbcRepository = jdbcRepository;
+        this.dictionary = dictionary;
+        this.metadataExtractor = metadataExtractor;
+        this.transactionTemplate = transactionTemplate;
+        this.listeners = listeners;
+    }
+
+    /**
+     * Persiste un lote de eventos, sus claves de metadata indexadas y los
+     * agregados horario, diario y mensual en una única transacción.
+     *
+     * @param events Eventos ya validados y mapeados
+     */
+    public void write(List<UIEvent> events) {
+        // Los valores nuevos del diccionario se confirman fuera del lote para
+        // que un rollback nunca deje en la cache un código inexistente
+        for (UIEvent event : events) {
+            dictionary.encode(event);
+        }
+        Rollups rollups = aggregate(events);
+        List<List<UIEventMetadata>> metadata = metadataExtractor.extract(events);
+        boolean returnIds = metadata != null || listenersRequireIds();
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!returnIds) {
+                    jdbcRepository.insertBatch(events);
+                } else {
+                    // Las filas de metadata (y los listeners que lo piden) necesitan el id generado
+                    jdbcRepository.insertBatchReturningIds(events);
+                }
+                if (metadata != null) {
+                    jdbcRepository.upsertMetadata(MetadataKeyExtractor.resolveEventIds(events, metadata));
+                }
+                jdbcRepository.upsertHourlyRollup(rollups.hourly);
+                jdbcRepository.upsertDailyRollup(rollups.daily);
+                jdbcRepository.upsertMonthlyRollup(rollups.monthly);
+            });
+        } finally {
+            // Las escrituras fallidas también cuentan: un timeout es la peor latencia
+            long end = System.nanoTime();
+            writeLatencyNanos.accumulateAndGet(end - start, (average, sample) -> average + (sample - average) / 8);
+            lastWriteNanos = end;
+        }
+        notifyListeners(events);
+    }
+
+    /**
+     * Latencia media reciente de la transacción de escritura de un lote.
+     */
+    public long getWriteLatencyNanos() {
+        return writeLatencyNanos.get();
+    }
+
+    /**
+     * System.nanoTime() del fin de la última escritura (0 si no hubo ninguna).
+     */
+    public long getLastWriteNanos() {
+        return lastWriteNanos;
+    }
+
+    private boolean listenersRequireIds() {
+        for (UIEventIngestListener listener : listeners) {
+            if (listener.requiresEventIds()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Los eventos ya están confirmados: un error de un listener se registra
+     * pero no se propaga al cliente.
+     */
+    private void notifyListeners(List<UIEvent> events) {
+        for (UIEventIngestListener listener : listeners) {
+            try {
+                listener.onEventsWritten(events);
+            } catch (Exception e) {
+                logger.error("Ingest listener {} failed for a batch of {} events",
+                        listener.getClass().getSimpleName(), events.size(), e);
+            }
+        }
+    }
+
+    /**
+     * Agrupa el lote en memoria para emitir un solo upsert por combinación
+     * elemento/tipo/período en lugar de uno por evento.
+     */
+    private static Rollups aggregate(List<UIEvent> events) {
+        Rollups rollups = new Rollups();
+        for (UIEvent event : events) {
+            LocalDateTime hour = event.getCreatedAt().truncatedTo(ChronoUnit.HOURS);
+            LocalDate day = hour.toLocalDate();
+            rollups.hourly.merge(new UIEventHourlyRollupId(event.getElementId(), event.getType(), hour),
+                    1L, Long::sum);
+            rollups.daily.merge(new UIEventDailyRollupId(event.getElementId(), event.getType(), day),
+                    1L, Long::sum);
+            rollups.monthly.merge(new UIEventMonthlyRollupId(event.getElementId(), event.getType(),
+                    day.withDayOfMonth(1)), 1L, Long::sum);
+        }
+        return rollups;
+    }
+
+    private static final class Rollups {
+        final Map<UIEventHourlyRollupId, Long> hourly = new HashMap<>();
+        final Map<UIEventDailyRollupId, Long> daily = new HashMap<>();
+        final Map<UIEventMonthlyRollupId, Long> monthly = new HashMap<>();
+    }
+}
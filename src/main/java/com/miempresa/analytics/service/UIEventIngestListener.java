@@ -0,0 +1,26 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.model.UIEvent;
+
+import java.util.List;
+
+/**
+ * Recibe cada lote de eventos después de que UIEventBatchWriter lo confirma.
+ * Se usa para mantener agregados en memoria (heatmaps, sketches) sin
+ * volver a leer ui_events.
+ *
+ * Se invoca en el hilo que escribió el lote, por lo que debe ser rápido y
+ * thread-safe; los eventos ya tienen sus códigos de diccionario resueltos.
+ */
+public interface UIEventIngestListener {
+
+    void onEventsWritten(List<UIEvent> events);
+
+    /**
+     * Indica si los eventos entregados deben tener su id. Obtener los ids
+     * generados encarece el INSERT, así que por defecto no se piden.
+     */
+    default boolean requiresEventIds() {
+        return false;
+    }
+}
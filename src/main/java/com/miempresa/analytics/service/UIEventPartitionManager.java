@@ -0,0 +1,162 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.repository.UIEventJdbcRepository;
+import com.miempresa.analytics.repository.UIEventPartitionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mantenimiento automático de las particiones mensuales de ui_events.
+ *
+ * Al arrancar particiona la tabla si aún no lo está; luego, cada día
+ * (partitioning.cron) crea las particiones de los próximos months-ahead
+ * meses y, si retention-months es mayor que 0, elimina las particiones de
+ * meses anteriores a la retención junto con sus filas de ui_event_metadata.
+ * Los agregados no se ven afectados: las estadísticas de meses eliminados
+ * siguen disponibles.
+ */
+@Component
+@ConditionalOnProperty(prefix = "partitioning", name = "enabled", havingValue = "true")
+public class UIEventPartitionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(UIEventPartitionManager.class);
+
+    // Filas de ui_event_metadata por DELETE, para no mantener locks largos
+    private static final int DELETE_CHUNK = 10000;
+
+    private final UIEventPartitionRepository partitionRepository;
+    private final UIEventJdbcRepository jdbcRepository;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    public UIEventPartitionManager(UIEventPartitionRepository partitionRepository,
+                                   UIEventJdbcRepository jdbcRepository,
+                                   @Value("${partitioning.months-ahead:3}") int monthsAhead,
+                                   @Value("${partitioning.retention-months:0}") int retentionMonths) {
+        this.partitionRepository = partitionRepository;
+        this.jdbcRepository = jdbcRepository;
+        this.monthsAhead = Math.max(monthsAhead, 1);
+        this.retentionMonths = retentionMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        runMaintenance();
+    }
+
+    @Scheduled(cron = "${partitioning.cron:0 0 3 * * *}")
+    public void onSchedule() {
+        runMaintenance();
+    }
+
+    private void runMaintenance() {
+        try {
+            maintain(LocalDate.now().withDayOfMonth(1));
+        } catch (Exception e) {
+            // Otra instancia pudo haber aplicado el mismo cambio; se reintenta en la próxima ejecución
+            logger.error("Partition maintenance failed", e);
+        }
+    }
+
+    /**
+     * Asegura las particiones hasta currentMonth + months-ahead y aplica la retención.
+     *
+     * @param currentMonth Primer día del mes actual
+     */
+    public synchronized void maintain(LocalDate currentMonth) {
+        LocalDate lastMonth = currentMonth.plusMonths(monthsAhead);
+        List<String> partitions = partitionRepository.findPartitionNames();
+
+        if (partitions.isEmpty()) {
+            initialize(currentMonth, lastMonth);
+            partitions = partitionRepository.findPartitionNames();
+        }
+
+        LocalDate latest = latestMonth(partitions);
+        if (latest == null) {
+            logger.warn("ui_events is partitioned but has no monthly partitions; skipping maintenance");
+            return;
+        }
+        for (LocalDate month = latest.plusMonths(1); !month.isAfter(lastMonth); month = month.plusMonths(1)) {
+            partitionRepository.addMonthPartition(month);
+            logger.info("Created partition {}", UIEventPartitionRepository.partitionName(month));
+        }
+
+        if (retentionMonths > 0) {
+            dropExpired(partitions, currentMonth.minusMonths(retentionMonths));
+        }
+    }
+
+    /**
+     * Particiona la tabla desde el mes del evento más antiguo.
+     */
+    private void initialize(LocalDate currentMonth, LocalDate lastMonth) {
+        if (!partitionRepository.isPrimaryKeyPartitionable()) {
+            logger.info("Extending ui_events primary key to (id, created_at)");
+            partitionRepository.extendPrimaryKey();
+        }
+
+        LocalDate firstMonth = currentMonth;
+        LocalDateTime oldest = jdbcRepository.findCreatedAtRange()[0];
+        if (oldest != null && oldest.toLocalDate().isBefore(currentMonth)) {
+            firstMonth = oldest.toLocalDate().withDayOfMonth(1);
+        }
+
+        List<LocalDate> months = new ArrayList<>();
+        for (LocalDate month = firstMonth; !month.isAfter(lastMonth); month = month.plusMonths(1)) {
+            months.add(month);
+        }
+        logger.info("Partitioning ui_events by month: {} partitions from {}", months.size(), firstMonth);
+        partitionRepository.partitionByMonth(months);
+    }
+
+    /**
+     * Elimina las particiones de meses anteriores a cutoff y los valores de
+     * metadata indexada de esos eventos.
+     */
+    private void dropExpired(List<String> partitions, LocalDate cutoff) {
+        List<String> expired = new ArrayList<>();
+        for (String partition : partitions) {
+            LocalDate month = UIEventPartitionRepository.partitionMonth(partition);
+            if (month != null && month.isBefore(cutoff)) {
+                expired.add(partition);
+            }
+        }
+        if (expired.isEmpty()) {
+            return;
+        }
+        partitionRepository.dropPartitions(expired);
+        logger.info("Dropped expired partitions {} (retention {} months)", expired, retentionMonths);
+        long deleted = 0;
+        int rows;
+        do {
+            rows = jdbcRepository.deleteMetadataBefore(cutoff.atStartOfDay(), DELETE_CHUNK);
+            deleted += rows;
+        } while (rows == DELETE_CHUNK);
+        if (deleted > 0) {
+            logger.info("Deleted {} indexed metadata rows before {}", deleted, cutoff);
+        }
+    }
+
+    private static LocalDate latestMonth(List<String> partitions) {
+        LocalDate latest = null;
+        for (String partition : partitions) {
+            LocalDate month = UIEventPartitionRepository.partitionMonth(partition);
+            if (month != null && (latest == null || month.isAfter(latest))) {
+                latest = month;
+            }
+        }
+        return latest;
+    }
+}
@@ -1,11 +1,17 @@
 package com.miempresa.analytics.service;
 
+import com.miempresa.analytics.dto.BatchIngestResponse;
 import com.miempresa.analytics.dto.UIEventRequest;
 import com.miempresa.analytics.dto.UIEventResponse;
 import com.miempresa.analytics.dto.UIMonthlyStat;
 import com.miempresa.analytics.dto.PageResponse;
+import com.miempresa.analytics.util.UIEventExportWriter;
+import com.miempresa.analytics.util.UIEventStreamReader;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -22,21 +28,69 @@ public interface UIEventService {
      */
     void save(UIEventRequest request);
 
+    /**
+     * Valida y guarda un lote de eventos leído de forma incremental.
+     * Cada registro se valida por separado; los aceptados se persisten en
+     * bloques de ingest.batch.chunk-size eventos.
+     * 
+     * @param reader Lector de registros (arreglo JSON o NDJSON)
+     * @return Resultado de aceptación/rechazo por registro
+     */
+    BatchIngestResponse saveBatch(UIEventStreamReader reader);
+
     /**
      * Obtiene estadísticas mensuales agrupadas por element_id, type y mes.
+     * Todos los filtros son opcionales (null no filtra).
      * 
+     * @param elementId Filtrar por elemento
+     * @param appId Filtrar por aplicación
+     * @param elementType Filtrar por tipo de elemento
+     * @param route Filtrar por ruta
+     * @param from Inicio del rango (inclusive)
+     * @param to Fin del rango (exclusivo)
+     * @param metadataFilters Valores exigidos de claves de metadata indexadas (vacío no filtra)
+     * @param groupByMetadata Clave de metadata indexada por cuyo valor agrupar también, o null
      * @return Lista de estadísticas mensuales
      */
-    List<UIMonthlyStat> getMonthlyStats();
+    List<UIMonthlyStat> getMonthlyStats(String elementId, String appId, String elementType, String route,
+                                        LocalDateTime from, LocalDateTime to,
+                                        Map<String, String> metadataFilters, String groupByMetadata);
 
     /**
-     * Obtiene todos los eventos con paginado.
+     * Obtiene todos los eventos con paginado por offset.
      * 
      * @param page Número de página (0-indexed)
      * @param size Tamaño de la página
+     * @param countMode Cómo calcular totalElements
      * @return Respuesta paginada con eventos
      */
-    PageResponse<UIEventResponse> getAllEvents(int page, int size);
+    PageResponse<UIEventResponse> getAllEvents(int page, int size, TotalCountMode countMode);
+
+    /**
+     * Obtiene eventos con paginado keyset sobre (created_at, id), del más
+     * reciente al más antiguo.
+     * 
+     * @param cursor Cursor de la página anterior (nextCursor), o vacío para la primera
+     * @param size Tamaño de la página
+     * @param countMode Cómo calcular totalElements
+     * @return Respuesta paginada con eventos y nextCursor si hay más
+     * @throws IllegalArgumentException si el cursor no es válido
+     */
+    PageResponse<UIEventResponse> getEventsByCursor(String cursor, int size, TotalCountMode countMode);
+
+    /**
+     * Exporta los eventos de un rango, ordenados por created_at, escribiendo
+     * cada fila a medida que se lee sin cargar el resultado en memoria.
+     * 
+     * @param from Inicio del rango (inclusive), o null
+     * @param to Fin del rango (exclusivo), o null
+     * @param appId Filtrar por aplicación, o null
+     * @param writer Destino de la exportación (NDJSON o CSV)
+     * @return número de eventos exportados
+     * @throws IOException si falla la escritura de la salida
+     */
+    long exportEvents(LocalDateTime from, LocalDateTime to, String appId, UIEventExportWriter writer)
+            throws IOException;
 
     /**
      * Obtiene un evento por su ID.
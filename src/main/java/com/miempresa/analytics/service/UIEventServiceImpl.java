@@ -1,24 +1,46 @@
 package com.miempresa.analytics.service;
 
+import com.miempresa.analytics.dto.BatchIngestResponse;
+import com.miempresa.analytics.dto.BatchRecordResult;
 import com.miempresa.analytics.dto.UIEventRequest;
 import com.miempresa.analytics.dto.UIEventResponse;
 import com.miempresa.analytics.dto.UIMonthlyStat;
 import com.miempresa.analytics.dto.PageResponse;
+import com.miempresa.analytics.exception.CompressedBodyException;
+import com.miempresa.analytics.exception.IngestQueueFullException;
+import com.miempresa.analytics.exception.IngestThrottledException;
+import com.miempresa.analytics.model.DimensionType;
 import com.miempresa.analytics.model.UIEvent;
+import com.miempresa.analytics.repository.UIEventJdbcRepository;
+import com.miempresa.analytics.repository.UIEventMonthlyRollupRepository;
 import com.miempresa.analytics.repository.UIEventRepository;
+import com.miempresa.analytics.util.EventCursor;
+import com.miempresa.analytics.util.UIEventExportWriter;
+import com.miempresa.analytics.util.UIEventStreamReader;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDate;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -28,24 +50,248 @@ import java.util.stream.Collectors;
 @Service
 public class UIEventServiceImpl implements UIEventService {
 
+    private static final int MAX_METADATA_FILTERS = 5;
+
     private final UIEventRepository repository;
+    private final UIEventMonthlyRollupRepository rollupRepository;
+    private final UIEventJdbcRepository jdbcRepository;
+    private final UIEventBatchWriter batchWriter;
+    private final UIEventWriteQueue writeQueue;
+    private final UIEventWriteAheadLog writeAheadLog;
+    private final IngestRateLimiter rateLimiter;
+    private final IngestLoadShedder loadShedder;
+    private final EventCountEstimator countEstimator;
+    private final DimensionDictionary dictionary;
+    private final MetadataKeyExtractor metadataExtractor;
+    private final EventArchive eventArchive;
+    private final Validator validator;
+    private final IngestMetrics ingestMetrics;
+    private final int batchMaxRecords;
+    private final int batchChunkSize;
     private static final DateTimeFormatter ISO_FORMATTER = DateTimeFormatter.ISO_DATE_TIME;
 
     // Inyección de dependencias mediante constructor (Spring Boot best practice)
-    public UIEventServiceImpl(UIEventRepository repository) {
+    public UIEventServiceImpl(UIEventRepository repository,
+                              UIEventMonthlyRollupRepository rollupRepository,
+                              UIEventJdbcRepository jdbcRepository,
+                              UIEventBatchWriter batchWriter,
+                              UIEventWriteQueue writeQueue,
+                              UIEventWriteAheadLog writeAheadLog,
+                              IngestRateLimiter rateLimiter,
+                              IngestLoadShedder loadShedder,
+                              EventCountEstimator countEstimator,
+                              DimensionDictionary dictionary,
+                              MetadataKeyExtractor metadataExtractor,
+                              EventArchive eventArchive,
+                              Validator validator,
+                              IngestMetrics ingestMetrics,
+                              @Value("${ingest.batch.max-records:10000}") int batchMaxRecords,
+                              @Value("${ingest.batch.chunk-size:500}") int batchChunkSize) {
         this.repository = repository;
+        this.rollupRepository = rollupRepository;
+        this.jdbcRepository = jdbcRepository;
+        this.batchWriter = batchWriter;
+        this.writeQueue = writeQueue;
+        this.writeAheadLog = writeAheadLog;
+        this.rateLimiter = rateLimiter;
+        this.loadShedder = loadShedder;
+        this.countEstimator = countEstimator;
+        this.dictionary = dictionary;
+        this.metadataExtractor = metadataExtractor;
+        this.eventArchive = eventArchive;
+        this.validator = validator;
+        this.ingestMetrics = ingestMetrics;
+        this.batchMaxRecords = batchMaxRecords;
+        this.batchChunkSize = batchChunkSize;
     }
 
     /**
      * Valida y guarda un evento de elemento UI.
      * Valida que type y elementId no estén vacíos.
+     * Con ingest.wal.enabled el evento se agrega al write-ahead log local y se
+     * carga en la base en segundo plano; con ingest.async.enabled solo se
+     * encola en memoria; en caso contrario se escribe antes de retornar.
      * 
      * @param request DTO con los datos del evento
      * @throws IllegalArgumentException si type o elementId están vacíos
+     * @throws com.miempresa.analytics.exception.IngestQueueFullException si la cola asíncrona o el
+     *         write-ahead log están llenos
+     * @throws IngestThrottledException si se supera el límite de tasa de la
+     *         aplicación o se está descartando carga
      */
     @Override
-    @Transactional
     public void save(UIEventRequest request) {
+        UIEvent event;
+        try {
+            event = mapToEntity(request);
+        } catch (IllegalArgumentException e) {
+            ingestMetrics.recordRejected(IngestMetrics.REASON_VALIDATION);
+            throw e;
+        }
+
+        try {
+            loadShedder.check();
+            rateLimiter.acquire(event.getAppId());
+            if (writeAheadLog.isEnabled()) {
+                writeAheadLog.append(Collections.singletonList(event));
+            } else if (writeQueue.isEnabled()) {
+                writeQueue.enqueue(event);
+            } else {
+                batchWriter.write(Collections.singletonList(event));
+            }
+        } catch (RuntimeException e) {
+            ingestMetrics.recordRejected(rejectReason(e));
+            throw e;
+        }
+        ingestMetrics.recordIngested(event);
+    }
+
+    /**
+     * Valida y guarda un lote de eventos leído de forma incremental.
+     * Los registros inválidos o que superan el límite de tasa de su aplicación
+     * se rechazan individualmente sin afectar al resto.
+     * 
+     * @param reader Lector de registros (arreglo JSON o NDJSON)
+     * @return Resultado de aceptación/rechazo por registro
+     * @throws IngestThrottledException si se está descartando carga (antes de leer el cuerpo)
+     */
+    @Override
+    public BatchIngestResponse saveBatch(UIEventStreamReader reader) {
+        try {
+            loadShedder.check();
+        } catch (IngestThrottledException e) {
+            ingestMetrics.recordRejected(e.getReason());
+            throw e;
+        }
+        BatchIngestResponse response = new BatchIngestResponse();
+        List<UIEvent> chunk = new ArrayList<>(batchChunkSize);
+        List<Integer> chunkIndexes = new ArrayList<>(batchChunkSize);
+
+        try {
+            UIEventStreamReader.Record record;
+            int index = 0;
+            while ((record = reader.next()) != null) {
+                if (index >= batchMaxRecords) {
+                    response.setError("Batch exceeds the maximum of " + batchMaxRecords
+                            + " records; remaining records were not processed");
+                    break;
+                }
+
+                String error = record.getError();
+                if (error != null) {
+                    ingestMetrics.recordRejected(IngestMetrics.REASON_MALFORMED);
+                } else {
+                    error = validate(record.getRequest());
+                    if (error != null) {
+                        ingestMetrics.recordRejected(IngestMetrics.REASON_VALIDATION);
+                    }
+                }
+                if (error == null) {
+                    try {
+                        UIEvent event = mapToEntity(record.getRequest());
+                        rateLimiter.acquire(event.getAppId());
+                        chunk.add(event);
+                        chunkIndexes.add(index);
+                        response.addResult(BatchRecordResult.accepted(index));
+                    } catch (IllegalArgumentException e) {
+                        ingestMetrics.recordRejected(IngestMetrics.REASON_VALIDATION);
+                        error = e.getMessage();
+                    } catch (IngestThrottledException e) {
+                        ingestMetrics.recordRejected(e.getReason());
+                        error = e.getMessage();
+                    }
+                }
+                if (error != null) {
+                    response.addResult(BatchRecordResult.rejected(index, error));
+                }
+
+                if (chunk.size() >= batchChunkSize) {
+                    flushChunk(chunk, chunkIndexes, response);
+                }
+                index++;
+            }
+        } catch (CompressedBodyException e) {
+            // Los registros ya leídos se persisten y se informan; el estado lo elige el controlador
+            response.setError(e.getMessage());
+            response.setErrorStatus(e.getStatus());
+        } catch (IOException e) {
+            response.setError("Malformed request body: " + e.getMessage());
+        } finally {
+            flushChunk(chunk, chunkIndexes, response);
+        }
+
+        return response;
+    }
+
+    /**
+     * Aplica Bean Validation a un registro del lote.
+     *
+     * @return mensaje de error, o null si el registro es válido
+     */
+    private String validate(UIEventRequest request) {
+        Set<ConstraintViolation<UIEventRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Persiste (o encola, o agrega al write-ahead log) un bloque del lote. Si falla, los registros del
+     * bloque que no llegaron a aceptarse se marcan como rechazados.
+     */
+    private void flushChunk(List<UIEvent> chunk, List<Integer> chunkIndexes, BatchIngestResponse response) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        int written = 0;
+        try {
+            if (writeAheadLog.isEnabled()) {
+                writeAheadLog.append(chunk);
+                written = chunk.size();
+            } else if (writeQueue.isEnabled()) {
+                for (UIEvent event : chunk) {
+                    writeQueue.enqueue(event);
+                    written++;
+                }
+            } else {
+                batchWriter.write(chunk);
+                written = chunk.size();
+            }
+        } catch (RuntimeException e) {
+            String error = e instanceof IngestQueueFullException
+                    ? e.getMessage()
+                    : "Failed to persist record: " + e.getMessage();
+            for (int i = written; i < chunkIndexes.size(); i++) {
+                response.reject(chunkIndexes.get(i), error);
+            }
+            ingestMetrics.recordRejected(rejectReason(e), chunkIndexes.size() - written);
+        }
+        for (int i = 0; i < written; i++) {
+            ingestMetrics.recordIngested(chunk.get(i));
+        }
+        chunk.clear();
+        chunkIndexes.clear();
+    }
+
+    private static String rejectReason(RuntimeException e) {
+        if (e instanceof IngestThrottledException) {
+            return ((IngestThrottledException) e).getReason();
+        }
+        return e instanceof IngestQueueFullException
+                ? IngestMetrics.REASON_QUEUE_FULL
+                : IngestMetrics.REASON_WRITE_FAILED;
+    }
+
+    /**
+     * Valida un request y lo mapea a la entidad UIEvent.
+     *
+     * @throws IllegalArgumentException si type o elementId están vacíos
+     */
+    private UIEvent mapToEntity(UIEventRequest request) {
         // Validación de campos obligatorios
         if (request.getType() == null || request.getType().trim().isEmpty()) {
             throw new IllegalArgumentException("type is required");
@@ -110,72 +356,239 @@ public class UIEventServiceImpl implements UIEventService {
             event.setCreatedAt(LocalDateTime.now());
         }
 
-        // Guardar en la base de datos
-        repository.save(event);
+        return event;
     }
 
     /**
      * Obtiene estadísticas mensuales agrupadas por element_id, type y mes.
+     * Sin filtros de dimensión y con un rango alineado a meses completos lee
+     * la tabla de agregados mantenida en cada escritura. Con appId,
+     * elementType, route o un rango que corta un mes agrupa ui_events sobre
+     * los índices (app_code, created_at) o (element_id, type_code, created_at).
+     * Con filtros o agrupación por metadata agrupa ui_event_metadata sobre su
+     * índice (meta_key, meta_value, created_at).
      * 
-     * @return Lista de estadísticas mensuales
+     * @return Lista de estadísticas mensuales, del mes más reciente al más antiguo
+     * @throws IllegalArgumentException si una clave de metadata no está indexada
      */
     @Override
     @Transactional(readOnly = true)
-    public List<UIMonthlyStat> getMonthlyStats() {
-        List<Object[]> results = repository.findMonthlyStats();
-        List<UIMonthlyStat> stats = new ArrayList<>();
+    public List<UIMonthlyStat> getMonthlyStats(String elementId, String appId, String elementType, String route,
+                                               LocalDateTime from, LocalDateTime to,
+                                               Map<String, String> metadataFilters, String groupByMetadata) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        boolean byMetadata = !metadataFilters.isEmpty() || groupByMetadata != null;
+        if (byMetadata) {
+            validateMetadataKeys(metadataFilters, groupByMetadata);
+        }
+        if (!byMetadata && appId == null && elementType == null && route == null
+                && isMonthStart(from) && isMonthStart(to)) {
+            return rollupRepository.findFiltered(elementId,
+                            from != null ? from.toLocalDate() : null,
+                            to != null ? to.toLocalDate().minusMonths(1) : null)
+                    .stream()
+                    .map(r -> new UIMonthlyStat(r.getElementId(), r.getType(), r.getMonth(), r.getTotalClicks()))
+                    .collect(Collectors.toList());
+        }
 
-        for (Object[] row : results) {
-            String elementId = (String) row[0];
-            String type = (String) row[1];
-            String monthStr = (String) row[2]; // Formato: "YYYY-MM-01"
-            Long totalClicks = ((Number) row[3]).longValue();
+        Integer appCode = appId != null ? dictionary.find(DimensionType.APP, appId) : null;
+        Integer elementTypeCode = elementType != null ? dictionary.find(DimensionType.ELEMENT_TYPE, elementType) : null;
+        Integer routeCode = route != null ? dictionary.find(DimensionType.ROUTE, route) : null;
+        if ((appId != null && appCode == null) || (elementType != null && elementTypeCode == null)
+                || (route != null && routeCode == null)) {
+            // Un valor que nunca se registró no tiene eventos
+            return new ArrayList<>();
+        }
+        // Los meses anteriores a until se leen del archivo y los demás de ui_events
+        EventArchive.Snapshot archived = eventArchive.snapshot();
+        LocalDateTime liveFrom = archived.liveFrom(from);
+        List<UIMonthlyStat> stats = new ArrayList<>();
+        if (to == null || liveFrom == null || liveFrom.isBefore(to)) {
+            if (byMetadata) {
+                stats.addAll(jdbcRepository.findMonthlyStatsByMetadata(liveFrom, to, elementId, appCode,
+                        elementTypeCode, routeCode, metadataFilters, groupByMetadata));
+            } else {
+                jdbcRepository.findMonthlyStats(liveFrom, to, elementId, appCode, elementTypeCode, routeCode)
+                        .forEach(r -> stats.add(new UIMonthlyStat(r.getElementId(), r.getType(), r.getMonth(),
+                                r.getTotalClicks())));
+            }
+        }
+        if (archived.covers(from)) {
+            stats.addAll(eventArchive.aggregateMonthly(archived, from, to, elementId, appCode, elementTypeCode,
+                    routeCode, metadataFilters, groupByMetadata));
+        }
+        stats.sort(Comparator.comparing(UIMonthlyStat::getMonth).reversed()
+                .thenComparing(Comparator.comparingLong(UIMonthlyStat::getTotalClicks).reversed()));
+        return stats;
+    }
 
-            // Parsear el mes a LocalDate
-            LocalDate month = LocalDate.parse(monthStr, DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+    private void validateMetadataKeys(Map<String, String> metadataFilters, String groupByMetadata) {
+        if (metadataFilters.size() > MAX_METADATA_FILTERS) {
+            throw new IllegalArgumentException("At most " + MAX_METADATA_FILTERS + " metadata filters are allowed");
+        }
+        for (String key : metadataFilters.keySet()) {
+            requireIndexedKey(key);
+        }
+        if (groupByMetadata != null) {
+            requireIndexedKey(groupByMetadata);
+        }
+    }
 
-            UIMonthlyStat stat = new UIMonthlyStat(elementId, type, month, totalClicks);
-            stats.add(stat);
+    private void requireIndexedKey(String key) {
+        if (!metadataExtractor.isIndexed(key)) {
+            throw new IllegalArgumentException("Metadata key '" + key + "' is not indexed; indexed keys: "
+                    + metadataExtractor.getKeys());
         }
+    }
 
-        return stats;
+    private static boolean isMonthStart(LocalDateTime value) {
+        return value == null || (value.getDayOfMonth() == 1 && value.toLocalTime().equals(LocalTime.MIDNIGHT));
     }
 
     /**
-     * Obtiene todos los eventos con paginado.
+     * Obtiene todos los eventos con paginado por offset.
      * 
      * @param page Número de página (0-indexed)
      * @param size Tamaño de la página
+     * @param countMode Cómo calcular totalElements
      * @return Respuesta paginada con eventos
      */
     @Override
     @Transactional(readOnly = true)
-    public PageResponse<UIEventResponse> getAllEvents(int page, int size) {
+    public PageResponse<UIEventResponse> getAllEvents(int page, int size, TotalCountMode countMode) {
         // Validar parámetros de paginación
         if (page < 0) {
             page = 0;
         }
-        if (size < 1) {
-            size = 10;
+        size = clampPageSize(size);
+
+        Pageable pageable = PageRequest.of(page, size);
+
+        if (countMode == TotalCountMode.EXACT) {
+            Page<UIEvent> eventPage = repository.findAll(pageable);
+            return new PageResponse<>(
+                    mapToResponses(eventPage.getContent()),
+                    eventPage.getNumber(),
+                    eventPage.getSize(),
+                    eventPage.getTotalElements()
+            );
         }
-        if (size > 100) {
-            size = 100; // Límite máximo
+
+        // Sin count(*): hasNext sale del Slice, el total (si se pide) de la estimación
+        Slice<UIEvent> slice = repository.findSliceBy(pageable);
+        PageResponse<UIEventResponse> response = new PageResponse<>(
+                mapToResponses(slice.getContent()), page, size, slice.hasNext(), page > 0);
+        applyEstimatedTotal(response, countMode);
+        return response;
+    }
+
+    /**
+     * Obtiene eventos con paginado keyset sobre (created_at, id).
+     * 
+     * @param cursor Cursor de la página anterior (nextCursor), o vacío para la primera
+     * @param size Tamaño de la página
+     * @param countMode Cómo calcular totalElements
+     * @return Respuesta paginada con eventos y nextCursor si hay más
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PageResponse<UIEventResponse> getEventsByCursor(String cursor, int size, TotalCountMode countMode) {
+        size = clampPageSize(size);
+        boolean firstPage = cursor == null || cursor.trim().isEmpty();
+
+        // Se lee un registro de más para saber si existe una página siguiente
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<UIEvent> events;
+        if (firstPage) {
+            events = repository.findAllByOrderByCreatedAtDescIdDesc(limit);
+        } else {
+            EventCursor after = EventCursor.decode(cursor.trim());
+            events = repository.findPageBefore(after.getCreatedAt(), after.getId(), limit);
         }
 
-        Pageable pageable = PageRequest.of(page, size);
-        Page<UIEvent> eventPage = repository.findAll(pageable);
+        boolean hasNext = events.size() > size;
+        if (hasNext) {
+            events = events.subList(0, size);
+        }
+
+        PageResponse<UIEventResponse> response = new PageResponse<>(
+                mapToResponses(events), 0, size, hasNext, !firstPage);
+        if (hasNext) {
+            UIEvent last = events.get(events.size() - 1);
+            response.setNextCursor(new EventCursor(last.getCreatedAt(), last.getId()).encode());
+        }
+
+        if (countMode == TotalCountMode.EXACT) {
+            response.applyTotal(repository.count(), false);
+        } else {
+            applyEstimatedTotal(response, countMode);
+        }
+        return response;
+    }
+
+    private void applyEstimatedTotal(PageResponse<UIEventResponse> response, TotalCountMode countMode) {
+        if (countMode == TotalCountMode.ESTIMATED) {
+            response.applyTotal(countEstimator.estimate(), true);
+        }
+    }
+
+    private static int clampPageSize(int size) {
+        if (size < 1) {
+            return 10;
+        }
+        return Math.min(size, 100); // Límite máximo
+    }
 
-        // Mapear entidades a DTOs
-        List<UIEventResponse> content = eventPage.getContent().stream()
+    private List<UIEventResponse> mapToResponses(List<UIEvent> events) {
+        return events.stream()
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
+    }
 
-        return new PageResponse<>(
-                content,
-                eventPage.getNumber(),
-                eventPage.getSize(),
-                eventPage.getTotalElements()
-        );
+    /**
+     * Exporta los eventos de un rango fila a fila desde un cursor JDBC.
+     * 
+     * @param from Inicio del rango (inclusive), o null
+     * @param to Fin del rango (exclusivo), o null
+     * @param appId Filtrar por aplicación, o null
+     * @param writer Destino de la exportación (NDJSON o CSV)
+     * @return número de eventos exportados
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long exportEvents(LocalDateTime from, LocalDateTime to, String appId,
+                             UIEventExportWriter writer) throws IOException {
+        // Con el cursor abierto la conexión no admite otras consultas: el
+        // diccionario se recarga antes, en la misma transacción, para que
+        // decode() no tenga que buscar en la base los códigos que otra
+        // instancia registró. Con REPEATABLE READ esta lectura fija la vista
+        // de la transacción, así que toda fila del cursor tiene su código acá.
+        dictionary.load();
+        Integer appCode = null;
+        if (appId != null) {
+            appCode = dictionary.find(DimensionType.APP, appId);
+            if (appCode == null) {
+                // Aplicación sin eventos
+                return 0;
+            }
+        }
+        AtomicLong exported = new AtomicLong();
+        try {
+            jdbcRepository.streamEvents(from, to, appCode, rs -> {
+                try {
+                    writer.write(rs, dictionary);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                exported.incrementAndGet();
+            });
+        } catch (UncheckedIOException e) {
+            // El cliente cerró la conexión o falló la escritura de la respuesta
+            throw e.getCause();
+        }
+        return exported.get();
     }
 
     /**
@@ -193,15 +606,16 @@ public class UIEventServiceImpl implements UIEventService {
 
     /**
      * Mapea una entidad UIEvent a un DTO UIEventResponse.
+     * Las dimensiones se leen como códigos y se traducen con el diccionario.
      */
     private UIEventResponse mapToResponse(UIEvent event) {
         return new UIEventResponse(
                 event.getId(),
-                event.getType(),
-                event.getAppId(),
+                dictionary.decode(event.getTypeCode()),
+                dictionary.decode(event.getAppCode()),
                 event.getElementId(),
-                event.getElementType(),
-                event.getRoute(),
+                dictionary.decode(event.getElementTypeCode()),
+                dictionary.decode(event.getRouteCode()),
                 event.getUserId(),
                 event.getMetadata(),
                 event.getCoordinateX(),
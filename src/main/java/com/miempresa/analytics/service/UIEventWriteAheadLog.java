@@ -0,0 +1,388 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.exception.IngestQueueFullException;
+import com.miempresa.analytics.model.UIEvent;
+import com.miempresa.analytics.util.MappedSegmentLog;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-ahead log local para la ingesta.
+ *
+ * Cuando está habilitado, los eventos validados se agregan a un log
+ * segmentado y mapeado en memoria (MappedSegmentLog) y el cliente recibe la
+ * confirmación en cuanto el log está en disco según ingest.wal.fsync:
+ * always hace msync antes de responder (compartido entre las peticiones
+ * concurrentes) e interval lo hace cada fsync-interval-ms, de modo que un
+ * corte de energía puede perder ese intervalo pero no una caída del proceso.
+ *
+ * Un hilo reproductor carga el log en ui_events mediante UIEventBatchWriter,
+ * en lotes de replay-batch-size, y avanza el checkpoint tras cada commit. Si
+ * la base no responde reintenta cada replay-retry-ms sin perder eventos; al
+ * reiniciar retoma desde el checkpoint. La entrega es al menos una vez: una
+ * caída entre el commit de un lote y el checkpoint lo reproduce de nuevo.
+ *
+ * Solo se reintentan las fallas de infraestructura (conexión, errores
+ * transitorios, transacción, esquema). Un registro dañado o que no se puede
+ * decodificar, o un evento que la base rechaza por otro motivo, se descarta
+ * con un log de error y se cuenta en analytics.ingest.wal.dropped, para que
+ * no detenga la carga del resto del log.
+ */
+@Component
+public class UIEventWriteAheadLog implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(UIEventWriteAheadLog.class);
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final UIEventBatchWriter batchWriter;
+    private final boolean enabled;
+    private final String directory;
+    private final int segmentSize;
+    private final long maxBytes;
+    private final boolean syncAlways;
+    private final long syncIntervalMs;
+    private final int replayBatchSize;
+    private final long replayRetryMs;
+    private final AtomicLong replayFailures = new AtomicLong();
+    private final AtomicLong droppedEvents = new AtomicLong();
+
+    private MappedSegmentLog log;
+    private Thread replayer;
+    private Thread syncer;
+    private volatile boolean running;
+
+    public UIEventWriteAheadLog(UIEventBatchWriter batchWriter,
+                                @Value("${ingest.wal.enabled:false}") boolean enabled,
+                                @Value("${ingest.wal.dir:./data/wal}") String directory,
+                                @Value("${ingest.wal.segment-size-mb:64}") int segmentSizeMb,
+                                @Value("${ingest.wal.max-size-mb:1024}") long maxSizeMb,
+                                @Value("${ingest.wal.fsync:always}") String fsync,
+                                @Value("${ingest.wal.fsync-interval-ms:100}") long syncIntervalMs,
+                                @Value("${ingest.wal.replay-batch-size:500}") int replayBatchSize,
+                                @Value("${ingest.wal.replay-retry-ms:1000}") long replayRetryMs) {
+        if (!"always".equalsIgnoreCase(fsync) && !"interval".equalsIgnoreCase(fsync)) {
+            throw new IllegalArgumentException("ingest.wal.fsync must be 'always' or 'interval'");
+        }
+        this.batchWriter = batchWriter;
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentSize = segmentSizeMb * 1024 * 1024;
+        this.maxBytes = maxSizeMb * 1024 * 1024;
+        this.syncAlways = "always".equalsIgnoreCase(fsync);
+        this.syncIntervalMs = syncIntervalMs;
+        this.replayBatchSize = replayBatchSize;
+        this.replayRetryMs = replayRetryMs;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        log = MappedSegmentLog.open(Paths.get(directory), segmentSize);
+        running = true;
+        replayer = new Thread(this::replayLoop, "ui-event-wal-replayer");
+        replayer.setDaemon(true);
+        replayer.start();
+        if (!syncAlways) {
+            syncer = new Thread(this::syncLoop, "ui-event-wal-sync");
+            syncer.setDaemon(true);
+            syncer.start();
+        }
+        logger.info("Write-ahead log enabled at {}: fsync={}, {} bytes pending replay",
+                directory, syncAlways ? "always" : "interval", log.pendingBytes());
+    }
+
+    /**
+     * Detiene el reproductor y fuerza el log a disco. Lo no reproducido se
+     * carga en el próximo arranque.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (Thread thread : new Thread[]{replayer, syncer}) {
+            if (thread != null) {
+                thread.interrupt();
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            }
+        }
+        log.close();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("analytics.ingest.wal.pending.bytes", this, wal -> wal.log == null ? 0 : wal.log.pendingBytes())
+                .description("Write-ahead log bytes not yet replayed into the database")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("analytics.ingest.wal.segments", this, wal -> wal.log == null ? 0 : wal.log.segmentCount())
+                .description("Write-ahead log segment files on disk")
+                .register(registry);
+        FunctionCounter.builder("analytics.ingest.wal.replay.failures", replayFailures, AtomicLong::get)
+                .description("Failed write-ahead log replay attempts (retried)")
+                .register(registry);
+        FunctionCounter.builder("analytics.ingest.wal.dropped", droppedEvents, AtomicLong::get)
+                .description("Logged events dropped as unreadable or rejected by the database")
+                .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Fracción de ingest.wal.max-size-mb pendiente de cargar en la base.
+     */
+    public double fillRatio() {
+        return log == null ? 0 : (double) log.pendingBytes() / maxBytes;
+    }
+
+    /**
+     * Agrega eventos al log y retorna cuando son durables según ingest.wal.fsync.
+     *
+     * @param events Eventos ya validados y mapeados
+     * @throws IngestQueueFullException si el log pendiente supera max-size-mb
+     */
+    public void append(List<UIEvent> events) {
+        if (log.pendingBytes() >= maxBytes) {
+            throw new IngestQueueFullException("Write-ahead log is full, retry later");
+        }
+        List<byte[]> records = new ArrayList<>(events.size());
+        for (UIEvent event : events) {
+            records.add(encode(event));
+        }
+        try {
+            long position = log.append(records);
+            if (syncAlways) {
+                log.sync(position);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to write-ahead log", e);
+        }
+        LockSupport.unpark(replayer);
+    }
+
+    private void syncLoop() {
+        while (running) {
+            try {
+                Thread.sleep(syncIntervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            log.sync(log.getAppendedPosition());
+        }
+    }
+
+    private void replayLoop() {
+        long position = log.getCheckpoint();
+        List<byte[]> records = new ArrayList<>(replayBatchSize);
+        while (running) {
+            try {
+                records.clear();
+                long next;
+                try {
+                    next = log.read(position, replayBatchSize, records);
+                } catch (MappedSegmentLog.CorruptRecordException e) {
+                    droppedEvents.incrementAndGet();
+                    logger.error("Skipping {} bytes of corrupt write-ahead log data at position {}",
+                            e.getNextPosition() - e.getPosition(), e.getPosition());
+                    position = e.getNextPosition();
+                    log.commit(position);
+                    continue;
+                }
+                if (records.isEmpty()) {
+                    if (next != position) {
+                        log.commit(next);
+                        position = next;
+                    } else {
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    }
+                    continue;
+                }
+                List<UIEvent> events = new ArrayList<>(records.size());
+                for (byte[] record : records) {
+                    try {
+                        events.add(decode(record));
+                    } catch (IOException | RuntimeException e) {
+                        droppedEvents.incrementAndGet();
+                        logger.error("Dropping unreadable write-ahead log record of {} bytes: {}",
+                                record.length, e.toString());
+                    }
+                }
+                replay(events);
+                // Si falla el checkpoint, el próximo commit lo cubre: no se reescribe el lote
+                position = next;
+                log.commit(next);
+            } catch (Exception e) {
+                replayFailures.incrementAndGet();
+                logger.warn("Write-ahead log replay failed, retrying in {} ms: {}", replayRetryMs, e.getMessage());
+                try {
+                    Thread.sleep(replayRetryMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Escribe un lote. Si falla por algo que no es infraestructura (p. ej. la
+     * base rechaza sus datos), se reintenta evento por evento y se descartan
+     * solo los rechazados, para que un evento inválido no bloquee el log.
+     */
+    private void replay(List<UIEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            batchWriter.write(events);
+        } catch (RuntimeException e) {
+            if (isInfrastructureFailure(e)) {
+                throw e;
+            }
+            for (UIEvent event : events) {
+                try {
+                    batchWriter.write(Collections.singletonList(event));
+                } catch (RuntimeException rejected) {
+                    if (isInfrastructureFailure(rejected)) {
+                        throw rejected;
+                    }
+                    droppedEvents.incrementAndGet();
+                    logger.error("Dropping logged event for element {} rejected by the database: {}",
+                            event.getElementId(), rejected.toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * Fallas que no dependen del evento y se resuelven reintentando: base
+     * caída o saturada, bloqueos, transacción que no se pudo abrir, o un
+     * esquema todavía sin migrar.
+     */
+    private static boolean isInfrastructureFailure(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof InvalidDataAccessResourceUsageException
+                || e instanceof TransactionException;
+    }
+
+    private static byte[] encode(UIEvent event) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            writeString(out, event.getType());
+            writeString(out, event.getAppId());
+            writeString(out, event.getElementId());
+            writeString(out, event.getElementType());
+            writeString(out, event.getRoute());
+            writeString(out, event.getUserId());
+            writeString(out, event.getMetadata());
+            writeInt(out, event.getCoordinateX());
+            writeInt(out, event.getCoordinateY());
+            writeInt(out, event.getScreenWidth());
+            writeInt(out, event.getScreenHeight());
+            LocalDateTime createdAt = event.getCreatedAt();
+            out.writeLong(createdAt.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(createdAt.getNano());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static UIEvent decode(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        byte version = in.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported write-ahead log record version " + version);
+        }
+        UIEvent event = new UIEvent();
+        event.setType(readString(in));
+        event.setAppId(readString(in));
+        event.setElementId(readString(in));
+        event.setElementType(readString(in));
+        event.setRoute(readString(in));
+        event.setUserId(readString(in));
+        event.setMetadata(readString(in));
+        event.setCoordinateX(readInt(in));
+        event.setCoordinateY(readInt(in));
+        event.setScreenWidth(readInt(in));
+        event.setScreenHeight(readInt(in));
+        event.setCreatedAt(LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC));
+        return event;
+    }
+
+    // Cadenas como longitud + UTF-8 (-1 = null): writeUTF no admite más de 64 KB
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.available()) {
+            throw new IOException("Truncated write-ahead log record");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeInt(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInt(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+}
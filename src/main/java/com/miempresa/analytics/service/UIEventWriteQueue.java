@@ -0,0 +1,191 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.exception.IngestQueueFullException;
+import com.miempresa.analytics.model.UIEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cola acotada en memoria para la ingesta asíncrona de eventos.
+ *
+ * Cuando está habilitada, save() solo valida y encola; uno o más hilos
+ * escritores drenan la cola y persisten lotes de hasta batch-size eventos,
+ * esperando como máximo linger-ms a que el lote se llene.
+ * Expone analytics.ingest.queue.size y analytics.ingest.write.failures
+ * (eventos perdidos por errores de escritura en segundo plano).
+ */
+@Component
+public class UIEventWriteQueue implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(UIEventWriteQueue.class);
+
+    private final UIEventBatchWriter batchWriter;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long lingerMs;
+    private final long offerTimeoutMs;
+    private final int writerThreads;
+    private final BlockingQueue<UIEvent> queue;
+    private final List<Thread> writers = new ArrayList<>();
+    private final AtomicLong failedEvents = new AtomicLong();
+    private volatile boolean running;
+
+    public UIEventWriteQueue(UIEventBatchWriter batchWriter,
+                             @Value("${ingest.async.enabled:false}") boolean enabled,
+                             @Value("${ingest.async.queue-capacity:10000}") int queueCapacity,
+                             @Value("${ingest.async.writer-threads:2}") int writerThreads,
+                             @Value("${ingest.async.batch-size:500}") int batchSize,
+                             @Value("${ingest.async.linger-ms:50}") long lingerMs,
+                             @Value("${ingest.async.offer-timeout-ms:100}") long offerTimeoutMs) {
+        this.batchWriter = batchWriter;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.lingerMs = lingerMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.writerThreads = writerThreads;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < writerThreads; i++) {
+            Thread writer = new Thread(this::drainLoop, "ui-event-writer-" + i);
+            writer.setDaemon(true);
+            writer.start();
+            writers.add(writer);
+        }
+        logger.info("Async ingest enabled: {} writer(s), batchSize={}, lingerMs={}",
+                writerThreads, batchSize, lingerMs);
+    }
+
+    /**
+     * Detiene los escritores y persiste lo que quede en la cola antes de cerrar.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (Thread writer : writers) {
+            writer.interrupt();
+        }
+        for (Thread writer : writers) {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        List<UIEvent> remaining = new ArrayList<>();
+        while (queue.drainTo(remaining, batchSize) > 0) {
+            flush(remaining);
+            remaining.clear();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("analytics.ingest.queue.size", queue, BlockingQueue::size)
+                .description("Events waiting in the async ingest queue")
+                .register(registry);
+        FunctionCounter.builder("analytics.ingest.write.failures", failedEvents, AtomicLong::get)
+                .description("Events dropped by failed background writes")
+                .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * Fracción ocupada de la cola, entre 0 y 1.
+     */
+    public double fillRatio() {
+        int size = queue.size();
+        return (double) size / (size + queue.remainingCapacity());
+    }
+
+    /**
+     * Encola un evento para su escritura en segundo plano.
+     *
+     * @param event Evento ya validado y mapeado
+     * @throws IngestQueueFullException si la cola sigue llena tras offer-timeout-ms
+     */
+    public void enqueue(UIEvent event) {
+        boolean accepted;
+        try {
+            accepted = queue.offer(event, offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (!accepted) {
+            throw new IngestQueueFullException("Ingest queue is full, retry later");
+        }
+    }
+
+    private void drainLoop() {
+        List<UIEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                UIEvent first = queue.poll(lingerMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remainingNanos = deadline - System.nanoTime();
+                    if (remainingNanos <= 0) {
+                        break;
+                    }
+                    UIEvent next = queue.poll(remainingNanos, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // stop() se encarga de vaciar la cola; aquí solo se persiste el lote en curso
+                Thread.currentThread().interrupt();
+            }
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<UIEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            batchWriter.write(batch);
+        } catch (Exception e) {
+            failedEvents.addAndGet(batch.size());
+            logger.error("Failed to persist batch of {} events", batch.size(), e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.model.UIEvent;
+import com.miempresa.analytics.model.UIEventMonthlyRollupId;
+import com.miempresa.analytics.repository.UIEventJdbcRepository;
+import com.miempresa.analytics.util.HyperLogLog;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mantiene los sketches HyperLogLog de usuarios únicos por elemento, tipo y mes.
+ *
+ * Los userId de cada lote confirmado se registran en sketches en memoria;
+ * cada flush-interval-ms se combinan con los almacenados en
+ * ui_event_user_sketch. Los eventos sin userId no se cuentan.
+ */
+@Component
+public class UniqueUserAggregator implements UIEventIngestListener, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(UniqueUserAggregator.class);
+
+    private final UIEventJdbcRepository jdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int precision;
+    // compute() y remove() serializan el acceso a cada sketch: tras remove()
+    // ningún hilo puede seguir escribiendo en el sketch retirado
+    private final ConcurrentHashMap<UIEventMonthlyRollupId, HyperLogLog> pending = new ConcurrentHashMap<>();
+
+    public UniqueUserAggregator(UIEventJdbcRepository jdbcRepository,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${unique-users.enabled:true}") boolean enabled,
+                                @Value("${unique-users.precision:12}") int precision) {
+        this.jdbcRepository = jdbcRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        if (precision < HyperLogLog.MIN_PRECISION || precision > HyperLogLog.MAX_PRECISION) {
+            throw new IllegalArgumentException("unique-users.precision must be between "
+                    + HyperLogLog.MIN_PRECISION + " and " + HyperLogLog.MAX_PRECISION);
+        }
+        this.precision = precision;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("analytics.unique_users.pending.sketches", pending, Map::size)
+                .description("User sketches with values not yet merged into the database")
+                .register(registry);
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    @Override
+    public void onEventsWritten(List<UIEvent> events) {
+        if (!enabled) {
+            return;
+        }
+        for (UIEvent event : events) {
+            String userId = event.getUserId();
+            if (userId == null || userId.isEmpty()) {
+                continue;
+            }
+            LocalDate month = event.getCreatedAt().toLocalDate().withDayOfMonth(1);
+            pending.compute(new UIEventMonthlyRollupId(event.getElementId(), event.getType(), month),
+                    (key, sketch) -> {
+                        HyperLogLog target = sketch != null ? sketch : new HyperLogLog(precision);
+                        target.offer(userId);
+                        return target;
+                    });
+        }
+    }
+
+    /**
+     * Combina los sketches pendientes con los almacenados en una transacción.
+     * Si falla se devuelven al mapa; como la combinación es idempotente, un
+     * reintento no cuenta dos veces a ningún usuario.
+     */
+    @Scheduled(fixedDelayString = "${unique-users.flush-interval-ms:5000}")
+    @PreDestroy
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<UIEventMonthlyRollupId, HyperLogLog> batch = new HashMap<>();
+        for (UIEventMonthlyRollupId key : pending.keySet()) {
+            HyperLogLog sketch = pending.remove(key);
+            if (sketch != null) {
+                batch.put(key, sketch);
+            }
+        }
+        try {
+            merge(batch);
+        } catch (Exception e) {
+            logger.error("Failed to merge {} user sketches, retrying on next flush", batch.size(), e);
+            batch.forEach((key, sketch) -> pending.merge(key, sketch, HyperLogLog::merge));
+        }
+    }
+
+    /**
+     * Combina sketches con los almacenados; también lo usa el backfill.
+     */
+    public void merge(Map<UIEventMonthlyRollupId, HyperLogLog> sketches) {
+        if (sketches.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcRepository.mergeUserSketches(sketches));
+    }
+}
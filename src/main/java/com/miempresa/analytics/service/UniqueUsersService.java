@@ -0,0 +1,27 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.dto.UIUniqueUsersStat;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Interfaz del servicio de usuarios únicos (estimados con HyperLogLog).
+ */
+public interface UniqueUsersService {
+
+    /**
+     * Estima los usuarios únicos de un elemento combinando los sketches
+     * mensuales del rango; no recorre ui_events.
+     *
+     * @param elementId Elemento
+     * @param type      Tipo a consultar, o null para combinar todos los tipos
+     * @param from      Primer mes (inclusivo)
+     * @param to        Último mes (inclusivo)
+     * @param period    Agrupación de los resultados
+     * @return Una estimación por período con datos, en orden cronológico
+     * @throws IllegalArgumentException si elementId está vacío o from es posterior a to
+     */
+    List<UIUniqueUsersStat> getUniqueUsers(String elementId, String type, YearMonth from, YearMonth to,
+                                           StatsPeriod period);
+}
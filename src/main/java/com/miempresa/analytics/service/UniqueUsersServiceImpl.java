@@ -0,0 +1,60 @@
+package com.miempresa.analytics.service;
+
+import com.miempresa.analytics.dto.UIUniqueUsersStat;
+import com.miempresa.analytics.model.UIEventUserSketch;
+import com.miempresa.analytics.repository.UIEventUserSketchRepository;
+import com.miempresa.analytics.util.HyperLogLog;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementación del servicio de usuarios únicos.
+ * Lee los sketches mensuales y los combina por período: un trimestre son
+ * tres sketches por tipo, independientemente del volumen de eventos.
+ */
+@Service
+public class UniqueUsersServiceImpl implements UniqueUsersService {
+
+    private final UIEventUserSketchRepository sketchRepository;
+
+    public UniqueUsersServiceImpl(UIEventUserSketchRepository sketchRepository) {
+        this.sketchRepository = sketchRepository;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UIUniqueUsersStat> getUniqueUsers(String elementId, String type, YearMonth from, YearMonth to,
+                                                  StatsPeriod period) {
+        if (elementId == null || elementId.trim().isEmpty()) {
+            throw new IllegalArgumentException("elementId is required");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        LocalDate firstMonth = from.atDay(1);
+        LocalDate lastMonth = to.atDay(1);
+        List<UIEventUserSketch> sketches = type == null
+                ? sketchRepository.findByElementIdAndMonthBetweenOrderByMonthAsc(elementId, firstMonth, lastMonth)
+                : sketchRepository.findByElementIdAndTypeAndMonthBetweenOrderByMonthAsc(
+                        elementId, type, firstMonth, lastMonth);
+
+        // Los sketches vienen ordenados por mes: el orden de inserción es cronológico
+        Map<String, HyperLogLog> merged = new LinkedHashMap<>();
+        for (UIEventUserSketch row : sketches) {
+            HyperLogLog sketch = HyperLogLog.fromBytes(row.getSketch());
+            merged.merge(period.label(row.getMonth()), sketch, HyperLogLog::merge);
+        }
+
+        List<UIUniqueUsersStat> stats = new ArrayList<>(merged.size());
+        merged.forEach((label, sketch) -> stats.add(new UIUniqueUsersStat(
+                elementId, type, label, sketch.estimate(), sketch.relativeStandardError())));
+        return stats;
+    }
+}
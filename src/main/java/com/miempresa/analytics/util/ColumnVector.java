@@ -0,0 +1,101 @@
+package com.miempresa.analytics.util;
+
+/**
+ * Valores decodificados de una columna en un row group de un segmento
+ * columnar, como arreglos primitivos para recorrerlos en bucles simples.
+ *
+ * Las columnas LONG e INT exponen longs() o ints(); una posición nula tiene
+ * valor 0 y isNull() true. Las columnas STRING siempre se exponen
+ * diccionarizadas: dictionary() con los valores distintos y codes() con el
+ * índice de cada fila (-1 si es nula), así que un filtro por igualdad se
+ * resuelve buscando el valor una vez en el diccionario y comparando enteros.
+ */
+public final class ColumnVector {
+
+    private final int size;
+    private final boolean[] nulls;
+    private final long[] longs;
+    private final int[] ints;
+    private final String[] dictionary;
+    private final int[] codes;
+
+    private ColumnVector(int size, boolean[] nulls, long[] longs, int[] ints, String[] dictionary, int[] codes) {
+        this.size = size;
+        this.nulls = nulls;
+        this.longs = longs;
+        this.ints = ints;
+        this.dictionary = dictionary;
+        this.codes = codes;
+    }
+
+    static ColumnVector ofLongs(long[] values, boolean[] nulls) {
+        return new ColumnVector(values.length, nulls, values, null, null, null);
+    }
+
+    static ColumnVector ofInts(int[] values, boolean[] nulls) {
+        return new ColumnVector(values.length, nulls, null, values, null, null);
+    }
+
+    /**
+     * Columna de texto diccionarizada.
+     *
+     * @param codes índice en dictionary de cada fila, o -1 si es nula
+     */
+    public static ColumnVector ofStrings(String[] dictionary, int[] codes) {
+        boolean[] nulls = null;
+        for (int i = 0; i < codes.length; i++) {
+            if (codes[i] < 0) {
+                if (nulls == null) {
+                    nulls = new boolean[codes.length];
+                }
+                nulls[i] = true;
+            }
+        }
+        return new ColumnVector(codes.length, nulls, null, null, dictionary, codes);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isNull(int row) {
+        return nulls != null && nulls[row];
+    }
+
+    public boolean hasNulls() {
+        return nulls != null;
+    }
+
+    public long[] longs() {
+        return longs;
+    }
+
+    public int[] ints() {
+        return ints;
+    }
+
+    public String[] dictionary() {
+        return dictionary;
+    }
+
+    public int[] codes() {
+        return codes;
+    }
+
+    public String getString(int row) {
+        int code = codes[row];
+        return code < 0 ? null : dictionary[code];
+    }
+
+    /**
+     * Código de value en el diccionario, o -1 si ninguna fila lo tiene.
+     */
+    public int find(String value) {
+        for (int i = 0; i < dictionary.length; i++) {
+            if (dictionary[i].equals(value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,466 @@
+package com.miempresa.analytics.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Segmento columnar inmutable escrito por ColumnarSegmentWriter.
+ *
+ * Formato: "UICS" + versión, los chunks de cada columna row group por row
+ * group, el footer, su largo (int) y de nuevo "UICS". Cada chunk está
+ * comprimido con Deflate por separado, así que una consulta lee y
+ * descomprime solo las columnas que usa. El footer tiene, por chunk, su
+ * posición, su codificación y un zone map (mínimo y máximo) que permite
+ * descartar row groups enteros sin leerlos.
+ *
+ * Codificaciones: LONG e INT en PLAIN (varint zigzag), DELTA (diferencia con
+ * el valor anterior) o RLE (valor y largo de la racha); STRING en PLAIN
+ * (UTF-8 con su largo) o DICTIONARY (página con los valores distintos y un
+ * código varint por fila). El escritor elige la más chica en cada chunk. Los
+ * nulos van en un bitmap al inicio del chunk y no ocupan lugar en los valores.
+ *
+ * El footer se lee una vez al abrir; para leer columnas se usa un Reader,
+ * que mantiene el archivo abierto y no es thread-safe.
+ */
+public final class ColumnarSegment {
+
+    static final byte[] MAGIC = {'U', 'I', 'C', 'S'};
+    static final byte VERSION = 1;
+    private static final int TAIL_BYTES = Integer.BYTES + 4;
+
+    public enum ColumnType {
+        LONG, INT, STRING
+    }
+
+    enum Encoding {
+        PLAIN, DELTA, RLE, DICTIONARY
+    }
+
+    public static final class Column {
+
+        private final String name;
+        private final ColumnType type;
+
+        public Column(String name, ColumnType type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public ColumnType getType() {
+            return type;
+        }
+    }
+
+    /**
+     * Ubicación y estadísticas de una columna dentro de un row group.
+     */
+    static final class Chunk {
+        long offset;
+        int compressedLength;
+        int rawLength;
+        Encoding encoding;
+        int nonNullCount;
+        // Zone map: solo si hay valores no nulos (y, en STRING, no demasiado largos)
+        boolean hasZoneMap;
+        long min;
+        long max;
+        String minString;
+        String maxString;
+    }
+
+    private final Path path;
+    private final List<Column> columns;
+    private final Map<String, Integer> columnIndex;
+    private final Map<String, String> properties;
+    private final int[] rowGroupRows;
+    private final Chunk[][] chunks;
+    private final long rowCount;
+    private final long sizeBytes;
+
+    private ColumnarSegment(Path path, List<Column> columns, Map<String, String> properties,
+                            int[] rowGroupRows, Chunk[][] chunks, long sizeBytes) {
+        this.path = path;
+        this.columns = Collections.unmodifiableList(columns);
+        this.columnIndex = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            columnIndex.put(columns.get(i).getName(), i);
+        }
+        this.properties = Collections.unmodifiableMap(properties);
+        this.rowGroupRows = rowGroupRows;
+        this.chunks = chunks;
+        long rows = 0;
+        for (int count : rowGroupRows) {
+            rows += count;
+        }
+        this.rowCount = rows;
+        this.sizeBytes = sizeBytes;
+    }
+
+    /**
+     * Lee el footer del segmento.
+     *
+     * @throws IOException si el archivo no es un segmento completo
+     */
+    public static ColumnarSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < MAGIC.length + 1 + TAIL_BYTES) {
+                throw new IOException("Truncated segment " + path);
+            }
+            ByteBuffer tail = readFully(channel, size - TAIL_BYTES, TAIL_BYTES);
+            int footerLength = tail.getInt();
+            byte[] magic = new byte[MAGIC.length];
+            tail.get(magic);
+            if (!Arrays.equals(magic, MAGIC) || footerLength <= 0 || footerLength > size - TAIL_BYTES) {
+                throw new IOException("Invalid segment footer in " + path);
+            }
+            ByteBuffer footer = readFully(channel, size - TAIL_BYTES - footerLength, footerLength);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(footer.array()));
+
+            int columnCount = in.readInt();
+            List<Column> columns = new ArrayList<>(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                String name = in.readUTF();
+                columns.add(new Column(name, ColumnType.values()[in.readByte()]));
+            }
+            int propertyCount = in.readInt();
+            Map<String, String> properties = new LinkedHashMap<>();
+            for (int i = 0; i < propertyCount; i++) {
+                properties.put(in.readUTF(), in.readUTF());
+            }
+            int rowGroupCount = in.readInt();
+            int[] rowGroupRows = new int[rowGroupCount];
+            Chunk[][] chunks = new Chunk[rowGroupCount][columnCount];
+            for (int rg = 0; rg < rowGroupCount; rg++) {
+                rowGroupRows[rg] = in.readInt();
+                for (int c = 0; c < columnCount; c++) {
+                    Chunk chunk = new Chunk();
+                    chunk.offset = in.readLong();
+                    chunk.compressedLength = in.readInt();
+                    chunk.rawLength = in.readInt();
+                    chunk.encoding = Encoding.values()[in.readByte()];
+                    chunk.nonNullCount = in.readInt();
+                    chunk.hasZoneMap = in.readBoolean();
+                    if (chunk.hasZoneMap) {
+                        if (columns.get(c).getType() == ColumnType.STRING) {
+                            chunk.minString = in.readUTF();
+                            chunk.maxString = in.readUTF();
+                        } else {
+                            chunk.min = in.readLong();
+                            chunk.max = in.readLong();
+                        }
+                    }
+                    chunks[rg][c] = chunk;
+                }
+            }
+            return new ColumnarSegment(path, columns, properties, rowGroupRows, chunks, size);
+        } catch (EOFException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Corrupted segment footer in " + path, e);
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    public boolean hasColumn(String name) {
+        return columnIndex.containsKey(name);
+    }
+
+    public String getProperty(String key) {
+        return properties.get(key);
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public int getRowGroupCount() {
+        return rowGroupRows.length;
+    }
+
+    public int getRowGroupRows(int rowGroup) {
+        return rowGroupRows[rowGroup];
+    }
+
+    /**
+     * Indica, según el zone map, si alguna fila del row group puede tener
+     * un valor de la columna numérica en [from, to).
+     */
+    public boolean mayOverlap(int rowGroup, String column, long from, long to) {
+        Chunk chunk = chunk(rowGroup, column);
+        if (chunk.nonNullCount == 0) {
+            return false;
+        }
+        return !chunk.hasZoneMap || (chunk.max >= from && chunk.min < to);
+    }
+
+    /**
+     * Indica si todas las filas del row group tienen un valor de la columna
+     * numérica en [from, to), en cuyo caso no hace falta leerla para filtrar.
+     */
+    public boolean isWithin(int rowGroup, String column, long from, long to) {
+        Chunk chunk = chunk(rowGroup, column);
+        return chunk.hasZoneMap && chunk.nonNullCount == rowGroupRows[rowGroup]
+                && chunk.min >= from && chunk.max < to;
+    }
+
+    public boolean mayContain(int rowGroup, String column, long value) {
+        return mayOverlap(rowGroup, column, value, value + 1);
+    }
+
+    public boolean mayContain(int rowGroup, String column, String value) {
+        Chunk chunk = chunk(rowGroup, column);
+        if (chunk.nonNullCount == 0) {
+            return false;
+        }
+        return !chunk.hasZoneMap
+                || (value.compareTo(chunk.minString) >= 0 && value.compareTo(chunk.maxString) <= 0);
+    }
+
+    private Chunk chunk(int rowGroup, String column) {
+        Integer index = columnIndex.get(column);
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown column " + column + " in " + path);
+        }
+        return chunks[rowGroup][index];
+    }
+
+    public Reader reader() throws IOException {
+        return new Reader(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    /**
+     * Lector de columnas de un segmento; mantiene el archivo abierto hasta close().
+     */
+    public final class Reader implements Closeable {
+
+        private final FileChannel channel;
+        private final Inflater inflater = new Inflater();
+
+        private Reader(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Lee, descomprime y decodifica una columna de un row group.
+         */
+        public ColumnVector read(int rowGroup, String column) throws IOException {
+            Chunk chunk = chunk(rowGroup, column);
+            ColumnType type = columns.get(columnIndex.get(column)).getType();
+            byte[] compressed = readFully(channel, chunk.offset, chunk.compressedLength).array();
+            byte[] raw = new byte[chunk.rawLength];
+            inflater.reset();
+            inflater.setInput(compressed);
+            try {
+                int length = 0;
+                while (length < raw.length && !inflater.finished()) {
+                    int read = inflater.inflate(raw, length, raw.length - length);
+                    if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    length += read;
+                }
+                if (length != raw.length) {
+                    throw new IOException("Truncated chunk " + column + " in " + path);
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupted chunk " + column + " in " + path, e);
+            }
+            return decode(type, chunk, rowGroupRows[rowGroup], raw);
+        }
+
+        @Override
+        public void close() throws IOException {
+            inflater.end();
+            channel.close();
+        }
+    }
+
+    private static ColumnVector decode(ColumnType type, Chunk chunk, int rows, byte[] raw) {
+        ByteCursor in = new ByteCursor(raw);
+        boolean[] nulls = null;
+        if (chunk.nonNullCount < rows) {
+            nulls = new boolean[rows];
+            for (int i = 0; i < rows; i++) {
+                nulls[i] = (raw[i >>> 3] & (1 << (i & 7))) != 0;
+            }
+            in.pos = (rows + 7) >>> 3;
+        }
+        if (type == ColumnType.STRING) {
+            return decodeStrings(chunk, rows, nulls, in);
+        }
+        long[] values = new long[rows];
+        long previous = 0;
+        long runValue = 0;
+        int runLeft = 0;
+        for (int i = 0; i < rows; i++) {
+            if (nulls != null && nulls[i]) {
+                continue;
+            }
+            switch (chunk.encoding) {
+                case DELTA:
+                    previous += in.zigzag();
+                    values[i] = previous;
+                    break;
+                case RLE:
+                    if (runLeft == 0) {
+                        runValue = in.zigzag();
+                        runLeft = (int) in.varLong();
+                    }
+                    values[i] = runValue;
+                    runLeft--;
+                    break;
+                default:
+                    values[i] = in.zigzag();
+            }
+        }
+        if (type == ColumnType.LONG) {
+            return ColumnVector.ofLongs(values, nulls);
+        }
+        int[] ints = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            ints[i] = (int) values[i];
+        }
+        return ColumnVector.ofInts(ints, nulls);
+    }
+
+    private static ColumnVector decodeStrings(Chunk chunk, int rows, boolean[] nulls, ByteCursor in) {
+        int[] codes = new int[rows];
+        if (chunk.encoding == Encoding.DICTIONARY) {
+            String[] dictionary = new String[(int) in.varLong()];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = in.string();
+            }
+            for (int i = 0; i < rows; i++) {
+                codes[i] = nulls != null && nulls[i] ? -1 : (int) in.varLong();
+            }
+            return ColumnVector.ofStrings(dictionary, codes);
+        }
+        // PLAIN: se diccionariza al leer para que los filtros comparen códigos
+        Map<String, Integer> index = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            if (nulls != null && nulls[i]) {
+                codes[i] = -1;
+                continue;
+            }
+            String value = in.string();
+            Integer code = index.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                index.put(value, code);
+                dictionary.add(value);
+            }
+            codes[i] = code;
+        }
+        return ColumnVector.ofStrings(dictionary.toArray(new String[0]), codes);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of segment");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Buffer de escritura con varints (LEB128) y textos UTF-8 con su largo.
+     */
+    static final class ByteBuilder extends ByteArrayOutputStream {
+
+        ByteBuilder(int size) {
+            super(size);
+        }
+
+        void varLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void zigzag(long value) {
+            varLong((value << 1) ^ (value >> 63));
+        }
+
+        void string(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            varLong(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+
+    private static final class ByteCursor {
+
+        private final byte[] bytes;
+        private int pos;
+
+        ByteCursor(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long varLong() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[pos++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        long zigzag() {
+            long value = varLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String string() {
+            int length = (int) varLong();
+            String value = new String(bytes, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.miempresa.analytics.util;
+
+import com.miempresa.analytics.util.ColumnarSegment.ByteBuilder;
+import com.miempresa.analytics.util.ColumnarSegment.Chunk;
+import com.miempresa.analytics.util.ColumnarSegment.Column;
+import com.miempresa.analytics.util.ColumnarSegment.ColumnType;
+import com.miempresa.analytics.util.ColumnarSegment.Encoding;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * Escribe un segmento columnar (formato en ColumnarSegment) fila a fila.
+ *
+ * Las filas se acumulan en memoria hasta completar un row group; entonces
+ * cada columna se codifica con la codificación más chica para ese chunk, se
+ * comprime y se escribe. finish() escribe el footer y fuerza el archivo a
+ * disco; un archivo sin finish() no es un segmento válido.
+ */
+public class ColumnarSegmentWriter implements Closeable {
+
+    // Los textos más largos no tienen zone map, para no inflar el footer
+    private static final int MAX_ZONE_MAP_STRING = 128;
+
+    private final FileOutputStream file;
+    private final OutputStream out;
+    private final List<Column> columns;
+    private final Map<String, String> properties;
+    private final int rowGroupSize;
+    private final ColumnBuffer[] buffers;
+    private final Deflater deflater = new Deflater();
+    private final List<Integer> rowGroupRows = new ArrayList<>();
+    private final List<Chunk[]> chunks = new ArrayList<>();
+    private long offset;
+    private int rows;
+    private long rowCount;
+    private boolean finished;
+
+    /**
+     * @param properties pares clave/valor que se guardan en el footer
+     */
+    public ColumnarSegmentWriter(Path path, List<Column> columns, Map<String, String> properties,
+                                 int rowGroupSize) throws IOException {
+        if (rowGroupSize <= 0) {
+            throw new IllegalArgumentException("rowGroupSize must be greater than 0");
+        }
+        this.columns = new ArrayList<>(columns);
+        this.properties = new LinkedHashMap<>(properties);
+        this.rowGroupSize = rowGroupSize;
+        this.buffers = new ColumnBuffer[columns.size()];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new ColumnBuffer(columns.get(i).getType(), rowGroupSize);
+        }
+        this.file = new FileOutputStream(path.toFile());
+        this.out = new BufferedOutputStream(file, 1 << 16);
+        out.write(ColumnarSegment.MAGIC);
+        out.write(ColumnarSegment.VERSION);
+        offset = ColumnarSegment.MAGIC.length + 1;
+    }
+
+    /**
+     * Agrega una fila con un valor por columna, en el orden de las columnas:
+     * Long o Integer para LONG/INT, String para STRING, o null.
+     */
+    public void addRow(Object... values) throws IOException {
+        if (values.length != buffers.length) {
+            throw new IllegalArgumentException("Expected " + buffers.length + " values, got " + values.length);
+        }
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i].add(rows, values[i]);
+        }
+        rows++;
+        rowCount++;
+        if (rows == rowGroupSize) {
+            flushRowGroup();
+        }
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Escribe el último row group y el footer, y fuerza el archivo a disco.
+     */
+    public void finish() throws IOException {
+        if (rows > 0) {
+            flushRowGroup();
+        }
+        ByteArrayOutputStream footerBytes = new ByteArrayOutputStream();
+        DataOutputStream footer = new DataOutputStream(footerBytes);
+        footer.writeInt(columns.size());
+        for (Column column : columns) {
+            footer.writeUTF(column.getName());
+            footer.writeByte(column.getType().ordinal());
+        }
+        footer.writeInt(properties.size());
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            footer.writeUTF(property.getKey());
+            footer.writeUTF(property.getValue());
+        }
+        footer.writeInt(rowGroupRows.size());
+        for (int rg = 0; rg < rowGroupRows.size(); rg++) {
+            footer.writeInt(rowGroupRows.get(rg));
+            for (int c = 0; c < columns.size(); c++) {
+                Chunk chunk = chunks.get(rg)[c];
+                footer.writeLong(chunk.offset);
+                footer.writeInt(chunk.compressedLength);
+                footer.writeInt(chunk.rawLength);
+                footer.writeByte(chunk.encoding.ordinal());
+                footer.writeInt(chunk.nonNullCount);
+                footer.writeBoolean(chunk.hasZoneMap);
+                if (chunk.hasZoneMap) {
+                    if (columns.get(c).getType() == ColumnType.STRING) {
+                        footer.writeUTF(chunk.minString);
+                        footer.writeUTF(chunk.maxString);
+                    } else {
+                        footer.writeLong(chunk.min);
+                        footer.writeLong(chunk.max);
+                    }
+                }
+            }
+        }
+        footer.flush();
+        footerBytes.writeTo(out);
+        DataOutputStream tail = new DataOutputStream(out);
+        tail.writeInt(footerBytes.size());
+        tail.write(ColumnarSegment.MAGIC);
+        tail.flush();
+        file.getChannel().force(true);
+        finished = true;
+        close();
+    }
+
+    private void flushRowGroup() throws IOException {
+        Chunk[] rowGroup = new Chunk[buffers.length];
+        ByteBuilder raw = new ByteBuilder(rows * 4);
+        for (int c = 0; c < buffers.length; c++) {
+            raw.reset();
+            Chunk chunk = buffers[c].encode(rows, raw);
+            byte[] compressed = compress(raw.buffer(), raw.size());
+            chunk.offset = offset;
+            chunk.rawLength = raw.size();
+            chunk.compressedLength = compressed.length;
+            out.write(compressed);
+            offset += compressed.length;
+            rowGroup[c] = chunk;
+            buffers[c].clear(rows);
+        }
+        rowGroupRows.add(rows);
+        chunks.add(rowGroup);
+        rows = 0;
+    }
+
+    private byte[] compress(byte[] data, int length) {
+        deflater.reset();
+        deflater.setInput(data, 0, length);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, length / 4));
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            int written = deflater.deflate(buffer);
+            compressed.write(buffer, 0, written);
+        }
+        return compressed.toByteArray();
+    }
+
+    @Override
+    public void close() throws IOException {
+        deflater.end();
+        if (finished) {
+            out.close();
+        } else {
+            // Archivo incompleto: se cierra sin footer y el llamador lo descarta
+            file.close();
+        }
+    }
+
+    /**
+     * Valores de una columna en el row group actual.
+     */
+    private static final class ColumnBuffer {
+
+        private final ColumnType type;
+        private final long[] longs;
+        private final String[] strings;
+        private final boolean[] nulls;
+        private int nonNullCount;
+
+        ColumnBuffer(ColumnType type, int capacity) {
+            this.type = type;
+            this.longs = type == ColumnType.STRING ? null : new long[capacity];
+            this.strings = type == ColumnType.STRING ? new String[capacity] : null;
+            this.nulls = new boolean[capacity];
+        }
+
+        void add(int row, Object value) {
+            nulls[row] = value == null;
+            if (value == null) {
+                return;
+            }
+            nonNullCount++;
+            if (type == ColumnType.STRING) {
+                strings[row] = (String) value;
+            } else {
+                longs[row] = ((Number) value).longValue();
+            }
+        }
+
+        void clear(int rows) {
+            if (strings != null) {
+                Arrays.fill(strings, 0, rows, null);
+            }
+            nonNullCount = 0;
+        }
+
+        /**
+         * Escribe en raw el bitmap de nulos (si hay) y los valores no nulos
+         * con la codificación más chica, y retorna el chunk sin ubicación.
+         */
+        Chunk encode(int rows, ByteBuilder raw) {
+            Chunk chunk = new Chunk();
+            chunk.nonNullCount = nonNullCount;
+            if (nonNullCount < rows) {
+                byte[] bitmap = new byte[(rows + 7) >>> 3];
+                for (int i = 0; i < rows; i++) {
+                    if (nulls[i]) {
+                        bitmap[i >>> 3] |= (byte) (1 << (i & 7));
+                    }
+                }
+                raw.write(bitmap, 0, bitmap.length);
+            }
+            if (type == ColumnType.STRING) {
+                encodeStrings(rows, raw, chunk);
+            } else {
+                encodeNumbers(rows, raw, chunk);
+            }
+            return chunk;
+        }
+
+        private void encodeNumbers(int rows, ByteBuilder raw, Chunk chunk) {
+            ByteBuilder plain = new ByteBuilder(nonNullCount * 2);
+            ByteBuilder delta = new ByteBuilder(nonNullCount * 2);
+            ByteBuilder rle = new ByteBuilder(16);
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            long previous = 0;
+            long runValue = 0;
+            int runLength = 0;
+            for (int i = 0; i < rows; i++) {
+                if (nulls[i]) {
+                    continue;
+                }
+                long value = longs[i];
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+                plain.zigzag(value);
+                delta.zigzag(value - previous);
+                previous = value;
+                if (runLength > 0 && value == runValue) {
+                    runLength++;
+                } else {
+                    if (runLength > 0) {
+                        rle.zigzag(runValue);
+                        rle.varLong(runLength);
+                    }
+                    runValue = value;
+                    runLength = 1;
+                }
+            }
+            if (runLength > 0) {
+                rle.zigzag(runValue);
+                rle.varLong(runLength);
+            }
+
+            ByteBuilder best = plain;
+            chunk.encoding = Encoding.PLAIN;
+            if (delta.size() < best.size()) {
+                best = delta;
+                chunk.encoding = Encoding.DELTA;
+            }
+            if (rle.size() < best.size()) {
+                best = rle;
+                chunk.encoding = Encoding.RLE;
+            }
+            raw.write(best.buffer(), 0, best.size());
+            if (nonNullCount > 0) {
+                chunk.hasZoneMap = true;
+                chunk.min = min;
+                chunk.max = max;
+            }
+        }
+
+        private void encodeStrings(int rows, ByteBuilder raw, Chunk chunk) {
+            Map<String, Integer> index = new HashMap<>();
+            List<String> dictionary = new ArrayList<>();
+            ByteBuilder plain = new ByteBuilder(nonNullCount * 8);
+            ByteBuilder codes = new ByteBuilder(nonNullCount);
+            for (int i = 0; i < rows; i++) {
+                if (nulls[i]) {
+                    continue;
+                }
+                String value = strings[i];
+                plain.string(value);
+                Integer code = index.get(value);
+                if (code == null) {
+                    code = dictionary.size();
+                    index.put(value, code);
+                    dictionary.add(value);
+                }
+                codes.varLong(code);
+            }
+            ByteBuilder dictionaryPage = new ByteBuilder(16);
+            dictionaryPage.varLong(dictionary.size());
+            String min = null;
+            String max = null;
+            for (String value : dictionary) {
+                dictionaryPage.string(value);
+                if (min == null || value.compareTo(min) < 0) {
+                    min = value;
+                }
+                if (max == null || value.compareTo(max) > 0) {
+                    max = value;
+                }
+            }
+
+            if (dictionaryPage.size() + codes.size() < plain.size()) {
+                chunk.encoding = Encoding.DICTIONARY;
+                raw.write(dictionaryPage.buffer(), 0, dictionaryPage.size());
+                raw.write(codes.buffer(), 0, codes.size());
+            } else {
+                chunk.encoding = Encoding.PLAIN;
+                raw.write(plain.buffer(), 0, plain.size());
+            }
+            if (min != null && min.length() <= MAX_ZONE_MAP_STRING && max.length() <= MAX_ZONE_MAP_STRING) {
+                chunk.hasZoneMap = true;
+                chunk.minString = min;
+                chunk.maxString = max;
+            }
+        }
+    }
+}
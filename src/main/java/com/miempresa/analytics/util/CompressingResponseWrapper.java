@@ -0,0 +1,390 @@
+package com.miempresa.analytics.util;
+
+import com.miempresa.analytics.service.CompressionMetrics;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Respuesta que se comprime con gzip o deflate a medida que se escribe, si
+ * supera minSize bytes y su Content-Type es comprimible.
+ *
+ * Los primeros minSize bytes se retienen en memoria: si la respuesta termina
+ * antes se envía sin comprimir y con Content-Length; si no, se agregan
+ * Content-Encoding y Vary, se descarta Content-Length y el resto se
+ * comprime en streaming. Un flush() antes de decidir no fuerza la decisión
+ * (los convertidores de Spring hacen flush al final de cada cuerpo). Un
+ * ETag fuerte se debilita al comprimir, porque el cuerpo ya no es el mismo
+ * byte a byte.
+ */
+public class CompressingResponseWrapper extends HttpServletResponseWrapper {
+
+    private final String encoding;
+    private final int minSize;
+    private final int level;
+    private final List<MediaType> mimeTypes;
+    private final CompressionMetrics metrics;
+    private CompressingOutputStream outputStream;
+    private PrintWriter writer;
+    private long contentLength = -1;
+    private boolean finished;
+
+    /**
+     * @param encoding  DecompressingRequestWrapper.GZIP o DEFLATE
+     * @param mimeTypes tipos comprimibles, comparados sin parámetros
+     */
+    public CompressingResponseWrapper(HttpServletResponse response, String encoding, int minSize, int level,
+                                      List<MediaType> mimeTypes, CompressionMetrics metrics) {
+        super(response);
+        this.encoding = encoding;
+        this.minSize = minSize;
+        this.level = level;
+        this.mimeTypes = mimeTypes;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Elige la codificación según Accept-Encoding: gzip si se acepta, si no
+     * deflate, o null. Los valores con q=0 no se aceptan y * equivale a gzip.
+     */
+    public static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        boolean deflate = false;
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.split(";");
+            String coding = parts[0].trim().toLowerCase();
+            if (isRejected(parts)) {
+                continue;
+            }
+            if (coding.equals(DecompressingRequestWrapper.GZIP) || coding.equals("x-gzip") || coding.equals("*")) {
+                return DecompressingRequestWrapper.GZIP;
+            }
+            deflate |= coding.equals(DecompressingRequestWrapper.DEFLATE);
+        }
+        return deflate ? DecompressingRequestWrapper.DEFLATE : null;
+    }
+
+    private static boolean isRejected(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2).trim()) <= 0;
+                } catch (NumberFormatException e) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("getWriter() has already been called for this response");
+        }
+        if (outputStream == null) {
+            outputStream = new CompressingOutputStream();
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            if (outputStream != null) {
+                throw new IllegalStateException("getOutputStream() has already been called for this response");
+            }
+            outputStream = new CompressingOutputStream();
+            writer = new PrintWriter(new OutputStreamWriter(outputStream, Charset.forName(getCharacterEncoding())));
+        }
+        return writer;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        setContentLengthLong(len);
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        // Se aplica al decidir: si se comprime, el largo cambia
+        if (outputStream != null && outputStream.decided && !outputStream.compressing) {
+            super.setContentLengthLong(len);
+        } else {
+            contentLength = len;
+        }
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(value != null ? Long.parseLong(value.trim()) : -1);
+        } else {
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setHeader(name, value);
+        } else {
+            super.addHeader(name, value);
+        }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        if (outputStream != null) {
+            outputStream.flush();
+        }
+        if (outputStream == null || outputStream.decided) {
+            super.flushBuffer();
+        }
+    }
+
+    @Override
+    public void resetBuffer() {
+        if (outputStream != null && !outputStream.decided) {
+            outputStream.buffered = 0;
+        }
+        super.resetBuffer();
+    }
+
+    @Override
+    public void reset() {
+        if (outputStream != null && !outputStream.decided) {
+            outputStream.buffered = 0;
+        }
+        contentLength = -1;
+        super.reset();
+    }
+
+    /**
+     * Envía lo retenido o termina el stream comprimido y registra las
+     * métricas. Se llama una vez, al terminar la petición.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (writer != null) {
+            writer.flush();
+        }
+        if (outputStream != null) {
+            outputStream.finish();
+        } else if (contentLength >= 0) {
+            super.setContentLengthLong(contentLength);
+        }
+    }
+
+    private boolean isCompressible() {
+        String contentType = getContentType();
+        if (contentType == null || containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+            return false;
+        }
+        try {
+            MediaType type = MediaType.parseMediaType(contentType);
+            for (MediaType mimeType : mimeTypes) {
+                if (mimeType.getType().equalsIgnoreCase(type.getType())
+                        && mimeType.getSubtype().equalsIgnoreCase(type.getSubtype())) {
+                    return true;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return false;
+    }
+
+    /**
+     * Retiene hasta minSize bytes y luego escribe directo o comprimido.
+     */
+    private final class CompressingOutputStream extends ServletOutputStream {
+
+        private final byte[] buffer = new byte[Math.max(minSize, 1)];
+        private final byte[] single = new byte[1];
+        private int buffered;
+        private boolean decided;
+        private boolean compressing;
+        private ServletOutputStream target;
+        private CountingOutputStream counter;
+        private DeflaterOutputStream deflater;
+        private Deflater customDeflater;
+        private long uncompressed;
+        private long cpuNanos;
+
+        @Override
+        public void write(int b) throws IOException {
+            single[0] = (byte) b;
+            write(single, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (!decided) {
+                if (buffered + len <= minSize) {
+                    System.arraycopy(b, off, buffer, buffered, len);
+                    buffered += len;
+                    return;
+                }
+                decide(true);
+            }
+            if (compressing) {
+                long start = CompressionMetrics.cpuTime();
+                deflater.write(b, off, len);
+                cpuNanos += CompressionMetrics.cpuTime() - start;
+                uncompressed += len;
+            } else {
+                target.write(b, off, len);
+            }
+        }
+
+        /**
+         * @param large true si el cuerpo ya superó minSize
+         */
+        private void decide(boolean large) throws IOException {
+            decided = true;
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            target = response.getOutputStream();
+            boolean compressible = isCompressible();
+            compressing = large && compressible && (contentLength < 0 || contentLength > minSize);
+            if (compressible) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                metrics.recordResponse(compressing
+                        ? CompressionMetrics.RESULT_COMPRESSED : CompressionMetrics.RESULT_TOO_SMALL);
+            } else if (large) {
+                metrics.recordResponse(CompressionMetrics.RESULT_NOT_COMPRESSIBLE);
+            }
+            if (compressing) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+                String eTag = response.getHeader(HttpHeaders.ETAG);
+                if (eTag != null && !eTag.startsWith("W/")) {
+                    response.setHeader(HttpHeaders.ETAG, "W/" + eTag);
+                }
+                counter = new CountingOutputStream(target);
+                long start = CompressionMetrics.cpuTime();
+                if (DecompressingRequestWrapper.GZIP.equals(encoding)) {
+                    deflater = new GZIPOutputStream(counter, 8192, true) {
+                        {
+                            def.setLevel(level);
+                        }
+                    };
+                } else {
+                    customDeflater = new Deflater(level);
+                    deflater = new DeflaterOutputStream(counter, customDeflater, 8192, true);
+                }
+                cpuNanos += CompressionMetrics.cpuTime() - start;
+            } else if (contentLength >= 0) {
+                response.setContentLengthLong(contentLength);
+            } else if (!large) {
+                response.setContentLengthLong(buffered);
+            }
+            int pending = buffered;
+            buffered = 0;
+            if (pending > 0) {
+                write(buffer, 0, pending);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (!decided) {
+                return;
+            }
+            if (compressing) {
+                long start = CompressionMetrics.cpuTime();
+                deflater.flush();
+                cpuNanos += CompressionMetrics.cpuTime() - start;
+            } else {
+                target.flush();
+            }
+        }
+
+        void finish() throws IOException {
+            if (!decided) {
+                decide(false);
+            }
+            if (!compressing) {
+                return;
+            }
+            long start = CompressionMetrics.cpuTime();
+            try {
+                deflater.finish();
+            } finally {
+                cpuNanos += CompressionMetrics.cpuTime() - start;
+                if (customDeflater != null) {
+                    customDeflater.end();
+                } else {
+                    deflater.close();
+                }
+            }
+            metrics.record(CompressionMetrics.DIRECTION_RESPONSE, encoding, uncompressed, counter.count, cpuNanos);
+        }
+
+        @Override
+        public boolean isReady() {
+            return target == null || target.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            throw new UnsupportedOperationException("Non-blocking writes are not supported for compressed bodies");
+        }
+    }
+
+    /**
+     * Cuenta los bytes comprimidos sin cerrar el stream de la respuesta.
+     */
+    private static final class CountingOutputStream extends OutputStream {
+
+        private final OutputStream out;
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() {
+            // El contenedor cierra la respuesta
+        }
+    }
+}
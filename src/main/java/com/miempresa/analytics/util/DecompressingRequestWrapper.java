@@ -0,0 +1,291 @@
+package com.miempresa.analytics.util;
+
+import com.miempresa.analytics.exception.CompressedBodyException;
+import com.miempresa.analytics.service.CompressionMetrics;
+import org.springframework.http.HttpStatus;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Petición con cuerpo gzip o deflate (Content-Encoding) que se expone
+ * descomprimida a medida que se lee, sin cargarla completa en memoria.
+ *
+ * Oculta Content-Encoding y Content-Length, porque el largo descomprimido no
+ * se conoce de antemano. Corta la lectura con CompressedBodyException si el
+ * cuerpo está corrupto o truncado, o si descomprimido supera maxBytes. deflate acepta tanto el formato zlib del
+ * estándar como deflate sin cabecera, que envían algunos clientes.
+ */
+public class DecompressingRequestWrapper extends HttpServletRequestWrapper {
+
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+    private static final String CONTENT_LENGTH = "Content-Length";
+
+    private final String encoding;
+    private final long maxBytes;
+    private DecompressingInputStream inputStream;
+    private BufferedReader reader;
+    private long cpuNanos;
+
+    /**
+     * @param encoding GZIP o DEFLATE
+     */
+    public DecompressingRequestWrapper(HttpServletRequest request, String encoding, long maxBytes) {
+        super(request);
+        this.encoding = encoding;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Codificación del Content-Encoding (gzip, x-gzip, deflate), o null si
+     * no es soportada. identity se trata como ausente y no llega aquí.
+     */
+    public static String resolveEncoding(String contentEncoding) {
+        String value = contentEncoding.trim().toLowerCase();
+        if (value.equals(GZIP) || value.equals("x-gzip")) {
+            return GZIP;
+        }
+        return value.equals(DEFLATE) ? DEFLATE : null;
+    }
+
+    public String getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Bytes comprimidos leídos de la petición.
+     */
+    public long getCompressedBytes() {
+        return inputStream != null ? inputStream.source.count : 0;
+    }
+
+    /**
+     * Bytes descomprimidos entregados a la aplicación.
+     */
+    public long getDecompressedBytes() {
+        return inputStream != null ? inputStream.count : 0;
+    }
+
+    /**
+     * Tiempo de CPU (CompressionMetrics.cpuTime) de las lecturas.
+     */
+    public long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    /**
+     * Libera el descompresor (memoria nativa de zlib). Se llama al terminar
+     * la petición, porque Spring MVC no cierra el cuerpo al leerlo.
+     */
+    public void release() throws IOException {
+        if (inputStream != null) {
+            inputStream.close();
+        }
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if (reader != null) {
+            throw new IllegalStateException("getReader() has already been called for this request");
+        }
+        if (inputStream == null) {
+            inputStream = new DecompressingInputStream(super.getInputStream());
+        }
+        return inputStream;
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        if (reader == null) {
+            String charset = getCharacterEncoding();
+            reader = new BufferedReader(new InputStreamReader(getInputStream(),
+                    charset != null ? Charset.forName(charset) : StandardCharsets.ISO_8859_1));
+        }
+        return reader;
+    }
+
+    @Override
+    public int getContentLength() {
+        return -1;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return -1;
+    }
+
+    @Override
+    public String getHeader(String name) {
+        return isHidden(name) ? null : super.getHeader(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        return isHidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        List<String> names = Collections.list(super.getHeaderNames()).stream()
+                .filter(name -> !isHidden(name))
+                .collect(Collectors.toList());
+        return Collections.enumeration(names);
+    }
+
+    private static boolean isHidden(String name) {
+        return CONTENT_ENCODING.equalsIgnoreCase(name) || CONTENT_LENGTH.equalsIgnoreCase(name);
+    }
+
+    /**
+     * Cuenta los bytes que pasan por el stream.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+
+    private final class DecompressingInputStream extends ServletInputStream {
+
+        private final ServletInputStream raw;
+        private final CountingInputStream source;
+        private final byte[] single = new byte[1];
+        private InputStream decompressed;
+        // Solo deflate; GZIPInputStream libera su propio Inflater al cerrarse
+        private Inflater inflater;
+        private long count;
+        private boolean finished;
+
+        DecompressingInputStream(ServletInputStream raw) {
+            this.raw = raw;
+            this.source = new CountingInputStream(raw);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int n = read(single, 0, 1);
+            return n < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (finished) {
+                return -1;
+            }
+            long start = CompressionMetrics.cpuTime();
+            try {
+                if (decompressed == null) {
+                    decompressed = open();
+                }
+                int n = decompressed.read(b, off, len);
+                if (n < 0) {
+                    finished = true;
+                    return -1;
+                }
+                count += n;
+                if (count > maxBytes) {
+                    throw new CompressedBodyException("Decompressed request body exceeds " + maxBytes + " bytes",
+                            HttpStatus.PAYLOAD_TOO_LARGE, null);
+                }
+                return n;
+            } catch (ZipException | EOFException e) {
+                throw new CompressedBodyException("Invalid " + encoding + " request body: " + e.getMessage(),
+                        HttpStatus.BAD_REQUEST, e);
+            } finally {
+                cpuNanos += CompressionMetrics.cpuTime() - start;
+            }
+        }
+
+        private InputStream open() throws IOException {
+            if (GZIP.equals(encoding)) {
+                return new GZIPInputStream(source, 8192);
+            }
+            // zlib: CMF con método 8 y (CMF * 256 + FLG) múltiplo de 31; si no, deflate sin cabecera
+            PushbackInputStream in = new PushbackInputStream(source, 2);
+            int cmf = in.read();
+            int flg = cmf < 0 ? -1 : in.read();
+            if (flg >= 0) {
+                in.unread(flg);
+            }
+            if (cmf >= 0) {
+                in.unread(cmf);
+            }
+            boolean zlib = cmf >= 0 && flg >= 0 && (cmf & 0x0f) == 8 && ((cmf << 8) | flg) % 31 == 0;
+            inflater = new Inflater(!zlib);
+            return new InflaterInputStream(in, inflater, 8192);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return raw.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException("Non-blocking reads are not supported for compressed bodies");
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (decompressed != null) {
+                    decompressed.close();
+                } else {
+                    raw.close();
+                }
+            } finally {
+                if (inflater != null) {
+                    inflater.end();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.miempresa.analytics.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Sketch HyperLogLog para contar valores distintos con memoria fija.
+ *
+ * Usa 2^precision registros de un byte; el error relativo estándar es
+ * 1.04 / sqrt(2^precision) (≈1.6% con precisión 12). Dos sketches se combinan
+ * con el máximo por registro, de modo que la unión de meses no requiere los
+ * valores originales y combinar dos veces el mismo sketch no altera el
+ * resultado. Si las precisiones difieren, el resultado usa la menor.
+ *
+ * Formato binario: un byte con la precisión seguido de los registros.
+ * No es thread-safe.
+ */
+public final class HyperLogLog {
+
+    public static final int MIN_PRECISION = 4;
+    // 2^14 registros + cabecera caben en una columna BLOB (64 KB)
+    public static final int MAX_PRECISION = 14;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("precision must be between "
+                    + MIN_PRECISION + " and " + MAX_PRECISION);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Reconstruye un sketch a partir de toBytes().
+     *
+     * @throws IllegalArgumentException si el contenido no es un sketch válido
+     */
+    public static HyperLogLog fromBytes(byte[] data) {
+        if (data == null || data.length == 0) {
+            throw new IllegalArgumentException("Empty sketch");
+        }
+        HyperLogLog sketch = new HyperLogLog(data[0]);
+        if (data.length != sketch.registers.length + 1) {
+            throw new IllegalArgumentException("Sketch size does not match its precision");
+        }
+        System.arraycopy(data, 1, sketch.registers, 0, sketch.registers.length);
+        return sketch;
+    }
+
+    public byte[] toBytes() {
+        byte[] data = new byte[registers.length + 1];
+        data[0] = (byte) precision;
+        System.arraycopy(registers, 0, data, 1, registers.length);
+        return data;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Registra un valor. Valores iguales producen el mismo hash, por lo que
+     * repetirlos no cambia la estimación.
+     */
+    public void offer(String value) {
+        offerHash(hash64(value));
+    }
+
+    void offerHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // Posición del primer 1 en los bits restantes (1..64-precision+1)
+        int rank = Math.min(Long.numberOfLeadingZeros(hash << precision), 64 - precision) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * Combina otro sketch con este.
+     *
+     * @return la unión: este mismo objeto, o uno nuevo de menor precisión si
+     *         other tiene menos registros
+     */
+    public HyperLogLog merge(HyperLogLog other) {
+        HyperLogLog target = other.precision < precision ? fold(other.precision) : this;
+        HyperLogLog source = other.precision > target.precision ? other.fold(target.precision) : other;
+        for (int i = 0; i < target.registers.length; i++) {
+            if (source.registers[i] > target.registers[i]) {
+                target.registers[i] = source.registers[i];
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Reduce el sketch a una precisión menor. Los bits de índice descartados
+     * pasan a ser los primeros bits del valor cuyo rango se mide.
+     */
+    HyperLogLog fold(int targetPrecision) {
+        HyperLogLog folded = new HyperLogLog(targetPrecision);
+        int shift = precision - targetPrecision;
+        int lowMask = (1 << shift) - 1;
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i] == 0) {
+                continue;
+            }
+            int low = i & lowMask;
+            int rank = low != 0
+                    ? Integer.numberOfLeadingZeros(low) - (32 - shift) + 1
+                    : shift + registers[i];
+            int index = i >>> shift;
+            if (rank > folded.registers[index]) {
+                folded.registers[index] = (byte) rank;
+            }
+        }
+        return folded;
+    }
+
+    /**
+     * Número estimado de valores distintos, con la corrección de rango
+     * pequeño (linear counting) del algoritmo original.
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Error relativo estándar (1 sigma) de estimate().
+     */
+    public double relativeStandardError() {
+        return relativeStandardError(precision);
+    }
+
+    public static double relativeStandardError(int precision) {
+        return 1.04 / Math.sqrt(1 << precision);
+    }
+
+    public boolean isEmpty() {
+        for (byte register : registers) {
+            if (register != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    /**
+     * FNV-1a de 64 bits sobre UTF-8 con el finalizador de MurmurHash3 para
+     * repartir los bits altos. El valor se persiste dentro de los sketches:
+     * cambiar esta función invalida los sketches existentes.
+     */
+    static long hash64(String value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof HyperLogLog)) {
+            return false;
+        }
+        HyperLogLog that = (HyperLogLog) o;
+        return precision == that.precision && Arrays.equals(registers, that.registers);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * precision + Arrays.hashCode(registers);
+    }
+}
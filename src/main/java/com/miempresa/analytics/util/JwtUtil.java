@@ -1,7 +1,10 @@
 package com.miempresa.analytics.util;
 
+import com.miempresa.analytics.security.VerifiedTokenCache;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
@@ -10,18 +13,44 @@ import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
     
-    @Value("${jwt.secret:mySecretKeyForJWTTokenGenerationMustBeAtLeast256BitsLong}")
-    private String secret;
-    
-    @Value("${jwt.expiration:86400000}") // 24 horas por defecto
-    private Long expiration;
+    private final Long expiration;
+
+    // La clave y el parser son inmutables y thread-safe: se construyen una sola vez
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final VerifiedTokenCache tokenCache;
+    // Tiempo de verificación de firma cuando el token no está en cache
+    private final Timer validVerificationTimer;
+    private final Timer invalidVerificationTimer;
+
+    public JwtUtil(@Value("${jwt.secret:mySecretKeyForJWTTokenGenerationMustBeAtLeast256BitsLong}") String secret,
+                   @Value("${jwt.expiration:86400000}") Long expiration, // 24 horas por defecto
+                   VerifiedTokenCache tokenCache,
+                   MeterRegistry meterRegistry) {
+        this.expiration = expiration;
+        this.signingKey = buildSigningKey(secret);
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.tokenCache = tokenCache;
+        this.validVerificationTimer = verificationTimer(meterRegistry, "valid");
+        this.invalidVerificationTimer = verificationTimer(meterRegistry, "invalid");
+    }
+
+    private static Timer verificationTimer(MeterRegistry registry, String result) {
+        return Timer.builder("jwt.verification")
+                .description("JWT signature and expiration verification on cache miss")
+                .tag("result", result)
+                .register(registry);
+    }
 
-    private SecretKey getSigningKey() {
+    private static SecretKey buildSigningKey(String secret) {
         // Asegurar que el secret tenga al menos 256 bits (32 caracteres)
         String key = secret;
         if (key.length() < 32) {
@@ -49,9 +78,7 @@ public class JwtUtil {
 
     private Claims extractAllClaims(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
+            return parser
                     .parseClaimsJws(token)
                     .getBody();
         } catch (ExpiredJwtException e) {
@@ -61,14 +88,6 @@ public class JwtUtil {
         }
     }
 
-    private Boolean isTokenExpired(String token) {
-        try {
-            return extractExpiration(token).before(new Date());
-        } catch (ExpiredJwtException e) {
-            return true;
-        }
-    }
-
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
         return createToken(claims, userDetails.getUsername());
@@ -80,24 +99,45 @@ public class JwtUtil {
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public Boolean validateToken(String token, UserDetails userDetails) {
+    /**
+     * Verifica firma y expiración del token con un único parseo y retorna su
+     * subject. Los tokens ya verificados se resuelven desde la cache hasta su exp.
+     *
+     * @return el username del token, o null si el token no es válido o expiró
+     */
+    public String validateAndExtractUsername(String token) {
+        String cached = tokenCache.get(token);
+        if (cached != null) {
+            return cached;
+        }
+        long start = System.nanoTime();
+        Claims claims;
         try {
-            final String username = extractUsername(token);
-            return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
-        } catch (ExpiredJwtException e) {
-            return false;
+            // parseClaimsJws ya rechaza tokens expirados
+            claims = extractAllClaims(token);
         } catch (JwtException e) {
-            return false;
+            invalidVerificationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return null;
+        }
+        validVerificationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        String subject = claims.getSubject();
+        Date exp = claims.getExpiration();
+        if (subject != null && exp != null) {
+            tokenCache.put(token, subject, exp.getTime());
         }
+        return subject;
+    }
+
+    public Boolean validateToken(String token, UserDetails userDetails) {
+        final String username = validateAndExtractUsername(token);
+        return username != null && username.equals(userDetails.getUsername());
     }
 
     public Long getExpiration() {
         return expiration;
     }
 }
-
-
@@ -0,0 +1,399 @@
+package com.miempresa.analytics.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.zip.CRC32;
+
+/**
+ * Log de solo escritura al final, dividido en segmentos de tamaño fijo
+ * mapeados en memoria.
+ *
+ * Cada registro es [longitud int][crc32 int][datos]; una longitud 0 marca el
+ * fin de los datos de un segmento (los archivos se crean rellenos de ceros).
+ * Las posiciones son lógicas: segmento * segmentSize + offset, y solo crecen.
+ *
+ * append() copia los registros al mapeo (visible para read() de inmediato) y
+ * sync() los fuerza a disco; varios hilos que llaman a sync() a la vez
+ * comparten un mismo msync. commit() guarda en el archivo checkpoint la
+ * posición hasta la que los registros ya se consumieron y borra los
+ * segmentos anteriores. Al abrir se descarta la cola de un registro escrito a
+ * medias (crc inválido) en el último segmento; un registro dañado en medio
+ * del log se informa con CorruptRecordException, que indica dónde seguir.
+ *
+ * Se admite un solo lector (read/commit) concurrente con varios escritores.
+ */
+public class MappedSegmentLog implements Closeable {
+
+    private static final int HEADER_BYTES = 8;
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private final Path dir;
+    private final int segmentSize;
+    private final NavigableSet<Long> segments = new ConcurrentSkipListSet<>();
+    private final Object syncLock = new Object();
+
+    // Estado del escritor, protegido por this
+    private long activeSegment;
+    private MappedByteBuffer activeBuffer;
+    private int writeOffset;
+
+    private volatile long appendedPosition;
+    private volatile long durablePosition;
+    private volatile long checkpoint;
+
+    // Estado del lector (un solo hilo)
+    private long readSegment = -1;
+    private ByteBuffer readBuffer;
+
+    private MappedSegmentLog(Path dir, int segmentSize) {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Abre (o crea) el log del directorio indicado y recupera la posición de
+     * escritura y el checkpoint.
+     */
+    public static MappedSegmentLog open(Path dir, int segmentSize) throws IOException {
+        if (segmentSize <= HEADER_BYTES) {
+            throw new IllegalArgumentException("segmentSize must be greater than " + HEADER_BYTES);
+        }
+        Files.createDirectories(dir);
+        MappedSegmentLog log = new MappedSegmentLog(dir, segmentSize);
+        log.recover();
+        return log;
+    }
+
+    private void recover() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                segments.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                        name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        long savedCheckpoint = readCheckpoint();
+
+        if (segments.isEmpty()) {
+            activeSegment = savedCheckpoint > 0 ? savedCheckpoint / segmentSize : 0;
+            activeBuffer = createSegment(activeSegment);
+            writeOffset = 0;
+        } else {
+            activeSegment = segments.last();
+            activeBuffer = map(activeSegment, FileChannel.MapMode.READ_WRITE);
+            writeOffset = scanEnd(activeBuffer);
+            discardTail(activeBuffer, writeOffset);
+        }
+        appendedPosition = activeSegment * segmentSize + writeOffset;
+        durablePosition = appendedPosition;
+
+        long first = segments.first() * segmentSize;
+        checkpoint = Math.min(Math.max(savedCheckpoint, first), appendedPosition);
+    }
+
+    /**
+     * Offset del primer byte después del último registro válido.
+     */
+    private int scanEnd(ByteBuffer buffer) {
+        int offset = 0;
+        while (offset + HEADER_BYTES <= segmentSize) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || length > segmentSize - offset - HEADER_BYTES) {
+                break;
+            }
+            byte[] data = new byte[length];
+            readBytes(buffer, offset + HEADER_BYTES, data);
+            if (crc(data) != buffer.getInt(offset + 4)) {
+                break;
+            }
+            offset += HEADER_BYTES + length;
+        }
+        return offset;
+    }
+
+    /**
+     * Pone a cero lo que quede después de un registro incompleto, para que
+     * los registros nuevos no queden seguidos de restos que parezcan válidos.
+     */
+    private void discardTail(MappedByteBuffer buffer, int from) {
+        int dirty = -1;
+        for (int i = segmentSize - 1; i >= from; i--) {
+            if (buffer.get(i) != 0) {
+                dirty = i;
+                break;
+            }
+        }
+        if (dirty < 0) {
+            return;
+        }
+        for (int i = from; i <= dirty; i++) {
+            buffer.put(i, (byte) 0);
+        }
+        buffer.force();
+    }
+
+    /**
+     * Agrega registros al final del log.
+     *
+     * @return posición después del último registro, para pasar a sync()
+     * @throws IllegalArgumentException si un registro no cabe en un segmento
+     */
+    public synchronized long append(List<byte[]> records) throws IOException {
+        for (byte[] record : records) {
+            int needed = HEADER_BYTES + record.length;
+            if (needed > segmentSize) {
+                throw new IllegalArgumentException("Record of " + record.length
+                        + " bytes does not fit in a log segment");
+            }
+            if (writeOffset + needed > segmentSize) {
+                roll();
+            }
+            activeBuffer.putInt(writeOffset + 4, crc(record));
+            ByteBuffer target = activeBuffer.duplicate();
+            target.position(writeOffset + HEADER_BYTES);
+            target.put(record);
+            // La longitud se escribe al final: un registro sin longitud no existe
+            activeBuffer.putInt(writeOffset, record.length);
+            writeOffset += needed;
+        }
+        appendedPosition = activeSegment * segmentSize + writeOffset;
+        return appendedPosition;
+    }
+
+    private void roll() throws IOException {
+        activeBuffer.force();
+        MappedByteBuffer next = createSegment(activeSegment + 1);
+        activeSegment++;
+        activeBuffer = next;
+        writeOffset = 0;
+    }
+
+    /**
+     * Garantiza que todo lo escrito hasta position esté en disco. Si otro
+     * hilo ya forzó una posición igual o posterior, retorna sin escribir.
+     */
+    public void sync(long position) {
+        synchronized (syncLock) {
+            if (durablePosition >= position) {
+                return;
+            }
+            long target;
+            MappedByteBuffer buffer;
+            synchronized (this) {
+                target = appendedPosition;
+                buffer = activeBuffer;
+            }
+            // Los segmentos anteriores se forzaron al rotar
+            buffer.force();
+            durablePosition = target;
+        }
+    }
+
+    /**
+     * Lee registros a partir de from, sin pasar de la última posición escrita.
+     *
+     * @param out lista donde se agregan hasta maxRecords registros
+     * @return posición después del último registro leído (o de los finales
+     *         de segmento saltados)
+     */
+    public long read(long from, int maxRecords, List<byte[]> out) throws IOException {
+        long position = from;
+        long limit = appendedPosition;
+        while (out.size() < maxRecords && position < limit) {
+            long segment = position / segmentSize;
+            int offset = (int) (position % segmentSize);
+            ByteBuffer buffer = readBuffer(segment);
+            int length = offset + HEADER_BYTES <= segmentSize ? buffer.getInt(offset) : 0;
+            if (length == 0) {
+                // Fin de los datos de un segmento anterior al activo
+                position = (segment + 1) * segmentSize;
+                continue;
+            }
+            long skipTo;
+            if (length < 0 || length > segmentSize - offset - HEADER_BYTES) {
+                // Sin una longitud válida no se puede ubicar el registro siguiente en este segmento
+                skipTo = Math.min((segment + 1) * segmentSize, limit);
+            } else {
+                byte[] data = new byte[length];
+                readBytes(buffer, offset + HEADER_BYTES, data);
+                if (crc(data) == buffer.getInt(offset + 4)) {
+                    out.add(data);
+                    position += HEADER_BYTES + length;
+                    continue;
+                }
+                skipTo = position + HEADER_BYTES + length;
+            }
+            if (!out.isEmpty()) {
+                // Se entregan los registros válidos; la próxima lectura informa el dañado
+                return position;
+            }
+            throw new CorruptRecordException(position, skipTo);
+        }
+        return position;
+    }
+
+    private ByteBuffer readBuffer(long segment) throws IOException {
+        if (segment != readSegment) {
+            readBuffer = map(segment, FileChannel.MapMode.READ_ONLY);
+            readSegment = segment;
+        }
+        return readBuffer;
+    }
+
+    /**
+     * Marca como consumido todo lo anterior a position y borra los segmentos
+     * que quedaron completamente consumidos.
+     */
+    public void commit(long position) throws IOException {
+        Path tmp = dir.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+            buffer.putLong(position).flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, dir.resolve(CHECKPOINT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        checkpoint = position;
+
+        // El segmento activo nunca se borra, aunque ya se haya consumido entero
+        long deleteBefore = Math.min(position / segmentSize, activeSegmentSnapshot());
+        for (Long segment : segments.headSet(deleteBefore, false)) {
+            if (segment == readSegment) {
+                readSegment = -1;
+                readBuffer = null;
+            }
+            Files.deleteIfExists(segmentPath(segment));
+            segments.remove(segment);
+        }
+    }
+
+    private synchronized long activeSegmentSnapshot() {
+        return activeSegment;
+    }
+
+    public long getCheckpoint() {
+        return checkpoint;
+    }
+
+    public long getAppendedPosition() {
+        return appendedPosition;
+    }
+
+    /**
+     * Bytes escritos y todavía no consumidos (incluye finales de segmento
+     * sin usar).
+     */
+    public long pendingBytes() {
+        return appendedPosition - checkpoint;
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public void close() {
+        sync(Long.MAX_VALUE);
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path file = dir.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        if (bytes.length != Long.BYTES) {
+            throw new IOException("Invalid log checkpoint file " + file);
+        }
+        return ByteBuffer.wrap(bytes).getLong();
+    }
+
+    private MappedByteBuffer createSegment(long segment) throws IOException {
+        Path file = segmentPath(segment);
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(segmentSize);
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            segments.add(segment);
+            syncDirectory();
+            return buffer;
+        }
+    }
+
+    private MappedByteBuffer map(long segment, FileChannel.MapMode mode) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(segmentPath(segment).toFile(),
+                mode == FileChannel.MapMode.READ_ONLY ? "r" : "rw")) {
+            return raf.getChannel().map(mode, 0, segmentSize);
+        }
+    }
+
+    /**
+     * Persiste la entrada del directorio de un segmento nuevo. No todas las
+     * plataformas permiten abrir un directorio; en ese caso se omite.
+     */
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Best effort
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Registro con crc o longitud inválidos. getNextPosition() es la posición
+     * desde la que se puede seguir leyendo: el registro siguiente, o el fin
+     * del segmento si la longitud está dañada.
+     */
+    public static class CorruptRecordException extends IOException {
+
+        private final long position;
+        private final long nextPosition;
+
+        CorruptRecordException(long position, long nextPosition) {
+            super("Corrupt log record at position " + position);
+            this.position = position;
+            this.nextPosition = nextPosition;
+        }
+
+        public long getPosition() {
+            return position;
+        }
+
+        public long getNextPosition() {
+            return nextPosition;
+        }
+    }
+
+    private static void readBytes(ByteBuffer buffer, int offset, byte[] target) {
+        ByteBuffer source = buffer.duplicate();
+        source.position(offset);
+        source.get(target);
+    }
+
+    private static int crc(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,141 @@
+package com.miempresa.analytics.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resumen Space-Saving para encontrar los elementos más frecuentes de un
+ * flujo con memoria fija (capacity contadores).
+ *
+ * Cuando llega un elemento no monitoreado y no hay contadores libres, reemplaza
+ * al de menor cuenta y hereda esa cuenta como error. Cada cuenta sobreestima
+ * la real en a lo sumo su error; todo elemento con frecuencia mayor que
+ * total / capacity está garantizado entre los monitoreados.
+ *
+ * Los contadores forman un min-heap indexado, por lo que offer() es
+ * O(log capacity). No es thread-safe.
+ */
+public final class SpaceSaving {
+
+    private final int capacity;
+    private final Map<String, Counter> counters;
+    private final Counter[] heap;
+    private int size;
+    private long total;
+
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+        this.heap = new Counter[capacity];
+    }
+
+    /**
+     * Suma increment ocurrencias de item.
+     */
+    public void offer(String item, long increment) {
+        Counter counter = counters.get(item);
+        if (counter == null) {
+            if (size < capacity) {
+                counter = new Counter(item, 0, 0);
+                counter.heapIndex = size;
+                heap[size++] = counter;
+            } else {
+                // Se reutiliza el contador mínimo: hereda su cuenta como error
+                counter = heap[0];
+                counters.remove(counter.item);
+                counter.item = item;
+                counter.error = counter.count;
+            }
+            counters.put(item, counter);
+        }
+        counter.count += increment;
+        total += increment;
+        siftDown(counter.heapIndex);
+    }
+
+    /**
+     * Suma de todas las ocurrencias registradas (exacta).
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Cuenta mínima monitoreada si el resumen está lleno, o 0 si aún hay
+     * contadores libres (un elemento ausente tuvo entonces cero ocurrencias).
+     * Es la cota superior de la frecuencia de cualquier elemento no monitoreado.
+     */
+    public long minCount() {
+        return size < capacity ? 0 : heap[0].count;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Copia de los contadores monitoreados, sin orden definido.
+     */
+    public List<Counter> counters() {
+        List<Counter> copy = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            copy.add(new Counter(heap[i].item, heap[i].count, heap[i].error));
+        }
+        return copy;
+    }
+
+    private void siftDown(int index) {
+        Counter counter = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && heap[right].count < heap[child].count) {
+                child = right;
+            }
+            if (counter.count <= heap[child].count) {
+                break;
+            }
+            heap[index] = heap[child];
+            heap[index].heapIndex = index;
+            index = child;
+        }
+        heap[index] = counter;
+        counter.heapIndex = index;
+    }
+
+    /**
+     * Contador de un elemento: count sobreestima la frecuencia real en a lo
+     * sumo error.
+     */
+    public static final class Counter {
+
+        private String item;
+        private long count;
+        private long error;
+        private int heapIndex;
+
+        Counter(String item, long count, long error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+
+        public String getItem() {
+            return item;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.miempresa.analytics.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miempresa.analytics.repository.UIEventJdbcRepository;
+import com.miempresa.analytics.service.DimensionDictionary;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Escritor incremental de eventos para la exportación.
+ *
+ * Escribe cada fila del cursor JDBC directamente en la salida, sin crear
+ * entidades ni acumular filas en memoria. Las columnas se leen por posición
+ * en el orden de {@link UIEventJdbcRepository#EXPORT_COLUMNS}; las
+ * dimensiones llegan como códigos y se traducen con el diccionario en memoria.
+ */
+public abstract class UIEventExportWriter implements Closeable {
+
+    public static final String NDJSON_MEDIA_TYPE = UIEventStreamReader.NDJSON_MEDIA_TYPE;
+    public static final String CSV_MEDIA_TYPE = "text/csv";
+
+    // Mismo formato que UIEventResponse.createdAt
+    private static final DateTimeFormatter CREATED_AT_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    // Nombres de campo de UIEventResponse, en el orden de EXPORT_COLUMNS
+    private static final String[] JSON_FIELDS = {
+            "id", "type", "appId", "elementId", "elementType", "route", "userId", "metadata",
+            "coordinateX", "coordinateY", "screenWidth", "screenHeight", "createdAt"
+    };
+
+    private static final int ID = 1;
+    private static final int FIRST_STRING = 2;
+    private static final int FIRST_INT = 9;
+    private static final int CREATED_AT = 13;
+    // Por posición de columna: type_code, app_code, element_type_code y route_code son códigos
+    private static final boolean[] CODED = {
+            false, false, true, true, false, true, true, false, false, false, false, false, false, false
+    };
+
+    /**
+     * Crea un escritor NDJSON: un objeto JSON por línea con los campos de UIEventResponse.
+     */
+    public static UIEventExportWriter forNdjson(ObjectMapper objectMapper, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        // El separador de líneas se escribe a mano; sin esto Jackson antepone un espacio
+        generator.setRootValueSeparator(null);
+        return new NdjsonWriter(generator);
+    }
+
+    /**
+     * Crea un escritor CSV (RFC 4180) con fila de cabecera.
+     */
+    public static UIEventExportWriter forCsv(OutputStream out) throws IOException {
+        return new CsvWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Escribe la fila actual del ResultSet.
+     *
+     * @param dictionary Diccionario para traducir los códigos de dimensión
+     */
+    public abstract void write(ResultSet rs, DimensionDictionary dictionary) throws SQLException, IOException;
+
+    private static String readString(ResultSet rs, int column, DimensionDictionary dictionary) throws SQLException {
+        if (!CODED[column]) {
+            return rs.getString(column);
+        }
+        int code = rs.getInt(column);
+        return rs.wasNull() ? null : dictionary.decode(code);
+    }
+
+    private static String formatCreatedAt(ResultSet rs) throws SQLException {
+        Timestamp createdAt = rs.getTimestamp(CREATED_AT);
+        return createdAt != null ? CREATED_AT_FORMATTER.format(createdAt.toLocalDateTime()) : null;
+    }
+
+    private static final class NdjsonWriter extends UIEventExportWriter {
+
+        private final JsonGenerator generator;
+
+        NdjsonWriter(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        public void write(ResultSet rs, DimensionDictionary dictionary) throws SQLException, IOException {
+            generator.writeStartObject();
+            generator.writeNumberField(JSON_FIELDS[0], rs.getLong(ID));
+            for (int column = FIRST_STRING; column < FIRST_INT; column++) {
+                String value = readString(rs, column, dictionary);
+                if (value != null) {
+                    generator.writeStringField(JSON_FIELDS[column - 1], value);
+                } else {
+                    generator.writeNullField(JSON_FIELDS[column - 1]);
+                }
+            }
+            for (int column = FIRST_INT; column < CREATED_AT; column++) {
+                int value = rs.getInt(column);
+                if (rs.wasNull()) {
+                    generator.writeNullField(JSON_FIELDS[column - 1]);
+                } else {
+                    generator.writeNumberField(JSON_FIELDS[column - 1], value);
+                }
+            }
+            generator.writeStringField(JSON_FIELDS[CREATED_AT - 1], formatCreatedAt(rs));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+    private static final class CsvWriter extends UIEventExportWriter {
+
+        private final Writer writer;
+        private boolean headerWritten;
+
+        CsvWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void write(ResultSet rs, DimensionDictionary dictionary) throws SQLException, IOException {
+            writeHeaderIfNeeded();
+            writer.write(Long.toString(rs.getLong(ID)));
+            for (int column = FIRST_STRING; column < FIRST_INT; column++) {
+                writer.write(',');
+                writeField(readString(rs, column, dictionary));
+            }
+            for (int column = FIRST_INT; column < CREATED_AT; column++) {
+                writer.write(',');
+                int value = rs.getInt(column);
+                if (!rs.wasNull()) {
+                    writer.write(Integer.toString(value));
+                }
+            }
+            writer.write(',');
+            writeField(formatCreatedAt(rs));
+            writer.write("\r\n");
+        }
+
+        private void writeHeaderIfNeeded() throws IOException {
+            if (headerWritten) {
+                return;
+            }
+            headerWritten = true;
+            writer.write(String.join(",", UIEventJdbcRepository.EXPORT_COLUMNS));
+            writer.write("\r\n");
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Una exportación vacía igual lleva la cabecera
+            writeHeaderIfNeeded();
+            writer.close();
+        }
+    }
+}
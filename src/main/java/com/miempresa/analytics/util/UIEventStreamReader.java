@@ -0,0 +1,178 @@
+package com.miempresa.analytics.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.miempresa.analytics.dto.UIEventRequest;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lector incremental de eventos para la ingesta por lotes.
+ *
+ * Lee un registro a la vez desde el cuerpo de la petición, sin cargarlo
+ * completo en memoria. Soporta un arreglo de UIEventRequest en JSON o en un
+ * formato binario de Jackson (Smile, CBOR), o NDJSON (un objeto por línea).
+ * Un registro con tipos inválidos se reporta como error de ese registro; un
+ * error de sintaxis en un arreglo detiene la lectura porque no es posible
+ * resincronizar el parser.
+ */
+public abstract class UIEventStreamReader implements Closeable {
+
+    public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    public static final String SMILE_MEDIA_TYPE = "application/x-jackson-smile";
+    public static final String CBOR_MEDIA_TYPE = "application/cbor";
+
+    protected final ObjectMapper objectMapper;
+
+    protected UIEventStreamReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Crea un lector para un arreglo JSON: [{...}, {...}].
+     */
+    public static UIEventStreamReader forJsonArray(ObjectMapper objectMapper, InputStream in) throws IOException {
+        return forArray(objectMapper, in, "JSON");
+    }
+
+    /**
+     * Crea un lector para un arreglo en el formato de objectMapper (por
+     * ejemplo Smile o CBOR); los registros se leen igual que en JSON.
+     *
+     * @param formatName nombre del formato para los mensajes de error
+     */
+    public static UIEventStreamReader forArray(ObjectMapper objectMapper, InputStream in,
+                                               String formatName) throws IOException {
+        return new ArrayReader(objectMapper, objectMapper.getFactory().createParser(in), formatName);
+    }
+
+    /**
+     * Crea un lector para NDJSON: un objeto JSON por línea.
+     */
+    public static UIEventStreamReader forNdjson(ObjectMapper objectMapper, InputStream in) {
+        return new NdjsonReader(objectMapper,
+                new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Lee el siguiente registro.
+     *
+     * @return el siguiente registro, o null si no hay más
+     * @throws IOException si el cuerpo está mal formado y no se puede continuar
+     */
+    public abstract Record next() throws IOException;
+
+    protected Record toRecord(JsonNode node) {
+        if (node == null || !node.isObject()) {
+            return Record.invalid("record must be a JSON object");
+        }
+        try {
+            return Record.valid(objectMapper.treeToValue(node, UIEventRequest.class));
+        } catch (JsonProcessingException e) {
+            return Record.invalid("malformed record: " + e.getOriginalMessage());
+        }
+    }
+
+    /**
+     * Registro leído: contiene el request o el motivo por el que no se pudo leer.
+     */
+    public static final class Record {
+
+        private final UIEventRequest request;
+        private final String error;
+
+        private Record(UIEventRequest request, String error) {
+            this.request = request;
+            this.error = error;
+        }
+
+        static Record valid(UIEventRequest request) {
+            return new Record(request, null);
+        }
+
+        static Record invalid(String error) {
+            return new Record(null, error);
+        }
+
+        public UIEventRequest getRequest() {
+            return request;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    private static final class ArrayReader extends UIEventStreamReader {
+
+        private final JsonParser parser;
+        private final String formatName;
+        private boolean started;
+
+        ArrayReader(ObjectMapper objectMapper, JsonParser parser, String formatName) {
+            super(objectMapper);
+            this.parser = parser;
+            this.formatName = formatName;
+        }
+
+        @Override
+        public Record next() throws IOException {
+            if (!started) {
+                started = true;
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    throw new IOException("Request body must be a " + formatName + " array");
+                }
+            }
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.END_ARRAY) {
+                return null;
+            }
+            return toRecord(parser.readValueAsTree());
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+
+    private static final class NdjsonReader extends UIEventStreamReader {
+
+        private final BufferedReader reader;
+
+        NdjsonReader(ObjectMapper objectMapper, BufferedReader reader) {
+            super(objectMapper);
+            this.reader = reader;
+        }
+
+        @Override
+        public Record next() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    return toRecord(objectMapper.readTree(line));
+                } catch (JsonProcessingException e) {
+                    // Cada línea es independiente: se rechaza y se sigue con la próxima
+                    return Record.invalid("malformed record: " + e.getOriginalMessage());
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}